@@ -79,6 +79,28 @@ public final class HornetQBuffers
       return new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(underlying));
    }
 
+   /**
+    * Creates a <em>fixed</em> HornetQBuffer made of the readable bytes of the given buffers, in
+    * order
+    *
+    * The bytes are not copied, changes to them show in the created HornetQBuffer
+    *
+    * @param components the buffers to wrap
+    * @return a HornetQBuffer whose readable bytes are those of all the components
+    */
+   public static HornetQBuffer wrappedBuffer(final HornetQBuffer... components)
+   {
+      ChannelBuffer[] buffers = new ChannelBuffer[components.length];
+
+      for (int i = 0; i < components.length; i++)
+      {
+         buffers[i] = components[i].channelBuffer();
+      }
+
+      // gathering, so that NIO writes the components as they are instead of merging them first
+      return new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(true, buffers));
+   }
+
    /**
     * Creates a <em>fixed</em> HornetQBuffer of the given size
     *
@@ -0,0 +1,566 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A ConcurrentLongHashMap
+ * <p>
+ * A {@link ConcurrentMap} keyed by primitive longs, meant for maps holding millions of entries
+ * (e.g. the journal's record IDs). Entries are kept on lock-striped segments using open addressing
+ * with linear probing over a {@code long[]} of keys and an {@code Object[]} of values, so there is
+ * no boxed key nor node instance retained per entry.
+ * <p>
+ * The {@code long} overloads ({@link #get(long)}, {@link #put(long, Object)},
+ * {@link #remove(long)}...) should be used on hot paths as they don't box the key. Null values are
+ * not supported, just like on ConcurrentHashMap.
+ * <p>
+ * Iterators are weakly consistent: each segment is copied when the iterator reaches it.
+ */
+public class ConcurrentLongHashMap<V> extends AbstractMap<Long, V> implements ConcurrentMap<Long, V>
+{
+   private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+   private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+
+   private static final float LOAD_FACTOR = 0.75f;
+
+   /** Estimated size of a reference on the heap, used by {@link #getMemorySize()}. */
+   private static final int REFERENCE_SIZE = 8;
+
+   private final Segment<V>[] segments;
+
+   private final int segmentShift;
+
+   private final int initialSegmentCapacity;
+
+   private Set<Map.Entry<Long, V>> entrySet;
+
+   public ConcurrentLongHashMap()
+   {
+      this(DEFAULT_CONCURRENCY_LEVEL * DEFAULT_SEGMENT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+   }
+
+   @SuppressWarnings("unchecked")
+   public ConcurrentLongHashMap(final int initialCapacity, final int concurrencyLevel)
+   {
+      if (initialCapacity < 0 || concurrencyLevel <= 0)
+      {
+         throw new IllegalArgumentException("initialCapacity=" + initialCapacity +
+                                            ", concurrencyLevel=" +
+                                            concurrencyLevel);
+      }
+
+      int numberOfSegments = roundToPowerOfTwo(concurrencyLevel);
+
+      segmentShift = 32 - Integer.numberOfTrailingZeros(numberOfSegments);
+
+      initialSegmentCapacity = roundToPowerOfTwo(Math.max(2, (int)(initialCapacity / LOAD_FACTOR) / numberOfSegments));
+
+      segments = new Segment[numberOfSegments];
+
+      for (int i = 0; i < segments.length; i++)
+      {
+         segments[i] = new Segment<V>(initialSegmentCapacity);
+      }
+   }
+
+   // Primitive API -------------------------------------------------
+
+   public V get(final long key)
+   {
+      int hash = hash(key);
+      return segmentFor(hash).get(key, hash);
+   }
+
+   public boolean containsKey(final long key)
+   {
+      return get(key) != null;
+   }
+
+   public V put(final long key, final V value)
+   {
+      checkValue(value);
+      int hash = hash(key);
+      return segmentFor(hash).put(key, hash, value, false);
+   }
+
+   public V putIfAbsent(final long key, final V value)
+   {
+      checkValue(value);
+      int hash = hash(key);
+      return segmentFor(hash).put(key, hash, value, true);
+   }
+
+   public V remove(final long key)
+   {
+      int hash = hash(key);
+      return segmentFor(hash).remove(key, hash, null);
+   }
+
+   public boolean remove(final long key, final Object value)
+   {
+      if (value == null)
+      {
+         return false;
+      }
+      int hash = hash(key);
+      return segmentFor(hash).remove(key, hash, value) != null;
+   }
+
+   public boolean replace(final long key, final V oldValue, final V newValue)
+   {
+      checkValue(oldValue);
+      checkValue(newValue);
+      int hash = hash(key);
+      return segmentFor(hash).replace(key, hash, oldValue, newValue) != null;
+   }
+
+   public V replace(final long key, final V value)
+   {
+      checkValue(value);
+      int hash = hash(key);
+      return segmentFor(hash).replace(key, hash, null, value);
+   }
+
+   /**
+    * @return an estimate of the heap used by the index itself (keys and value slots, including the
+    *         free slots), not counting the value instances.
+    */
+   public long getMemorySize()
+   {
+      long size = 0;
+      for (Segment<V> segment : segments)
+      {
+         size += (long)segment.capacity() * (DataConstants.SIZE_LONG + REFERENCE_SIZE);
+      }
+      return size;
+   }
+
+   // Map implementation --------------------------------------------
+
+   @Override
+   public int size()
+   {
+      long size = 0;
+      for (Segment<V> segment : segments)
+      {
+         size += segment.size;
+      }
+      return (int)Math.min(size, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public boolean isEmpty()
+   {
+      for (Segment<V> segment : segments)
+      {
+         if (segment.size != 0)
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public V get(final Object key)
+   {
+      if (!(key instanceof Long))
+      {
+         return null;
+      }
+      return get(((Long)key).longValue());
+   }
+
+   @Override
+   public boolean containsKey(final Object key)
+   {
+      return get(key) != null;
+   }
+
+   @Override
+   public V put(final Long key, final V value)
+   {
+      return put(key.longValue(), value);
+   }
+
+   public V putIfAbsent(final Long key, final V value)
+   {
+      return putIfAbsent(key.longValue(), value);
+   }
+
+   @Override
+   public V remove(final Object key)
+   {
+      if (!(key instanceof Long))
+      {
+         return null;
+      }
+      return remove(((Long)key).longValue());
+   }
+
+   public boolean remove(final Object key, final Object value)
+   {
+      if (!(key instanceof Long))
+      {
+         return false;
+      }
+      return remove(((Long)key).longValue(), value);
+   }
+
+   public boolean replace(final Long key, final V oldValue, final V newValue)
+   {
+      return replace(key.longValue(), oldValue, newValue);
+   }
+
+   public V replace(final Long key, final V value)
+   {
+      return replace(key.longValue(), value);
+   }
+
+   @Override
+   public void clear()
+   {
+      for (Segment<V> segment : segments)
+      {
+         segment.clear();
+      }
+   }
+
+   @Override
+   public Set<Map.Entry<Long, V>> entrySet()
+   {
+      if (entrySet == null)
+      {
+         entrySet = new EntrySet();
+      }
+      return entrySet;
+   }
+
+   // Private -------------------------------------------------------
+
+   private Segment<V> segmentFor(final int hash)
+   {
+      return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+   }
+
+   private static void checkValue(final Object value)
+   {
+      if (value == null)
+      {
+         throw new NullPointerException("null values are not supported");
+      }
+   }
+
+   private static int roundToPowerOfTwo(final int value)
+   {
+      int result = 1;
+      while (result < value)
+      {
+         result <<= 1;
+      }
+      return result;
+   }
+
+   /** Murmur3 finalizer, so sequential IDs spread over segments and slots. */
+   static int hash(final long key)
+   {
+      long h = key;
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+      return (int)h;
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Segment<V>
+   {
+      private final int initialCapacity;
+
+      private long[] keys;
+
+      private Object[] values;
+
+      // a slot is free when its value is null
+      private volatile int size;
+
+      Segment(final int initialCapacity)
+      {
+         this.initialCapacity = initialCapacity;
+         keys = new long[initialCapacity];
+         values = new Object[initialCapacity];
+      }
+
+      synchronized int capacity()
+      {
+         return keys.length;
+      }
+
+      @SuppressWarnings("unchecked")
+      synchronized V get(final long key, final int hash)
+      {
+         int slot = find(key, hash);
+         return slot < 0 ? null : (V)values[slot];
+      }
+
+      @SuppressWarnings("unchecked")
+      synchronized V put(final long key, final int hash, final V value, final boolean onlyIfAbsent)
+      {
+         int mask = keys.length - 1;
+         int slot = hash & mask;
+
+         while (values[slot] != null)
+         {
+            if (keys[slot] == key)
+            {
+               V previous = (V)values[slot];
+               if (!onlyIfAbsent)
+               {
+                  values[slot] = value;
+               }
+               return previous;
+            }
+            slot = (slot + 1) & mask;
+         }
+
+         keys[slot] = key;
+         values[slot] = value;
+         size++;
+
+         if (size > keys.length * LOAD_FACTOR)
+         {
+            rehash(keys.length << 1);
+         }
+
+         return null;
+      }
+
+      @SuppressWarnings("unchecked")
+      synchronized V replace(final long key, final int hash, final V expected, final V value)
+      {
+         int slot = find(key, hash);
+         if (slot < 0 || expected != null && !expected.equals(values[slot]))
+         {
+            return null;
+         }
+         V previous = (V)values[slot];
+         values[slot] = value;
+         return previous;
+      }
+
+      /**
+       * @param expected if not null, the entry is only removed when mapped to an equal value
+       */
+      @SuppressWarnings("unchecked")
+      synchronized V remove(final long key, final int hash, final Object expected)
+      {
+         int slot = find(key, hash);
+         if (slot < 0 || expected != null && !expected.equals(values[slot]))
+         {
+            return null;
+         }
+
+         V previous = (V)values[slot];
+
+         deleteSlot(slot);
+
+         size--;
+
+         // give memory back after a large backlog is consumed
+         if (keys.length > initialCapacity && size < keys.length >>> 3)
+         {
+            rehash(Math.max(initialCapacity, keys.length >>> 1));
+         }
+
+         return previous;
+      }
+
+      synchronized void clear()
+      {
+         keys = new long[initialCapacity];
+         values = new Object[initialCapacity];
+         size = 0;
+      }
+
+      synchronized List<Map.Entry<Long, V>> snapshot()
+      {
+         List<Map.Entry<Long, V>> entries = new ArrayList<Map.Entry<Long, V>>(size);
+         for (int i = 0; i < values.length; i++)
+         {
+            if (values[i] != null)
+            {
+               @SuppressWarnings("unchecked")
+               V value = (V)values[i];
+               entries.add(new SimpleImmutableEntry<Long, V>(keys[i], value));
+            }
+         }
+         return entries;
+      }
+
+      private int find(final long key, final int hash)
+      {
+         int mask = keys.length - 1;
+         int slot = hash & mask;
+
+         while (values[slot] != null)
+         {
+            if (keys[slot] == key)
+            {
+               return slot;
+            }
+            slot = (slot + 1) & mask;
+         }
+
+         return -1;
+      }
+
+      /** Backward shift deletion, so probe sequences don't need tombstones. */
+      private void deleteSlot(int free)
+      {
+         int mask = keys.length - 1;
+         int slot = free;
+
+         while (true)
+         {
+            slot = (slot + 1) & mask;
+
+            if (values[slot] == null)
+            {
+               break;
+            }
+
+            int ideal = hash(keys[slot]) & mask;
+
+            // move the entry back unless its ideal slot lies cyclically in (free, slot]
+            boolean stays = free <= slot ? free < ideal && ideal <= slot : free < ideal || ideal <= slot;
+
+            if (!stays)
+            {
+               keys[free] = keys[slot];
+               values[free] = values[slot];
+               free = slot;
+            }
+         }
+
+         values[free] = null;
+      }
+
+      private void rehash(final int newCapacity)
+      {
+         long[] oldKeys = keys;
+         Object[] oldValues = values;
+
+         keys = new long[newCapacity];
+         values = new Object[newCapacity];
+
+         int mask = newCapacity - 1;
+
+         for (int i = 0; i < oldValues.length; i++)
+         {
+            if (oldValues[i] != null)
+            {
+               int slot = hash(oldKeys[i]) & mask;
+               while (values[slot] != null)
+               {
+                  slot = (slot + 1) & mask;
+               }
+               keys[slot] = oldKeys[i];
+               values[slot] = oldValues[i];
+            }
+         }
+      }
+   }
+
+   private final class EntrySet extends AbstractSet<Map.Entry<Long, V>>
+   {
+      @Override
+      public Iterator<Map.Entry<Long, V>> iterator()
+      {
+         return new EntryIterator();
+      }
+
+      @Override
+      public int size()
+      {
+         return ConcurrentLongHashMap.this.size();
+      }
+
+      @Override
+      public boolean isEmpty()
+      {
+         return ConcurrentLongHashMap.this.isEmpty();
+      }
+
+      @Override
+      public void clear()
+      {
+         ConcurrentLongHashMap.this.clear();
+      }
+   }
+
+   private final class EntryIterator implements Iterator<Map.Entry<Long, V>>
+   {
+      private int nextSegment = 0;
+
+      private Iterator<Map.Entry<Long, V>> current;
+
+      private Map.Entry<Long, V> last;
+
+      public boolean hasNext()
+      {
+         while (current == null || !current.hasNext())
+         {
+            if (nextSegment >= segments.length)
+            {
+               return false;
+            }
+            current = segments[nextSegment++].snapshot().iterator();
+         }
+         return true;
+      }
+
+      public Map.Entry<Long, V> next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+         last = current.next();
+         return last;
+      }
+
+      public void remove()
+      {
+         if (last == null)
+         {
+            throw new IllegalStateException();
+         }
+         ConcurrentLongHashMap.this.remove(last.getKey().longValue(), last.getValue());
+         last = null;
+      }
+   }
+}
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQPropertyConversionException;
 import org.hornetq.api.core.SimpleString;
 
@@ -57,6 +58,23 @@ public final class TypedProperties
 
    private boolean internalProperties;
 
+   /**
+    * The encoded properties as {@link #decode(HornetQBuffer)} read them, until they are changed.
+    * Properties are looked up in it and only decoded when read, and {@link #encode(HornetQBuffer)}
+    * just copies it.
+    */
+   private byte[] encoded;
+
+   /**
+    * The offset of each property in {@link #encoded}
+    */
+   private int[] encodedOffsets;
+
+   /**
+    * The values already decoded from {@link #encoded}, by property
+    */
+   private PropertyValue[] encodedValues;
+
    public TypedProperties()
    {
    }
@@ -67,13 +85,26 @@ public final class TypedProperties
       // Note we don't include the attributes or anything else since they already included in the memory estimate
       // of the ServerMessage
 
+      if (encoded != null)
+      {
+         return size + DataConstants.SIZE_INT * encodedOffsets.length;
+      }
+
       return properties == null ? 0 : size + 2 * DataConstants.SIZE_INT * properties.size();
    }
 
    public TypedProperties(final TypedProperties other)
    {
-      properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
-      size = other.size;
+      synchronized (other)
+      {
+         properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
+         size = other.size;
+
+         // never changed, so it can be shared
+         encoded = other.encoded;
+         encodedOffsets = other.encodedOffsets;
+         encodedValues = other.encodedValues == null ? null : other.encodedValues.clone();
+      }
    }
 
    public boolean hasInternalProperties()
@@ -149,7 +180,14 @@ public final class TypedProperties
 
    public void putTypedProperties(final TypedProperties otherProps)
    {
-      if (otherProps == null || otherProps.properties == null)
+      if (otherProps == null)
+      {
+         return;
+      }
+
+      otherProps.materialize();
+
+      if (otherProps.properties == null)
       {
          return;
       }
@@ -425,13 +463,17 @@ public final class TypedProperties
       return doRemoveProperty(key);
    }
 
-   public boolean containsProperty(final SimpleString key)
+   public synchronized boolean containsProperty(final SimpleString key)
    {
       if (size == 0)
       {
          return false;
 
       }
+      else if (encoded != null)
+      {
+         return findEncoded(key) >= 0;
+      }
       else
       {
          return properties.containsKey(key);
@@ -446,14 +488,24 @@ public final class TypedProperties
       }
       else
       {
+         materialize();
+
          return properties.keySet();
       }
    }
 
+   /**
+    * Only walks through the properties, to find where they are. They are kept encoded and decoded
+    * one by one as they are read, or all of them once they are changed.
+    */
    public synchronized void decode(final HornetQBuffer buffer)
    {
+      int start = buffer.readerIndex();
+
       byte b = buffer.readByte();
 
+      clearEncoded();
+
       if (b == DataConstants.NULL)
       {
          properties = null;
@@ -462,100 +514,41 @@ public final class TypedProperties
       {
          int numHeaders = buffer.readInt();
 
-         properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
-         size = 0;
+         properties = null;
+
+         int[] offsets = new int[numHeaders];
 
          for (int i = 0; i < numHeaders; i++)
          {
-            int len = buffer.readInt();
-            byte[] data = new byte[len];
-            buffer.readBytes(data);
-            SimpleString key = new SimpleString(data);
+            offsets[i] = buffer.readerIndex() - start;
 
-            byte type = buffer.readByte();
-
-            PropertyValue val;
+            int len = buffer.readInt();
 
-            switch (type)
+            if (!internalProperties && startsWith(buffer, buffer.readerIndex(), len, HQ_PROPNAME))
             {
-               case NULL:
-               {
-                  val = new NullValue();
-                  doPutValue(key, val);
-                  break;
-               }
-               case CHAR:
-               {
-                  val = new CharValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BOOLEAN:
-               {
-                  val = new BooleanValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTE:
-               {
-                  val = new ByteValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTES:
-               {
-                  val = new BytesValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case SHORT:
-               {
-                  val = new ShortValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case INT:
-               {
-                  val = new IntValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case LONG:
-               {
-                  val = new LongValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case FLOAT:
-               {
-                  val = new FloatValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case DOUBLE:
-               {
-                  val = new DoubleValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case STRING:
-               {
-                  val = new StringValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               default:
-               {
-                  throw HornetQUtilBundle.BUNDLE.invalidType(type);
-               }
+               internalProperties = true;
             }
+
+            buffer.skipBytes(len);
+
+            skipValue(buffer, buffer.readByte());
          }
+
+         encoded = new byte[buffer.readerIndex() - start];
+         buffer.getBytes(start, encoded);
+         encodedOffsets = offsets;
+
+         size = encoded.length - DataConstants.SIZE_BYTE - DataConstants.SIZE_INT;
       }
    }
 
    public synchronized void encode(final HornetQBuffer buffer)
    {
-      if (properties == null)
+      if (encoded != null)
+      {
+         buffer.writeBytes(encoded);
+      }
+      else if (properties == null)
       {
          buffer.writeByte(DataConstants.NULL);
       }
@@ -577,9 +570,9 @@ public final class TypedProperties
       }
    }
 
-   public int getEncodeSize()
+   public synchronized int getEncodeSize()
    {
-      if (properties == null)
+      if (properties == null && encoded == null)
       {
          return DataConstants.SIZE_BYTE;
       }
@@ -591,6 +584,8 @@ public final class TypedProperties
 
    public void clear()
    {
+      materialize();
+
       if (properties != null)
       {
          properties.clear();
@@ -600,6 +595,8 @@ public final class TypedProperties
    @Override
    public String toString()
    {
+      materialize();
+
       return "TypedProperties[" + properties + "]";
    }
 
@@ -607,6 +604,8 @@ public final class TypedProperties
 
    private void checkCreateProperties()
    {
+      materialize();
+
       if (properties == null)
       {
          properties = new HashMap<SimpleString, PropertyValue>();
@@ -633,6 +632,16 @@ public final class TypedProperties
 
    private synchronized Object doRemoveProperty(final SimpleString key)
    {
+      if (encoded != null)
+      {
+         if (findEncoded(key) < 0)
+         {
+            return null;
+         }
+
+         materialize();
+      }
+
       if (properties == null)
       {
          return null;
@@ -659,7 +668,18 @@ public final class TypedProperties
          return null;
       }
 
-      PropertyValue val = properties.get(key);
+      PropertyValue val;
+
+      if (encoded != null)
+      {
+         int index = findEncoded((SimpleString)key);
+
+         val = index < 0 ? null : getEncodedValue(index);
+      }
+      else
+      {
+         val = properties.get(key);
+      }
 
       if (val == null)
       {
@@ -671,6 +691,191 @@ public final class TypedProperties
       }
    }
 
+   /**
+    * Decodes all the properties kept encoded, before they are changed or listed.
+    */
+   private synchronized void materialize()
+   {
+      if (encoded == null)
+      {
+         return;
+      }
+
+      HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(encoded);
+      buffer.readerIndex(DataConstants.SIZE_BYTE);
+
+      int numHeaders = buffer.readInt();
+
+      clearEncoded();
+
+      properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
+      size = 0;
+
+      for (int i = 0; i < numHeaders; i++)
+      {
+         int len = buffer.readInt();
+         byte[] data = new byte[len];
+         buffer.readBytes(data);
+         SimpleString key = new SimpleString(data);
+
+         doPutValue(key, decodeValue(buffer, buffer.readByte()));
+      }
+   }
+
+   private void clearEncoded()
+   {
+      encoded = null;
+      encodedOffsets = null;
+      encodedValues = null;
+   }
+
+   /**
+    * @return the index of the property in {@link #encodedOffsets}, or -1
+    */
+   private int findEncoded(final SimpleString key)
+   {
+      byte[] data = key.getData();
+
+      for (int i = 0; i < encodedOffsets.length; i++)
+      {
+         int offset = encodedOffsets[i];
+
+         if (readInt(encoded, offset) == data.length && regionMatches(encoded, offset + DataConstants.SIZE_INT, data))
+         {
+            return i;
+         }
+      }
+
+      return -1;
+   }
+
+   private PropertyValue getEncodedValue(final int index)
+   {
+      if (encodedValues == null)
+      {
+         encodedValues = new PropertyValue[encodedOffsets.length];
+      }
+
+      PropertyValue value = encodedValues[index];
+
+      if (value == null)
+      {
+         int offset = encodedOffsets[index];
+
+         HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(encoded);
+         buffer.readerIndex(offset + DataConstants.SIZE_INT + readInt(encoded, offset));
+
+         value = decodeValue(buffer, buffer.readByte());
+
+         encodedValues[index] = value;
+      }
+
+      return value;
+   }
+
+   private static PropertyValue decodeValue(final HornetQBuffer buffer, final byte type)
+   {
+      switch (type)
+      {
+         case NULL:
+            return new NullValue();
+         case CHAR:
+            return new CharValue(buffer);
+         case BOOLEAN:
+            return new BooleanValue(buffer);
+         case BYTE:
+            return new ByteValue(buffer);
+         case BYTES:
+            return new BytesValue(buffer);
+         case SHORT:
+            return new ShortValue(buffer);
+         case INT:
+            return new IntValue(buffer);
+         case LONG:
+            return new LongValue(buffer);
+         case FLOAT:
+            return new FloatValue(buffer);
+         case DOUBLE:
+            return new DoubleValue(buffer);
+         case STRING:
+            return new StringValue(buffer);
+         default:
+            throw HornetQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
+   private static void skipValue(final HornetQBuffer buffer, final byte type)
+   {
+      switch (type)
+      {
+         case NULL:
+            break;
+         case BOOLEAN:
+         case BYTE:
+            buffer.skipBytes(DataConstants.SIZE_BYTE);
+            break;
+         case CHAR:
+         case SHORT:
+            buffer.skipBytes(DataConstants.SIZE_SHORT);
+            break;
+         case INT:
+         case FLOAT:
+            buffer.skipBytes(DataConstants.SIZE_INT);
+            break;
+         case LONG:
+         case DOUBLE:
+            buffer.skipBytes(DataConstants.SIZE_LONG);
+            break;
+         case BYTES:
+         case STRING:
+            buffer.skipBytes(buffer.readInt());
+            break;
+         default:
+            throw HornetQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
+   private static boolean startsWith(final HornetQBuffer buffer, final int index, final int length, final SimpleString prefix)
+   {
+      byte[] data = prefix.getData();
+
+      if (length < data.length)
+      {
+         return false;
+      }
+
+      for (int i = 0; i < data.length; i++)
+      {
+         if (buffer.getByte(index + i) != data[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static boolean regionMatches(final byte[] bytes, final int offset, final byte[] data)
+   {
+      for (int i = 0; i < data.length; i++)
+      {
+         if (bytes[offset + i] != data[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static int readInt(final byte[] bytes, final int offset)
+   {
+      return (bytes[offset] & 0xff) << 24 |
+             (bytes[offset + 1] & 0xff) << 16 |
+             (bytes[offset + 2] & 0xff) << 8 |
+             bytes[offset + 3] & 0xff;
+   }
+
    // Inner classes ------------------------------------------------------------------------------
 
    private static abstract class PropertyValue
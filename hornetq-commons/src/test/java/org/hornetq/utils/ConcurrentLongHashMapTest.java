@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ConcurrentLongHashMapTest extends TestCase
+{
+
+   public void testPutGetRemove()
+   {
+      ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<String>();
+
+      assertTrue(map.isEmpty());
+      assertNull(map.put(0, "zero"));
+      assertNull(map.put(-1, "minus"));
+      assertNull(map.put(Long.MAX_VALUE, "max"));
+      assertEquals("zero", map.put(0, "zero2"));
+      assertEquals(3, map.size());
+
+      assertEquals("zero2", map.get(0));
+      assertEquals("minus", map.get(Long.valueOf(-1)));
+      assertNull(map.get(1));
+      assertNull(map.get("not a long"));
+
+      assertEquals("max", map.putIfAbsent(Long.MAX_VALUE, "other"));
+      assertFalse(map.remove(-1, "other"));
+      assertTrue(map.remove(-1, "minus"));
+      assertEquals("zero2", map.remove(0));
+      assertNull(map.remove(0));
+      assertEquals(1, map.size());
+
+      map.clear();
+      assertTrue(map.isEmpty());
+   }
+
+   public void testCompareWithHashMap()
+   {
+      ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<Long>(4, 2);
+      Map<Long, Long> expected = new HashMap<Long, Long>();
+      Random random = new Random(1);
+
+      for (int i = 0; i < 100000; i++)
+      {
+         // a small key range so removes hit and probe chains collide
+         long key = random.nextInt(5000);
+         if (random.nextBoolean())
+         {
+            assertEquals(expected.put(key, (long)i), map.put(key, Long.valueOf(i)));
+         }
+         else
+         {
+            assertEquals(expected.remove(key), map.remove(key));
+         }
+      }
+
+      assertEquals(expected.size(), map.size());
+      assertEquals(expected, map);
+
+      for (Iterator<Long> iter = map.keySet().iterator(); iter.hasNext();)
+      {
+         if (iter.next() % 2 == 0)
+         {
+            iter.remove();
+         }
+      }
+
+      for (Map.Entry<Long, Long> entry : expected.entrySet())
+      {
+         assertEquals(entry.getKey() % 2 == 0 ? null : entry.getValue(), map.get(entry.getKey()));
+      }
+   }
+
+   public void testShrinksAfterRemove()
+   {
+      ConcurrentLongHashMap<Boolean> map = new ConcurrentLongHashMap<Boolean>();
+      long initialMemory = map.getMemorySize();
+
+      for (long i = 0; i < 100000; i++)
+      {
+         map.put(i, Boolean.TRUE);
+      }
+
+      assertTrue(map.getMemorySize() > initialMemory);
+
+      for (long i = 0; i < 100000; i++)
+      {
+         assertEquals(Boolean.TRUE, map.remove(i));
+      }
+
+      assertEquals(0, map.size());
+      assertEquals(initialMemory, map.getMemorySize());
+   }
+
+   public void testConcurrentAccess() throws Exception
+   {
+      final ConcurrentLongHashMap<Integer> map = new ConcurrentLongHashMap<Integer>();
+      final int threads = 8;
+      final int perThread = 10000;
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      Thread[] workers = new Thread[threads];
+      for (int t = 0; t < threads; t++)
+      {
+         final int base = t * perThread;
+         workers[t] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  start.await();
+                  for (int i = 0; i < perThread; i++)
+                  {
+                     map.put(base + i, i);
+                  }
+                  for (int i = 0; i < perThread; i += 2)
+                  {
+                     if (map.remove(base + i) == null)
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+               }
+               catch (Throwable e)
+               {
+                  errors.incrementAndGet();
+               }
+            }
+         };
+         workers[t].start();
+      }
+
+      start.countDown();
+
+      for (Thread worker : workers)
+      {
+         worker.join();
+      }
+
+      assertEquals(0, errors.get());
+      assertEquals(threads * perThread / 2, map.size());
+      assertEquals(Integer.valueOf(1), map.get(1));
+   }
+}
@@ -57,6 +57,7 @@ public final class HornetQDefaultConfiguration
    public static final int DEFAULT_JOURNAL_COMPACT_MIN_FILES = 10;
    public static final int DEFAULT_JOURNAL_COMPACT_PERCENTAGE = 30;
    public static final int DEFAULT_JOURNAL_MIN_FILES = 2;
+   public static final int DEFAULT_JOURNAL_LOAD_THREADS = 1;
    public static final int DEFAULT_JOURNAL_MAX_IO_AIO = 500;
    public static final int DEFAULT_JOURNAL_BUFFER_TIMEOUT_AIO = JournalConstants.DEFAULT_JOURNAL_BUFFER_TIMEOUT_AIO;
    public static final int DEFAULT_JOURNAL_BUFFER_SIZE_AIO = JournalConstants.DEFAULT_JOURNAL_BUFFER_SIZE_AIO;
@@ -84,7 +85,10 @@ public final class HornetQDefaultConfiguration
    public static final long DEFAULT_BROADCAST_REFRESH_TIMEOUT = 10000;
    public static final long DEFAULT_MESSAGE_EXPIRY_SCAN_PERIOD = 30000;
    public static final int DEFAULT_MESSAGE_EXPIRY_THREAD_PRIORITY = 3;
+   public static final long DEFAULT_SCHEDULED_SPILL_DELAY = -1;
    public static final int DEFAULT_ID_CACHE_SIZE = 20000;
+   public static final long DEFAULT_ID_CACHE_WINDOW = -1;
+   public static final int DEFAULT_ID_CACHE_RATE = -1;
    public static final boolean DEFAULT_PERSIST_ID_CACHE = true;
    public static final boolean DEFAULT_CLUSTER_DUPLICATE_DETECTION = true;
    public static final boolean DEFAULT_CLUSTER_FORWARD_WHEN_NO_CONSUMERS = false;
@@ -98,6 +102,8 @@ public final class HornetQDefaultConfiguration
    public static final boolean DEFAULT_DIVERT_EXCLUSIVE = false;
    public static final boolean DEFAULT_BRIDGE_DUPLICATE_DETECTION = true;
    public static final int DEFAULT_BRIDGE_RECONNECT_ATTEMPTS = -1;
+   public static final int DEFAULT_BRIDGE_ACK_BATCH_SIZE = 100;
+   public static final long DEFAULT_BRIDGE_ACK_BATCH_DELAY = 1000; // in microseconds
    public static final long DEFAULT_SERVER_DUMP_INTERVAL = -1;
    public static final boolean DEFAULT_FAILOVER_ON_SERVER_SHUTDOWN = false;
    public static final int DEFAULT_MEMORY_WARNING_THRESHOLD = 25;
@@ -107,6 +113,7 @@ public final class HornetQDefaultConfiguration
    public static final boolean DEFAULT_MASK_PASSWORD = false;
    public static final long DEFAULT_CLUSTER_NOTIFICATION_INTERVAL = 1000;
    public static final int DEFAULT_CLUSTER_NOTIFICATION_ATTEMPTS = 2;
+   public static final int DEFAULT_CLUSTER_BRIDGE_CONNECTIONS = 1;
 
    //properties passed to acceptor/connectors.
    public static final String PROP_MASK_PASSWORD = "hornetq.usemaskedpassword";
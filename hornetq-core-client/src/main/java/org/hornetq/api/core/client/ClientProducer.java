@@ -88,6 +88,39 @@ public interface ClientProducer
     */
    void send(String address, Message message) throws HornetQException;
 
+   /**
+    * Sends a message to an address specified in {@link ClientSession#createProducer(String)} or
+    * similar methods, without waiting for the server to confirm it. <br>
+    * <br>
+    * The returned {@link SendCompletion} completes once the server has confirmed the send, or
+    * reports why it failed, whatever {@link ServerLocator#setBlockOnDurableSend(boolean)} and
+    * {@link ServerLocator#setBlockOnNonDurableSend(boolean)} are set to. This call only blocks if
+    * {@link ServerLocator#setProducerMaxPendingSends(int)} sends of this producer are waiting for
+    * their confirmation. <br>
+    * <br>
+    * The confirmations come with the session's confirmation window, see
+    * {@link ServerLocator#setConfirmationWindowSize(int)}. If the session has no confirmation
+    * window, if the server is too old to report failed sends, or if the message is a large message,
+    * the message is sent as with {@link #send(Message)} blocking and the returned completion is
+    * already done.
+    * @param message the message to send
+    * @return the completion of the send
+    * @throws HornetQException if an exception occurs while sending the message
+    */
+   SendCompletion sendAsync(Message message) throws HornetQException;
+
+   /**
+    * Sends a message to the specified address instead of the ClientProducer's address, without
+    * waiting for the server to confirm it. <br>
+    * <br>
+    * See {@link #sendAsync(Message)}.
+    * @param address the address where the message will be sent
+    * @param message the message to send
+    * @return the completion of the send
+    * @throws HornetQException if an exception occurs while sending the message
+    */
+   SendCompletion sendAsync(SimpleString address, Message message) throws HornetQException;
+
    /**
     * Closes the ClientProducer. If already closed nothing is done.
     *
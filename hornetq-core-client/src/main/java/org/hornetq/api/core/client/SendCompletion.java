@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.api.core.client;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.Message;
+
+/**
+ * A SendCompletion tracks a message sent with {@link ClientProducer#sendAsync(Message)}.
+ * <p>
+ * It is done once the server has confirmed the send, which for a durable message happens after the
+ * message has been persisted, or once the send has failed. In a transacted session the server
+ * confirms the send when it has added the message to the transaction.
+ */
+public interface SendCompletion
+{
+   /**
+    * Returns the message that was sent.
+    *
+    * @return the message that was sent
+    */
+   Message getMessage();
+
+   /**
+    * Returns whether the send has completed, successfully or not.
+    *
+    * @return <code>true</code> if the send has completed, <code>false</code> else
+    */
+   boolean isDone();
+
+   /**
+    * Returns why the send failed.
+    *
+    * @return the exception that made the send fail, or <code>null</code> if the send has not
+    *         completed yet or has succeeded
+    */
+   HornetQException getException();
+
+   /**
+    * Waits for the send to complete.
+    *
+    * @param timeout how long to wait, in milliseconds
+    * @return <code>true</code> if the send has completed, <code>false</code> if the timeout expired
+    * @throws HornetQException if the send failed
+    */
+   boolean waitCompletion(long timeout) throws HornetQException;
+
+   /**
+    * Sets the listener to call when the send completes. If the send has already completed, the
+    * listener is called straight away.
+    * <p>
+    * The listener is called from the thread handling the server's packets, so it must not block.
+    *
+    * @param listener the listener to call when the send completes
+    */
+   void setListener(SendCompletionListener listener);
+}
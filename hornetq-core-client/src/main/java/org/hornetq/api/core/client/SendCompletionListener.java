@@ -0,0 +1,30 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.api.core.client;
+
+/**
+ * A SendCompletionListener is notified when a message sent with
+ * {@link ClientProducer#sendAsync(org.hornetq.api.core.Message)} has been confirmed by the server or
+ * has failed.
+ */
+public interface SendCompletionListener
+{
+   /**
+    * Notifies that a send has completed. {@link SendCompletion#getException()} tells whether it
+    * failed.
+    *
+    * @param completion the completed send
+    */
+   void sendCompleted(SendCompletion completion);
+}
@@ -304,6 +304,70 @@ public interface ServerLocator
     */
    void setProducerMaxRate(int producerMaxRate);
 
+   /**
+    * Returns the maximum number of messages a producer created through this factory may have sent
+    * with {@link ClientProducer#sendAsync(org.hornetq.api.core.Message)} and not yet seen confirmed.
+    *
+    * Value is -1 (to disable) or a positive integer. Default value is {@link HornetQClient#DEFAULT_PRODUCER_MAX_PENDING_SENDS}.
+    *
+    * @return the maximum number of sends waiting for their confirmation, per producer
+    */
+   int getProducerMaxPendingSends();
+
+   /**
+    * Sets the maximum number of messages a producer created through this factory may have sent
+    * with {@link ClientProducer#sendAsync(org.hornetq.api.core.Message)} and not yet seen confirmed.
+    * Once the limit is reached, sendAsync blocks until a confirmation comes back.
+    *
+    * Value must be -1 (to disable) or a positive integer.
+    *
+    * @param producerMaxPendingSends maximum number of sends waiting for their confirmation, per producer
+    */
+   void setProducerMaxPendingSends(int producerMaxPendingSends);
+
+   /**
+    * Returns the number of bytes of non-blocking sends a session created through this factory
+    * gathers before sending them to the server in a single packet.
+    *
+    * Value is -1 (to disable) or a positive integer. Default value is {@link HornetQClient#DEFAULT_PRODUCER_BATCH_SIZE}.
+    *
+    * @return the size of the send batches, in bytes
+    */
+   int getProducerBatchSize();
+
+   /**
+    * Sets the number of bytes of non-blocking sends a session created through this factory
+    * gathers before sending them to the server in a single packet.
+    * <p>
+    * Sends that block, large messages and sends of {@link ClientProducer#sendAsync(org.hornetq.api.core.Message)}
+    * are never batched, and any other operation of the session sends the pending batch first.
+    *
+    * Value must be -1 (to disable) or a positive integer.
+    *
+    * @param producerBatchSize size of the send batches, in bytes
+    */
+   void setProducerBatchSize(int producerBatchSize);
+
+   /**
+    * Returns the longest time, in microseconds, a send waits in a batch that hasn't reached
+    * {@link #getProducerBatchSize()} before the batch is sent.
+    *
+    * Default value is {@link HornetQClient#DEFAULT_PRODUCER_BATCH_TIMEOUT}.
+    *
+    * @return the time a send may wait in a batch, in microseconds
+    */
+   long getProducerBatchTimeout();
+
+   /**
+    * Sets the longest time, in microseconds, a send waits in a batch that hasn't reached
+    * {@link #getProducerBatchSize()} before the batch is sent.
+    *
+    * Value must be greater than 0.
+    *
+    * @param producerBatchTimeout time a send may wait in a batch, in microseconds
+    */
+   void setProducerBatchTimeout(long producerBatchTimeout);
+
    /**
     * Returns whether consumers created through this factory will block while
     * sending message acknowledgments or do it asynchronously.
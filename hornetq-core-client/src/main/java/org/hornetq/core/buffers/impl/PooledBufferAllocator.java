@@ -0,0 +1,325 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.buffers.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * A PooledBufferAllocator
+ * <p>
+ * Hands out {@link PooledChannelBuffer}s whose memory comes from power of two sized chunks, from
+ * {@value #MIN_CHUNK_SIZE} to {@value #MAX_CHUNK_SIZE} bytes. Released chunks go to a cache of the
+ * releasing thread first, and to a cache shared by all threads once that is full. Bigger chunks
+ * are not pooled.
+ * <p>
+ * A buffer must be released exactly once, when nothing reads it any more. With leak detection on,
+ * the allocator remembers where every unreleased buffer was allocated.
+ */
+public final class PooledBufferAllocator
+{
+   public static final String LEAK_DETECTION_PROP_NAME = "org.hornetq.buffers.leakDetection";
+
+   public static final int MIN_CHUNK_SIZE = 256;
+
+   public static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+   private static final int CHUNK_CLASSES = Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE / MIN_CHUNK_SIZE) + 1;
+
+   private static final int THREAD_CACHE_BYTES = 256 * 1024;
+
+   private static final int SHARED_CACHE_BYTES = 1024 * 1024;
+
+   /**
+    * Chunks in direct memory, which Netty hands to the socket without copying them first
+    */
+   public static final PooledBufferAllocator DIRECT = new PooledBufferAllocator(true);
+
+   /**
+    * Chunks on the heap, for buffers that are mostly read through their accessors
+    */
+   public static final PooledBufferAllocator HEAP = new PooledBufferAllocator(false);
+
+   private final boolean direct;
+
+   private final ThreadLocal<ChunkCache[]> threadCaches = new ThreadLocal<ChunkCache[]>()
+   {
+      @Override
+      protected ChunkCache[] initialValue()
+      {
+         ChunkCache[] caches = new ChunkCache[CHUNK_CLASSES];
+
+         for (int i = 0; i < CHUNK_CLASSES; i++)
+         {
+            caches[i] = new ChunkCache(Math.max(4, THREAD_CACHE_BYTES / chunkSize(i)));
+         }
+
+         return caches;
+      }
+   };
+
+   private final SharedChunkCache[] sharedCaches = new SharedChunkCache[CHUNK_CLASSES];
+
+   private final AtomicLong outstandingBuffers = new AtomicLong();
+
+   private volatile boolean leakDetection = Boolean.getBoolean(LEAK_DETECTION_PROP_NAME);
+
+   // by identity, the equality of buffers is that of their content
+   private final Map<PooledChannelBuffer, Exception> allocations = Collections.synchronizedMap(new IdentityHashMap<PooledChannelBuffer, Exception>());
+
+   private PooledBufferAllocator(final boolean direct)
+   {
+      this.direct = direct;
+
+      for (int i = 0; i < CHUNK_CLASSES; i++)
+      {
+         sharedCaches[i] = new SharedChunkCache(Math.max(4, SHARED_CACHE_BYTES / chunkSize(i)));
+      }
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * @param estimatedLength the initial capacity, the buffer grows past it as needed
+    * @return a big endian buffer to {@link PooledChannelBuffer#release()} once done with
+    */
+   public PooledChannelBuffer buffer(final int estimatedLength)
+   {
+      PooledChannelBuffer buffer = new PooledChannelBuffer(this, estimatedLength);
+
+      outstandingBuffers.incrementAndGet();
+
+      if (leakDetection)
+      {
+         allocations.put(buffer, new Exception("Buffer allocated here was never released"));
+      }
+
+      return buffer;
+   }
+
+   public boolean isDirect()
+   {
+      return direct;
+   }
+
+   /**
+    * @return how many buffers have been allocated and not yet released
+    */
+   public long getOutstandingBuffers()
+   {
+      return outstandingBuffers.get();
+   }
+
+   public void setLeakDetection(final boolean leakDetection)
+   {
+      this.leakDetection = leakDetection;
+
+      if (!leakDetection)
+      {
+         allocations.clear();
+      }
+   }
+
+   public boolean isLeakDetection()
+   {
+      return leakDetection;
+   }
+
+   /**
+    * @return one exception per unreleased buffer allocated while leak detection was on, its stack
+    *         trace shows where the buffer was allocated
+    */
+   public Collection<Exception> getLeaks()
+   {
+      synchronized (allocations)
+      {
+         return new ArrayList<Exception>(allocations.values());
+      }
+   }
+
+   // Package protected ---------------------------------------------
+
+   ChannelBuffer allocateChunk(final int capacity)
+   {
+      int chunkClass = chunkClass(capacity);
+
+      if (chunkClass == -1)
+      {
+         return newChunk(capacity);
+      }
+
+      ChannelBuffer chunk = threadCaches.get()[chunkClass].poll();
+
+      if (chunk == null)
+      {
+         chunk = sharedCaches[chunkClass].poll();
+      }
+
+      if (chunk == null)
+      {
+         return newChunk(chunkSize(chunkClass));
+      }
+
+      chunk.clear();
+
+      return chunk;
+   }
+
+   void releaseChunk(final ChannelBuffer chunk)
+   {
+      int chunkClass = chunkClass(chunk.capacity());
+
+      // only chunks of exactly one of the sizes come from the pool
+      if (chunkClass == -1 || chunkSize(chunkClass) != chunk.capacity())
+      {
+         return;
+      }
+
+      if (!threadCaches.get()[chunkClass].offer(chunk))
+      {
+         sharedCaches[chunkClass].offer(chunk);
+      }
+   }
+
+   void released(final PooledChannelBuffer buffer)
+   {
+      outstandingBuffers.decrementAndGet();
+
+      if (leakDetection)
+      {
+         allocations.remove(buffer);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private ChannelBuffer newChunk(final int capacity)
+   {
+      return direct ? ChannelBuffers.directBuffer(capacity) : ChannelBuffers.buffer(capacity);
+   }
+
+   /**
+    * @return the class of the smallest chunk holding capacity bytes, -1 if it is too big to pool
+    */
+   private static int chunkClass(final int capacity)
+   {
+      if (capacity > MAX_CHUNK_SIZE)
+      {
+         return -1;
+      }
+
+      if (capacity <= MIN_CHUNK_SIZE)
+      {
+         return 0;
+      }
+
+      return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_CHUNK_SIZE);
+   }
+
+   private static int chunkSize(final int chunkClass)
+   {
+      return MIN_CHUNK_SIZE << chunkClass;
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * Only ever used by its own thread
+    */
+   private static final class ChunkCache
+   {
+      private final ChannelBuffer[] chunks;
+
+      private int count;
+
+      ChunkCache(final int maxChunks)
+      {
+         chunks = new ChannelBuffer[maxChunks];
+      }
+
+      ChannelBuffer poll()
+      {
+         if (count == 0)
+         {
+            return null;
+         }
+
+         ChannelBuffer chunk = chunks[--count];
+
+         chunks[count] = null;
+
+         return chunk;
+      }
+
+      boolean offer(final ChannelBuffer chunk)
+      {
+         if (count == chunks.length)
+         {
+            return false;
+         }
+
+         chunks[count++] = chunk;
+
+         return true;
+      }
+   }
+
+   private static final class SharedChunkCache
+   {
+      private final Queue<ChannelBuffer> chunks = new ConcurrentLinkedQueue<ChannelBuffer>();
+
+      private final AtomicInteger count = new AtomicInteger();
+
+      private final int maxChunks;
+
+      SharedChunkCache(final int maxChunks)
+      {
+         this.maxChunks = maxChunks;
+      }
+
+      ChannelBuffer poll()
+      {
+         ChannelBuffer chunk = chunks.poll();
+
+         if (chunk != null)
+         {
+            count.decrementAndGet();
+         }
+
+         return chunk;
+      }
+
+      void offer(final ChannelBuffer chunk)
+      {
+         if (count.incrementAndGet() > maxChunks)
+         {
+            count.decrementAndGet();
+
+            return;
+         }
+
+         chunks.offer(chunk);
+      }
+   }
+}
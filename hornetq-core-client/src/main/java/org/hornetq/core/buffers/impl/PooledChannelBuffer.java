@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.buffers.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.buffer.DynamicChannelBuffer;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+
+/**
+ * A PooledChannelBuffer
+ * <p>
+ * A dynamic buffer growing into chunks of a {@link PooledBufferAllocator}. All the chunks it went
+ * through go back to the allocator on {@link #release()}.
+ * <p>
+ * Only the buffer's own growth takes pooled chunks. Copies, and anything else built through
+ * {@link #factory()}, get plain heap buffers, so nothing handed out by this buffer depends on
+ * memory it releases.
+ * <p>
+ * As a {@link ChannelFutureListener} it releases itself once the write it was given to completes.
+ */
+public final class PooledChannelBuffer extends DynamicChannelBuffer implements ChannelFutureListener
+{
+   private final Chunks chunks;
+
+   PooledChannelBuffer(final PooledBufferAllocator allocator, final int estimatedLength)
+   {
+      this(new Chunks(allocator), estimatedLength);
+   }
+
+   private PooledChannelBuffer(final Chunks chunks, final int estimatedLength)
+   {
+      super(ByteOrder.BIG_ENDIAN, estimatedLength, chunks);
+
+      this.chunks = chunks;
+
+      chunks.growing = false;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Gives the buffer's memory back to the allocator, the buffer must not be used afterwards
+    *
+    * @throws IllegalStateException if the buffer was already released
+    */
+   public void release()
+   {
+      chunks.release();
+
+      chunks.allocator.released(this);
+   }
+
+   public void operationComplete(final ChannelFuture future)
+   {
+      release();
+   }
+
+   /**
+    * Releases buffer if it is pooled, does nothing otherwise
+    */
+   public static void release(final ChannelBuffer buffer)
+   {
+      if (buffer instanceof PooledChannelBuffer)
+      {
+         ((PooledChannelBuffer)buffer).release();
+      }
+   }
+
+   @Override
+   public void ensureWritableBytes(final int minWritableBytes)
+   {
+      if (minWritableBytes <= writableBytes())
+      {
+         return;
+      }
+
+      chunks.growing = true;
+
+      try
+      {
+         super.ensureWritableBytes(minWritableBytes);
+      }
+      finally
+      {
+         chunks.growing = false;
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Chunks implements ChannelBufferFactory
+   {
+      private final PooledBufferAllocator allocator;
+
+      // true while the buffer is allocating its own memory
+      private boolean growing = true;
+
+      private boolean released;
+
+      private final List<ChannelBuffer> taken = new ArrayList<ChannelBuffer>(2);
+
+      Chunks(final PooledBufferAllocator allocator)
+      {
+         this.allocator = allocator;
+      }
+
+      void release()
+      {
+         if (released)
+         {
+            throw new IllegalStateException("Buffer already released");
+         }
+
+         released = true;
+
+         for (ChannelBuffer chunk : taken)
+         {
+            allocator.releaseChunk(chunk);
+         }
+
+         taken.clear();
+      }
+
+      public ChannelBuffer getBuffer(final int capacity)
+      {
+         return getBuffer(getDefaultOrder(), capacity);
+      }
+
+      public ChannelBuffer getBuffer(final ByteOrder order, final int capacity)
+      {
+         if (!growing || released || order != ByteOrder.BIG_ENDIAN)
+         {
+            return ChannelBuffers.buffer(order, capacity);
+         }
+
+         ChannelBuffer chunk = allocator.allocateChunk(capacity);
+
+         taken.add(chunk);
+
+         return chunk;
+      }
+
+      public ChannelBuffer getBuffer(final byte[] array, final int offset, final int length)
+      {
+         return getBuffer(getDefaultOrder(), array, offset, length);
+      }
+
+      public ChannelBuffer getBuffer(final ByteOrder order, final byte[] array, final int offset, final int length)
+      {
+         ChannelBuffer buffer = ChannelBuffers.buffer(order, length);
+
+         buffer.writeBytes(array, offset, length);
+
+         return buffer;
+      }
+
+      public ChannelBuffer getBuffer(final ByteBuffer nioBuffer)
+      {
+         ChannelBuffer buffer = ChannelBuffers.buffer(nioBuffer.order(), nioBuffer.remaining());
+
+         buffer.writeBytes(nioBuffer.duplicate());
+
+         return buffer;
+      }
+
+      public ByteOrder getDefaultOrder()
+      {
+         return ByteOrder.BIG_ENDIAN;
+      }
+   }
+}
@@ -298,6 +298,16 @@ public interface HornetQClientLogger extends BasicLogger
          format = Message.Format.MESSAGE_FORMAT)
    void compressedLargeMessageError(int length, int nReadBytes);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 212051, value = "Failed to call the send completion listener",
+         format = Message.Format.MESSAGE_FORMAT)
+   void errorCallingSendCompletionListener(@Cause Throwable t);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 212052, value = "{0} is set but the selector provider {1} is not epoll based, falling back to NIO",
+         format = Message.Format.MESSAGE_FORMAT)
+   void epollNotAvailable(String propName, String selectorProvider);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 214000, value = "Failed to call onMessage", format = Message.Format.MESSAGE_FORMAT)
    void onMessageError(@Cause Throwable e);
@@ -244,4 +244,12 @@ public interface HornetQClientMessageBundle
          , format = Message.Format.MESSAGE_FORMAT)
    HornetQInterceptorRejectedPacketException interceptorRejectedPacket(String interceptionResult);
 
+   @Message(id = 119060, value = "The session was recreated on failover before the server confirmed the send. The message may not have been received."
+         , format = Message.Format.MESSAGE_FORMAT)
+   HornetQUnBlockedException sendNotConfirmedBeforeFailover();
+
+   @Message(id = 119061, value = "An interceptor rejected the packet of an asynchronous send."
+         , format = Message.Format.MESSAGE_FORMAT)
+   HornetQInterceptorRejectedPacketException interceptorRejectedAsyncSend();
+
 }
@@ -16,6 +16,7 @@ package org.hornetq.core.client.impl;
 import java.io.File;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -126,6 +127,13 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
    private volatile ClientMessageInternal lastAckedMessage;
 
+   // individual acks waiting to be sent together, see flushIndividualAcks
+   private long[] individualAcks = new long[16];
+
+   private int individualAckCount;
+
+   private int individualAckBytes;
+
    private boolean stopped = false;
 
    private long forceDeliveryCount;
@@ -519,6 +527,10 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
 
       lastAckedMessage = null;
 
+      individualAckCount = 0;
+
+      individualAckBytes = 0;
+
       creditsToSend = 0;
 
       failedOver = true;
@@ -833,7 +845,26 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
          flushAcks();
       }
 
-      session.individualAcknowledge(id, message.getMessageID());
+      if (ackBatchSize > 0 && session.isIndividualAckBatchSupported())
+      {
+         if (individualAckCount == individualAcks.length)
+         {
+            individualAcks = Arrays.copyOf(individualAcks, individualAckCount * 2);
+         }
+
+         individualAcks[individualAckCount++] = message.getMessageID();
+
+         individualAckBytes += message.getEncodeSize();
+
+         if (individualAckBytes >= ackBatchSize)
+         {
+            flushIndividualAcks();
+         }
+      }
+      else
+      {
+         session.individualAcknowledge(id, message.getMessageID());
+      }
    }
 
    public void flushAcks() throws HornetQException
@@ -842,6 +873,8 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
       {
          doAck(lastAckedMessage);
       }
+
+      flushIndividualAcks();
    }
 
    /**
@@ -1208,8 +1241,27 @@ public final class ClientConsumerImpl implements ClientConsumerInternal
       buffer.clear();
    }
 
+   private void flushIndividualAcks() throws HornetQException
+   {
+      if (individualAckCount == 0)
+      {
+         return;
+      }
+
+      long[] messageIDs = Arrays.copyOf(individualAcks, individualAckCount);
+
+      individualAckCount = 0;
+
+      individualAckBytes = 0;
+
+      session.individualAcknowledge(id, messageIDs);
+   }
+
    private void doAck(final ClientMessageInternal message) throws HornetQException
    {
+      // the server acks everything delivered up to the message, the individual acks must get there first
+      flushIndividualAcks();
+
       ackBytes = 0;
 
       lastAckedMessage = null;
@@ -15,15 +15,18 @@ package org.hornetq.core.client.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQInternalErrorException;
 import org.hornetq.api.core.HornetQInterruptedException;
 import org.hornetq.api.core.HornetQLargeMessageException;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.SendCompletion;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
@@ -72,6 +75,9 @@ public class ClientProducerImpl implements ClientProducerInternal
 
    private final ClientProducerCredits credits;
 
+   // Permits for the sends of sendAsync waiting for their confirmation, null if they aren't limited
+   private final Semaphore pendingSends;
+
    // Static ---------------------------------------------------------------------------------------
 
    // Constructors ---------------------------------------------------------------------------------
@@ -84,6 +90,7 @@ public class ClientProducerImpl implements ClientProducerInternal
                              final boolean autoGroup,
                              final SimpleString groupID,
                              final int minLargeMessageSize,
+                             final int maxPendingSends,
                              final Channel channel)
    {
       this.channel = channel;
@@ -109,6 +116,8 @@ public class ClientProducerImpl implements ClientProducerInternal
 
       this.minLargeMessageSize = minLargeMessageSize;
 
+      pendingSends = maxPendingSends > 0 ? new Semaphore(maxPendingSends) : null;
+
       if (address != null)
       {
          credits = session.getCredits(address, false);
@@ -130,14 +139,14 @@ public class ClientProducerImpl implements ClientProducerInternal
    {
       checkClosed();
 
-      doSend(null, msg);
+      doSend(null, msg, null);
    }
 
    public void send(final SimpleString address, final Message msg) throws HornetQException
    {
       checkClosed();
 
-      doSend(address, msg);
+      doSend(address, msg, null);
    }
 
    public void send(final String address, final Message message) throws HornetQException
@@ -145,6 +154,20 @@ public class ClientProducerImpl implements ClientProducerInternal
       send(SimpleString.toSimpleString(address), message);
    }
 
+   public SendCompletion sendAsync(final Message msg) throws HornetQException
+   {
+      checkClosed();
+
+      return doSendAsync(null, msg);
+   }
+
+   public SendCompletion sendAsync(final SimpleString address, final Message msg) throws HornetQException
+   {
+      checkClosed();
+
+      return doSendAsync(address, msg);
+   }
+
    public synchronized void close() throws HornetQException
    {
       if (closed)
@@ -210,30 +233,78 @@ public class ClientProducerImpl implements ClientProducerInternal
       closed = true;
    }
 
-   private void doSend(final SimpleString address, final Message msg) throws HornetQException
+   private SendCompletion doSendAsync(final SimpleString address, final Message msg) throws HornetQException
    {
-      session.startCall();
-
-      try
+      if (!session.isSendCompletionSupported() || isLarge((MessageInternal)msg))
       {
-         MessageInternal msgI = (MessageInternal)msg;
+         // Sending blocking gives the same guarantees, only slower. Large messages are sent in chunks
+         // the server doesn't confirm one by one
+         doSend(address, msg, null, true);
 
-         ClientProducerCredits theCredits;
+         SendCompletionImpl completion = new SendCompletionImpl(msg, null);
 
-         boolean isLarge;
+         completion.complete();
 
-         // a note about the second check on the writerIndexSize,
-         // If it's a server's message, it means this is being done through the bridge or some special consumer on the
-         // server's on which case we can't' convert the message into large at the servers
-         if (msgI.getBodyInputStream() != null || msgI.isLargeMessage() ||
-            msgI.getBodyBuffer().writerIndex() > minLargeMessageSize && ! msgI.isServerMessage())
+         return completion;
+      }
+
+      if (pendingSends != null)
+      {
+         try
          {
-            isLarge = true;
+            pendingSends.acquire();
          }
-         else
+         catch (InterruptedException e)
          {
-            isLarge = false;
+            throw new HornetQInterruptedException(e);
          }
+      }
+
+      SendCompletionImpl completion = new SendCompletionImpl(msg, pendingSends);
+
+      try
+      {
+         doSend(address, msg, completion);
+      }
+      catch (HornetQException e)
+      {
+         completion.fail(e);
+
+         throw e;
+      }
+      catch (RuntimeException e)
+      {
+         completion.fail(new HornetQInternalErrorException(e.getMessage(), e));
+
+         throw e;
+      }
+
+      return completion;
+   }
+
+   private void doSend(final SimpleString address, final Message msg, final SendCompletionImpl completion) throws HornetQException
+   {
+      doSend(address, msg, completion, false);
+   }
+
+   /**
+    * @param completion the completion of a send of sendAsync, {@code null} for a plain send
+    * @param forceBlocking whether to send blocking whatever the producer is configured to do
+    */
+   private void doSend(final SimpleString address,
+                       final Message msg,
+                       final SendCompletionImpl completion,
+                       final boolean forceBlocking) throws HornetQException
+   {
+      session.startCall();
+
+      try
+      {
+         MessageInternal msgI = (MessageInternal)msg;
+
+         ClientProducerCredits theCredits;
+
+         boolean isLarge = isLarge(msgI);
 
          if (address != null)
          {
@@ -275,7 +346,20 @@ public class ClientProducerImpl implements ClientProducerInternal
             msgI.putStringProperty(Message.HDR_GROUP_ID, groupID);
          }
 
-         boolean sendBlocking = msgI.isDurable() ? blockOnDurableSend : blockOnNonDurableSend;
+         boolean sendBlocking;
+
+         if (forceBlocking)
+         {
+            sendBlocking = true;
+         }
+         else if (completion != null)
+         {
+            sendBlocking = false;
+         }
+         else
+         {
+            sendBlocking = msgI.isDurable() ? blockOnDurableSend : blockOnNonDurableSend;
+         }
 
          session.workDone();
 
@@ -285,7 +369,7 @@ public class ClientProducerImpl implements ClientProducerInternal
          }
          else
          {
-            sendRegularMessage(msgI, sendBlocking, theCredits);
+            sendRegularMessage(msgI, sendBlocking, theCredits, completion);
          }
       }
       finally
@@ -294,7 +378,24 @@ public class ClientProducerImpl implements ClientProducerInternal
       }
    }
 
+   private boolean isLarge(final MessageInternal msgI)
+   {
+      // a note about the second check on the writerIndexSize,
+      // If it's a server's message, it means this is being done through the bridge or some special consumer on the
+      // server's on which case we can't' convert the message into large at the servers
+      return msgI.getBodyInputStream() != null || msgI.isLargeMessage() ||
+         msgI.getBodyBuffer().writerIndex() > minLargeMessageSize && !msgI.isServerMessage();
+   }
+
    private void sendRegularMessage(MessageInternal msgI, boolean sendBlocking, final ClientProducerCredits theCredits) throws HornetQException
+   {
+      sendRegularMessage(msgI, sendBlocking, theCredits, null);
+   }
+
+   private void sendRegularMessage(final MessageInternal msgI,
+                                   final boolean sendBlocking,
+                                   final ClientProducerCredits theCredits,
+                                   final SendCompletionImpl completion) throws HornetQException
    {
       try
       {
@@ -311,7 +412,15 @@ public class ClientProducerImpl implements ClientProducerInternal
          throw new HornetQInterruptedException(e);
       }
 
-      SessionSendMessage packet = new SessionSendMessage(msgI, sendBlocking);
+      if (!sendBlocking && completion == null && session.addToSendBatch(msgI))
+      {
+         return;
+      }
+
+      // whatever is batched must reach the server before this message
+      session.flushSendBatch();
+
+      SessionSendMessage packet = new SessionSendMessage(msgI, sendBlocking, completion);
 
       if (sendBlocking)
       {
@@ -319,7 +428,31 @@ public class ClientProducerImpl implements ClientProducerInternal
       }
       else
       {
-         channel.sendBatched(packet);
+         if (completion != null)
+         {
+            // before sending, the confirmation may come back before send returns
+            session.addPendingSend(completion);
+         }
+
+         boolean sent = false;
+
+         try
+         {
+            sent = channel.sendBatched(packet);
+         }
+         finally
+         {
+            if (!sent && completion != null)
+            {
+               // the server won't confirm it, doSendAsync fails the completion
+               session.removePendingSend(completion);
+            }
+         }
+
+         if (!sent && completion != null)
+         {
+            throw HornetQClientMessageBundle.BUNDLE.interceptorRejectedAsyncSend();
+         }
       }
    }
 
@@ -341,6 +474,8 @@ public class ClientProducerImpl implements ClientProducerInternal
                                  final MessageInternal msgI,
                                  final ClientProducerCredits credits) throws HornetQException
    {
+      session.flushSendBatch();
+
       int headerSize = msgI.getHeadersAndPropertiesEncodeSize();
 
       if (msgI.getHeadersAndPropertiesEncodeSize() >= minLargeMessageSize)
@@ -882,6 +882,9 @@ public class ClientSessionFactoryImpl implements ClientSessionFactoryInternal, C
                                                                      serverLocator.getConfirmationWindowSize(),
                                                                      serverLocator.getProducerWindowSize(),
                                                                      serverLocator.getProducerMaxRate(),
+                                                                     serverLocator.getProducerMaxPendingSends(),
+                                                                     serverLocator.getProducerBatchSize(),
+                                                                     serverLocator.getProducerBatchTimeout(),
                                                                      serverLocator.isBlockOnNonDurableSend(),
                                                                      serverLocator.isBlockOnDurableSend(),
                                                                      serverLocator.isCacheLargeMessagesClient(),
@@ -893,7 +896,8 @@ public class ClientSessionFactoryImpl implements ClientSessionFactoryInternal, C
                                                                      response.getServerVersion(),
                                                                      sessionChannel,
                                                                      orderedExecutorFactory.getExecutor(),
-                                                                     orderedExecutorFactory.getExecutor());
+                                                                     orderedExecutorFactory.getExecutor(),
+                                                                     scheduledThreadPool);
 
                synchronized (sessions)
                {
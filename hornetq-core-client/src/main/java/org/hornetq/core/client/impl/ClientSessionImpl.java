@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.transaction.xa.XAException;
@@ -39,9 +40,11 @@ import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.FailoverEventListener;
 import org.hornetq.api.core.client.SendAcknowledgementHandler;
+import org.hornetq.api.core.client.SendCompletion;
 import org.hornetq.api.core.client.SessionFailureListener;
 import org.hornetq.core.client.HornetQClientLogger;
 import org.hornetq.core.client.HornetQClientMessageBundle;
+import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
 import org.hornetq.core.protocol.core.CommandConfirmationHandler;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
@@ -62,6 +65,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionCreateConsumerMessa
 import org.hornetq.core.protocol.core.impl.wireformat.SessionDeleteQueueMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionExpireMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionForceConsumerDelivery;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowledgeBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryResponseMessage;
@@ -69,6 +73,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuation
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionRequestProducerCreditsMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionUniqueAddMetaDataMessage;
@@ -88,6 +93,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionXAStartMessage;
 import org.hornetq.core.remoting.FailureListener;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.spi.core.remoting.Connection;
+import org.hornetq.utils.ConcurrentHashSet;
 import org.hornetq.utils.IDGenerator;
 import org.hornetq.utils.SimpleIDGenerator;
 import org.hornetq.utils.TokenBucketLimiterImpl;
@@ -102,6 +108,15 @@ import org.hornetq.utils.XidCodecSupport;
  */
 final class ClientSessionImpl implements ClientSessionInternal, FailureListener, CommandConfirmationHandler
 {
+   /** The first server version telling the client which of its sends failed */
+   private static final int SEND_FAILED_VERSION = 123;
+
+   /** The first server version taking several sends in one packet */
+   private static final int SEND_BATCH_VERSION = 124;
+
+   /** The first server version taking several individual acks in one packet */
+   private static final int INDIVIDUAL_ACK_BATCH_VERSION = 125;
+
    private final Map<String, String> metadata = new HashMap<String, String>();
 
    private final ClientSessionFactoryInternal sessionFactory;
@@ -149,6 +164,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
    private final int producerMaxRate;
 
+   private final int producerMaxPendingSends;
+
    private final boolean blockOnNonDurableSend;
 
    private final boolean blockOnDurableSend;
@@ -176,6 +193,12 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
    private SendAcknowledgementHandler sendAckHandler;
 
+   /** The sends waiting for the server to confirm them, see {@link ClientProducer#sendAsync(Message)} */
+   private final Set<SendCompletionImpl> pendingSends = new ConcurrentHashSet<SendCompletionImpl>();
+
+   /** Gathers the non-blocking sends, null if they aren't batched */
+   private final SendBatcher sendBatcher;
+
    private volatile boolean rollbackOnly;
 
    private volatile boolean workDone;
@@ -208,6 +231,9 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                             final int confirmationWindowSize,
                             final int producerWindowSize,
                             final int producerMaxRate,
+                            final int producerMaxPendingSends,
+                            final int producerBatchSize,
+                            final long producerBatchTimeout,
                             final boolean blockOnNonDurableSend,
                             final boolean blockOnDurableSend,
                             final boolean cacheLargeMessageClient,
@@ -219,7 +245,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                             final int version,
                             final Channel channel,
                             final Executor executor,
-                            final Executor flowControlExecutor) throws HornetQException
+                            final Executor flowControlExecutor,
+                            final ScheduledExecutorService scheduledThreadPool) throws HornetQException
    {
       this.sessionFactory = sessionFactory;
 
@@ -261,6 +288,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
       this.producerMaxRate = producerMaxRate;
 
+      this.producerMaxPendingSends = producerMaxPendingSends;
+
       this.blockOnNonDurableSend = blockOnNonDurableSend;
 
       this.blockOnDurableSend = blockOnDurableSend;
@@ -276,6 +305,21 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       this.groupID = groupID;
 
       producerCreditManager = new ClientProducerCreditManagerImpl(this, producerWindowSize);
+
+      if (producerBatchSize > 0 && version >= SEND_BATCH_VERSION)
+      {
+         sendBatcher = new SendBatcher(channel, producerBatchSize, producerBatchTimeout, scheduledThreadPool);
+      }
+      else
+      {
+         sendBatcher = null;
+      }
+
+      if (confirmationWindowSize >= 0)
+      {
+         // to complete the sends of ClientProducer.sendAsync
+         channel.setCommandConfirmationHandler(this);
+      }
    }
 
    // ClientSession implementation
@@ -352,6 +396,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          channel.sendBlocking(new SessionDeleteQueueMessage(queueName), PacketImpl.NULL_RESPONSE);
       }
       finally
@@ -375,6 +421,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          SessionQueueQueryResponseMessage response = (SessionQueueQueryResponseMessage)channel.sendBlocking(request, PacketImpl.SESS_QUEUEQUERY_RESP);
 
          return new QueueQueryImpl(response.isDurable(),
@@ -397,6 +445,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
       SessionBindingQueryMessage request = new SessionBindingQueryMessage(address);
 
+      flushSendBatch();
+
       SessionBindingQueryResponseMessage response = (SessionBindingQueryResponseMessage)channel.sendBlocking(request, PacketImpl.SESS_BINDINGQUERY_RESP);
 
       return new BindingQueryImpl(response.isExists(), response.getQueueNames());
@@ -547,6 +597,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
       try
       {
+         flushSendBatch();
+
          channel.sendBlocking(new PacketImpl(PacketImpl.SESS_COMMIT), PacketImpl.NULL_RESPONSE);
       }
       catch (HornetQException e)
@@ -607,6 +659,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       // Acks must be flushed here *after connection is stopped and all onmessages finished executing
       flushAcks();
 
+      flushSendBatch();
+
       channel.sendBlocking(new RollbackMessage(isLastMessageAsDelivered), PacketImpl.NULL_RESPONSE);
 
       if (wasStarted)
@@ -681,6 +735,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
             clientConsumerInternal.start();
          }
 
+         flushSendBatch();
+
          channel.send(new PacketImpl(PacketImpl.SESS_START));
 
          started = true;
@@ -703,6 +759,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
             clientConsumerInternal.stop(waitForOnMessage);
          }
 
+         flushSendBatch();
+
          channel.sendBlocking(new PacketImpl(PacketImpl.SESS_STOP), PacketImpl.NULL_RESPONSE);
 
          started = false;
@@ -826,6 +884,44 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       }
    }
 
+   public void individualAcknowledge(final long consumerID, final long[] messageIDs) throws HornetQException
+   {
+      // if we're pre-acknowledging then we don't need to do anything
+      if (preAcknowledge)
+      {
+         return;
+      }
+
+      checkClosed();
+
+      SessionIndividualAcknowledgeBatchMessage message = new SessionIndividualAcknowledgeBatchMessage(consumerID,
+                                                                                                      messageIDs,
+                                                                                                      blockOnAcknowledge);
+
+      startCall();
+      try
+      {
+         if (blockOnAcknowledge)
+         {
+            channel.sendBlocking(message, PacketImpl.NULL_RESPONSE);
+         }
+         else
+         {
+            channel.sendBatched(message);
+         }
+      }
+      finally
+      {
+         endCall();
+      }
+   }
+
+   public boolean isIndividualAckBatchSupported()
+   {
+      // blocking acks must be on the server by the time acknowledge returns
+      return !blockOnAcknowledge && version >= INDIVIDUAL_ACK_BATCH_VERSION;
+   }
+
    public void expire(final long consumerID, final long messageID) throws HornetQException
    {
       checkClosed();
@@ -931,6 +1027,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
          inClose = true;
 
+         flushSendBatch();
+
          channel.sendBlocking(new SessionCloseMessage(), PacketImpl.NULL_RESPONSE);
       }
       catch (Throwable e)
@@ -1072,6 +1170,9 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                   }
                   while (retry && !inClose);
 
+                  // the new session won't confirm what the old one didn't
+                  failPendingSends(HornetQClientMessageBundle.BUNDLE.sendNotConfirmedBeforeFailover());
+
                   channel.clearCommands();
 
                   for (Map.Entry<Long, ClientConsumerInternal> entry : consumers.entrySet())
@@ -1283,6 +1384,65 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       producerCreditManager.receiveFailCredits(address, credits);
    }
 
+   public boolean addToSendBatch(final MessageInternal message)
+   {
+      if (sendBatcher == null)
+      {
+         return false;
+      }
+
+      sendBatcher.add(message);
+
+      return true;
+   }
+
+   public void flushSendBatch()
+   {
+      if (sendBatcher != null)
+      {
+         sendBatcher.flush();
+      }
+   }
+
+   public boolean isSendCompletionSupported()
+   {
+      return confirmationWindowSize >= 0 && version >= SEND_FAILED_VERSION;
+   }
+
+   public void addPendingSend(final SendCompletion completion)
+   {
+      pendingSends.add((SendCompletionImpl)completion);
+   }
+
+   public void removePendingSend(final SendCompletion completion)
+   {
+      pendingSends.remove(completion);
+   }
+
+   public void handleSendFailed(final int commandID, final HornetQException exception)
+   {
+      Packet packet = channel.getUnconfirmedCommand(commandID);
+
+      SendCompletionImpl completion = null;
+
+      if (packet != null && packet.getType() == PacketImpl.SESS_SEND)
+      {
+         completion = (SendCompletionImpl)((SessionSendMessage)packet).getCompletion();
+      }
+
+      if (completion != null)
+      {
+         pendingSends.remove(completion);
+
+         completion.fail(exception);
+      }
+      else
+      {
+         // a send nobody waits for, as with sendAsync's fallbacks there is no better place to report it
+         HornetQClientLogger.LOGGER.receivedExceptionAsynchronously(exception);
+      }
+   }
+
    public ClientProducerCreditManager getProducerCreditManager()
    {
       return producerCreditManager;
@@ -1309,16 +1469,38 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       {
          SessionSendMessage ssm = (SessionSendMessage)packet;
 
-         sendAckHandler.sendAcknowledged(ssm.getMessage());
+         SendCompletionImpl completion = (SendCompletionImpl)ssm.getCompletion();
+
+         if (completion != null)
+         {
+            pendingSends.remove(completion);
+
+            completion.complete();
+         }
+
+         if (sendAckHandler != null)
+         {
+            sendAckHandler.sendAcknowledged(ssm.getMessage());
+         }
       }
       else if (packet.getType() == PacketImpl.SESS_SEND_CONTINUATION)
       {
          SessionSendContinuationMessage scm = (SessionSendContinuationMessage) packet;
-         if (!scm.isContinues())
+         if (!scm.isContinues() && sendAckHandler != null)
          {
             sendAckHandler.sendAcknowledged(scm.getMessage());
          }
       }
+      else if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+      {
+         if (sendAckHandler != null)
+         {
+            for (Message message : ((SessionSendBatchMessage)packet).getMessages())
+            {
+               sendAckHandler.sendAcknowledged(message);
+            }
+         }
+      }
 
    }
 
@@ -1347,6 +1529,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          SessionXAResponseMessage response = (SessionXAResponseMessage)channel.sendBlocking(packet, PacketImpl.SESS_XA_RESP);
 
          workDone = false;
@@ -1418,6 +1602,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
          startCall();
          try
          {
+            flushSendBatch();
+
             response = (SessionXAResponseMessage)channel.sendBlocking(packet, PacketImpl.SESS_XA_RESP);
          }
          finally
@@ -1444,6 +1630,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          SessionXAResponseMessage response = (SessionXAResponseMessage)channel.sendBlocking(new SessionXAForgetMessage(xid), PacketImpl.SESS_XA_RESP);
 
          if (response.isError())
@@ -1520,6 +1708,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          SessionXAResponseMessage response = (SessionXAResponseMessage)channel.sendBlocking(packet, PacketImpl.SESS_XA_RESP);
 
          if (response.isError())
@@ -1635,6 +1825,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
          SessionXARollbackMessage packet = new SessionXARollbackMessage(xid);
 
+         flushSendBatch();
+
          SessionXAResponseMessage response = (SessionXAResponseMessage)channel.sendBlocking(packet, PacketImpl.SESS_XA_RESP);
 
          if (wasStarted)
@@ -1710,6 +1902,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
             throw new XAException(XAException.XAER_INVAL);
          }
 
+         flushSendBatch();
+
          SessionXAResponseMessage response = (SessionXAResponseMessage)channel.sendBlocking(packet, PacketImpl.SESS_XA_RESP);
 
          if (response.isError())
@@ -1851,6 +2045,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                                                                               browseOnly,
                                                                               true);
 
+      flushSendBatch();
+
       SessionQueueQueryResponseMessage queueInfo = (SessionQueueQueryResponseMessage)channel.sendBlocking(request, PacketImpl.SESS_QUEUEQUERY_RESP);
 
       // The actual windows size that gets used is determined by the user since
@@ -1902,6 +2098,7 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                                                                autoGroup,
                                                                groupID == null ? null : new SimpleString(groupID),
                                                                minLargeMessageSize,
+                                                               producerMaxPendingSends,
                                                                channel);
 
       addProducer(producer);
@@ -1927,6 +2124,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
       startCall();
       try
       {
+         flushSendBatch();
+
          channel.sendBlocking(request, PacketImpl.NULL_RESPONSE);
       }
       finally
@@ -2000,9 +2199,26 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
          channel.returnBlocking();
       }
 
+      if (sendBatcher != null)
+      {
+         sendBatcher.clear();
+      }
+
+      failPendingSends(HornetQClientMessageBundle.BUNDLE.sessionClosed());
+
       sessionFactory.removeSession(this, failingOver);
    }
 
+   private void failPendingSends(final HornetQException exception)
+   {
+      for (SendCompletionImpl completion : pendingSends)
+      {
+         pendingSends.remove(completion);
+
+         completion.fail(exception);
+      }
+   }
+
    private void cleanUpChildren() throws HornetQException
    {
       Set<ClientConsumerInternal> consumersClone = cloneConsumers();
@@ -17,6 +17,8 @@ import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.SendCompletion;
+import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
@@ -37,6 +39,14 @@ public interface ClientSessionInternal extends ClientSession
 
    void individualAcknowledge(long consumerID, long messageID) throws HornetQException;
 
+   void individualAcknowledge(long consumerID, long[] messageIDs) throws HornetQException;
+
+   /**
+    * @return whether consumers may gather their individual acks and send them with
+    *         {@link #individualAcknowledge(long, long[])}
+    */
+   boolean isIndividualAckBatchSupported();
+
    boolean isCacheLargeMessageClient();
 
    int getMinLargeMessageSize();
@@ -89,6 +99,39 @@ public interface ClientSessionInternal extends ClientSession
 
    void handleReceiveProducerFailCredits(SimpleString address, int credits);
 
+   /**
+    * Whether the server confirms sends one by one and tells which of them failed, which
+    * {@link org.hornetq.api.core.client.ClientProducer#sendAsync(Message)} needs to send without
+    * blocking.
+    */
+   boolean isSendCompletionSupported();
+
+   /**
+    * Tracks the completion of a send until the server confirms the send or the send fails.
+    */
+   void addPendingSend(SendCompletion completion);
+
+   /**
+    * Stops tracking the completion of a send that never reached the server.
+    */
+   void removePendingSend(SendCompletion completion);
+
+   void handleSendFailed(int commandID, HornetQException exception);
+
+   /**
+    * Puts a non-blocking send in the session's pending batch.
+    *
+    * @return {@code false} if the session doesn't batch its sends, the caller then sends the
+    *         message itself
+    */
+   boolean addToSendBatch(MessageInternal message);
+
+   /**
+    * Sends the pending batch, if any. Called before anything that must reach the server after the
+    * sends of the batch.
+    */
+   void flushSendBatch();
+
    ClientProducerCreditManager getProducerCreditManager();
 
    void setAddress(Message message, SimpleString address);
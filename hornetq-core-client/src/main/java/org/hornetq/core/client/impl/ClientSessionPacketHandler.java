@@ -28,6 +28,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionProducerCreditsMess
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendFailedMessage;
 import org.hornetq.core.client.HornetQClientLogger;
 
 /**
@@ -98,6 +99,14 @@ final class ClientSessionPacketHandler implements ChannelHandler
 
                break;
             }
+            case PacketImpl.SESS_SEND_FAILED:
+            {
+               SessionSendFailedMessage message = (SessionSendFailedMessage)packet;
+
+               clientSession.handleSendFailed(message.getCommandID(), message.getException());
+
+               break;
+            }
             case EXCEPTION:
             {
                // TODO - we can provide a means for async exceptions to get back to to client
@@ -27,7 +27,9 @@ import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.FailoverEventListener;
 import org.hornetq.api.core.client.SendAcknowledgementHandler;
+import org.hornetq.api.core.client.SendCompletion;
 import org.hornetq.api.core.client.SessionFailureListener;
+import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
@@ -106,6 +108,16 @@ public class DelegatingSession implements ClientSessionInternal
       session.individualAcknowledge(consumerID, messageID);
    }
 
+   public void individualAcknowledge(final long consumerID, final long[] messageIDs) throws HornetQException
+   {
+      session.individualAcknowledge(consumerID, messageIDs);
+   }
+
+   public boolean isIndividualAckBatchSupported()
+   {
+      return session.isIndividualAckBatchSupported();
+   }
+
    public void addConsumer(final ClientConsumerInternal consumer)
    {
       session.addConsumer(consumer);
@@ -564,6 +576,36 @@ public class DelegatingSession implements ClientSessionInternal
       session.handleReceiveProducerFailCredits(address, credits);
    }
 
+   public boolean isSendCompletionSupported()
+   {
+      return session.isSendCompletionSupported();
+   }
+
+   public void addPendingSend(final SendCompletion completion)
+   {
+      session.addPendingSend(completion);
+   }
+
+   public void removePendingSend(final SendCompletion completion)
+   {
+      session.removePendingSend(completion);
+   }
+
+   public void handleSendFailed(final int commandID, final HornetQException exception)
+   {
+      session.handleSendFailed(commandID, exception);
+   }
+
+   public boolean addToSendBatch(final MessageInternal message)
+   {
+      return session.addToSendBatch(message);
+   }
+
+   public void flushSendBatch()
+   {
+      session.flushSendBatch();
+   }
+
    public ClientProducerCreditManager getProducerCreditManager()
    {
       return session.getProducerCreditManager();
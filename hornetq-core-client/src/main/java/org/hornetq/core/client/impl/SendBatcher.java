@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.client.impl;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.core.message.impl.MessageInternal;
+import org.hornetq.core.protocol.core.Channel;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendBatchMessage;
+
+/**
+ * A SendBatcher
+ * <p>
+ * Gathers the non-blocking sends of a session into {@link SessionSendBatchMessage}s. A batch goes
+ * out once it holds {@code batchSize} bytes, once its first message has waited
+ * {@code batchTimeout} microseconds, or when the session flushes it ahead of another command.
+ */
+final class SendBatcher
+{
+   private final Channel channel;
+
+   private final int batchSize;
+
+   private final long batchTimeout;
+
+   private final ScheduledExecutorService scheduledThreadPool;
+
+   private final Runnable timeoutFlusher = new Runnable()
+   {
+      public void run()
+      {
+         flush();
+      }
+   };
+
+   // guarded by this
+   private SessionSendBatchMessage batch;
+
+   // guarded by this
+   private ScheduledFuture<?> timeoutFuture;
+
+   SendBatcher(final Channel channel,
+               final int batchSize,
+               final long batchTimeout,
+               final ScheduledExecutorService scheduledThreadPool)
+   {
+      this.channel = channel;
+
+      this.batchSize = batchSize;
+
+      this.batchTimeout = batchTimeout;
+
+      this.scheduledThreadPool = scheduledThreadPool;
+   }
+
+   synchronized void add(final MessageInternal message)
+   {
+      if (batch == null)
+      {
+         batch = new SessionSendBatchMessage();
+
+         timeoutFuture = scheduledThreadPool.schedule(timeoutFlusher, batchTimeout, TimeUnit.MICROSECONDS);
+      }
+
+      batch.addMessage(message);
+
+      if (batch.getEncodedMessagesSize() >= batchSize)
+      {
+         flush();
+      }
+   }
+
+   synchronized void flush()
+   {
+      if (batch == null)
+      {
+         return;
+      }
+
+      timeoutFuture.cancel(false);
+
+      SessionSendBatchMessage toSend = batch;
+
+      batch = null;
+
+      timeoutFuture = null;
+
+      channel.send(toSend);
+   }
+
+   /**
+    * Drops the pending batch, for a session closed without a server to send it to.
+    */
+   synchronized void clear()
+   {
+      if (timeoutFuture != null)
+      {
+         timeoutFuture.cancel(false);
+      }
+
+      batch = null;
+
+      timeoutFuture = null;
+   }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.client.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQInterruptedException;
+import org.hornetq.api.core.Message;
+import org.hornetq.api.core.client.SendCompletion;
+import org.hornetq.api.core.client.SendCompletionListener;
+import org.hornetq.core.client.HornetQClientLogger;
+
+/**
+ * A SendCompletionImpl
+ * <p>
+ * Completes once, either when the session is told the server confirmed the send or when the send
+ * fails. Completing gives back the producer's permit for one more pending send.
+ */
+final class SendCompletionImpl implements SendCompletion
+{
+   private final Message message;
+
+   private final Semaphore pendingSends;
+
+   private final CountDownLatch latch = new CountDownLatch(1);
+
+   // guarded by this
+   private boolean done;
+
+   // guarded by this
+   private SendCompletionListener listener;
+
+   private volatile HornetQException exception;
+
+   /**
+    * @param pendingSends the producer's permits, one of which the send holds, or {@code null} if
+    *           the producer doesn't limit its pending sends
+    */
+   SendCompletionImpl(final Message message, final Semaphore pendingSends)
+   {
+      this.message = message;
+
+      this.pendingSends = pendingSends;
+   }
+
+   // SendCompletion implementation ----------------------------------------------------------------
+
+   public Message getMessage()
+   {
+      return message;
+   }
+
+   public synchronized boolean isDone()
+   {
+      return done;
+   }
+
+   public HornetQException getException()
+   {
+      return exception;
+   }
+
+   public boolean waitCompletion(final long timeout) throws HornetQException
+   {
+      try
+      {
+         if (!latch.await(timeout, TimeUnit.MILLISECONDS))
+         {
+            return false;
+         }
+      }
+      catch (InterruptedException e)
+      {
+         throw new HornetQInterruptedException(e);
+      }
+
+      if (exception != null)
+      {
+         throw exception;
+      }
+
+      return true;
+   }
+
+   public void setListener(final SendCompletionListener listener)
+   {
+      synchronized (this)
+      {
+         if (!done)
+         {
+            this.listener = listener;
+
+            return;
+         }
+      }
+
+      callListener(listener);
+   }
+
+   // Package Private ------------------------------------------------------------------------------
+
+   void complete()
+   {
+      finish(null);
+   }
+
+   void fail(final HornetQException e)
+   {
+      finish(e);
+   }
+
+   // Private --------------------------------------------------------------------------------------
+
+   private void finish(final HornetQException e)
+   {
+      SendCompletionListener listenerToCall;
+
+      synchronized (this)
+      {
+         if (done)
+         {
+            return;
+         }
+
+         done = true;
+
+         exception = e;
+
+         listenerToCall = listener;
+      }
+
+      latch.countDown();
+
+      if (pendingSends != null)
+      {
+         pendingSends.release();
+      }
+
+      if (listenerToCall != null)
+      {
+         callListener(listenerToCall);
+      }
+   }
+
+   private void callListener(final SendCompletionListener listenerToCall)
+   {
+      try
+      {
+         listenerToCall.sendCompleted(this);
+      }
+      catch (Throwable t)
+      {
+         HornetQClientLogger.LOGGER.errorCallingSendCompletionListener(t);
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return "SendCompletionImpl [message=" + message + ", done=" + isDone() + ", exception=" + exception + "]";
+   }
+}
@@ -145,6 +145,12 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
 
    private int producerMaxRate;
 
+   private int producerMaxPendingSends;
+
+   private int producerBatchSize;
+
+   private long producerBatchTimeout;
+
    private boolean blockOnAcknowledge;
 
    private boolean blockOnDurableSend;
@@ -439,6 +445,12 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
 
       producerMaxRate = HornetQClient.DEFAULT_PRODUCER_MAX_RATE;
 
+      producerMaxPendingSends = HornetQClient.DEFAULT_PRODUCER_MAX_PENDING_SENDS;
+
+      producerBatchSize = HornetQClient.DEFAULT_PRODUCER_BATCH_SIZE;
+
+      producerBatchTimeout = HornetQClient.DEFAULT_PRODUCER_BATCH_TIMEOUT;
+
       blockOnAcknowledge = HornetQClient.DEFAULT_BLOCK_ON_ACKNOWLEDGE;
 
       blockOnDurableSend = HornetQClient.DEFAULT_BLOCK_ON_DURABLE_SEND;
@@ -1025,6 +1037,39 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
       this.producerMaxRate = producerMaxRate;
    }
 
+   public int getProducerMaxPendingSends()
+   {
+      return producerMaxPendingSends;
+   }
+
+   public void setProducerMaxPendingSends(final int producerMaxPendingSends)
+   {
+      checkWrite();
+      this.producerMaxPendingSends = producerMaxPendingSends;
+   }
+
+   public int getProducerBatchSize()
+   {
+      return producerBatchSize;
+   }
+
+   public void setProducerBatchSize(final int producerBatchSize)
+   {
+      checkWrite();
+      this.producerBatchSize = producerBatchSize;
+   }
+
+   public long getProducerBatchTimeout()
+   {
+      return producerBatchTimeout;
+   }
+
+   public void setProducerBatchTimeout(final long producerBatchTimeout)
+   {
+      checkWrite();
+      this.producerBatchTimeout = producerBatchTimeout;
+   }
+
    public boolean isBlockOnAcknowledge()
    {
       return blockOnAcknowledge;
@@ -82,7 +82,7 @@ public final class Operator
 
    public final static int DIFFERENT = 8;
 
-   final static int ADD = 9;
+   public final static int ADD = 9;
 
    public final static int SUB = 10;
 
@@ -146,6 +146,26 @@ public final class Operator
       oper3 = null;
    }
 
+   public int getOperation()
+   {
+      return operation;
+   }
+
+   public Object getOperand1()
+   {
+      return oper1;
+   }
+
+   public Object getOperand2()
+   {
+      return oper2;
+   }
+
+   public Object getOperand3()
+   {
+      return oper3;
+   }
+
    // --- Print functions ---
 
    @Override
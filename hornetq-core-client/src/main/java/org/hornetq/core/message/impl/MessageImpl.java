@@ -23,12 +23,15 @@ import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQPropertyConversionException;
 import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
 import org.hornetq.core.buffers.impl.ResetLimitWrappedHornetQBuffer;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.utils.DataConstants;
 import org.hornetq.utils.TypedProperties;
 import org.hornetq.utils.UUID;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 
 /**
  * A concrete implementation of a message
@@ -517,6 +520,19 @@ public abstract class MessageImpl implements MessageInternal
       }
    }
 
+   public synchronized HornetQBuffer getSharedEncodedBuffer()
+   {
+      encodeToBuffer();
+
+      // the view keeps reading this buffer, so from now on changing the message has to copy it first
+      bufferUsed = true;
+
+      ChannelBuffer encoded = buffer.channelBuffer().slice(BUFFER_HEADER_SPACE,
+                                                           endOfMessagePosition - BUFFER_HEADER_SPACE);
+
+      return new ChannelBufferWrapper(ChannelBuffers.unmodifiableBuffer(encoded));
+   }
+
    public void setAddressTransient(final SimpleString address)
    {
       this.address = address;
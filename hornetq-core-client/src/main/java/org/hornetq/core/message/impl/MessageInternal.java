@@ -49,6 +49,12 @@ public interface MessageInternal extends Message
 
    HornetQBuffer getEncodedBuffer();
 
+   /**
+    * @return a read only view of the encoded message, without the packet headers, sharing the
+    *         message's buffer so that delivering the message doesn't copy it
+    */
+   HornetQBuffer getSharedEncodedBuffer();
+
    int getHeadersAndPropertiesEncodeSize();
 
    HornetQBuffer getWholeBuffer();
@@ -57,6 +63,16 @@ public interface MessageInternal extends Message
 
    void decodeHeadersAndProperties(HornetQBuffer buffer);
 
+   /**
+    * Writes the whole message, body, headers and properties, the way it is journalled.
+    */
+   void encode(HornetQBuffer buffer);
+
+   /**
+    * Reads a message written by {@link #encode(HornetQBuffer)}.
+    */
+   void decode(HornetQBuffer buffer);
+
    BodyEncoder getBodyEncoder() throws HornetQException;
 
    InputStream getBodyInputStream();
@@ -183,6 +183,14 @@ public interface Channel
     */
    void clearCommands();
 
+   /**
+    * returns a command from the cache that is yet to be confirmed.
+    *
+    * @param commandID the id the other side counts the command with when confirming it
+    * @return the command, or {@code null} if it is not in the cache
+    */
+   Packet getUnconfirmedCommand(int commandID);
+
    /**
     * returns the confirmation window size this channel is using.
     *
@@ -143,6 +143,12 @@ public final class ChannelImpl implements Channel
       {
          case PacketImpl.CLUSTER_TOPOLOGY_V2:
             return version >= 122;
+         case PacketImpl.SESS_SEND_FAILED:
+            return version >= 123;
+         case PacketImpl.SESS_SEND_BATCH:
+            return version >= 124;
+         case PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE_BATCH:
+            return version >= 125;
          default:
             return true;
       }
@@ -590,6 +596,33 @@ public final class ChannelImpl implements Channel
       }
    }
 
+   // Only called from the thread handling the incoming packets, like clearUpTo, so the first stored
+   // command can't move while walking the cache
+   public Packet getUnconfirmedCommand(final int commandID)
+   {
+      if (resendCache == null)
+      {
+         return null;
+      }
+
+      int index = commandID - firstStoredCommandID;
+
+      if (index < 0)
+      {
+         return null;
+      }
+
+      for (Packet packet : resendCache)
+      {
+         if (index-- == 0)
+         {
+            return packet;
+         }
+      }
+
+      return null;
+   }
+
    public void handlePacket(final Packet packet)
    {
       if (packet.getType() == PacketImpl.PACKETS_CONFIRMED)
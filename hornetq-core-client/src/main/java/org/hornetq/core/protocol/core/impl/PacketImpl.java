@@ -149,6 +149,12 @@ public class PacketImpl implements Packet
 
    public static final byte SESS_PRODUCER_FAIL_CREDITS = 82;
 
+   public static final byte SESS_SEND_FAILED = 83;
+
+   public static final byte SESS_SEND_BATCH = 84;
+
+   public static final byte SESS_INDIVIDUAL_ACKNOWLEDGE_BATCH = 85;
+
    // Replication
 
    public static final byte REPLICATION_RESPONSE = 90;
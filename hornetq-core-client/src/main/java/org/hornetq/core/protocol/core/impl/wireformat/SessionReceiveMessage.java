@@ -14,6 +14,7 @@
 package org.hornetq.core.protocol.core.impl.wireformat;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.DataConstants;
@@ -26,6 +27,8 @@ public class SessionReceiveMessage extends MessagePacket
 {
    // Constants -----------------------------------------------------
 
+   private static final int CONSUMER_FIELDS_SIZE = DataConstants.SIZE_LONG + DataConstants.SIZE_INT;
+
    // Attributes ----------------------------------------------------
 
    private long consumerID;
@@ -58,33 +61,31 @@ public class SessionReceiveMessage extends MessagePacket
       return deliveryCount;
    }
 
+   /**
+    * The message is the same for every consumer it goes to, only the packet headers and the
+    * consumer fields around it differ. These go to small buffers of their own, wrapped with a read
+    * only view of the message's buffer instead of copying it for each delivery.
+    */
    @Override
    public HornetQBuffer encode(final RemotingConnection connection)
    {
-      HornetQBuffer buffer = message.getEncodedBuffer();
-
-      // Sanity check
-      if (buffer.writerIndex() != message.getEndOfMessagePosition())
-      {
-         throw new IllegalStateException("Wrong encode position");
-      }
-
-      buffer.writeLong(consumerID);
-      buffer.writeInt(deliveryCount);
+      HornetQBuffer encodedMessage = message.getSharedEncodedBuffer();
 
-      size = buffer.writerIndex();
+      size = PACKET_HEADERS_SIZE + encodedMessage.readableBytes() + CONSUMER_FIELDS_SIZE;
 
       // Write standard headers
 
-      int len = size - DataConstants.SIZE_INT;
-      buffer.setInt(0, len);
-      buffer.setByte(DataConstants.SIZE_INT, getType());
-      buffer.setLong(DataConstants.SIZE_INT + DataConstants.SIZE_BYTE, channelID);
+      HornetQBuffer headers = HornetQBuffers.fixedBuffer(PACKET_HEADERS_SIZE);
+      headers.writeInt(size - DataConstants.SIZE_INT);
+      headers.writeByte(getType());
+      headers.writeLong(channelID);
 
-      // Position reader for reading by Netty
-      buffer.setIndex(0, size);
+      HornetQBuffer consumerFields = HornetQBuffers.fixedBuffer(CONSUMER_FIELDS_SIZE);
+      consumerFields.writeLong(consumerID);
+      consumerFields.writeInt(deliveryCount);
 
-      return buffer;
+      // Positioned for reading by Netty
+      return HornetQBuffers.wrappedBuffer(headers, encodedMessage, consumerFields);
    }
 
    @Override
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.client.impl.ClientMessageImpl;
+import org.hornetq.core.message.impl.MessageInternal;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.utils.DataConstants;
+
+/**
+ * A SessionSendBatchMessage
+ * <p>
+ * Carries several non-blocking sends, each message with its own address, that the server routes
+ * in one go and confirms as a single command.
+ * <p>
+ * Messages are encoded as they are added, so the caller may reuse a message once it is in the
+ * batch.
+ */
+public class SessionSendBatchMessage extends PacketImpl
+{
+   private final List<MessageInternal> messages = new ArrayList<MessageInternal>();
+
+   /**
+    * Client side only, the messages as they were added
+    */
+   private transient HornetQBuffer encodedMessages;
+
+   public SessionSendBatchMessage()
+   {
+      super(SESS_SEND_BATCH);
+   }
+
+   // Public --------------------------------------------------------
+
+   public void addMessage(final MessageInternal message)
+   {
+      if (encodedMessages == null)
+      {
+         encodedMessages = HornetQBuffers.dynamicBuffer(message.getEncodeSize());
+      }
+
+      message.encode(encodedMessages);
+
+      messages.add(message);
+   }
+
+   public List<MessageInternal> getMessages()
+   {
+      return Collections.unmodifiableList(messages);
+   }
+
+   public int getMessageCount()
+   {
+      return messages.size();
+   }
+
+   /**
+    * @return the number of bytes the messages added so far take on the wire
+    */
+   public int getEncodedMessagesSize()
+   {
+      return encodedMessages == null ? 0 : encodedMessages.writerIndex();
+   }
+
+   @Override
+   public HornetQBuffer encode(final RemotingConnection connection)
+   {
+      HornetQBuffer buffer = connection.createBuffer(PACKET_HEADERS_SIZE + DataConstants.SIZE_INT +
+                                                     getEncodedMessagesSize());
+
+      buffer.writeInt(0); // The length gets filled in at the end
+      buffer.writeByte(getType());
+      buffer.writeLong(getChannelID());
+
+      encodeRest(buffer);
+
+      size = buffer.writerIndex();
+
+      buffer.setInt(0, size - DataConstants.SIZE_INT);
+
+      return buffer;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeInt(messages.size());
+
+      if (encodedMessages != null)
+      {
+         buffer.writeBytes(encodedMessages, 0, encodedMessages.writerIndex());
+      }
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      int count = buffer.readInt();
+
+      for (int i = 0; i < count; i++)
+      {
+         MessageInternal message = createMessage();
+
+         message.decode(buffer);
+
+         messages.add(message);
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", messages=" + messages.size() + "]";
+   }
+
+   // Protected -----------------------------------------------------
+
+   /**
+    * @return an empty message to decode one of the batch into
+    */
+   protected MessageInternal createMessage()
+   {
+      return new ClientMessageImpl((byte)0, false, 0, 0, (byte)4, 50);
+   }
+}
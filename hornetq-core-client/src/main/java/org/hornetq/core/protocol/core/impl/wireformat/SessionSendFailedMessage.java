@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQExceptionType;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+
+/**
+ * A SessionSendFailedMessage
+ * <p>
+ * Tells the client that a send which didn't ask for a response has failed. The send is named by
+ * its command ID, as counted by the confirmations of the channel, and the server sends this before
+ * confirming the send so the client still holds it in its resend cache.
+ */
+public class SessionSendFailedMessage extends PacketImpl
+{
+   private int commandID;
+
+   private HornetQException exception;
+
+   public SessionSendFailedMessage(final HornetQException exception)
+   {
+      super(SESS_SEND_FAILED);
+
+      this.exception = exception;
+   }
+
+   public SessionSendFailedMessage()
+   {
+      super(SESS_SEND_FAILED);
+   }
+
+   // Public --------------------------------------------------------
+
+   public int getCommandID()
+   {
+      return commandID;
+   }
+
+   public void setCommandID(final int commandID)
+   {
+      this.commandID = commandID;
+   }
+
+   public HornetQException getException()
+   {
+      return exception;
+   }
+
+   @Override
+   public void encodeRest(final HornetQBuffer buffer)
+   {
+      buffer.writeInt(commandID);
+      buffer.writeInt(exception.getType().getCode());
+      buffer.writeNullableString(exception.getMessage());
+   }
+
+   @Override
+   public void decodeRest(final HornetQBuffer buffer)
+   {
+      commandID = buffer.readInt();
+
+      int code = buffer.readInt();
+      String msg = buffer.readNullableString();
+
+      exception = HornetQExceptionType.createException(code, msg);
+   }
+
+   @Override
+   public String toString()
+   {
+      return getParentString() + ", commandID=" + commandID + ", exception= " + exception + "]";
+   }
+
+   @Override
+   public int hashCode()
+   {
+      final int prime = 31;
+      int result = super.hashCode();
+      result = prime * result + commandID;
+      result = prime * result + ((exception == null) ? 0 : exception.hashCode());
+      return result;
+   }
+
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+      {
+         return true;
+      }
+      if (!super.equals(obj))
+      {
+         return false;
+      }
+      if (!(obj instanceof SessionSendFailedMessage))
+      {
+         return false;
+      }
+      SessionSendFailedMessage other = (SessionSendFailedMessage)obj;
+      if (commandID != other.commandID)
+      {
+         return false;
+      }
+      if (exception == null)
+      {
+         if (other.exception != null)
+         {
+            return false;
+         }
+      }
+      else if (!exception.equals(other.exception))
+      {
+         return false;
+      }
+      return true;
+   }
+}
@@ -14,6 +14,7 @@
 package org.hornetq.core.protocol.core.impl.wireformat;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.client.SendCompletion;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.spi.core.protocol.RemotingConnection;
 import org.hornetq.utils.DataConstants;
@@ -25,18 +26,47 @@ import org.hornetq.utils.DataConstants;
 public class SessionSendMessage extends MessagePacket
 {
 
+   // the flags sharing the byte the requires response boolean was encoded in, so older peers read it unchanged
+   private static final byte REQUIRES_RESPONSE = 1;
+
+   private static final byte COMPLETION_REQUESTED = 2;
+
    private boolean requiresResponse;
 
+   /**
+    * Whether the client waits for the confirmation of this send to complete it
+    */
+   private boolean completionRequested;
+
+   /**
+    * Client side only, the completion of a send done with
+    * {@link org.hornetq.api.core.client.ClientProducer#sendAsync(org.hornetq.api.core.Message)}
+    */
+   private final transient SendCompletion completion;
+
    public SessionSendMessage(final MessageInternal message, final boolean requiresResponse)
+   {
+      this(message, requiresResponse, null);
+   }
+
+   public SessionSendMessage(final MessageInternal message,
+                             final boolean requiresResponse,
+                             final SendCompletion completion)
    {
       super(SESS_SEND, message);
 
       this.requiresResponse = requiresResponse;
+
+      this.completion = completion;
+
+      completionRequested = completion != null;
    }
 
    public SessionSendMessage(final MessageInternal message)
    {
       super(SESS_SEND, message);
+
+      completion = null;
    }
 
    // Public --------------------------------------------------------
@@ -46,6 +76,16 @@ public class SessionSendMessage extends MessagePacket
       return requiresResponse;
    }
 
+   public boolean isCompletionRequested()
+   {
+      return completionRequested;
+   }
+
+   public SendCompletion getCompletion()
+   {
+      return completion;
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
@@ -61,7 +101,14 @@ public class SessionSendMessage extends MessagePacket
          throw new IllegalStateException("Wrong encode position");
       }
 
-      buffer.writeBoolean(requiresResponse);
+      byte flags = requiresResponse ? REQUIRES_RESPONSE : 0;
+
+      if (completionRequested)
+      {
+         flags |= COMPLETION_REQUESTED;
+      }
+
+      buffer.writeByte(flags);
 
       size = buffer.writerIndex();
 
@@ -89,7 +136,11 @@ public class SessionSendMessage extends MessagePacket
 
       int ri = buffer.readerIndex();
 
-      requiresResponse = buffer.readBoolean();
+      byte flags = buffer.readByte();
+
+      requiresResponse = (flags & REQUIRES_RESPONSE) != 0;
+
+      completionRequested = (flags & COMPLETION_REQUESTED) != 0;
 
       buffer.readerIndex(ri);
 
@@ -101,6 +152,7 @@ public class SessionSendMessage extends MessagePacket
       final int prime = 31;
       int result = super.hashCode();
       result = prime * result + (requiresResponse ? 1231 : 1237);
+      result = prime * result + (completionRequested ? 1231 : 1237);
       return result;
    }
 
@@ -116,6 +168,8 @@ public class SessionSendMessage extends MessagePacket
       SessionSendMessage other = (SessionSendMessage)obj;
       if (requiresResponse != other.requiresResponse)
          return false;
+      if (completionRequested != other.completionRequested)
+         return false;
       return true;
    }
 
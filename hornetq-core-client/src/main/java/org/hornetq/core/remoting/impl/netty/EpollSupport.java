@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.remoting.impl.netty;
+
+import java.nio.channels.spi.SelectorProvider;
+
+/**
+ * A EpollSupport
+ * <p>
+ * Netty 3 has no native transport of its own, its NIO channel factories poll through the JDK
+ * {@link SelectorProvider}, which is backed by epoll on Linux. {@link TransportConstants#USE_EPOLL_PROP_NAME}
+ * selects the NIO factories and checks here that the JDK really polls with epoll.
+ */
+public final class EpollSupport
+{
+   private static final String SELECTOR_PROVIDER = SelectorProvider.provider().getClass().getName();
+
+   private static final boolean AVAILABLE = SELECTOR_PROVIDER.startsWith("sun.nio.ch.EPoll");
+
+   private EpollSupport()
+   {
+   }
+
+   /**
+    * @return whether NIO selectors are epoll based in this JVM
+    */
+   public static boolean isAvailable()
+   {
+      return AVAILABLE;
+   }
+
+   /**
+    * @return the class name of the JVM's selector provider
+    */
+   public static String getSelectorProvider()
+   {
+      return SELECTOR_PROVIDER;
+   }
+}
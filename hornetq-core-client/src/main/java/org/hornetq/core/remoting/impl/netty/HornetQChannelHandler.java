@@ -14,6 +14,7 @@ package org.hornetq.core.remoting.impl.netty;
 
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
+import org.hornetq.core.buffers.impl.PooledChannelBuffer;
 import org.hornetq.core.client.HornetQClientLogger;
 import org.hornetq.core.client.HornetQClientMessageBundle;
 import org.hornetq.spi.core.remoting.BufferHandler;
@@ -69,7 +70,15 @@ class HornetQChannelHandler extends SimpleChannelHandler
    {
       ChannelBuffer buffer = (ChannelBuffer)e.getMessage();
 
-      handler.bufferReceived(e.getChannel().getId(), new ChannelBufferWrapper(buffer));
+      try
+      {
+         handler.bufferReceived(e.getChannel().getId(), new ChannelBufferWrapper(buffer));
+      }
+      finally
+      {
+         // frames are decoded into packets by the time the handler returns
+         PooledChannelBuffer.release(buffer);
+      }
    }
 
    @Override
@@ -13,6 +13,8 @@
 
 package org.hornetq.core.remoting.impl.netty;
 
+import org.hornetq.core.buffers.impl.PooledBufferAllocator;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.utils.DataConstants;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
@@ -33,6 +35,23 @@ public class HornetQFrameDecoder2 extends SimpleChannelUpstreamHandler
 {
    private ChannelBuffer previousData = ChannelBuffers.EMPTY_BUFFER;
 
+   // null if frames are not pooled
+   private final PooledBufferAllocator allocator;
+
+   public HornetQFrameDecoder2()
+   {
+      this(null);
+   }
+
+   /**
+    * @param allocator if not null, frames that nothing keeps after decoding come from it and are
+    *           released by {@link HornetQChannelHandler} once handled
+    */
+   public HornetQFrameDecoder2(final PooledBufferAllocator allocator)
+   {
+      this.allocator = allocator;
+   }
+
    // SimpleChannelUpstreamHandler overrides
    // -------------------------------------------------------------------------------------
 
@@ -163,13 +182,29 @@ public class HornetQFrameDecoder2 extends SimpleChannelUpstreamHandler
          // Convert to dynamic buffer (this requires copy)
          // XXX Tune this value: Increasing the initial capacity of the dynamic
          // buffer might reduce the chance of additional memory copy.
-         ChannelBuffer frame = ChannelBuffers.dynamicBuffer(length + DataConstants.SIZE_INT);
+         ChannelBuffer frame;
+         if (allocator != null && length > 0 && !isKeptAfterDecoding(in.getByte(in.readerIndex() + DataConstants.SIZE_INT)))
+         {
+            frame = allocator.buffer(length + DataConstants.SIZE_INT);
+         }
+         else
+         {
+            frame = ChannelBuffers.dynamicBuffer(length + DataConstants.SIZE_INT);
+         }
          frame.writeBytes(in, length + DataConstants.SIZE_INT);
          frame.skipBytes(DataConstants.SIZE_INT);
          Channels.fireMessageReceived(ctx, frame);
       }
    }
 
+   /**
+    * Messages keep the buffer they were decoded from as their own
+    */
+   private static boolean isKeptAfterDecoding(final byte packetType)
+   {
+      return packetType == PacketImpl.SESS_SEND || packetType == PacketImpl.SESS_RECEIVE_MSG;
+   }
+
    private void append(final ChannelBuffer in, final int length)
    {
       // Need more data to decode the first message. This can happen when
@@ -22,6 +22,8 @@ import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQInterruptedException;
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
+import org.hornetq.core.buffers.impl.PooledBufferAllocator;
+import org.hornetq.core.buffers.impl.PooledChannelBuffer;
 import org.hornetq.core.security.HornetQPrincipal;
 import org.hornetq.core.client.HornetQClientLogger;
 import org.hornetq.spi.core.remoting.Connection;
@@ -56,6 +58,9 @@ public class NettyConnection implements Connection
 
    private final boolean directDeliver;
 
+   // null if buffers are not pooled
+   private final PooledBufferAllocator allocator;
+
    private volatile HornetQBuffer batchBuffer;
 
    private final Map<String, Object> configuration;
@@ -73,6 +78,21 @@ public class NettyConnection implements Connection
                            final ConnectionLifeCycleListener listener,
                            boolean batchingEnabled,
                            boolean directDeliver)
+   {
+      this(configuration, channel, listener, batchingEnabled, directDeliver, false);
+   }
+
+   /**
+    * @param pooledBuffers whether the buffers of {@link #createBuffer(int)} and the batch buffers
+    *           come from {@link PooledBufferAllocator#DIRECT}. Their memory is given back once
+    *           Netty has written them.
+    */
+   public NettyConnection(final Map<String, Object> configuration,
+                           final Channel channel,
+                           final ConnectionLifeCycleListener listener,
+                           boolean batchingEnabled,
+                           boolean directDeliver,
+                           boolean pooledBuffers)
    {
       this.configuration = configuration;
 
@@ -83,6 +103,8 @@ public class NettyConnection implements Connection
       this.batchingEnabled = batchingEnabled;
 
       this.directDeliver = directDeliver;
+
+      allocator = pooledBuffers ? PooledBufferAllocator.DIRECT : null;
    }
 
    // Public --------------------------------------------------------
@@ -128,6 +150,11 @@ public class NettyConnection implements Connection
 
    public HornetQBuffer createBuffer(final int size)
    {
+      if (allocator != null)
+      {
+         return new ChannelBufferWrapper(allocator.buffer(size));
+      }
+
       return new ChannelBufferWrapper(ChannelBuffers.dynamicBuffer(size));
    }
 
@@ -150,9 +177,9 @@ public class NettyConnection implements Connection
          {
             if (batchBuffer != null && batchBuffer.readable())
             {
-               channel.write(batchBuffer.channelBuffer());
+               writeToChannel(batchBuffer);
 
-               batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+               batchBuffer = createBatchBuffer();
             }
          }
          finally
@@ -180,13 +207,15 @@ public class NettyConnection implements Connection
             {
                // Lazily create batch buffer
 
-               batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+               batchBuffer = createBatchBuffer();
             }
 
             if (batchBuffer != null)
             {
                batchBuffer.writeBytes(buffer, 0, buffer.writerIndex());
 
+               PooledChannelBuffer.release(buffer.channelBuffer());
+
                if (batchBuffer.writerIndex() >= BATCHING_BUFFER_SIZE || !batched || flush)
                {
                   // If the batch buffer is full or it's flush param or not batched then flush the buffer
@@ -206,11 +235,11 @@ public class NettyConnection implements Connection
                {
                   // Create a new buffer
 
-                  batchBuffer = HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+                  batchBuffer = createBatchBuffer();
                }
             }
 
-            ChannelFuture future = channel.write(buffer.channelBuffer());
+            ChannelFuture future = writeToChannel(buffer);
 
             if (flush)
             {
@@ -308,6 +337,29 @@ public class NettyConnection implements Connection
 
    // Private -------------------------------------------------------
 
+   private HornetQBuffer createBatchBuffer()
+   {
+      if (allocator != null)
+      {
+         return new ChannelBufferWrapper(allocator.buffer(BATCHING_BUFFER_SIZE));
+      }
+
+      return HornetQBuffers.dynamicBuffer(BATCHING_BUFFER_SIZE);
+   }
+
+   private ChannelFuture writeToChannel(final HornetQBuffer buffer)
+   {
+      ChannelFuture future = channel.write(buffer.channelBuffer());
+
+      if (buffer.channelBuffer() instanceof PooledChannelBuffer)
+      {
+         // Netty is done with the buffer once the write completes, successfully or not
+         future.addListener((PooledChannelBuffer)buffer.channelBuffer());
+      }
+
+      return future;
+   }
+
    // Inner classes -------------------------------------------------
 
 }
@@ -37,6 +37,7 @@ import javax.net.ssl.SSLException;
 
 import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.HornetQException;
+import org.hornetq.core.buffers.impl.PooledBufferAllocator;
 import org.hornetq.core.remoting.impl.ssl.SSLSupport;
 import org.hornetq.core.client.HornetQClientLogger;
 import org.hornetq.core.client.HornetQClientMessageBundle;
@@ -122,6 +123,8 @@ public class NettyConnector extends AbstractConnector
 
    private final boolean useNio;
 
+   private final boolean useEpoll;
+
    private final boolean useServlet;
 
    private final String host;
@@ -148,6 +151,8 @@ public class NettyConnector extends AbstractConnector
 
    private final long batchDelay;
 
+   private final boolean pooledBuffers;
+
    private final ConcurrentMap<Object, Connection> connections = new ConcurrentHashMap<Object, Connection>();
 
    private final String servletPath;
@@ -224,6 +229,16 @@ public class NettyConnector extends AbstractConnector
                                                       TransportConstants.DEFAULT_USE_NIO_CLIENT,
                                                       configuration);
 
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                        TransportConstants.DEFAULT_USE_EPOLL,
+                                                        configuration);
+
+      if (useEpoll && !EpollSupport.isAvailable())
+      {
+         HornetQClientLogger.LOGGER.epollNotAvailable(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                      EpollSupport.getSelectorProvider());
+      }
+
       nioRemotingThreads = ConfigurationHelper.getIntProperty(TransportConstants.NIO_REMOTING_THREADS_PROPNAME,
                                                               -1,
                                                               configuration);
@@ -286,6 +301,10 @@ public class NettyConnector extends AbstractConnector
                                                        TransportConstants.DEFAULT_BATCH_DELAY,
                                                        configuration);
 
+      pooledBuffers = !httpEnabled && ConfigurationHelper.getBooleanProperty(TransportConstants.POOLED_BUFFERS,
+                                                                             TransportConstants.DEFAULT_POOLED_BUFFERS,
+                                                                             configuration);
+
       this.closeExecutor = closeExecutor;
 
       virtualExecutor = new VirtualExecutorService(threadPool);
@@ -309,6 +328,8 @@ public class NettyConnector extends AbstractConnector
              sslEnabled +
              ", useNio=" +
              useNio +
+             ", useEpoll=" +
+             useEpoll +
              "]";
    }
 
@@ -319,7 +340,8 @@ public class NettyConnector extends AbstractConnector
          return;
       }
 
-      if (useNio)
+      // epoll is only reachable through the NIO selector, if it isn't epoll based this is plain NIO
+      if (useNio || useEpoll)
       {
          int threadsToUse;
 
@@ -439,7 +461,7 @@ public class NettyConnector extends AbstractConnector
                handlers.add(new HttpHandler());
             }
 
-            handlers.add(new HornetQFrameDecoder2());
+            handlers.add(new HornetQFrameDecoder2(pooledBuffers ? PooledBufferAllocator.HEAP : null));
 
             handlers.add(new HornetQClientChannelHandler(channelGroup, handler, new Listener()));
 
@@ -589,7 +611,12 @@ public class NettyConnector extends AbstractConnector
 
          // No acceptor on a client connection
          Listener connectionListener = new Listener();
-         NettyConnection conn = new NettyConnection(configuration, ch, connectionListener, !httpEnabled && batchDelay > 0, false);
+         NettyConnection conn = new NettyConnection(configuration,
+                                                    ch,
+                                                    connectionListener,
+                                                    !httpEnabled && batchDelay > 0,
+                                                    false,
+                                                    pooledBuffers);
          connectionListener.connectionCreated(null, conn, ProtocolType.CORE);
 
          return conn;
@@ -47,6 +47,8 @@ public class TransportConstants
 
    public static final String USE_NIO_PROP_NAME = "use-nio";
 
+   public static final String USE_EPOLL_PROP_NAME = "use-epoll";
+
    public static final String USE_INVM_PROP_NAME = "use-invm";
 
    public static final String PROTOCOL_PROP_NAME = "protocol";
@@ -77,10 +79,14 @@ public class TransportConstants
 
    public static final String NIO_REMOTING_THREADS_PROPNAME = "nio-remoting-threads";
 
+   public static final String NIO_REMOTING_BOSS_THREADS_PROPNAME = "nio-remoting-boss-threads";
+
    public static final String BATCH_DELAY = "batch-delay";
 
    public static final String DIRECT_DELIVER = "direct-deliver";
 
+   public static final String POOLED_BUFFERS = "pooled-buffers";
+
    public static final String CLUSTER_CONNECTION = "cluster-connection";
 
    public static final String STOMP_CONSUMERS_CREDIT = "stomp-consumer-credits";
@@ -94,6 +100,8 @@ public class TransportConstants
    // For client, using old IO can be quicker
    public static final boolean DEFAULT_USE_NIO_CLIENT = false;
 
+   public static final boolean DEFAULT_USE_EPOLL = false;
+
    public static final boolean DEFAULT_USE_INVM = false;
 
    public static final boolean DEFAULT_USE_SERVLET = false;
@@ -126,6 +134,8 @@ public class TransportConstants
 
    public static final int DEFAULT_TCP_RECEIVEBUFFER_SIZE = 32768;
 
+   public static final int DEFAULT_NIO_REMOTING_BOSS_THREADS = 1;
+
    public static final boolean DEFAULT_HTTP_ENABLED = false;
 
    public static final long DEFAULT_HTTP_CLIENT_IDLE_TIME = 500;
@@ -144,6 +154,8 @@ public class TransportConstants
 
    public static final boolean DEFAULT_DIRECT_DELIVER = true;
 
+   public static final boolean DEFAULT_POOLED_BUFFERS = true;
+
    public static final Set<String> ALLOWABLE_CONNECTOR_KEYS;
 
    public static final Set<String> ALLOWABLE_ACCEPTOR_KEYS;
@@ -160,6 +172,7 @@ public class TransportConstants
       allowableAcceptorKeys.add(TransportConstants.HTTP_RESPONSE_TIME_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.HTTP_SERVER_SCAN_PERIOD_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
+      allowableAcceptorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.USE_INVM_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.PROTOCOL_PROP_NAME);
       allowableAcceptorKeys.add(TransportConstants.HOST_PROP_NAME);
@@ -173,8 +186,10 @@ public class TransportConstants
       allowableAcceptorKeys.add(TransportConstants.TCP_SENDBUFFER_SIZE_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
+      allowableAcceptorKeys.add(TransportConstants.NIO_REMOTING_BOSS_THREADS_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.BATCH_DELAY);
       allowableAcceptorKeys.add(TransportConstants.DIRECT_DELIVER);
+      allowableAcceptorKeys.add(TransportConstants.POOLED_BUFFERS);
       allowableAcceptorKeys.add(TransportConstants.CLUSTER_CONNECTION);
       allowableAcceptorKeys.add(TransportConstants.STOMP_CONSUMERS_CREDIT);
       allowableAcceptorKeys.add(TransportConstants.CONNECTION_TTL);
@@ -193,6 +208,7 @@ public class TransportConstants
       allowableConnectorKeys.add(TransportConstants.USE_SERVLET_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.SERVLET_PATH);
       allowableConnectorKeys.add(TransportConstants.USE_NIO_PROP_NAME);
+      allowableConnectorKeys.add(TransportConstants.USE_EPOLL_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.HOST_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.PORT_PROP_NAME);
       allowableConnectorKeys.add(TransportConstants.LOCAL_PORT_PROP_NAME);
@@ -205,6 +221,7 @@ public class TransportConstants
       allowableConnectorKeys.add(TransportConstants.TCP_RECEIVEBUFFER_SIZE_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.NIO_REMOTING_THREADS_PROPNAME);
       allowableConnectorKeys.add(TransportConstants.BATCH_DELAY);
+      allowableConnectorKeys.add(TransportConstants.POOLED_BUFFERS);
       allowableConnectorKeys.add(HornetQDefaultConfiguration.PROP_MASK_PASSWORD);
       allowableConnectorKeys.add(HornetQDefaultConfiguration.PROP_PASSWORD_CODEC);
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.buffers.impl;
+
+import junit.framework.TestCase;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * A PooledBufferAllocatorTest
+ */
+public class PooledBufferAllocatorTest extends TestCase
+{
+   private final PooledBufferAllocator allocator = PooledBufferAllocator.HEAP;
+
+   private long outstanding;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      allocator.setLeakDetection(true);
+
+      outstanding = allocator.getOutstandingBuffers();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      assertTrue(allocator.getLeaks().isEmpty());
+
+      assertEquals(outstanding, allocator.getOutstandingBuffers());
+
+      allocator.setLeakDetection(false);
+
+      super.tearDown();
+   }
+
+   public void testChunkReusedAfterRelease()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(100);
+
+      byte[] chunk = buffer.array();
+
+      assertEquals(PooledBufferAllocator.MIN_CHUNK_SIZE, buffer.capacity());
+
+      buffer.writeInt(10);
+
+      buffer.release();
+
+      buffer = allocator.buffer(200);
+
+      assertSame(chunk, buffer.array());
+      assertEquals(0, buffer.readerIndex());
+      assertEquals(0, buffer.writerIndex());
+
+      buffer.release();
+   }
+
+   public void testGrowth()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(10);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         buffer.writeInt(i);
+      }
+
+      assertEquals(4096, buffer.capacity());
+
+      for (int i = 0; i < 1000; i++)
+      {
+         assertEquals(i, buffer.readInt());
+      }
+
+      buffer.release();
+   }
+
+   public void testDoubleRelease()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(10);
+
+      buffer.release();
+
+      try
+      {
+         buffer.release();
+
+         fail("Should throw exception");
+      }
+      catch (IllegalStateException e)
+      {
+         // ok
+      }
+   }
+
+   public void testLeakDetection()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(10);
+
+      assertEquals(outstanding + 1, allocator.getOutstandingBuffers());
+      assertEquals(1, allocator.getLeaks().size());
+
+      StackTraceElement allocation = allocator.getLeaks().iterator().next().getStackTrace()[1];
+
+      assertEquals(getClass().getName(), allocation.getClassName());
+      assertEquals("testLeakDetection", allocation.getMethodName());
+
+      buffer.release();
+   }
+
+   public void testCopiesAreNotPooled()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(10);
+
+      buffer.writeLong(1234);
+
+      ChannelBuffer copy = buffer.copy();
+
+      ChannelBuffer read = buffer.readBytes(8);
+
+      buffer.release();
+
+      // takes the chunk that was just released
+      PooledChannelBuffer other = allocator.buffer(10);
+
+      other.writeLong(5678);
+
+      assertEquals(1234, copy.getLong(0));
+      assertEquals(1234, read.getLong(0));
+
+      // growing a copy doesn't touch the pool either
+      for (int i = 0; i < 1000; i++)
+      {
+         copy.writeLong(i);
+      }
+
+      assertEquals(outstanding + 1, allocator.getOutstandingBuffers());
+
+      other.release();
+   }
+
+   public void testLargeBuffersAreNotPooled()
+   {
+      PooledChannelBuffer buffer = allocator.buffer(PooledBufferAllocator.MAX_CHUNK_SIZE + 1);
+
+      byte[] chunk = buffer.array();
+
+      assertEquals(PooledBufferAllocator.MAX_CHUNK_SIZE + 1, buffer.capacity());
+
+      buffer.release();
+
+      buffer = allocator.buffer(PooledBufferAllocator.MAX_CHUNK_SIZE + 1);
+
+      assertNotSame(chunk, buffer.array());
+
+      buffer.release();
+   }
+}
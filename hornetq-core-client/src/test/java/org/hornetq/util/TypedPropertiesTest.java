@@ -213,6 +213,74 @@ public class TypedPropertiesTest extends TestCase
       Assert.assertEquals(props.getEncodeSize(), buffer.writerIndex());
    }
 
+   public void testDecodedPropertiesReadBeforeChange() throws Exception
+   {
+      SimpleString intKey = RandomUtil.randomSimpleString();
+      SimpleString stringKey = RandomUtil.randomSimpleString();
+      SimpleString bytesKey = RandomUtil.randomSimpleString();
+      SimpleString stringValue = RandomUtil.randomSimpleString();
+
+      props.putIntProperty(intKey, 10);
+      props.putSimpleStringProperty(stringKey, stringValue);
+      props.putBytesProperty(bytesKey, RandomUtil.randomBytes());
+      props.putNullValue(key);
+      props.putCharProperty(RandomUtil.randomSimpleString(), 'a');
+      props.putDoubleProperty(RandomUtil.randomSimpleString(), 1.5);
+      props.putSimpleStringProperty(new SimpleString("_HQ_ROUTE_TO"), stringValue);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(1024);
+      props.encode(buffer);
+      buffer.writeInt(12345);
+
+      TypedProperties decodedProps = new TypedProperties();
+      decodedProps.decode(buffer);
+
+      // the properties are read entirely, leaving the buffer on what follows them
+      Assert.assertEquals(12345, buffer.readInt());
+
+      Assert.assertTrue(decodedProps.hasInternalProperties());
+      Assert.assertEquals(props.getEncodeSize(), decodedProps.getEncodeSize());
+      Assert.assertEquals(10, (int)decodedProps.getIntProperty(intKey));
+      Assert.assertEquals(stringValue, decodedProps.getSimpleStringProperty(stringKey));
+      Assert.assertTrue(decodedProps.containsProperty(key));
+      Assert.assertNull(decodedProps.getProperty(key));
+      Assert.assertFalse(decodedProps.containsProperty(RandomUtil.randomSimpleString()));
+      Assert.assertNull(decodedProps.getProperty(RandomUtil.randomSimpleString()));
+      Assert.assertNull(decodedProps.removeProperty(RandomUtil.randomSimpleString()));
+
+      // unchanged properties encode the same
+      HornetQBuffer reencoded = HornetQBuffers.dynamicBuffer(1024);
+      decodedProps.encode(reencoded);
+      Assert.assertEquals(decodedProps.getEncodeSize(), reencoded.writerIndex());
+      buffer.readerIndex(0);
+      for (int i = 0; i < reencoded.writerIndex(); i++)
+      {
+         Assert.assertEquals(buffer.readByte(), reencoded.readByte());
+      }
+
+      TypedProperties copy = new TypedProperties(decodedProps);
+      TypedPropertiesTest.assertEqualsTypeProperties(props, copy);
+
+      decodedProps.removeProperty(bytesKey);
+      decodedProps.putLongProperty(intKey, 20L);
+
+      Assert.assertFalse(decodedProps.containsProperty(bytesKey));
+      Assert.assertEquals(20L, (long)decodedProps.getLongProperty(intKey));
+      Assert.assertEquals(stringValue, decodedProps.getSimpleStringProperty(stringKey));
+
+      // the copy isn't affected
+      Assert.assertTrue(copy.containsProperty(bytesKey));
+      Assert.assertEquals(10, (int)copy.getIntProperty(intKey));
+
+      reencoded.clear();
+      decodedProps.encode(reencoded);
+      Assert.assertEquals(decodedProps.getEncodeSize(), reencoded.writerIndex());
+
+      TypedProperties redecodedProps = new TypedProperties();
+      redecodedProps.decode(reencoded);
+      TypedPropertiesTest.assertEqualsTypeProperties(decodedProps, redecodedProps);
+   }
+
    public void testEncodeDecodeEmpty() throws Exception
    {
       TypedProperties emptyProps = new TypedProperties();
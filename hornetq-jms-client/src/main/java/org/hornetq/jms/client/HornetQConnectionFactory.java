@@ -326,6 +326,39 @@ public class HornetQConnectionFactory implements Serializable, Referenceable
       serverLocator.setProducerMaxRate(producerMaxRate);
    }
 
+   public synchronized int getProducerMaxPendingSends()
+   {
+      return serverLocator.getProducerMaxPendingSends();
+   }
+
+   public synchronized void setProducerMaxPendingSends(final int producerMaxPendingSends)
+   {
+      checkWrite();
+      serverLocator.setProducerMaxPendingSends(producerMaxPendingSends);
+   }
+
+   public synchronized int getProducerBatchSize()
+   {
+      return serverLocator.getProducerBatchSize();
+   }
+
+   public synchronized void setProducerBatchSize(final int producerBatchSize)
+   {
+      checkWrite();
+      serverLocator.setProducerBatchSize(producerBatchSize);
+   }
+
+   public synchronized long getProducerBatchTimeout()
+   {
+      return serverLocator.getProducerBatchTimeout();
+   }
+
+   public synchronized void setProducerBatchTimeout(final long producerBatchTimeout)
+   {
+      checkWrite();
+      serverLocator.setProducerBatchTimeout(producerBatchTimeout);
+   }
+
    public synchronized int getProducerWindowSize()
    {
       return serverLocator.getProducerWindowSize();
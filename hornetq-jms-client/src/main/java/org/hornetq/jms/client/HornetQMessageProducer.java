@@ -35,6 +35,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientProducer;
 import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.SendCompletion;
 import org.hornetq.utils.UUID;
 import org.hornetq.utils.UUIDGenerator;
 
@@ -191,7 +192,7 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
       message.setJMSPriority(defaultPriority);
 
-      doSend(message, defaultTimeToLive, null);
+      doSend(message, defaultTimeToLive, null, false);
    }
 
    public void send(final Message message, final int deliveryMode, final int priority, final long timeToLive) throws JMSException
@@ -202,7 +203,7 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
       message.setJMSPriority(priority);
 
-      doSend(message, timeToLive, null);
+      doSend(message, timeToLive, null, false);
    }
 
    public void send(final Destination destination, final Message message) throws JMSException
@@ -218,7 +219,7 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
       message.setJMSPriority(defaultPriority);
 
-      doSend(message, defaultTimeToLive, (HornetQDestination)destination);
+      doSend(message, defaultTimeToLive, (HornetQDestination)destination, false);
    }
 
    public void send(final Destination destination,
@@ -238,7 +239,7 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
       message.setJMSPriority(priority);
 
-      doSend(message, timeToLive, (HornetQDestination)destination);
+      doSend(message, timeToLive, (HornetQDestination)destination, false);
    }
 
    // TopicPublisher Implementation ---------------------------------
@@ -295,6 +296,47 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
    // Public --------------------------------------------------------
 
+   /**
+    * Sends the message like {@link #send(Message)} without waiting for the server to confirm it.
+    * <p>
+    * The returned handle completes once the server confirms the message, or carries the reason the
+    * server refused it.
+    *
+    * @see ClientProducer#sendAsync(org.hornetq.api.core.Message)
+    */
+   public SendCompletion sendAsync(final Message message) throws JMSException
+   {
+      checkClosed();
+
+      message.setJMSDeliveryMode(defaultDeliveryMode);
+
+      message.setJMSPriority(defaultPriority);
+
+      return doSend(message, defaultTimeToLive, null, true);
+   }
+
+   /**
+    * Sends the message like {@link #send(Destination, Message)} without waiting for the server to
+    * confirm it.
+    *
+    * @see #sendAsync(Message)
+    */
+   public SendCompletion sendAsync(final Destination destination, final Message message) throws JMSException
+   {
+      checkClosed();
+
+      if (destination != null && !(destination instanceof HornetQDestination))
+      {
+         throw new InvalidDestinationException("Not a HornetQ Destination:" + destination);
+      }
+
+      message.setJMSDeliveryMode(defaultDeliveryMode);
+
+      message.setJMSPriority(defaultPriority);
+
+      return doSend(message, defaultTimeToLive, (HornetQDestination)destination, true);
+   }
+
    @Override
    public String toString()
    {
@@ -307,7 +349,10 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
    // Private -------------------------------------------------------
 
-   private void doSend(final Message message, final long timeToLive, HornetQDestination destination) throws JMSException
+   private SendCompletion doSend(final Message message,
+                                 final long timeToLive,
+                                 HornetQDestination destination,
+                                 final boolean async) throws JMSException
    {
       if (timeToLive == 0)
       {
@@ -435,7 +480,14 @@ public class HornetQMessageProducer implements MessageProducer, QueueSender, Top
 
       try
       {
+         if (async)
+         {
+            return producer.sendAsync(address, coreMessage);
+         }
+
          producer.send(address, coreMessage);
+
+         return null;
       }
       catch (HornetQException e)
       {
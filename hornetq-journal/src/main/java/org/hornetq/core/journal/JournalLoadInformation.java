@@ -24,6 +24,10 @@ public class JournalLoadInformation
 
    private long maxID = -1;
 
+   private long parseTime = 0;
+
+   private long loadTime = 0;
+
    public JournalLoadInformation()
    {
       super();
@@ -72,6 +76,41 @@ public class JournalLoadInformation
       this.maxID = maxID;
    }
 
+   /**
+    * @return the time (in milliseconds) spent reading and parsing the journal files, summed over
+    *         all the threads loading the journal
+    */
+   public long getParseTime()
+   {
+      return parseTime;
+   }
+
+   /**
+    * @param parseTime the parseTime to set
+    */
+   public void setParseTime(final long parseTime)
+   {
+      this.parseTime = parseTime;
+   }
+
+   /**
+    * @return the elapsed time (in milliseconds) of the whole load
+    */
+   public long getLoadTime()
+   {
+      return loadTime;
+   }
+
+   /**
+    * @param loadTime the loadTime to set
+    */
+   public void setLoadTime(final long loadTime)
+   {
+      this.loadTime = loadTime;
+   }
+
+   // The timings are not part of equals and hashCode, replication compares the loaded data only
+
    @Override
    public int hashCode()
    {
@@ -112,6 +151,7 @@ public class JournalLoadInformation
    @Override
    public String toString()
    {
-      return "JournalLoadInformation [maxID=" + maxID + ", numberOfRecords=" + numberOfRecords + "]";
+      return "JournalLoadInformation [maxID=" + maxID + ", numberOfRecords=" + numberOfRecords + ", parseTime=" +
+             parseTime + ", loadTime=" + loadTime + "]";
    }
 }
@@ -33,6 +33,12 @@ public interface TestableJournal extends Journal
 
    int getIDMapSize();
 
+   /**
+    * @return an estimate, in bytes, of the heap used to index the live records, not counting the
+    *         records themselves. Divided by {@link #getIDMapSize()} gives the per record overhead.
+    */
+   long getIDMapMemorySize();
+
    String debug() throws Exception;
 
    void debugWait() throws Exception;
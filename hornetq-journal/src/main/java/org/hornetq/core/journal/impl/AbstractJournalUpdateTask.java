@@ -16,7 +16,6 @@ package org.hornetq.core.journal.impl;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
@@ -26,7 +25,7 @@ import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.core.journal.impl.dataformat.ByteArrayEncoding;
 import org.hornetq.core.journal.impl.dataformat.JournalAddRecord;
 import org.hornetq.core.journal.impl.dataformat.JournalInternalRecord;
-import org.hornetq.utils.ConcurrentHashSet;
+import org.hornetq.utils.ConcurrentLongHashMap;
 
 /**
  *
@@ -58,7 +57,11 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
 
    private HornetQBuffer writingChannel;
 
-   private final Set<Long> recordsSnapshot = new ConcurrentHashSet<Long>();
+   // The records of the journal when the task started, this map is not changed any more
+   private final ConcurrentLongHashMap<?> liveRecords;
+
+   // IDs added after the task started, used as a set of IDs, values are meaningless
+   private final ConcurrentLongHashMap<Boolean> recordsSnapshot = new ConcurrentLongHashMap<Boolean>();
 
    protected final List<JournalFile> newDataFiles = new ArrayList<JournalFile>();
 
@@ -69,7 +72,7 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
    protected AbstractJournalUpdateTask(final SequentialFileFactory fileFactory,
                                        final JournalImpl journal,
                                        final JournalFilesRepository filesRepository,
-                                       final Set<Long> recordsSnapshot,
+                                       final ConcurrentLongHashMap<?> liveRecords,
                                        final long nextOrderingID)
    {
       super();
@@ -77,7 +80,7 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
       this.filesRepository = filesRepository;
       this.fileFactory = fileFactory;
       this.nextOrderingID = nextOrderingID;
-      this.recordsSnapshot.addAll(recordsSnapshot);
+      this.liveRecords = liveRecords;
    }
 
    // Public --------------------------------------------------------
@@ -193,7 +196,7 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
 
    public boolean lookupRecord(final long id)
    {
-      return recordsSnapshot.contains(id);
+      return liveRecords.containsKey(id) || recordsSnapshot.containsKey(id);
    }
 
    // Package protected ---------------------------------------------
@@ -224,7 +227,7 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
 
    protected void addToRecordsSnaptshot(final long id)
    {
-      recordsSnapshot.add(id);
+      recordsSnapshot.put(id, Boolean.TRUE);
    }
 
    /**
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.journal.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.SequentialFileFactory;
+
+/**
+ * A JournalFilesReader
+ * <p>
+ * Reads the journal files while {@link JournalImpl} is loading.
+ * <p>
+ * With a single thread every file is parsed on the caller's thread, straight into the load
+ * callback. With more threads the files are parsed ahead on a pool, each into a list of the
+ * records it contains. The caller still asks for the files in order, and each file's records are
+ * then replayed into the load callback in the order they were found. The add/update/delete/commit
+ * semantics are applied by the same callback either way, only the parsing is concurrent.
+ * <p>
+ * At most two files per thread are parsed ahead of the caller, so the memory used while loading
+ * doesn't grow with the size of the journal.
+ */
+final class JournalFilesReader
+{
+   private static final byte MARK_AS_DATA_FILE = 0;
+
+   private final SequentialFileFactory fileFactory;
+
+   private final List<JournalFile> files;
+
+   private final ExecutorService executor;
+
+   private final int window;
+
+   private final LinkedList<Future<ParsedFile>> pending = new LinkedList<Future<ParsedFile>>();
+
+   private int nextFile;
+
+   private final AtomicLong parseTime = new AtomicLong(0);
+
+   JournalFilesReader(final SequentialFileFactory fileFactory, final List<JournalFile> files, final int threads)
+   {
+      this.fileFactory = fileFactory;
+      this.files = files;
+
+      if (threads > 1 && files.size() > 1)
+      {
+         final AtomicInteger threadCount = new AtomicInteger(0);
+         executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+         {
+            public Thread newThread(final Runnable r)
+            {
+               Thread t = new Thread(r, "JournalImpl::LoadExecutor-" + threadCount.incrementAndGet());
+               t.setDaemon(true);
+               return t;
+            }
+         });
+         window = threads * 2;
+
+         while (pending.size() < window && submitNext())
+         {
+         }
+      }
+      else
+      {
+         executor = null;
+         window = 0;
+      }
+   }
+
+   /**
+    * Reads the file, calling back {@code callback} for each valid record on it. The files must be
+    * read in the same order they were given to the constructor.
+    * @return the position after the last valid record, as {@link JournalImpl#readJournalFile}
+    */
+   int read(final JournalFile file, final JournalReaderCallback callback) throws Exception
+   {
+      if (executor == null)
+      {
+         long start = System.nanoTime();
+         try
+         {
+            return JournalImpl.readJournalFile(fileFactory, file, callback);
+         }
+         finally
+         {
+            parseTime.addAndGet(System.nanoTime() - start);
+         }
+      }
+
+      Future<ParsedFile> future = pending.poll();
+
+      if (future == null)
+      {
+         throw new IllegalStateException("There are no more files to read, requested " + file);
+      }
+
+      ParsedFile parsed;
+      try
+      {
+         parsed = future.get();
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof Exception)
+         {
+            throw (Exception)e.getCause();
+         }
+         throw e;
+      }
+
+      if (parsed.file != file)
+      {
+         throw new IllegalStateException("Journal files must be read in order, expected " + parsed.file +
+                                         " but was " +
+                                         file);
+      }
+
+      submitNext();
+
+      parsed.replay(callback);
+
+      return parsed.lastDataPos;
+   }
+
+   /**
+    * @return the time spent reading and parsing files, summed over all the load threads. When the
+    *         files are read on the caller's thread it includes applying the records.
+    */
+   long getParseTime()
+   {
+      return TimeUnit.NANOSECONDS.toMillis(parseTime.get());
+   }
+
+   void close()
+   {
+      if (executor != null)
+      {
+         for (Future<ParsedFile> future : pending)
+         {
+            future.cancel(false);
+         }
+         pending.clear();
+         executor.shutdown();
+      }
+   }
+
+   private boolean submitNext()
+   {
+      if (nextFile >= files.size())
+      {
+         return false;
+      }
+
+      final JournalFile file = files.get(nextFile++);
+
+      pending.add(executor.submit(new Callable<ParsedFile>()
+      {
+         public ParsedFile call() throws Exception
+         {
+            long start = System.nanoTime();
+            try
+            {
+               ParsedFile parsed = new ParsedFile(file);
+               parsed.lastDataPos = JournalImpl.readJournalFile(fileFactory, file, parsed);
+               return parsed;
+            }
+            finally
+            {
+               parseTime.addAndGet(System.nanoTime() - start);
+            }
+         }
+      }));
+
+      return true;
+   }
+
+   /**
+    * The records of a single file, in the order they were read.
+    */
+   private static final class ParsedFile implements JournalReaderCallback
+   {
+      private final JournalFile file;
+
+      private final List<ReadEvent> events = new ArrayList<ReadEvent>();
+
+      private int lastDataPos;
+
+      ParsedFile(final JournalFile file)
+      {
+         this.file = file;
+      }
+
+      void replay(final JournalReaderCallback callback) throws Exception
+      {
+         for (ReadEvent event : events)
+         {
+            switch (event.type)
+            {
+               case JournalImpl.ADD_RECORD:
+                  callback.onReadAddRecord(event.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD:
+                  callback.onReadUpdateRecord(event.info);
+                  break;
+               case JournalImpl.DELETE_RECORD:
+                  callback.onReadDeleteRecord(event.id);
+                  break;
+               case JournalImpl.ADD_RECORD_TX:
+                  callback.onReadAddRecordTX(event.id, event.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD_TX:
+                  callback.onReadUpdateRecordTX(event.id, event.info);
+                  break;
+               case JournalImpl.DELETE_RECORD_TX:
+                  callback.onReadDeleteRecordTX(event.id, event.info);
+                  break;
+               case JournalImpl.PREPARE_RECORD:
+                  callback.onReadPrepareRecord(event.id, event.extraData, event.numberOfRecords);
+                  break;
+               case JournalImpl.COMMIT_RECORD:
+                  callback.onReadCommitRecord(event.id, event.numberOfRecords);
+                  break;
+               case JournalImpl.ROLLBACK_RECORD:
+                  callback.onReadRollbackRecord(event.id);
+                  break;
+               case MARK_AS_DATA_FILE:
+                  callback.markAsDataFile(file);
+                  break;
+               default:
+                  throw new IllegalStateException("Invalid record type " + event.type);
+            }
+         }
+      }
+
+      public void onReadAddRecord(final RecordInfo info) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.ADD_RECORD, info.id, info, null, 0));
+      }
+
+      public void onReadUpdateRecord(final RecordInfo recordInfo) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.UPDATE_RECORD, recordInfo.id, recordInfo, null, 0));
+      }
+
+      public void onReadDeleteRecord(final long recordID) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.DELETE_RECORD, recordID, null, null, 0));
+      }
+
+      public void onReadAddRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.ADD_RECORD_TX, transactionID, recordInfo, null, 0));
+      }
+
+      public void onReadUpdateRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.UPDATE_RECORD_TX, transactionID, recordInfo, null, 0));
+      }
+
+      public void onReadDeleteRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.DELETE_RECORD_TX, transactionID, recordInfo, null, 0));
+      }
+
+      public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.PREPARE_RECORD, transactionID, null, extraData, numberOfRecords));
+      }
+
+      public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.COMMIT_RECORD, transactionID, null, null, numberOfRecords));
+      }
+
+      public void onReadRollbackRecord(final long transactionID) throws Exception
+      {
+         events.add(new ReadEvent(JournalImpl.ROLLBACK_RECORD, transactionID, null, null, 0));
+      }
+
+      public void markAsDataFile(final JournalFile file)
+      {
+         events.add(new ReadEvent(MARK_AS_DATA_FILE, 0, null, null, 0));
+      }
+   }
+
+   private static final class ReadEvent
+   {
+      final byte type;
+
+      /** the recordID or the transactionID, depending on the type */
+      final long id;
+
+      final RecordInfo info;
+
+      final byte[] extraData;
+
+      final int numberOfRecords;
+
+      ReadEvent(final byte type, final long id, final RecordInfo info, final byte[] extraData, final int numberOfRecords)
+      {
+         this.type = type;
+         this.id = id;
+         this.info = info;
+         this.extraData = extraData;
+         this.numberOfRecords = numberOfRecords;
+      }
+   }
+}
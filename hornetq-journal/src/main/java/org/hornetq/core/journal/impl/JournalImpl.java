@@ -26,8 +26,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -62,9 +60,11 @@ import org.hornetq.core.journal.impl.dataformat.JournalCompleteRecordTX.TX_RECOR
 import org.hornetq.core.journal.impl.dataformat.JournalDeleteRecord;
 import org.hornetq.core.journal.impl.dataformat.JournalDeleteRecordTX;
 import org.hornetq.core.journal.impl.dataformat.JournalInternalRecord;
+import org.hornetq.core.journal.impl.dataformat.JournalPreEncodedRecord;
 import org.hornetq.core.journal.impl.dataformat.JournalRollbackRecordTX;
 import org.hornetq.journal.HornetQJournalBundle;
 import org.hornetq.journal.HornetQJournalLogger;
+import org.hornetq.utils.ConcurrentLongHashMap;
 import org.hornetq.utils.DataConstants;
 
 /**
@@ -178,11 +178,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    private final JournalFilesRepository filesRepository;
 
-   // Compacting may replace this structure
-   private final ConcurrentMap<Long, JournalRecord> records = new ConcurrentHashMap<Long, JournalRecord>();
+   // Compacting replaces this structure
+   private volatile ConcurrentLongHashMap<JournalRecord> records = new ConcurrentLongHashMap<JournalRecord>();
 
    // Compacting may replace this structure
-   private final ConcurrentMap<Long, JournalTransaction> transactions = new ConcurrentHashMap<Long, JournalTransaction>();
+   private final ConcurrentLongHashMap<JournalTransaction> transactions = new ConcurrentLongHashMap<JournalTransaction>();
 
    // This will be set only while the JournalCompactor is being executed
    private volatile JournalCompactor compactor;
@@ -193,6 +193,20 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    private ExecutorService compactorExecutor = null;
 
+   private volatile int loadThreads = 1;
+
+   // Compacting statistics, only updated by the compactor thread
+
+   private volatile long compactCount;
+
+   private volatile long lastCompactTime;
+
+   private volatile long lastCompactPauseTime;
+
+   private volatile long totalCompactPauseTime;
+
+   private volatile long lastCompactedBytes;
+
    // Lock used during the append of records
    // This lock doesn't represent a global lock.
    // After a record is appended, the usedFile can't be changed until the positives and negatives are updated
@@ -780,7 +794,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
       try
       {
-         JournalInternalRecord addRecord = new JournalAddRecord(true, id, recordType, record);
+         JournalInternalRecord addRecord = new JournalPreEncodedRecord(new JournalAddRecord(true, id, recordType, record));
 
          if (callback != null)
          {
@@ -837,7 +851,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             }
          }
 
-         JournalInternalRecord updateRecord = new JournalAddRecord(false, id, recordType, record);
+         JournalInternalRecord updateRecord = new JournalPreEncodedRecord(new JournalAddRecord(false, id, recordType, record));
 
          if (callback != null)
          {
@@ -961,7 +975,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
       try
       {
-         JournalInternalRecord addRecord = new JournalAddRecordTX(true, txID, id, recordType, record);
+         JournalInternalRecord addRecord = new JournalPreEncodedRecord(new JournalAddRecordTX(true, txID, id, recordType, record));
 
          JournalTransaction tx = getTransactionInfo(txID);
 
@@ -1019,7 +1033,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
       try
       {
-         JournalInternalRecord updateRecordTX = new JournalAddRecordTX(false, txID, id, recordType, record);
+         JournalInternalRecord updateRecordTX = new JournalPreEncodedRecord(new JournalAddRecordTX(false, txID, id, recordType, record));
 
          JournalTransaction tx = getTransactionInfo(txID);
 
@@ -1471,6 +1485,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
          boolean previousReclaimValue = isAutoReclaim();
 
+         final long compactStart = System.nanoTime();
+
+         // the time the appenders were blocked by this compacting
+         long pauseTime = 0;
+
       try
       {
          HornetQJournalLogger.LOGGER.debug("Starting compacting operation on journal");
@@ -1480,6 +1499,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          // We need to guarantee that the journal is frozen for this short time
          // We don't freeze the journal as we compact, only for the short time where we replace records
          journalLock.writeLock().lock();
+         long lockStart = System.nanoTime();
          try
          {
             if (state != JournalState.LOADED)
@@ -1506,10 +1526,12 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
                return;
             }
 
+            // The current records are handed to the compactor as they are, it only looks them up.
+            // Copying them here would keep the journal locked for as long as it takes to go over all of them.
             compactor = new JournalCompactor(fileFactory,
                                              this,
                                              filesRepository,
-                                             records.keySet(),
+                                             records,
                                              dataFilesToProcess.get(0).getFileID());
 
             for (Map.Entry<Long, JournalTransaction> entry : transactions.entrySet())
@@ -1520,10 +1542,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             // We will calculate the new records during compacting, what will take the position the records will take
             // after compacting
-            records.clear();
+            records = new ConcurrentLongHashMap<JournalRecord>();
          }
          finally
          {
+            pauseTime += System.nanoTime() - lockStart;
             journalLock.writeLock().unlock();
          }
 
@@ -1561,6 +1584,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          SequentialFile controlFile = createControlFile(dataFilesToProcess, compactor.getNewDataFiles(), null);
 
          journalLock.writeLock().lock();
+         lockStart = System.nanoTime();
          try
          {
             // Need to clear the compactor here, or the replay commands will send commands back (infinite loop)
@@ -1570,10 +1594,23 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             newDatafiles = localCompactor.getNewDataFiles();
 
-            // Restore newRecords created during compacting
-            for (Map.Entry<Long, JournalRecord> newRecordEntry : localCompactor.getNewRecords().entrySet())
+            // Restore newRecords created during compacting, merging the smaller map into the larger one.
+            // The compacted records take precedence either way.
+            ConcurrentLongHashMap<JournalRecord> newRecords = localCompactor.getNewRecords();
+            if (newRecords.size() >= records.size())
             {
-               records.put(newRecordEntry.getKey(), newRecordEntry.getValue());
+               for (Map.Entry<Long, JournalRecord> recordEntry : records.entrySet())
+               {
+                  newRecords.putIfAbsent(recordEntry.getKey(), recordEntry.getValue());
+               }
+               records = newRecords;
+            }
+            else
+            {
+               for (Map.Entry<Long, JournalRecord> newRecordEntry : newRecords.entrySet())
+               {
+                  records.put(newRecordEntry.getKey(), newRecordEntry.getValue());
+               }
             }
 
             // Restore compacted dataFiles
@@ -1624,6 +1661,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          }
          finally
          {
+            pauseTime += System.nanoTime() - lockStart;
             journalLock.writeLock().unlock();
          }
 
@@ -1631,7 +1669,23 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          renameFiles(dataFilesToProcess, newDatafiles);
          deleteControlFile(controlFile);
 
-         HornetQJournalLogger.LOGGER.debug("Finished compacting on journal");
+         lastCompactTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compactStart);
+         lastCompactPauseTime = TimeUnit.NANOSECONDS.toMillis(pauseTime);
+         totalCompactPauseTime += lastCompactPauseTime;
+         lastCompactedBytes = (long)dataFilesToProcess.size() * fileSize;
+         compactCount++;
+
+         if (HornetQJournalLogger.LOGGER.isDebugEnabled())
+         {
+            HornetQJournalLogger.LOGGER.debug("Finished compacting on journal, " + dataFilesToProcess.size() +
+                                              " files into " +
+                                              newDatafiles.size() +
+                                              " in " +
+                                              lastCompactTime +
+                                              " ms, appenders were blocked for " +
+                                              lastCompactPauseTime +
+                                              " ms");
+         }
 
       }
       finally
@@ -1730,6 +1784,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       transactions.clear();
       currentFile = null;
 
+      final long loadStart = System.currentTimeMillis();
+
       final Map<Long, TransactionHolder> loadTransactions = new LinkedHashMap<Long, TransactionHolder>();
 
       final List<JournalFile> orderedFiles = orderFiles();
@@ -1741,274 +1797,283 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       // AtomicLong is used only as a reference, not as an Atomic value
       final AtomicLong maxID = new AtomicLong(-1);
 
-      for (final JournalFile file : orderedFiles)
-      {
-         JournalImpl.trace("Loading file " + file.getFile().getFileName());
-
-         final AtomicBoolean hasData = new AtomicBoolean(false);
+      final JournalFilesReader filesReader = new JournalFilesReader(fileFactory, orderedFiles, loadThreads);
 
-         int resultLastPost = JournalImpl.readJournalFile(fileFactory, file, new JournalReaderCallback()
+      try
+      {
+         for (final JournalFile file : orderedFiles)
          {
+            JournalImpl.trace("Loading file " + file.getFile().getFileName());
 
-            private void checkID(final long id)
-            {
-               if (id > maxID.longValue())
-               {
-                  maxID.set(id);
-               }
-            }
+            final AtomicBoolean hasData = new AtomicBoolean(false);
 
-            public void onReadAddRecord(final RecordInfo info) throws Exception
+            int resultLastPost = filesReader.read(file, new JournalReaderCallback()
             {
-               checkID(info.id);
-
-               hasData.set(true);
-
-               loadManager.addRecord(info);
 
-               records.put(info.id, new JournalRecord(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1));
-            }
+               private void checkID(final long id)
+               {
+                  if (id > maxID.longValue())
+                  {
+                     maxID.set(id);
+                  }
+               }
 
-            public void onReadUpdateRecord(final RecordInfo info) throws Exception
-            {
-               checkID(info.id);
+               public void onReadAddRecord(final RecordInfo info) throws Exception
+               {
+                  checkID(info.id);
 
-               hasData.set(true);
+                  hasData.set(true);
 
-               loadManager.updateRecord(info);
+                  loadManager.addRecord(info);
 
-               JournalRecord posFiles = records.get(info.id);
+                  records.put(info.id, new JournalRecord(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1));
+               }
 
-               if (posFiles != null)
+               public void onReadUpdateRecord(final RecordInfo info) throws Exception
                {
-                  // It's legal for this to be null. The file(s) with the may
-                  // have been deleted
-                  // just leaving some updates in this file
+                  checkID(info.id);
 
-                  posFiles.addUpdateFile(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1); // +1 = compact
-                  // count
-               }
-            }
+                  hasData.set(true);
 
-            public void onReadDeleteRecord(final long recordID) throws Exception
-            {
-               hasData.set(true);
+                  loadManager.updateRecord(info);
 
-               loadManager.deleteRecord(recordID);
+                  JournalRecord posFiles = records.get(info.id);
 
-               JournalRecord posFiles = records.remove(recordID);
+                  if (posFiles != null)
+                  {
+                     // It's legal for this to be null. The file(s) with the may
+                     // have been deleted
+                     // just leaving some updates in this file
 
-               if (posFiles != null)
-               {
-                  posFiles.delete(file);
+                     posFiles.addUpdateFile(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1); // +1 = compact
+                     // count
+                  }
                }
-            }
 
-            public void onReadUpdateRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
-               onReadAddRecordTX(transactionID, info);
-            }
-
-            public void onReadAddRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
+               public void onReadDeleteRecord(final long recordID) throws Exception
+               {
+                  hasData.set(true);
 
-               checkID(info.id);
+                  loadManager.deleteRecord(recordID);
 
-               hasData.set(true);
+                  JournalRecord posFiles = records.remove(recordID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                  if (posFiles != null)
+                  {
+                     posFiles.delete(file);
+                  }
+               }
 
-               if (tx == null)
+               public void onReadUpdateRecordTX(final long transactionID, final RecordInfo info) throws Exception
                {
-                  tx = new TransactionHolder(transactionID);
-
-                  loadTransactions.put(transactionID, tx);
+                  onReadAddRecordTX(transactionID, info);
                }
 
-               tx.recordInfos.add(info);
-
-               JournalTransaction tnp = transactions.get(transactionID);
-
-               if (tnp == null)
+               public void onReadAddRecordTX(final long transactionID, final RecordInfo info) throws Exception
                {
-                  tnp = new JournalTransaction(transactionID, JournalImpl.this);
 
-                  transactions.put(transactionID, tnp);
-               }
+                  checkID(info.id);
 
-               tnp.addPositive(file, info.id, info.data.length + JournalImpl.SIZE_ADD_RECORD_TX + 1); // +1 = compact
-               // count
-            }
+                  hasData.set(true);
 
-            public void onReadDeleteRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
-               hasData.set(true);
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                  if (tx == null)
+                  {
+                     tx = new TransactionHolder(transactionID);
 
-               if (tx == null)
-               {
-                  tx = new TransactionHolder(transactionID);
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-                  loadTransactions.put(transactionID, tx);
-               }
+                  tx.recordInfos.add(info);
 
-               tx.recordsToDelete.add(info);
+                  JournalTransaction tnp = transactions.get(transactionID);
 
-               JournalTransaction tnp = transactions.get(transactionID);
+                  if (tnp == null)
+                  {
+                     tnp = new JournalTransaction(transactionID, JournalImpl.this);
 
-               if (tnp == null)
-               {
-                  tnp = new JournalTransaction(transactionID, JournalImpl.this);
+                     transactions.put(transactionID, tnp);
+                  }
 
-                  transactions.put(transactionID, tnp);
+                  tnp.addPositive(file, info.id, info.data.length + JournalImpl.SIZE_ADD_RECORD_TX + 1); // +1 = compact
+                  // count
                }
 
-               tnp.addNegative(file, info.id);
+               public void onReadDeleteRecordTX(final long transactionID, final RecordInfo info) throws Exception
+               {
+                  hasData.set(true);
 
-            }
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-            public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
-            {
-               hasData.set(true);
+                  if (tx == null)
+                  {
+                     tx = new TransactionHolder(transactionID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-               if (tx == null)
-               {
-                  // The user could choose to prepare empty transactions
-                  tx = new TransactionHolder(transactionID);
+                  tx.recordsToDelete.add(info);
 
-                  loadTransactions.put(transactionID, tx);
-               }
+                  JournalTransaction tnp = transactions.get(transactionID);
+
+                  if (tnp == null)
+                  {
+                     tnp = new JournalTransaction(transactionID, JournalImpl.this);
 
-               tx.prepared = true;
+                     transactions.put(transactionID, tnp);
+                  }
 
-               tx.extraData = extraData;
+                  tnp.addNegative(file, info.id);
 
-               JournalTransaction journalTransaction = transactions.get(transactionID);
+               }
 
-               if (journalTransaction == null)
+               public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
                {
-                  journalTransaction = new JournalTransaction(transactionID, JournalImpl.this);
+                  hasData.set(true);
 
-                  transactions.put(transactionID, journalTransaction);
-               }
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-               boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
+                  if (tx == null)
+                  {
+                     // The user could choose to prepare empty transactions
+                     tx = new TransactionHolder(transactionID);
 
-               if (healthy)
-               {
-                  journalTransaction.prepare(file);
-               }
-               else
-               {
-                  HornetQJournalLogger.LOGGER.preparedTXIncomplete(transactionID);
-                  tx.invalid = true;
-               }
-            }
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-            public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
-            {
-               TransactionHolder tx = loadTransactions.remove(transactionID);
+                  tx.prepared = true;
 
-               // The commit could be alone on its own journal-file and the
-               // whole transaction body was reclaimed but not the
-               // commit-record
-               // So it is completely legal to not find a transaction at this
-               // point
-               // If we can't find it, we assume the TX was reclaimed and we
-               // ignore this
-               if (tx != null)
-               {
-                  JournalTransaction journalTransaction = transactions.remove(transactionID);
+                  tx.extraData = extraData;
+
+                  JournalTransaction journalTransaction = transactions.get(transactionID);
 
                   if (journalTransaction == null)
                   {
-                     throw new IllegalStateException("Cannot find tx " + transactionID);
+                     journalTransaction = new JournalTransaction(transactionID, JournalImpl.this);
+
+                     transactions.put(transactionID, journalTransaction);
                   }
 
                   boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
 
                   if (healthy)
                   {
-                     for (RecordInfo txRecord : tx.recordInfos)
+                     journalTransaction.prepare(file);
+                  }
+                  else
+                  {
+                     HornetQJournalLogger.LOGGER.preparedTXIncomplete(transactionID);
+                     tx.invalid = true;
+                  }
+               }
+
+               public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
+               {
+                  TransactionHolder tx = loadTransactions.remove(transactionID);
+
+                  // The commit could be alone on its own journal-file and the
+                  // whole transaction body was reclaimed but not the
+                  // commit-record
+                  // So it is completely legal to not find a transaction at this
+                  // point
+                  // If we can't find it, we assume the TX was reclaimed and we
+                  // ignore this
+                  if (tx != null)
+                  {
+                     JournalTransaction journalTransaction = transactions.remove(transactionID);
+
+                     if (journalTransaction == null)
+                     {
+                        throw new IllegalStateException("Cannot find tx " + transactionID);
+                     }
+
+                     boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
+
+                     if (healthy)
                      {
-                        if (txRecord.isUpdate)
+                        for (RecordInfo txRecord : tx.recordInfos)
                         {
-                           loadManager.updateRecord(txRecord);
+                           if (txRecord.isUpdate)
+                           {
+                              loadManager.updateRecord(txRecord);
+                           }
+                           else
+                           {
+                              loadManager.addRecord(txRecord);
+                           }
                         }
-                        else
+
+                        for (RecordInfo deleteValue : tx.recordsToDelete)
                         {
-                           loadManager.addRecord(txRecord);
+                           loadManager.deleteRecord(deleteValue.id);
                         }
-                     }
 
-                     for (RecordInfo deleteValue : tx.recordsToDelete)
-                     {
-                        loadManager.deleteRecord(deleteValue.id);
+                        journalTransaction.commit(file);
                      }
+                     else
+                     {
+                        HornetQJournalLogger.LOGGER.txMissingElements(transactionID);
 
-                     journalTransaction.commit(file);
-                  }
-                  else
-                  {
-                     HornetQJournalLogger.LOGGER.txMissingElements(transactionID);
+                        journalTransaction.forget();
+                     }
 
-                     journalTransaction.forget();
+                     hasData.set(true);
                   }
 
-                  hasData.set(true);
                }
 
-            }
-
-            public void onReadRollbackRecord(final long transactionID) throws Exception
-            {
-               TransactionHolder tx = loadTransactions.remove(transactionID);
-
-               // The rollback could be alone on its own journal-file and the
-               // whole transaction body was reclaimed but the commit-record
-               // So it is completely legal to not find a transaction at this
-               // point
-               if (tx != null)
+               public void onReadRollbackRecord(final long transactionID) throws Exception
                {
-                  JournalTransaction tnp = transactions.remove(transactionID);
+                  TransactionHolder tx = loadTransactions.remove(transactionID);
 
-                  if (tnp == null)
+                  // The rollback could be alone on its own journal-file and the
+                  // whole transaction body was reclaimed but the commit-record
+                  // So it is completely legal to not find a transaction at this
+                  // point
+                  if (tx != null)
                   {
-                     throw new IllegalStateException("Cannot find tx " + transactionID);
-                  }
+                     JournalTransaction tnp = transactions.remove(transactionID);
+
+                     if (tnp == null)
+                     {
+                        throw new IllegalStateException("Cannot find tx " + transactionID);
+                     }
+
+                     // There is no need to validate summaries/holes on
+                     // Rollbacks.. We will ignore the data anyway.
+                     tnp.rollback(file);
 
-                  // There is no need to validate summaries/holes on
-                  // Rollbacks.. We will ignore the data anyway.
-                  tnp.rollback(file);
+                     hasData.set(true);
+                  }
+               }
 
+               public void markAsDataFile(final JournalFile file)
+               {
                   hasData.set(true);
                }
-            }
 
-            public void markAsDataFile(final JournalFile file)
+            });
+
+            if (hasData.get())
             {
-               hasData.set(true);
+               lastDataPos = resultLastPost;
+               filesRepository.addDataFileOnBottom(file);
             }
-
-         });
-
-         if (hasData.get())
-         {
-            lastDataPos = resultLastPost;
-            filesRepository.addDataFileOnBottom(file);
-         }
-         else
-         {
-            if (changeData)
+            else
             {
-               // Empty dataFiles with no data
-               filesRepository.addFreeFile(file, false, false);
+               if (changeData)
+               {
+                  // Empty dataFiles with no data
+                  filesRepository.addFreeFile(file, false, false);
+               }
             }
          }
       }
+      finally
+      {
+         filesReader.close();
+      }
 
       if (replicationSync == JournalState.SYNCING)
       {
@@ -2059,7 +2124,13 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
       checkReclaimStatus();
 
-      return new JournalLoadInformation(records.size(), maxID.longValue());
+      JournalLoadInformation loadInformation = new JournalLoadInformation(records.size(), maxID.longValue());
+
+      loadInformation.setParseTime(filesReader.getParseTime());
+
+      loadInformation.setLoadTime(System.currentTimeMillis() - loadStart);
+
+      return loadInformation;
    }
 
    /**
@@ -2296,6 +2367,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       return records.size();
    }
 
+   public long getIDMapMemorySize()
+   {
+      return records.getMemorySize();
+   }
+
    @Override
    public int getFileSize()
    {
@@ -2327,6 +2403,67 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       return userVersion;
    }
 
+   /**
+    * @return the number of compactions finished since this journal was created
+    */
+   public long getCompactCount()
+   {
+      return compactCount;
+   }
+
+   /**
+    * @return the elapsed time (in milliseconds) of the last compaction
+    */
+   public long getLastCompactTime()
+   {
+      return lastCompactTime;
+   }
+
+   /**
+    * @return the time (in milliseconds) the last compaction kept the journal locked, blocking any
+    *         append
+    */
+   public long getLastCompactPauseTime()
+   {
+      return lastCompactPauseTime;
+   }
+
+   /**
+    * @return the time (in milliseconds) all the compactions kept the journal locked
+    */
+   public long getTotalCompactPauseTime()
+   {
+      return totalCompactPauseTime;
+   }
+
+   /**
+    * @return the size of the data files processed by the last compaction.
+    *         {@code getLastCompactedBytes() / getLastCompactTime()} is the compaction throughput
+    */
+   public long getLastCompactedBytes()
+   {
+      return lastCompactedBytes;
+   }
+
+   public int getLoadThreads()
+   {
+      return loadThreads;
+   }
+
+   /**
+    * Sets the number of threads parsing journal files on {@link #load(LoaderCallback)}. With more
+    * than one thread the files are parsed concurrently, and their records are still applied in file
+    * order.
+    */
+   public void setLoadThreads(final int loadThreads)
+   {
+      if (loadThreads < 1)
+      {
+         throw new IllegalArgumentException("loadThreads cannot be less than 1");
+      }
+      this.loadThreads = loadThreads;
+   }
+
    // In some tests we need to force the journal to move to a next file
    public void forceMoveNextFile() throws Exception
    {
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.journal.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.HornetQExceptionType;
+import org.hornetq.api.core.HornetQIOErrorException;
+import org.hornetq.core.journal.EncodingSupport;
+import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.SequentialFile;
+import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.journal.HornetQJournalBundle;
+
+/**
+ * A MappedSequentialFile
+ * <p>
+ * Writes go through a {@link MappedByteBuffer} over the file, so an append is a memory copy and a
+ * sync is a {@link MappedByteBuffer#force()}. Reads still go through the {@link FileChannel},
+ * which sees the same pages.
+ * <p>
+ * Journal files are pre-sized, so they are mapped once. Files that grow (e.g. paging) get their
+ * mapping extended in {@link #MAPPING_GROWTH} steps, and are truncated back to the written size
+ * when closed.
+ * <p>
+ * Writes are performed on the caller's thread, there is no write executor involved.
+ */
+public class MappedSequentialFile extends AbstractSequentialFile
+{
+   private static final int MAPPING_GROWTH = 1024 * 1024;
+
+   private FileChannel channel;
+
+   private RandomAccessFile rfile;
+
+   private MappedByteBuffer mappedBuffer;
+
+   private long mappedSize;
+
+   /** The size of the file as seen by the readers, the mapping may have extended the file beyond it */
+   private volatile long logicalSize;
+
+   public MappedSequentialFile(final SequentialFileFactory factory, final String directory, final String fileName)
+   {
+      super(directory, new File(directory + "/" + fileName), factory, null);
+   }
+
+   public MappedSequentialFile(final SequentialFileFactory factory, final File file)
+   {
+      super(file.getParent(), new File(file.getPath()), factory, null);
+   }
+
+   public int getAlignment()
+   {
+      return 1;
+   }
+
+   public int calculateBlockStart(final int position) throws Exception
+   {
+      return position;
+   }
+
+   public synchronized boolean isOpen()
+   {
+      return channel != null;
+   }
+
+   public synchronized void open() throws Exception
+   {
+      open(1, false);
+   }
+
+   public synchronized void open(final int maxIO, final boolean useExecutor) throws Exception
+   {
+      try
+      {
+         rfile = new RandomAccessFile(getFile(), "rw");
+
+         channel = rfile.getChannel();
+
+         fileSize = channel.size();
+
+         logicalSize = fileSize;
+
+         if (fileSize > 0)
+         {
+            map(fileSize);
+         }
+      }
+      catch (IOException e)
+      {
+         factory.onIOError(new HornetQIOErrorException(e.getMessage(), e), e.getMessage(), this);
+         throw e;
+      }
+   }
+
+   public synchronized void fill(final int position, final int size, final byte fillCharacter) throws Exception
+   {
+      ByteBuffer bb = ByteBuffer.allocate(size);
+
+      for (int i = 0; i < size; i++)
+      {
+         bb.put(fillCharacter);
+      }
+
+      bb.flip();
+
+      channel.position(position);
+
+      channel.write(bb);
+
+      channel.force(false);
+
+      channel.position(0);
+
+      fileSize = channel.size();
+
+      logicalSize = Math.max(logicalSize, fileSize);
+   }
+
+   public synchronized void waitForClose() throws Exception
+   {
+      while (isOpen())
+      {
+         wait();
+      }
+   }
+
+   @Override
+   public synchronized void close() throws Exception
+   {
+      super.close();
+
+      if (mappedBuffer != null)
+      {
+         unmap(mappedBuffer);
+         mappedBuffer = null;
+         mappedSize = 0;
+      }
+
+      if (channel != null)
+      {
+         // give back whatever the last mapping extension didn't use
+         if (channel.size() > logicalSize)
+         {
+            channel.truncate(logicalSize);
+         }
+         channel.close();
+      }
+
+      if (rfile != null)
+      {
+         rfile.close();
+      }
+
+      channel = null;
+
+      rfile = null;
+
+      notifyAll();
+   }
+
+   public int read(final ByteBuffer bytes) throws Exception
+   {
+      return read(bytes, null);
+   }
+
+   public synchronized int read(final ByteBuffer bytes, final IOAsyncTask callback) throws Exception
+   {
+      try
+      {
+         if (channel == null)
+         {
+            throw new Exception("File " + this.getFileName() + " has a null channel");
+         }
+         int bytesRead = channel.read(bytes);
+
+         if (callback != null)
+         {
+            callback.done();
+         }
+
+         bytes.flip();
+
+         return bytesRead;
+      }
+      catch (IOException e)
+      {
+         if (callback != null)
+         {
+            callback.onError(HornetQExceptionType.IO_ERROR.getCode(), e.getLocalizedMessage());
+         }
+
+         factory.onIOError(new HornetQIOErrorException(e.getMessage(), e), e.getMessage(), this);
+
+         throw e;
+      }
+   }
+
+   public synchronized void sync() throws IOException
+   {
+      if (mappedBuffer != null)
+      {
+         mappedBuffer.force();
+      }
+   }
+
+   public long size() throws Exception
+   {
+      if (channel == null)
+      {
+         return getFile().length();
+      }
+      else
+      {
+         return logicalSize;
+      }
+   }
+
+   @Override
+   public synchronized void position(final long pos) throws Exception
+   {
+      super.position(pos);
+      channel.position(pos);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "MappedSequentialFile " + getFile();
+   }
+
+   public SequentialFile cloneFile()
+   {
+      return new MappedSequentialFile(factory, getFile());
+   }
+
+   /**
+    * Without a TimedBuffer the record is encoded straight into the mapped region, no intermediate
+    * buffer is needed.
+    */
+   @Override
+   public void write(final EncodingSupport bytes, final boolean sync, final IOAsyncTask callback) throws Exception
+   {
+      if (timedBuffer != null)
+      {
+         super.write(bytes, sync, callback);
+         return;
+      }
+
+      try
+      {
+         synchronized (this)
+         {
+            HornetQBuffer outBuffer = HornetQBuffers.wrappedBuffer(reserve(bytes.getEncodeSize()));
+            bytes.encode(outBuffer);
+         }
+
+         completeWrite(sync, callback);
+      }
+      catch (IOException e)
+      {
+         onWriteError(e, callback);
+      }
+   }
+
+   public void writeDirect(final ByteBuffer bytes, final boolean sync, final IOAsyncTask callback)
+   {
+      if (callback == null)
+      {
+         throw new NullPointerException("callback parameter need to be set");
+      }
+
+      try
+      {
+         internalWrite(bytes, sync, callback);
+      }
+      catch (Exception e)
+      {
+         callback.onError(HornetQExceptionType.GENERIC_EXCEPTION.getCode(), e.getMessage());
+      }
+   }
+
+   public void writeDirect(final ByteBuffer bytes, final boolean sync) throws Exception
+   {
+      internalWrite(bytes, sync, null);
+   }
+
+   public void writeInternal(final ByteBuffer bytes) throws Exception
+   {
+      internalWrite(bytes, true, null);
+   }
+
+   @Override
+   protected ByteBuffer newBuffer(int size, final int limit)
+   {
+      // Just like NIO, we don't need to allocate a buffer the entire size of the timed buffer
+
+      size = limit;
+
+      return super.newBuffer(size, limit);
+   }
+
+   private void internalWrite(final ByteBuffer bytes, final boolean sync, final IOAsyncTask callback) throws Exception
+   {
+      if (!isOpen())
+      {
+         if (callback != null)
+         {
+            callback.onError(HornetQExceptionType.IO_ERROR.getCode(), "File not opened");
+         }
+         else
+         {
+            throw HornetQJournalBundle.BUNDLE.fileNotOpened();
+         }
+         return;
+      }
+
+      try
+      {
+         synchronized (this)
+         {
+            reserve(bytes.remaining()).put(bytes);
+         }
+
+         completeWrite(sync, callback);
+      }
+      catch (IOException e)
+      {
+         onWriteError(e, callback);
+      }
+   }
+
+   /**
+    * @return a buffer positioned at the current file position with {@code size} bytes remaining,
+    *         advancing the file position past it.
+    */
+   private ByteBuffer reserve(final int size) throws IOException
+   {
+      if (channel == null)
+      {
+         throw new IOException("File " + getFileName() + " is not opened");
+      }
+
+      long start = position.getAndAdd(size);
+
+      long end = start + size;
+
+      if (end > mappedSize)
+      {
+         map(((end + MAPPING_GROWTH - 1) / MAPPING_GROWTH) * MAPPING_GROWTH);
+      }
+
+      if (end > logicalSize)
+      {
+         logicalSize = end;
+      }
+
+      ByteBuffer slice = mappedBuffer.duplicate();
+      slice.position((int)start);
+      slice.limit((int)end);
+      return slice;
+   }
+
+   private void completeWrite(final boolean sync, final IOAsyncTask callback) throws IOException
+   {
+      if (sync)
+      {
+         sync();
+      }
+
+      if (callback != null)
+      {
+         callback.done();
+      }
+   }
+
+   private void onWriteError(final IOException e, final IOAsyncTask callback)
+   {
+      if (callback != null)
+      {
+         callback.onError(HornetQExceptionType.IO_ERROR.getCode(), e.getMessage());
+      }
+      factory.onIOError(new HornetQIOErrorException(e.getMessage(), e), e.getMessage(), this);
+   }
+
+   private void map(final long size) throws IOException
+   {
+      if (size > Integer.MAX_VALUE)
+      {
+         throw new IOException("File " + getFileName() + " is too large to be mapped: " + size);
+      }
+
+      MappedByteBuffer previous = mappedBuffer;
+
+      // mapping beyond the end of the file will extend it
+      mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+      mappedSize = size;
+
+      if (previous != null)
+      {
+         unmap(previous);
+      }
+   }
+
+   /**
+    * There is no public API to release a mapping, it would otherwise be held until the buffer is
+    * garbage collected. If the JDK doesn't allow it we just leave it to the GC.
+    */
+   private static void unmap(final MappedByteBuffer buffer)
+   {
+      try
+      {
+         Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+         cleanerMethod.setAccessible(true);
+         Object cleaner = cleanerMethod.invoke(buffer);
+         if (cleaner != null)
+         {
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+         }
+      }
+      catch (Throwable ignored)
+      {
+      }
+   }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.journal.impl.dataformat;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.utils.DataConstants;
+
+/**
+ * A JournalPreEncodedRecord
+ * <p>
+ * Encodes the wrapped record at construction time, on the producer's thread and outside of the
+ * journal's append lock. Appending it is then a plain copy into the file buffer.
+ * <p>
+ * The fileID is only known once the append lock is held and the current file is fixed, so it is
+ * written at {@link #encode(HornetQBuffer)} time over the placeholder of the pre-encoded bytes.
+ * Every record layout starts with the record type (byte) followed by the fileID (int).
+ * <p>
+ * Do not wrap records whose content changes under the append lock (e.g. prepare and commit
+ * records, which get their number of records filled in by the transaction).
+ */
+public class JournalPreEncodedRecord extends JournalInternalRecord
+{
+   private static final int FILE_ID_POSITION = DataConstants.SIZE_BYTE;
+
+   private static final int AFTER_FILE_ID_POSITION = FILE_ID_POSITION + DataConstants.SIZE_INT;
+
+   private final byte[] data;
+
+   /**
+    * @param record the record to be encoded right away
+    */
+   public JournalPreEncodedRecord(final JournalInternalRecord record)
+   {
+      data = new byte[record.getEncodeSize()];
+
+      HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(data);
+
+      buffer.clear();
+
+      record.encode(buffer);
+   }
+
+   @Override
+   public void encode(final HornetQBuffer buffer)
+   {
+      buffer.writeByte(data[0]);
+
+      buffer.writeInt(fileID);
+
+      buffer.writeBytes(data, AFTER_FILE_ID_POSITION, data.length - AFTER_FILE_ID_POSITION);
+   }
+
+   @Override
+   public int getEncodeSize()
+   {
+      return data.length;
+   }
+}
@@ -75,6 +75,14 @@ public interface HornetQRestLogger extends BasicLogger
    @Message(id = 182001, value = "shutdown REST subscription because of timeout for: {0}", format = Message.Format.MESSAGE_FORMAT)
    void shutdownRestSubscription(String id);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 182002, value = "Push registration {0} has a batch size but its strategy {1} can not push batches, pushing messages one by one", format = Message.Format.MESSAGE_FORMAT)
+   void cannotPushBatches(String id, String strategy);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 182003, value = "Push consumer for {0} failed to receive or acknowledge a batch, its messages will be redelivered", format = Message.Format.MESSAGE_FORMAT)
+   void errorReceivingPushBatch(@Cause Exception e, XmlLink link);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 184000, value = "Failed to load push store {0}, it is probably corrupted", format = Message.Format.MESSAGE_FORMAT)
    void errorLoadingStore(@Cause Exception e, String name);
@@ -90,4 +98,8 @@ public interface HornetQRestLogger extends BasicLogger
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 184003, value = "Error deleting Subscriber queue", format = Message.Format.MESSAGE_FORMAT)
    void errorDeletingSubscriberQueue(@Cause HornetQException e);
+
+   @LogMessage(level = Logger.Level.ERROR)
+   @Message(id = 184004, value = "Push consumer for {0} stopped receiving messages", format = Message.Format.MESSAGE_FORMAT)
+   void errorReceivingPushMessages(@Cause Exception e, XmlLink link);
 }
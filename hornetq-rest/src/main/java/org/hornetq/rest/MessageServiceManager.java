@@ -174,6 +174,7 @@ public class MessageServiceManager
       queueManager.setServerLocator(defaultLocator);
       queueManager.setSessionFactory(sessionFactory);
       queueManager.setTimeoutTask(timeoutTask);
+      queueManager.setThreadPool(threadPool);
       queueManager.setConsumerServerLocator(consumerLocator);
       queueManager.setConsumerSessionFactory(consumerSessionFactory);
       queueManager.setDefaultSettings(defaultSettings);
@@ -186,6 +187,7 @@ public class MessageServiceManager
       topicManager.setServerLocator(defaultLocator);
       topicManager.setSessionFactory(sessionFactory);
       topicManager.setTimeoutTask(timeoutTask);
+      topicManager.setThreadPool(threadPool);
       topicManager.setConsumerServerLocator(consumerLocator);
       topicManager.setConsumerSessionFactory(consumerSessionFactory);
       topicManager.setDefaultSettings(defaultSettings);
@@ -8,6 +8,7 @@ import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.util.Constants;
 import org.hornetq.rest.util.LinkStrategy;
+import org.jboss.resteasy.spi.HttpRequest;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
@@ -48,7 +49,8 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
    @POST
    public synchronized Response poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
                                      @PathParam("index") long index,
-                                     @Context UriInfo info)
+                                     @Context UriInfo info,
+                                     @Context HttpRequest request)
    {
       HornetQRestLogger.LOGGER.debug("Handling POST request for \"" + info.getPath() + "\"");
 
@@ -64,7 +66,7 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
 
          return Response.status(307).location(URI.create(uri)).build();
       }
-      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index);
+      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index, request);
    }
 
 
@@ -158,22 +160,11 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
    }
 
    @Override
-   protected ClientMessage receive(long timeoutSecs) throws Exception
+   protected Response consumed(ClientMessage message, UriInfo info, String basePath, long index) throws HornetQException
    {
-      ClientMessage msg = super.receive(timeoutSecs);
-      return msg;
-   }
-
-   @Override
-   protected ClientMessage receiveFromConsumer(long timeoutSecs) throws Exception
-   {
-      ClientMessage message = super.receiveFromConsumer(timeoutSecs);
-      if (message != null)
-      {
-         ack = new Acknowledgement((counter++) + startup, message);
-         //System.out.println("---> Setting ack: " + ack.getAckToken());
-      }
-      return message;
+      ack = new Acknowledgement((counter++) + startup, message);
+      //System.out.println("---> Setting ack: " + ack.getAckToken());
+      return super.consumed(message, info, basePath, index);
    }
 
 
@@ -187,6 +178,11 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
       // we close current session so that message is redelivered
       // for temporary queues/topics, create a new session before closing old so we don't lose the temporary topic/queue
 
+      timeoutSuspendedPoll();
+      pendingMessages.clear();
+      // the new consumer has no message handler
+      messageHandlerSet = false;
+
       ClientConsumer old = consumer;
       ClientSession oldSession = session;
 
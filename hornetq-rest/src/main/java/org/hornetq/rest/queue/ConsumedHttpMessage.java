@@ -3,6 +3,7 @@ package org.hornetq.rest.queue;
 import org.hornetq.api.core.client.ClientMessage;
 
 import javax.ws.rs.core.Response;
+import java.io.UnsupportedEncodingException;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -21,6 +22,24 @@ public class ConsumedHttpMessage extends ConsumedMessage
    public void build(Response.ResponseBuilder builder)
    {
       buildHeaders(builder);
+      builder.entity(getData());
+   }
+
+   @Override
+   public String getBodyAsText()
+   {
+      try
+      {
+         return new String(getData(), "UTF-8");
+      }
+      catch (UnsupportedEncodingException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private byte[] getData()
+   {
       if (data == null)
       {
          int size = message.getBodySize();
@@ -34,6 +53,6 @@ public class ConsumedHttpMessage extends ConsumedMessage
             data = new byte[0];
          }
       }
-      builder.entity(data);
+      return data;
    }
 }
@@ -28,6 +28,11 @@ public abstract class ConsumedMessage
 
    public abstract void build(Response.ResponseBuilder builder);
 
+   /**
+    * @return the body as the data of a server-sent event
+    */
+   public abstract String getBodyAsText();
+
    protected void buildHeaders(Response.ResponseBuilder builder)
    {
       for (SimpleString key : message.getPropertyNames())
@@ -24,6 +24,17 @@ public class ConsumedObjectMessage extends ConsumedMessage
    public void build(Response.ResponseBuilder builder)
    {
       buildHeaders(builder);
+      builder.entity(getObject());
+   }
+
+   @Override
+   public String getBodyAsText()
+   {
+      return String.valueOf(getObject());
+   }
+
+   protected Object getObject()
+   {
       if (readObject == null)
       {
          int size = message.getBodyBuffer().readInt();
@@ -44,6 +55,6 @@ public class ConsumedObjectMessage extends ConsumedMessage
          }
 
       }
-      builder.entity(readObject);
+      return readObject;
    }
 }
@@ -84,6 +84,8 @@ public class ConsumersResource implements TimeoutTask.Callback
       if (consumer == null) return;
       synchronized (consumer)
       {
+         // a consumer with a poll waiting for a message or a stream isn't idle
+         if (consumer.expireSuspendedPoll()) return;
          if (System.currentTimeMillis() - consumer.getLastPingTime() > consumerTimeoutSeconds * 1000)
          {
             HornetQRestLogger.LOGGER.shutdownRestConsumer(consumer.getId());
@@ -137,6 +139,7 @@ public class ConsumersResource implements TimeoutTask.Callback
          if (autoAck)
          {
             QueueConsumer.setConsumeNextLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/" + attributesSegment + "/" + consumer.getId(), "-1");
+            QueueConsumer.setStreamLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/" + attributesSegment + "/" + consumer.getId());
          }
          else
          {
@@ -1,5 +1,7 @@
 package org.hornetq.rest.queue;
 
+import java.util.concurrent.ExecutorService;
+
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.HornetQClient;
@@ -23,6 +25,7 @@ public abstract class DestinationServiceManager
    protected String pushStoreFile;
    protected DestinationSettings defaultSettings = DestinationSettings.defaultSettings;
    protected TimeoutTask timeoutTask;
+   protected ExecutorService threadPool;
    protected int producerPoolSize;
    protected long producerTimeToLive;
    protected LinkStrategy linkStrategy;
@@ -102,6 +105,16 @@ public abstract class DestinationServiceManager
       this.timeoutTask = timeoutTask;
    }
 
+   public ExecutorService getThreadPool()
+   {
+      return threadPool;
+   }
+
+   public void setThreadPool(ExecutorService threadPool)
+   {
+      this.threadPool = threadPool;
+   }
+
    public DestinationSettings getDefaultSettings()
    {
       return defaultSettings;
@@ -163,6 +176,8 @@ public abstract class DestinationServiceManager
       if (consumerSessionFactory == null) consumerSessionFactory = sessionFactory;
 
       if (timeoutTask == null) throw new RuntimeException("TimeoutTask is not set");
+
+      if (threadPool == null) throw new RuntimeException("ThreadPool is not set");
    }
 
    public abstract void start() throws Exception;
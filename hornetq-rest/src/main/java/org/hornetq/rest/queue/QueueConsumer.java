@@ -1,15 +1,24 @@
 package org.hornetq.rest.queue;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.util.LinkedList;
+import java.util.Queue;
 
 import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
@@ -18,14 +27,23 @@ import org.hornetq.api.core.client.ClientConsumer;
 import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.MessageHandler;
 import org.hornetq.jms.client.SelectorTranslator;
 import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.util.Constants;
 import org.hornetq.rest.util.LinkStrategy;
+import org.jboss.resteasy.spi.AsynchronousResponse;
+import org.jboss.resteasy.spi.HttpRequest;
 
 /**
  * Auto-acknowleged consumer
  *
+ * A poll that has to wait for a message doesn't hold on to the request's thread when the container
+ * supports asynchronous requests. It is suspended and completed by the message handler once a
+ * message arrives, or by the {@link org.hornetq.rest.util.TimeoutTask} once its wait is over.
+ * Otherwise, as with the embedded TJWS server, the poll blocks its thread in receive for the wait.
+ * A stream always holds its container thread for as long as it is open.
+ *
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
  */
 public class QueueConsumer
@@ -34,7 +52,7 @@ public class QueueConsumer
    protected ClientSession session;
    protected ClientConsumer consumer;
    protected String destination;
-   protected boolean closed;
+   protected volatile boolean closed;
    protected String id;
    protected long lastPing = System.currentTimeMillis();
    protected DestinationServiceManager serviceManager;
@@ -47,6 +65,34 @@ public class QueueConsumer
    protected long previousIndex = -1;
    protected ConsumedMessage lastConsumed;
 
+   /**
+    * the poll waiting for a message, if any
+    */
+   protected SuspendedPoll suspendedPoll;
+
+   /**
+    * whether {@link #messageHandler} is set on the consumer, which can't receive then
+    */
+   protected boolean messageHandlerSet;
+
+   protected final MessageHandler messageHandler = new MessageHandler()
+   {
+      public void onMessage(ClientMessage message)
+      {
+         messageArrived(message);
+      }
+   };
+
+   /**
+    * messages that arrived while no poll was suspended, the next polls get them
+    */
+   protected Queue<ClientMessage> pendingMessages = new LinkedList<ClientMessage>();
+
+   /**
+    * number of clients streaming from this consumer
+    */
+   protected int streams;
+
    public long getConsumeIndex()
    {
       if (lastConsumed == null) return -1;
@@ -97,9 +143,12 @@ public class QueueConsumer
    public synchronized void shutdown()
    {
       if (closed) return;
+      timeoutSuspendedPoll();
       closed = true;
       lastConsumed = null;
       previousIndex = -2;
+      pendingMessages.clear();
+      messageHandlerSet = false;
       try
       {
          consumer.close();
@@ -122,11 +171,27 @@ public class QueueConsumer
    }
 
 
+   /**
+    * Times out the suspended poll once its wait is over.
+    *
+    * @return whether a suspended poll or a stream is still using this consumer, which means it is
+    *         not idle
+    */
+   public synchronized boolean expireSuspendedPoll()
+   {
+      if (suspendedPoll != null && System.currentTimeMillis() >= suspendedPoll.expiration)
+      {
+         timeoutSuspendedPoll();
+      }
+      return suspendedPoll != null || streams > 0;
+   }
+
    @Path("consume-next{index}")
    @POST
    public synchronized Response poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
                                      @PathParam("index") long index,
-                                     @Context UriInfo info)
+                                     @Context UriInfo info,
+                                     @Context HttpRequest request)
    {
       HornetQRestLogger.LOGGER.debug("Handling POST request for \"" + info.getRequestUri() + "\"");
 
@@ -141,10 +206,44 @@ public class QueueConsumer
 
          return Response.status(307).location(URI.create(uri)).build();
       }
-      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index);
+      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index, request);
    }
 
-   protected Response checkIndexAndPoll(long wait, UriInfo info, String basePath, long index)
+   @Path("stream")
+   @GET
+   @Produces(Constants.EVENT_STREAM)
+   public Response stream(@Context UriInfo info)
+   {
+      HornetQRestLogger.LOGGER.debug("Handling GET request for \"" + info.getRequestUri() + "\"");
+
+      if (closed)
+      {
+         UriBuilder builder = info.getBaseUriBuilder();
+         builder.path(info.getMatchedURIs().get(1))
+                 .path("stream");
+         String uri = builder.build().toString();
+
+         // redirect to another stream
+
+         return Response.status(307).location(URI.create(uri)).build();
+      }
+      if (!autoAck)
+      {
+         return Response.status(412).entity("Only auto-acknowledged consumers can stream messages").type("text/plain").build();
+      }
+
+      // the stream writes from the container thread of the request until it ends, one thread per open stream
+      StreamingOutput output = new StreamingOutput()
+      {
+         public void write(OutputStream output) throws IOException
+         {
+            streamMessages(output);
+         }
+      };
+      return Response.ok(output, Constants.EVENT_STREAM).header("Cache-Control", "no-cache").build();
+   }
+
+   protected Response checkIndexAndPoll(long wait, UriInfo info, String basePath, long index, HttpRequest request)
    {
       ping();
 
@@ -167,7 +266,7 @@ public class QueueConsumer
 
       try
       {
-         return pollWithIndex(wait, info, basePath, index);
+         return pollWithIndex(wait, info, basePath, index, request);
       }
       finally
       {
@@ -175,23 +274,48 @@ public class QueueConsumer
       }
    }
 
-   protected Response pollWithIndex(long wait, UriInfo info, String basePath, long index)
+   /**
+    * @return the response, or null if the request has been suspended until a message arrives
+    */
+   protected Response pollWithIndex(long wait, UriInfo info, String basePath, long index, HttpRequest request)
    {
+      // the client gave up on the previous poll if it sends another one
+      timeoutSuspendedPoll();
+
       try
       {
-         ClientMessage message = receive(wait);
-         if (message == null)
+         ClientMessage message = pendingMessages.poll();
+         if (message == null && !messageHandlerSet)
+         {
+            message = receive(0);
+         }
+         if (message != null)
          {
-            Response.ResponseBuilder builder = Response.status(503).entity("Timed out waiting for message receive.").type("text/plain");
-            setPollTimeoutLinks(info, basePath, builder, Long.toString(index));
-            return builder.build();
+            return consumed(message, info, basePath, index);
          }
-         previousIndex = index;
-         lastConsumed = ConsumedMessage.createConsumedMessage(message);
-         String token = Long.toString(lastConsumed.getMessageID());
-         Response response = getMessageResponse(lastConsumed, info, basePath, token).build();
-         if (autoAck) message.acknowledge();
-         return response;
+         if (wait <= 0)
+         {
+            return getPollTimeoutResponse(info, basePath, index);
+         }
+         AsynchronousResponse response = suspend(request);
+         if (response == null)
+         {
+            // the handler is never set when requests can't be suspended, so the consumer can receive
+            message = receive(wait);
+            if (message == null)
+            {
+               return getPollTimeoutResponse(info, basePath, index);
+            }
+            return consumed(message, info, basePath, index);
+         }
+         long expiration = System.currentTimeMillis() + Math.min(wait * 1000, Constants.MAX_WAIT_MILLIS);
+         suspendedPoll = new SuspendedPoll(response, info, basePath, index, expiration);
+         if (!messageHandlerSet)
+         {
+            consumer.setMessageHandler(messageHandler);
+            messageHandlerSet = true;
+         }
+         return null;
       }
       catch (Exception e)
       {
@@ -199,20 +323,226 @@ public class QueueConsumer
       }
    }
 
+   /**
+    * @return the response to complete the suspended request with, or null if the container can't
+    *         suspend requests, as with the synchronous dispatcher of the embedded TJWS server
+    */
+   protected AsynchronousResponse suspend(HttpRequest request)
+   {
+      try
+      {
+         return request.createAsynchronousResponse(Constants.SUSPEND_TIMEOUT_MILLIS);
+      }
+      catch (UnsupportedOperationException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Called from the message handler, on the consumer's delivery thread
+    */
+   protected synchronized void messageArrived(ClientMessage message)
+   {
+      if (closed)
+      {
+         // not acknowledged, so the message is redelivered
+         return;
+      }
+      SuspendedPoll poll = suspendedPoll;
+      if (poll == null)
+      {
+         pendingMessages.add(message);
+         return;
+      }
+      suspendedPoll = null;
+      removeMessageHandler();
+      try
+      {
+         poll.response.setResponse(consumed(message, poll.info, poll.basePath, poll.index));
+      }
+      catch (Exception e)
+      {
+         HornetQRestLogger.LOGGER.debug("Failed to complete poll for consumer " + id, e);
+         poll.response.setResponse(Response.serverError().build());
+      }
+      finally
+      {
+         ping(); // ping again as we don't want wait time included in timeout.
+      }
+   }
+
+   /**
+    * Answers the suspended poll, if any, as timed out
+    */
+   protected void timeoutSuspendedPoll()
+   {
+      SuspendedPoll poll = suspendedPoll;
+      if (poll == null) return;
+      suspendedPoll = null;
+      removeMessageHandler();
+      poll.response.setResponse(getPollTimeoutResponse(poll.info, poll.basePath, poll.index));
+      ping(); // ping again as we don't want wait time included in timeout.
+   }
+
+   /**
+    * Unsets the message handler on the thread pool. Unsetting it waits for a message being handled,
+    * so it can't be done on the delivery thread nor while holding the lock that
+    * {@link #messageArrived(ClientMessage)} takes.
+    */
+   protected void removeMessageHandler()
+   {
+      if (!messageHandlerSet) return;
+      final ClientConsumer current = consumer;
+      serviceManager.getThreadPool().execute(new Runnable()
+      {
+         public void run()
+         {
+            removeMessageHandler(current);
+         }
+      });
+   }
+
+   protected void removeMessageHandler(ClientConsumer current)
+   {
+      synchronized (this)
+      {
+         // another poll is waiting already, or the consumer has been replaced
+         if (suspendedPoll != null || current != consumer) return;
+      }
+      try
+      {
+         current.setMessageHandler(null);
+      }
+      catch (HornetQException e)
+      {
+         // closed meanwhile
+         return;
+      }
+      synchronized (this)
+      {
+         if (current != consumer) return;
+         messageHandlerSet = false;
+         if (suspendedPoll == null) return;
+         // a poll got suspended while the handler was being unset
+         try
+         {
+            consumer.setMessageHandler(messageHandler);
+            messageHandlerSet = true;
+         }
+         catch (HornetQException e)
+         {
+            HornetQRestLogger.LOGGER.debug("Failed to set message handler for consumer " + id, e);
+         }
+      }
+   }
+
+   protected Response consumed(ClientMessage message, UriInfo info, String basePath, long index) throws HornetQException
+   {
+      previousIndex = index;
+      lastConsumed = ConsumedMessage.createConsumedMessage(message);
+      String token = Long.toString(lastConsumed.getMessageID());
+      Response response = getMessageResponse(lastConsumed, info, basePath, token).build();
+      if (autoAck) message.acknowledge();
+      return response;
+   }
+
+   protected Response getPollTimeoutResponse(UriInfo info, String basePath, long index)
+   {
+      Response.ResponseBuilder builder = Response.status(503).entity("Timed out waiting for message receive.").type("text/plain");
+      setPollTimeoutLinks(info, basePath, builder, Long.toString(index));
+      return builder.build();
+   }
+
+   /**
+    * Writes messages as server-sent events until the client goes away or the consumer is closed.
+    * The stream has a session of its own, acknowledging in batches of the session factory's ack
+    * batch size.
+    */
+   protected void streamMessages(OutputStream output) throws IOException
+   {
+      synchronized (this)
+      {
+         streams++;
+      }
+      ClientSession streamSession = null;
+      try
+      {
+         streamSession = factory.createSession(true, true);
+         ClientConsumer streamConsumer = createConsumer(streamSession);
+         streamSession.start();
+
+         Writer writer = new OutputStreamWriter(output, "UTF-8");
+         while (!closed)
+         {
+            ClientMessage message = streamConsumer.receive(Constants.STREAM_KEEP_ALIVE_MILLIS);
+            if (message == null)
+            {
+               // a comment, finds out about clients that went away
+               writer.write(":\n\n");
+            }
+            else
+            {
+               writeEvent(writer, ConsumedMessage.createConsumedMessage(message));
+            }
+            writer.flush();
+            if (message != null) message.acknowledge();
+            ping();
+         }
+      }
+      catch (HornetQException e)
+      {
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         synchronized (this)
+         {
+            streams--;
+         }
+         if (streamSession != null)
+         {
+            try
+            {
+               // sends the acknowledgements still in the batch
+               streamSession.close();
+            }
+            catch (HornetQException e)
+            {
+            }
+         }
+      }
+   }
+
+   protected void writeEvent(Writer writer, ConsumedMessage message) throws IOException
+   {
+      writer.write("id: " + message.getMessageID() + "\n");
+      for (String line : message.getBodyAsText().split("\r\n|\r|\n", -1))
+      {
+         writer.write("data: " + line + "\n");
+      }
+      writer.write("\n");
+   }
+
    protected void createSession() throws HornetQException
    {
       session = factory.createSession(true, true, 0);
       HornetQRestLogger.LOGGER.debug("Created session: " + session);
+      consumer = createConsumer(session);
+      HornetQRestLogger.LOGGER.debug("Created consumer: " + consumer);
+      session.start();
+   }
+
+   protected ClientConsumer createConsumer(ClientSession session) throws HornetQException
+   {
       if (selector == null)
       {
-         consumer = session.createConsumer(destination);
+         return session.createConsumer(destination);
       }
       else
       {
-         consumer = session.createConsumer(destination, SelectorTranslator.convertToHornetQFilterString(selector));
+         return session.createConsumer(destination, SelectorTranslator.convertToHornetQFilterString(selector));
       }
-      HornetQRestLogger.LOGGER.debug("Created consumer: " + consumer);
-      session.start();
    }
 
    protected ClientMessage receiveFromConsumer(long timeoutSecs) throws Exception
@@ -267,6 +597,15 @@ public class QueueConsumer
       linkStrategy.setLinkHeader(response, "consume-next", "consume-next", uri, MediaType.APPLICATION_FORM_URLENCODED);
    }
 
+   public static void setStreamLink(LinkStrategy linkStrategy, Response.ResponseBuilder response, UriInfo info, String basePath)
+   {
+      UriBuilder builder = info.getBaseUriBuilder();
+      builder.path(basePath)
+              .path("stream");
+      String uri = builder.build().toString();
+      linkStrategy.setLinkHeader(response, "stream", "stream", uri, Constants.EVENT_STREAM);
+   }
+
    public void setSessionLink(Response.ResponseBuilder response, UriInfo info, String basePath)
    {
       UriBuilder builder = info.getBaseUriBuilder();
@@ -274,4 +613,22 @@ public class QueueConsumer
       String uri = builder.build().toString();
       serviceManager.getLinkStrategy().setLinkHeader(response, "consumer", "consumer", uri, MediaType.APPLICATION_XML);
    }
+
+   protected static class SuspendedPoll
+   {
+      protected final AsynchronousResponse response;
+      protected final UriInfo info;
+      protected final String basePath;
+      protected final long index;
+      protected final long expiration;
+
+      public SuspendedPoll(AsynchronousResponse response, UriInfo info, String basePath, long index, long expiration)
+      {
+         this.response = response;
+         this.info = info;
+         this.basePath = basePath;
+         this.index = index;
+         this.expiration = expiration;
+      }
+   }
 }
\ No newline at end of file
@@ -194,6 +194,7 @@ public class QueueDestinationsResource
       PushConsumerResource push = new PushConsumerResource();
       push.setDestination(queueName);
       push.setSessionFactory(manager.getConsumerSessionFactory());
+      push.setThreadPool(manager.getThreadPool());
       queueResource.setPushConsumers(push);
 
       PostMessage sender = null;
@@ -0,0 +1,21 @@
+package org.hornetq.rest.queue.push;
+
+import java.util.List;
+
+import org.hornetq.api.core.client.ClientMessage;
+
+/**
+ * A push strategy able to forward several messages at once. It is used when the registration has
+ * a batch size above one.
+ */
+public interface BatchPushStrategy extends PushStrategy
+{
+   /**
+    * Same contract as {@link #push(ClientMessage)}, for the whole batch. The messages are
+    * acknowledged together, so the whole batch is redelivered when it
+    * fails.
+    * @param messages
+    * @return {@code false} if unable to connect
+    */
+   public boolean push(List<ClientMessage> messages);
+}
@@ -5,9 +5,12 @@ import org.hornetq.api.core.client.*;
 import org.hornetq.jms.client.SelectorTranslator;
 import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.queue.push.xml.PushRegistration;
+import org.hornetq.rest.queue.push.xml.PushStatistics;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -23,14 +26,23 @@ public class PushConsumer
    protected String id;
    protected PushStrategy strategy;
    protected PushStore store;
-
-   public PushConsumer(ClientSessionFactory factory, String destination, String id, PushRegistration registration, PushStore store)
+   protected Executor executor;
+   protected volatile boolean stopped;
+   protected long startTime;
+   protected final AtomicLong messagesPushed = new AtomicLong();
+   protected final AtomicLong pushes = new AtomicLong();
+   protected final AtomicLong failedPushes = new AtomicLong();
+   protected final AtomicLong totalLatency = new AtomicLong();
+   protected final AtomicLong maxLatency = new AtomicLong();
+
+   public PushConsumer(ClientSessionFactory factory, String destination, String id, PushRegistration registration, PushStore store, Executor executor)
    {
       this.factory = factory;
       this.destination = destination;
       this.id = id;
       this.registration = registration;
       this.store = store;
+      this.executor = executor;
    }
 
    public PushStrategy getStrategy()
@@ -48,8 +60,14 @@ public class PushConsumer
       return destination;
    }
 
+   public boolean isStopped()
+   {
+      return stopped;
+   }
+
    public void start() throws Exception
    {
+      startTime = System.currentTimeMillis();
       if (registration.getTarget().getClassName() != null)
       {
          Class clazz = Thread.currentThread().getContextClassLoader().loadClass(registration.getTarget().getClassName());
@@ -73,6 +91,13 @@ public class PushConsumer
       strategy.setRegistration(registration);
       strategy.start();
 
+      int batchSize = registration.getBatchSize();
+      if (batchSize > 1 && !(strategy instanceof BatchPushStrategy))
+      {
+         HornetQRestLogger.LOGGER.cannotPushBatches(id, strategy.getClass().getName());
+         batchSize = 1;
+      }
+
       sessions = new ArrayList<ClientSession>();
       consumers = new ArrayList<ClientConsumer>();
 
@@ -90,7 +115,15 @@ public class PushConsumer
          {
             consumer = session.createConsumer(destination);
          }
-         consumer.setMessageHandler(new PushConsumerMessageHandler(this, session));
+         if (batchSize > 1)
+         {
+            // a message handler only ever sees one message, the receiver runs on the thread pool instead
+            new PushConsumerBatchReceiver(this, session, consumer, batchSize, executor).start();
+         }
+         else
+         {
+            consumer.setMessageHandler(new PushConsumerMessageHandler(this, session));
+         }
          session.start();
          HornetQRestLogger.LOGGER.startingPushConsumer(registration.getTarget());
 
@@ -101,6 +134,7 @@ public class PushConsumer
 
    public void stop()
    {
+      stopped = true;
       for (ClientSession session : sessions)
       {
          try
@@ -128,6 +162,51 @@ public class PushConsumer
       }
    }
 
+   /**
+    * Records one push of the strategy, successful or not.
+    * @param messageCount how many messages were pushed
+    * @param latency how long the push took in nanoseconds, retries included
+    */
+   public void pushed(int messageCount, long latency, boolean success)
+   {
+      pushes.incrementAndGet();
+      if (success)
+      {
+         messagesPushed.addAndGet(messageCount);
+      }
+      else
+      {
+         failedPushes.incrementAndGet();
+      }
+      totalLatency.addAndGet(latency);
+      long max = maxLatency.get();
+      while (latency > max && !maxLatency.compareAndSet(max, latency))
+      {
+         max = maxLatency.get();
+      }
+   }
+
+   public PushStatistics getStatistics()
+   {
+      PushStatistics statistics = new PushStatistics();
+      long count = pushes.get();
+      long messages = messagesPushed.get();
+      statistics.setMessagesPushed(messages);
+      statistics.setPushes(count);
+      statistics.setFailedPushes(failedPushes.get());
+      long elapsed = System.currentTimeMillis() - startTime;
+      if (elapsed > 0)
+      {
+         statistics.setMessagesPerSecond(messages * 1000.0 / elapsed);
+      }
+      if (count > 0)
+      {
+         statistics.setAverageLatencyMillis(totalLatency.get() / 1000000.0 / count);
+      }
+      statistics.setMaxLatencyMillis(maxLatency.get() / 1000000.0);
+      return statistics;
+   }
+
    public void disableFromFailure()
    {
       registration.setEnabled(false);
@@ -0,0 +1,138 @@
+package org.hornetq.rest.queue.push;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.rest.HornetQRestLogger;
+
+/**
+ * Receives the messages of a push session and pushes them in batches. A batch holds what the
+ * consumer has at hand, up to the batch size, so it never waits for a batch to fill up.
+ * <p>
+ * Each run receives and pushes one batch, then runs again on the executor until the push consumer
+ * stops, so no thread is held between batches.
+ */
+public class PushConsumerBatchReceiver implements Runnable
+{
+   private static final long RECEIVE_TIMEOUT_MILLIS = 1000;
+
+   private final PushConsumer pushConsumer;
+   private final ClientSession session;
+   private final ClientConsumer consumer;
+   private final int batchSize;
+   private final Executor executor;
+
+   PushConsumerBatchReceiver(PushConsumer pushConsumer, ClientSession session, ClientConsumer consumer, int batchSize, Executor executor)
+   {
+      this.pushConsumer = pushConsumer;
+      this.session = session;
+      this.consumer = consumer;
+      this.batchSize = batchSize;
+      this.executor = executor;
+   }
+
+   void start()
+   {
+      executor.execute(this);
+   }
+
+   @Override
+   public void run()
+   {
+      if (pushConsumer.isStopped())
+      {
+         return;
+      }
+      try
+      {
+         receiveAndPush();
+      }
+      catch (HornetQException e)
+      {
+         // closing the session wakes up the receive
+         if (pushConsumer.isStopped())
+         {
+            return;
+         }
+         if (session.isClosed())
+         {
+            // the session gave up reconnecting, nothing will be received any longer
+            HornetQRestLogger.LOGGER.errorReceivingPushMessages(e, pushConsumer.getRegistration().getTarget());
+            return;
+         }
+         // a failover rolls the session back and the session reattaches on its own, the receiver
+         // goes on with the redelivered messages as the message handler of a single message does
+         HornetQRestLogger.LOGGER.errorReceivingPushBatch(e, pushConsumer.getRegistration().getTarget());
+         rollback();
+      }
+      executor.execute(this);
+   }
+
+   private void receiveAndPush() throws HornetQException
+   {
+      List<ClientMessage> batch = new ArrayList<ClientMessage>(batchSize);
+      ClientMessage message = consumer.receive(RECEIVE_TIMEOUT_MILLIS);
+      while (message != null)
+      {
+         message.acknowledge();
+         batch.add(message);
+         message = batch.size() < batchSize ? consumer.receiveImmediate() : null;
+      }
+      if (!batch.isEmpty())
+      {
+         push(batch);
+      }
+   }
+
+   private void rollback()
+   {
+      try
+      {
+         session.rollback();
+      }
+      catch (HornetQException e)
+      {
+         HornetQRestLogger.LOGGER.debug("Failed to roll back the batch", e);
+      }
+   }
+
+   private void push(List<ClientMessage> batch) throws HornetQException
+   {
+      HornetQRestLogger.LOGGER.debug(this + ": pushing " + batch.size() + " messages via " + pushConsumer.getStrategy());
+      BatchPushStrategy strategy = (BatchPushStrategy) pushConsumer.getStrategy();
+      long start = System.nanoTime();
+      boolean acknowledge;
+      try
+      {
+         acknowledge = strategy.push(batch);
+      }
+      catch (RuntimeException e)
+      {
+         // the target refused the messages, redelivery and dead letter logic take over
+         HornetQRestLogger.LOGGER.debug("Failed to push batch", e);
+         pushConsumer.pushed(batch.size(), System.nanoTime() - start, false);
+         session.rollback();
+         return;
+      }
+      pushConsumer.pushed(batch.size(), System.nanoTime() - start, acknowledge);
+
+      if (acknowledge)
+      {
+         HornetQRestLogger.LOGGER.debug("Acknowledging a batch of " + batch.size());
+         session.commit();
+         return;
+      }
+
+      session.rollback();
+      if (pushConsumer.getRegistration().isDisableOnFailure())
+      {
+         HornetQRestLogger.LOGGER.errorPushingMessage(pushConsumer.getRegistration().getTarget());
+         pushConsumer.disableFromFailure();
+      }
+   }
+}
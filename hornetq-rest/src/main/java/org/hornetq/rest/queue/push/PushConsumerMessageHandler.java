@@ -33,7 +33,16 @@ public class PushConsumerMessageHandler implements MessageHandler
       }
 
       HornetQRestLogger.LOGGER.debug(this + ": pushing " + clientMessage + " via " + pushConsumer.getStrategy());
-      boolean acknowledge = pushConsumer.getStrategy().push(clientMessage);
+      long start = System.nanoTime();
+      boolean acknowledge = false;
+      try
+      {
+         acknowledge = pushConsumer.getStrategy().push(clientMessage);
+      }
+      finally
+      {
+         pushConsumer.pushed(1, System.nanoTime() - start, acknowledge);
+      }
 
       if (acknowledge)
       {
@@ -3,6 +3,7 @@ package org.hornetq.rest.queue.push;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.queue.push.xml.PushRegistration;
+import org.hornetq.rest.queue.push.xml.PushStatistics;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -18,6 +19,7 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -28,6 +30,7 @@ public class PushConsumerResource
 {
    protected Map<String, PushConsumer> consumers = new ConcurrentHashMap<String, PushConsumer>();
    protected ClientSessionFactory sessionFactory;
+   protected ExecutorService threadPool;
    protected String destination;
    protected final String startup = Long.toString(System.currentTimeMillis());
    protected final AtomicLong sessionCounter = new AtomicLong(1);
@@ -59,7 +62,7 @@ public class PushConsumerResource
    public void addRegistration(PushRegistration reg) throws Exception
    {
       if (reg.isEnabled() == false) return;
-      PushConsumer consumer = new PushConsumer(sessionFactory, destination, reg.getId(), reg, pushStore);
+      PushConsumer consumer = new PushConsumer(sessionFactory, destination, reg.getId(), reg, pushStore, threadPool);
       consumer.start();
       consumers.put(reg.getId(), consumer);
    }
@@ -74,7 +77,7 @@ public class PushConsumerResource
       String genId = sessionCounter.getAndIncrement() + "-" + startup;
       registration.setId(genId);
       registration.setDestination(destination);
-      PushConsumer consumer = new PushConsumer(sessionFactory, destination, genId, registration, pushStore);
+      PushConsumer consumer = new PushConsumer(sessionFactory, destination, genId, registration, pushStore, threadPool);
       try
       {
          consumer.start();
@@ -110,6 +113,21 @@ public class PushConsumerResource
       return consumer.getRegistration();
    }
 
+   @GET
+   @Path("{consumer-id}/statistics")
+   @Produces("application/xml")
+   public PushStatistics getStatistics(@Context UriInfo uriInfo, @PathParam("consumer-id") String consumerId)
+   {
+      HornetQRestLogger.LOGGER.debug("Handling GET request for \"" + uriInfo.getPath() + "\"");
+
+      PushConsumer consumer = consumers.get(consumerId);
+      if (consumer == null)
+      {
+         throw new WebApplicationException(Response.status(404).entity("Could not find consumer.").type("text/plain").build());
+      }
+      return consumer.getStatistics();
+   }
+
    @DELETE
    @Path("{consumer-id}")
    public void deleteConsumer(@Context UriInfo uriInfo, @PathParam("consumer-id") String consumerId)
@@ -139,6 +157,16 @@ public class PushConsumerResource
       this.sessionFactory = sessionFactory;
    }
 
+   public ExecutorService getThreadPool()
+   {
+      return threadPool;
+   }
+
+   public void setThreadPool(ExecutorService threadPool)
+   {
+      this.threadPool = threadPool;
+   }
+
    public String getDestination()
    {
       return destination;
@@ -32,12 +32,13 @@ import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 import org.jboss.resteasy.specimpl.UriBuilderImpl;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
  * @version $Revision: 1 $
  */
-public class UriStrategy implements PushStrategy
+public class UriStrategy implements BatchPushStrategy
 {
    ThreadSafeClientConnManager connManager = new ThreadSafeClientConnManager();
    protected HttpClient client = new DefaultHttpClient(connManager);
@@ -100,10 +101,31 @@ public class UriStrategy implements PushStrategy
    public boolean push(ClientMessage message)
    {
       HornetQRestLogger.LOGGER.debug("Pushing " + message);
-      String uri = createUri(message);
+      return push(createUri(message), message, null);
+   }
+
+   public boolean push(List<ClientMessage> messages)
+   {
+      if (messages.size() == 1)
+      {
+         return push(messages.get(0));
+      }
+      HornetQRestLogger.LOGGER.debug("Pushing a batch of " + messages.size() + " messages");
+      // the parts are built once, the message bodies can't be read again on a retry
+      HttpMessageHelper.MultipartBody body = HttpMessageHelper.buildMultipartBody(messages, contentType);
+      return push(createUri(messages.get(0)), null, body);
+   }
+
+   /**
+    * Sends either the message or the multipart body, retrying as configured by the registration.
+    */
+   protected boolean push(String uri, ClientMessage message, HttpMessageHelper.MultipartBody body)
+   {
+      long retryWait = registration.getRetryWaitMillis();
       for (int i = 0; i < registration.getMaxRetries(); i++)
       {
-         long wait = registration.getRetryWaitMillis();
+         long wait = retryWait;
+         retryWait = nextRetryWait(retryWait);
          System.out.println("Creating request from " + uri);
          ClientRequest request = executor.createRequest(uri);
          request.followRedirects(false);
@@ -114,7 +136,14 @@ public class UriStrategy implements PushStrategy
             HornetQRestLogger.LOGGER.debug("Setting XmlHttpHeader: " + header.getName() + "=" + header.getValue());
             request.header(header.getName(), header.getValue());
          }
-         HttpMessageHelper.buildMessage(message, request, contentType);
+         if (body != null)
+         {
+            request.body(body.getContentType(), body.getContent());
+         }
+         else
+         {
+            HttpMessageHelper.buildMessage(message, request, contentType);
+         }
          ClientResponse<?> res = null;
          try
          {
@@ -173,7 +202,7 @@ public class UriStrategy implements PushStrategy
          }
          catch (Exception e)
          {
-            HornetQRestLogger.LOGGER.debug("failed to push message to " + uri, e);
+            HornetQRestLogger.LOGGER.debug("failed to push to " + uri, e);
             e.printStackTrace();
             return false;
          }
@@ -194,6 +223,19 @@ public class UriStrategy implements PushStrategy
       return false;
    }
 
+   /**
+    * @return the wait before the retry after the one waiting for {@code wait}
+    */
+   protected long nextRetryWait(long wait)
+   {
+      double multiplier = registration.getRetryWaitMultiplier();
+      if (multiplier <= 1.0)
+      {
+         return wait;
+      }
+      return Math.min((long) (wait * multiplier), registration.getMaxRetryWaitMillis());
+   }
+
    protected String createUri(ClientMessage message)
    {
       String uri = targetUri.build().toString();
@@ -1,5 +1,7 @@
 package org.hornetq.rest.queue.push;
 
+import java.util.List;
+
 import org.hornetq.api.core.client.ClientMessage;
 
 /**
@@ -14,4 +16,21 @@ public class UriTemplateStrategy extends UriStrategy
       String uri = targetUri.build(dupId).toString();
       return uri;
    }
+
+   /**
+    * Every message has a URI of its own, so they are pushed one by one. Redelivering the ones
+    * already pushed when the batch fails is harmless, their URI lets the target spot duplicates.
+    */
+   @Override
+   public boolean push(List<ClientMessage> messages)
+   {
+      for (ClientMessage message : messages)
+      {
+         if (!push(message))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
 }
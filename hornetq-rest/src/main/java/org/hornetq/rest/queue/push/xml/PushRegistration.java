@@ -19,7 +19,7 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlRootElement(name = "push-registration")
 @XmlAccessorType(XmlAccessType.PROPERTY)
-@XmlType(propOrder = {"enabled", "destination", "durable", "selector", "target", "maxRetries", "retryWaitMillis", "disableOnFailure", "authenticationMechanism", "headers", "sessionCount"})
+@XmlType(propOrder = {"enabled", "destination", "durable", "selector", "target", "maxRetries", "retryWaitMillis", "disableOnFailure", "authenticationMechanism", "headers", "sessionCount", "batchSize", "retryWaitMultiplier", "maxRetryWaitMillis"})
 public class PushRegistration implements Serializable
 {
    private static final long serialVersionUID = -2749818399978544262L;
@@ -36,6 +36,9 @@ public class PushRegistration implements Serializable
    private int maxRetries = 10;
    private boolean enabled = true;
    private int sessionCount = 1;
+   private int batchSize = 1;
+   private double retryWaitMultiplier = 1.0;
+   private long maxRetryWaitMillis = 60000;
 
    @XmlElement
    public int getMaxRetries()
@@ -179,6 +182,45 @@ public class PushRegistration implements Serializable
       this.sessionCount = sessionCount;
    }
 
+   /**
+    * How many messages are sent in one multipart/mixed request, one part per message.
+    */
+   @XmlElement
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize)
+   {
+      this.batchSize = batchSize;
+   }
+
+   /**
+    * The wait before each retry is the previous one times this, up to maxRetryWaitMillis.
+    */
+   @XmlElement
+   public double getRetryWaitMultiplier()
+   {
+      return retryWaitMultiplier;
+   }
+
+   public void setRetryWaitMultiplier(double retryWaitMultiplier)
+   {
+      this.retryWaitMultiplier = retryWaitMultiplier;
+   }
+
+   @XmlElement
+   public long getMaxRetryWaitMillis()
+   {
+      return maxRetryWaitMillis;
+   }
+
+   public void setMaxRetryWaitMillis(long maxRetryWaitMillis)
+   {
+      this.maxRetryWaitMillis = maxRetryWaitMillis;
+   }
+
    @Override
    public String toString()
    {
@@ -194,6 +236,9 @@ public class PushRegistration implements Serializable
               ", disableOnFailure=" + disableOnFailure +
               ", maxRetries=" + maxRetries +
               ", sessionCount=" + sessionCount +
+              ", batchSize=" + batchSize +
+              ", retryWaitMultiplier=" + retryWaitMultiplier +
+              ", maxRetryWaitMillis=" + maxRetryWaitMillis +
               ", enabled=" + enabled +
               '}';
    }
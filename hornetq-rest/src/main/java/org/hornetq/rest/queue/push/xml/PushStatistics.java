@@ -0,0 +1,106 @@
+package org.hornetq.rest.queue.push.xml;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Throughput and latency of a push registration since it was started. A push is one request to
+ * the target, carrying one message or a batch of them, retries included.
+ */
+@XmlRootElement(name = "push-statistics")
+@XmlAccessorType(XmlAccessType.PROPERTY)
+@XmlType(propOrder = {"messagesPushed", "pushes", "failedPushes", "messagesPerSecond", "averageLatencyMillis", "maxLatencyMillis"})
+public class PushStatistics implements Serializable
+{
+   private static final long serialVersionUID = 6394862734218504271L;
+   private long messagesPushed;
+   private long pushes;
+   private long failedPushes;
+   private double messagesPerSecond;
+   private double averageLatencyMillis;
+   private double maxLatencyMillis;
+
+   @XmlElement
+   public long getMessagesPushed()
+   {
+      return messagesPushed;
+   }
+
+   public void setMessagesPushed(long messagesPushed)
+   {
+      this.messagesPushed = messagesPushed;
+   }
+
+   @XmlElement
+   public long getPushes()
+   {
+      return pushes;
+   }
+
+   public void setPushes(long pushes)
+   {
+      this.pushes = pushes;
+   }
+
+   @XmlElement
+   public long getFailedPushes()
+   {
+      return failedPushes;
+   }
+
+   public void setFailedPushes(long failedPushes)
+   {
+      this.failedPushes = failedPushes;
+   }
+
+   @XmlElement
+   public double getMessagesPerSecond()
+   {
+      return messagesPerSecond;
+   }
+
+   public void setMessagesPerSecond(double messagesPerSecond)
+   {
+      this.messagesPerSecond = messagesPerSecond;
+   }
+
+   @XmlElement
+   public double getAverageLatencyMillis()
+   {
+      return averageLatencyMillis;
+   }
+
+   public void setAverageLatencyMillis(double averageLatencyMillis)
+   {
+      this.averageLatencyMillis = averageLatencyMillis;
+   }
+
+   @XmlElement
+   public double getMaxLatencyMillis()
+   {
+      return maxLatencyMillis;
+   }
+
+   public void setMaxLatencyMillis(double maxLatencyMillis)
+   {
+      this.maxLatencyMillis = maxLatencyMillis;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "PushStatistics{" +
+              "messagesPushed=" + messagesPushed +
+              ", pushes=" + pushes +
+              ", failedPushes=" + failedPushes +
+              ", messagesPerSecond=" + messagesPerSecond +
+              ", averageLatencyMillis=" + averageLatencyMillis +
+              ", maxLatencyMillis=" + maxLatencyMillis +
+              '}';
+   }
+}
@@ -8,15 +8,17 @@ import org.hornetq.rest.queue.push.PushConsumer;
 import org.hornetq.rest.queue.push.PushStore;
 import org.hornetq.rest.queue.push.xml.PushRegistration;
 
+import java.util.concurrent.Executor;
+
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
  * @version $Revision: 1 $
  */
 public class PushSubscription extends PushConsumer
 {
-   public PushSubscription(ClientSessionFactory factory, String destination, String id, PushRegistration registration, PushStore store)
+   public PushSubscription(ClientSessionFactory factory, String destination, String id, PushRegistration registration, PushStore store, Executor executor)
    {
-      super(factory, destination, id, registration, store);
+      super(factory, destination, id, registration, store, executor);
    }
 
    @Override
@@ -6,6 +6,7 @@ import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.queue.push.PushConsumer;
+import org.hornetq.rest.queue.push.xml.PushStatistics;
 
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -20,6 +21,7 @@ import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -30,6 +32,7 @@ public class PushSubscriptionsResource
 {
    protected Map<String, PushSubscription> consumers = new ConcurrentHashMap<String, PushSubscription>();
    protected ClientSessionFactory sessionFactory;
+   protected ExecutorService threadPool;
    protected String destination;
    protected final String startup = Long.toString(System.currentTimeMillis());
    protected final AtomicLong sessionCounter = new AtomicLong(1);
@@ -91,7 +94,7 @@ public class PushSubscriptionsResource
       {
          createSession = createSubscription(destination, reg.isDurable());
       }
-      PushSubscription consumer = new PushSubscription(sessionFactory, reg.getDestination(), reg.getId(), reg, pushStore);
+      PushSubscription consumer = new PushSubscription(sessionFactory, reg.getDestination(), reg.getId(), reg, pushStore, threadPool);
       try
       {
          consumer.start();
@@ -143,7 +146,7 @@ public class PushSubscriptionsResource
       ClientSession createSession = createSubscription(genId, registration.isDurable());
       try
       {
-         PushSubscription consumer = new PushSubscription(sessionFactory, genId, genId, registration, pushStore);
+         PushSubscription consumer = new PushSubscription(sessionFactory, genId, genId, registration, pushStore, threadPool);
          try
          {
             consumer.start();
@@ -184,6 +187,21 @@ public class PushSubscriptionsResource
       return (PushTopicRegistration) consumer.getRegistration();
    }
 
+   @GET
+   @Path("{consumer-id}/statistics")
+   @Produces("application/xml")
+   public PushStatistics getStatistics(@Context UriInfo uriInfo, @PathParam("consumer-id") String consumerId)
+   {
+      HornetQRestLogger.LOGGER.debug("Handling GET request for \"" + uriInfo.getPath() + "\"");
+
+      PushConsumer consumer = consumers.get(consumerId);
+      if (consumer == null)
+      {
+         throw new WebApplicationException(Response.status(404).entity("Could not find consumer.").type("text/plain").build());
+      }
+      return consumer.getStatistics();
+   }
+
    @DELETE
    @Path("{consumer-id}")
    public void deleteConsumer(@Context UriInfo uriInfo, @PathParam("consumer-id") String consumerId)
@@ -214,6 +232,16 @@ public class PushSubscriptionsResource
       this.sessionFactory = sessionFactory;
    }
 
+   public ExecutorService getThreadPool()
+   {
+      return threadPool;
+   }
+
+   public void setThreadPool(ExecutorService threadPool)
+   {
+      this.threadPool = threadPool;
+   }
+
    public String getDestination()
    {
       return destination;
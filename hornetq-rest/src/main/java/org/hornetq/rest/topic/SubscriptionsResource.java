@@ -90,6 +90,8 @@ public class SubscriptionsResource implements TimeoutTask.Callback
       if (consumer == null) return;
       synchronized (consumer)
       {
+         // a consumer with a poll waiting for a message or a stream isn't idle
+         if (consumer.expireSuspendedPoll()) return;
          if (System.currentTimeMillis() - consumer.getLastPingTime() > subscription.getTimeout())
          {
             HornetQRestLogger.LOGGER.shutdownRestSubscription(consumer.getId());
@@ -205,6 +207,7 @@ public class SubscriptionsResource implements TimeoutTask.Callback
          if (autoAck)
          {
             QueueConsumer.setConsumeNextLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/auto-ack/" + consumer.getId(), "-1");
+            QueueConsumer.setStreamLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/auto-ack/" + consumer.getId());
          }
          else
          {
@@ -187,6 +187,7 @@ public class TopicDestinationsResource
       PushSubscriptionsResource push = new PushSubscriptionsResource();
       push.setDestination(topicName);
       push.setSessionFactory(manager.getConsumerSessionFactory());
+      push.setThreadPool(manager.getThreadPool());
       topicResource.setPushSubscriptions(push);
 
       PostMessage sender = null;
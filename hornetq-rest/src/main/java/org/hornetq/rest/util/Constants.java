@@ -8,4 +8,20 @@ public interface Constants
 {
    String WAIT_HEADER = "Accept-Wait";
    String PATH_FOR_QUEUES = "/queues";
+   String EVENT_STREAM = "text/event-stream";
+
+   /**
+    * the longest a poll waits for a message, whatever its wait header asks for
+    */
+   long MAX_WAIT_MILLIS = 60 * 60 * 1000;
+
+   /**
+    * how long a poll's request can stay suspended, longer than any poll waits
+    */
+   long SUSPEND_TIMEOUT_MILLIS = MAX_WAIT_MILLIS + 60 * 1000;
+
+   /**
+    * how long a stream stays silent before writing a comment to check on the client
+    */
+   long STREAM_KEEP_ALIVE_MILLIS = 15 * 1000;
 }
@@ -6,13 +6,22 @@ import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.HttpHeaderProperty;
 import org.jboss.resteasy.client.ClientRequest;
 
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.jboss.resteasy.util.Headers;
+
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.lang.annotation.Annotation;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.UUID;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -123,6 +132,122 @@ public class HttpMessageHelper
       }
    }
 
+   /**
+    * Builds a multipart/mixed body with one part per message. Each part carries the message's
+    * HTTP headers, and its body as it would have been pushed on its own.
+    */
+   public static MultipartBody buildMultipartBody(List<ClientMessage> messages, String contentType)
+   {
+      String boundary = "hornetq-" + UUID.randomUUID();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try
+      {
+         for (ClientMessage message : messages)
+         {
+            writeAscii(out, "--" + boundary + "\r\n");
+            String partType = contentType;
+            for (SimpleString key : message.getPropertyNames())
+            {
+               String k = key.toString();
+               String headerName = HttpHeaderProperty.fromPropertyName(k);
+               if (headerName == null || headerName.contains("content-length"))
+               {
+                  continue;
+               }
+               String value = message.getStringProperty(k);
+               if (headerName.equalsIgnoreCase("content-type"))
+               {
+                  partType = value;
+                  continue;
+               }
+               writeAscii(out, headerName + ": " + value + "\r\n");
+            }
+            if (partType != null)
+            {
+               writeAscii(out, "Content-Type: " + partType + "\r\n");
+            }
+            writeAscii(out, "\r\n");
+            writePartBody(message, partType, out);
+            writeAscii(out, "\r\n");
+         }
+         writeAscii(out, "--" + boundary + "--\r\n");
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      return new MultipartBody("multipart/mixed; boundary=" + boundary, out.toByteArray());
+   }
+
+   private static void writePartBody(ClientMessage message, String contentType, ByteArrayOutputStream out) throws IOException
+   {
+      int size = message.getBodySize();
+      if (size <= 0)
+      {
+         return;
+      }
+      Boolean aBoolean = message.getBooleanProperty(POSTED_AS_HTTP_MESSAGE);
+      if (aBoolean != null && aBoolean.booleanValue())
+      {
+         byte[] body = new byte[size];
+         message.getBodyBuffer().readBytes(body);
+         out.write(body);
+         return;
+      }
+      // a JMS or HornetQ object message, marshalled like the client request would do it
+      size = message.getBodyBuffer().readInt();
+      byte[] body = new byte[size];
+      message.getBodyBuffer().readBytes(body);
+      Object obj;
+      try
+      {
+         obj = new ObjectInputStream(new ByteArrayInputStream(body)).readObject();
+      }
+      catch (ClassNotFoundException e)
+      {
+         throw new RuntimeException(e);
+      }
+      if (contentType == null)
+      {
+         throw new RuntimeException("Message did not have a Content-Type header cannot marshal " + obj.getClass().getName());
+      }
+      MediaType mediaType = MediaType.valueOf(contentType);
+      Class type = obj.getClass();
+      MessageBodyWriter writer = ResteasyProviderFactory.getInstance().getMessageBodyWriter(type, type, new Annotation[0], mediaType);
+      if (writer == null)
+      {
+         throw new RuntimeException("Unable to find a JAX-RS writer for type " + type.getName() + " and media type " + contentType);
+      }
+      writer.writeTo(obj, type, type, new Annotation[0], mediaType, new Headers<Object>(), out);
+   }
+
+   private static void writeAscii(ByteArrayOutputStream out, String text) throws IOException
+   {
+      out.write(text.getBytes("US-ASCII"));
+   }
+
+   public static class MultipartBody
+   {
+      private final String contentType;
+      private final byte[] content;
+
+      public MultipartBody(String contentType, byte[] content)
+      {
+         this.contentType = contentType;
+         this.content = content;
+      }
+
+      public String getContentType()
+      {
+         return contentType;
+      }
+
+      public byte[] getContent()
+      {
+         return content;
+      }
+   }
+
    public static void writeHttpMessage(HttpHeaders headers, byte[] body, ClientMessage message) throws Exception
    {
 
@@ -3,6 +3,7 @@ package org.hornetq.rest.test;
 import org.hornetq.rest.queue.QueueDeployment;
 import org.hornetq.rest.queue.push.HornetQPushStrategy;
 import org.hornetq.rest.queue.push.xml.PushRegistration;
+import org.hornetq.rest.queue.push.xml.PushStatistics;
 import org.hornetq.rest.queue.push.xml.XmlLink;
 import org.hornetq.rest.util.Constants;
 import org.jboss.resteasy.client.ClientRequest;
@@ -14,6 +15,8 @@ import org.junit.Test;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.jboss.resteasy.test.TestPortProvider.generateURL;
@@ -198,6 +201,89 @@ public class PushQueueConsumerTest extends MessageTestBase
       }
    }
 
+   @Path("/myBatch")
+   public static class MyBatchResource
+   {
+      public static List<String> got = new CopyOnWriteArrayList<String>();
+
+      @PUT
+      public void put(String str)
+      {
+         got.add(str);
+      }
+   }
+
+   @Test
+   public void testUriWithBatches() throws Exception
+   {
+      Link pushSubscription = null;
+      final int MESSAGES = 5;
+
+      try
+      {
+         // The name of the queue used for the test should match the name of the test
+         String queue = "testUriWithBatches";
+         System.out.println("\n" + queue);
+
+         deployQueue(queue);
+         server.getJaxrsServer().getDeployment().getRegistry().addPerRequestResource(MyBatchResource.class);
+
+         ClientResponse queueResponse = Util.head(new ClientRequest(generateURL(Util.getUrlPath(queue))));
+         Link destinationForSend = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), queueResponse, "create");
+         Link pushSubscriptions = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), queueResponse, "push-consumers");
+
+         // the messages are waiting when the registration starts, so they go in one batch
+         for (int i = 0; i < MESSAGES; i++)
+         {
+            sendMessage(destinationForSend, "message-" + i);
+         }
+
+         PushRegistration reg = new PushRegistration();
+         reg.setDurable(false);
+         XmlLink target = new XmlLink();
+         target.setMethod("put");
+         target.setHref(generateURL("/myBatch"));
+         reg.setTarget(target);
+         reg.setBatchSize(10);
+         ClientResponse pushRegistrationResponse = pushSubscriptions.request().body("application/xml", reg).post();
+         pushRegistrationResponse.releaseConnection();
+         Assert.assertEquals(201, pushRegistrationResponse.getStatus());
+         pushSubscription = pushRegistrationResponse.getLocation();
+
+         PushStatistics statistics = null;
+         for (int i = 0; i < 50; i++)
+         {
+            ClientResponse<PushStatistics> response = new ClientRequest(pushSubscription.getHref() + "/statistics").get(PushStatistics.class);
+            Assert.assertEquals(200, response.getStatus());
+            statistics = response.getEntity();
+            if (statistics.getMessagesPushed() == MESSAGES)
+            {
+               break;
+            }
+            Thread.sleep(100);
+         }
+
+         Assert.assertEquals(MESSAGES, statistics.getMessagesPushed());
+         Assert.assertEquals(0, statistics.getFailedPushes());
+         Assert.assertTrue(statistics.getPushes() < MESSAGES);
+         Assert.assertEquals(statistics.getPushes(), MyBatchResource.got.size());
+
+         StringBuilder bodies = new StringBuilder();
+         for (String body : MyBatchResource.got)
+         {
+            bodies.append(body);
+         }
+         for (int i = 0; i < MESSAGES; i++)
+         {
+            Assert.assertTrue(bodies.toString().contains("message-" + i));
+         }
+      }
+      finally
+      {
+         cleanupSubscription(pushSubscription);
+      }
+   }
+
    @Test
    public void testUri() throws Exception
    {
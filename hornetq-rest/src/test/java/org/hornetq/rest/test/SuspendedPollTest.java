@@ -0,0 +1,153 @@
+package org.hornetq.rest.test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.rest.queue.QueueDeployment;
+import org.hornetq.rest.util.Constants;
+import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientResponse;
+import org.jboss.resteasy.spi.Link;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.jboss.resteasy.test.TestPortProvider.generateURL;
+
+/**
+ * Polls waiting for messages, and streams
+ */
+public class SuspendedPollTest extends MessageTestBase
+{
+   @Test
+   public void testPollCompletedByMessage() throws Exception
+   {
+      String testName = "testPollCompletedByMessage";
+      deploy(testName);
+
+      ClientResponse<?> response = Util.head(new ClientRequest(generateURL(Util.getUrlPath(testName))));
+      final Link sender = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "create");
+      Link consumers = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "pull-consumers");
+      response = Util.setAutoAck(consumers, true);
+      Link consumeNext = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "consume-next");
+
+      Thread producer = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            try
+            {
+               Thread.sleep(1000);
+               ClientResponse<?> res = sender.request().body("text/plain", "1").post();
+               res.releaseConnection();
+            }
+            catch (Exception e)
+            {
+               e.printStackTrace();
+            }
+         }
+      };
+      producer.start();
+
+      long start = System.currentTimeMillis();
+      ClientResponse<?> res = consumeNext.request().header(Constants.WAIT_HEADER, "30").post(String.class);
+      Assert.assertEquals(200, res.getStatus());
+      Assert.assertEquals("1", res.getEntity(String.class));
+      res.releaseConnection();
+      Assert.assertTrue(System.currentTimeMillis() - start < 30000);
+      producer.join();
+
+      Link session = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), res, "consumer");
+      res = session.request().delete();
+      res.releaseConnection();
+      Assert.assertEquals(204, res.getStatus());
+   }
+
+   @Test
+   public void testPollTimesOut() throws Exception
+   {
+      String testName = "testPollTimesOut";
+      deploy(testName);
+
+      ClientResponse<?> response = Util.head(new ClientRequest(generateURL(Util.getUrlPath(testName))));
+      Link sender = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "create");
+      Link consumers = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "pull-consumers");
+      response = Util.setAutoAck(consumers, true);
+      Link consumeNext = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "consume-next");
+
+      ClientResponse<?> res = consumeNext.request().header(Constants.WAIT_HEADER, "1").post();
+      res.releaseConnection();
+      Assert.assertEquals(503, res.getStatus());
+      consumeNext = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), res, "consume-next");
+      Assert.assertNotNull(consumeNext);
+
+      // the consumer still works after the timeout
+      res = sender.request().body("text/plain", "1").post();
+      res.releaseConnection();
+      Assert.assertEquals(201, res.getStatus());
+
+      res = consumeNext.request().header(Constants.WAIT_HEADER, "10").post(String.class);
+      Assert.assertEquals(200, res.getStatus());
+      Assert.assertEquals("1", res.getEntity(String.class));
+      res.releaseConnection();
+
+      Link session = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), res, "consumer");
+      res = session.request().delete();
+      res.releaseConnection();
+      Assert.assertEquals(204, res.getStatus());
+   }
+
+   @Test
+   public void testStream() throws Exception
+   {
+      String testName = "testStream";
+      deploy(testName);
+
+      ClientResponse<?> response = Util.head(new ClientRequest(generateURL(Util.getUrlPath(testName))));
+      Link sender = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "create");
+      Link consumers = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "pull-consumers");
+      response = Util.setAutoAck(consumers, true);
+      Link stream = MessageTestBase.getLinkByTitle(manager.getQueueManager().getLinkStrategy(), response, "stream");
+      Assert.assertNotNull(stream);
+
+      for (int i = 1; i <= 3; i++)
+      {
+         ClientResponse<?> res = sender.request().body("text/plain", Integer.toString(i)).post();
+         res.releaseConnection();
+         Assert.assertEquals(201, res.getStatus());
+      }
+
+      ClientResponse<InputStream> res = stream.request().get(InputStream.class);
+      Assert.assertEquals(200, res.getStatus());
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(res.getEntity(), "UTF-8"));
+      List<String> data = new ArrayList<String>();
+      String line;
+      while (data.size() < 3 && (line = reader.readLine()) != null)
+      {
+         if (line.startsWith("data: "))
+         {
+            data.add(line.substring("data: ".length()));
+         }
+      }
+      res.releaseConnection();
+
+      Assert.assertEquals(3, data.size());
+      for (int i = 1; i <= 3; i++)
+      {
+         Assert.assertEquals(Integer.toString(i), data.get(i - 1));
+      }
+   }
+
+   private void deploy(String name) throws Exception
+   {
+      QueueDeployment deployment = new QueueDeployment();
+      deployment.setDuplicatesAllowed(true);
+      deployment.setDurableSend(false);
+      deployment.setName(name);
+      manager.getQueueManager().deploy(deployment);
+   }
+}
@@ -16,6 +16,7 @@ package org.hornetq.core.config;
 import java.io.Serializable;
 import java.util.List;
 
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.client.HornetQClient;
 
 /**
@@ -67,6 +68,10 @@ public class BridgeConfiguration implements Serializable
    // The bridge shouldn't be sending blocking anyways
    private long callTimeout = HornetQClient.DEFAULT_CALL_TIMEOUT;
 
+   private int ackBatchSize = HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE;
+
+   private long ackBatchDelay = HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY;
+
    public BridgeConfiguration(final String name,
                               final String queueName,
                               final String forwardingAddress,
@@ -386,11 +391,46 @@ public class BridgeConfiguration implements Serializable
       this.callTimeout = callTimeout;
    }
 
+   /**
+    * @return how many forwarded messages are acknowledged on the queue in one transaction
+    */
+   public int getAckBatchSize()
+   {
+      return ackBatchSize;
+   }
+
+   /**
+    * @param ackBatchSize the ackBatchSize to set
+    */
+   public void setAckBatchSize(final int ackBatchSize)
+   {
+      this.ackBatchSize = ackBatchSize;
+   }
+
+   /**
+    * @return how long, in microseconds, a forwarded message may wait for its acknowledgement batch
+    *         to fill up
+    */
+   public long getAckBatchDelay()
+   {
+      return ackBatchDelay;
+   }
+
+   /**
+    * @param ackBatchDelay the ackBatchDelay to set
+    */
+   public void setAckBatchDelay(final long ackBatchDelay)
+   {
+      this.ackBatchDelay = ackBatchDelay;
+   }
+
    @Override
    public int hashCode()
    {
       final int prime = 31;
       int result = 1;
+      result = prime * result + (int)(ackBatchDelay ^ (ackBatchDelay >>> 32));
+      result = prime * result + ackBatchSize;
       result = prime * result + (int)(callTimeout ^ (callTimeout >>> 32));
       result = prime * result + (int)(clientFailureCheckPeriod ^ (clientFailureCheckPeriod >>> 32));
       result = prime * result + confirmationWindowSize;
@@ -426,6 +466,10 @@ public class BridgeConfiguration implements Serializable
       if (getClass() != obj.getClass())
          return false;
       BridgeConfiguration other = (BridgeConfiguration)obj;
+      if (ackBatchDelay != other.ackBatchDelay)
+         return false;
+      if (ackBatchSize != other.ackBatchSize)
+         return false;
       if (callTimeout != other.callTimeout)
          return false;
       if (clientFailureCheckPeriod != other.clientFailureCheckPeriod)
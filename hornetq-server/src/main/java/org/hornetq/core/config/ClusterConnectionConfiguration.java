@@ -72,6 +72,12 @@ public final class ClusterConnectionConfiguration implements Serializable
 
    private final int clusterNotificationAttempts;
 
+   private int bridgeConnections = HornetQDefaultConfiguration.DEFAULT_CLUSTER_BRIDGE_CONNECTIONS;
+
+   private int ackBatchSize = HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE;
+
+   private long ackBatchDelay = HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY;
+
    public ClusterConnectionConfiguration(final String name,
                                          final String address,
                                          final String connectorName,
@@ -349,6 +355,57 @@ public final class ClusterConnectionConfiguration implements Serializable
       return minLargeMessageSize;
    }
 
+   /**
+    * @return the number of connections each bridge of this cluster connection forwards messages
+    *         over
+    */
+   public int getBridgeConnections()
+   {
+      return bridgeConnections;
+   }
+
+   /**
+    * @param bridgeConnections the bridgeConnections to set
+    */
+   public void setBridgeConnections(final int bridgeConnections)
+   {
+      this.bridgeConnections = bridgeConnections;
+   }
+
+   /**
+    * @return how many messages forwarded by the bridges of this cluster connection are
+    *         acknowledged on their queue in one transaction
+    */
+   public int getAckBatchSize()
+   {
+      return ackBatchSize;
+   }
+
+   /**
+    * @param ackBatchSize the ackBatchSize to set
+    */
+   public void setAckBatchSize(final int ackBatchSize)
+   {
+      this.ackBatchSize = ackBatchSize;
+   }
+
+   /**
+    * @return how long, in microseconds, a forwarded message may wait for its acknowledgement batch
+    *         to fill up
+    */
+   public long getAckBatchDelay()
+   {
+      return ackBatchDelay;
+   }
+
+   /**
+    * @param ackBatchDelay the ackBatchDelay to set
+    */
+   public void setAckBatchDelay(final long ackBatchDelay)
+   {
+      this.ackBatchDelay = ackBatchDelay;
+   }
+
    /**
     * @param minLargeMessageSize the minLargeMessageSize to set
     */
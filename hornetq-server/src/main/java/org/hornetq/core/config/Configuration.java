@@ -475,6 +475,33 @@ public interface Configuration extends Serializable
     */
    void setIDCacheSize(int idCacheSize);
 
+   /**
+    * Returns how long duplicate IDs are kept for, in milliseconds. {@code -1} keeps the last
+    * {@link #getIDCacheSize()} IDs instead.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_ID_CACHE_WINDOW}.
+    */
+   long getIDCacheWindow();
+
+   /**
+    * Sets how long duplicate IDs are kept for, in milliseconds.
+    */
+   void setIDCacheWindow(long idCacheWindow);
+
+   /**
+    * Returns how many duplicate IDs per second an address is expected to get, used to size the
+    * caches keeping IDs for {@link #getIDCacheWindow()}. {@code -1} sizes them from the IDs
+    * they actually get.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_ID_CACHE_RATE}.
+    */
+   int getIDCacheRate();
+
+   /**
+    * Sets how many duplicate IDs per second an address is expected to get.
+    */
+   void setIDCacheRate(int idCacheRate);
+
    /**
     * Returns whether message ID cache is persisted.
     * <br>
@@ -528,14 +555,14 @@ public interface Configuration extends Serializable
    void setJournalDirectory(String dir);
 
    /**
-    * Returns the type of journal used by this server (either {@code NIO} or {@code ASYNCIO}).
+    * Returns the type of journal used by this server ({@code NIO}, {@code ASYNCIO} or {@code MAPPED}).
     * <br>
     * Default value is ASYNCIO.
     */
    JournalType getJournalType();
 
    /**
-    * Sets the type of journal used by this server (either {@code NIO} or {@code ASYNCIO}).
+    * Sets the type of journal used by this server ({@code NIO}, {@code ASYNCIO} or {@code MAPPED}).
     */
    void setJournalType(JournalType type);
 
@@ -599,6 +626,18 @@ public interface Configuration extends Serializable
     */
    void setJournalCompactPercentage(int percentage);
 
+   /**
+    * Returns the number of threads used to parse the journal files when the journal is loaded.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_JOURNAL_LOAD_THREADS}.
+    */
+   int getJournalLoadThreads();
+
+   /**
+    * Sets the number of threads used to parse the journal files when the journal is loaded.
+    */
+   void setJournalLoadThreads(int threads);
+
    /**
     * Returns the number of journal files to pre-create.
     * <br>
@@ -858,6 +897,20 @@ public interface Configuration extends Serializable
     */
    void setMessageExpiryScanPeriod(long messageExpiryScanPeriod);
 
+   /**
+    * Returns how far in the future (in milliseconds) a scheduled message has to be due for it to
+    * be kept on disk until then, {@code -1} to keep every scheduled message in memory.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_SCHEDULED_SPILL_DELAY}.
+    */
+   long getScheduledSpillDelay();
+
+   /**
+    * Sets how far in the future (in milliseconds) a scheduled message has to be due for it to be
+    * kept on disk until then.
+    */
+   void setScheduledSpillDelay(long scheduledSpillDelay);
+
    /**
     * Returns the priority of the thread used to scan message expiration.
     * <br>
@@ -88,10 +88,16 @@ public class ConfigurationImpl implements Configuration
 
    private long messageExpiryScanPeriod = HornetQDefaultConfiguration.DEFAULT_MESSAGE_EXPIRY_SCAN_PERIOD;
 
+   private long scheduledSpillDelay = HornetQDefaultConfiguration.DEFAULT_SCHEDULED_SPILL_DELAY;
+
    private int messageExpiryThreadPriority = HornetQDefaultConfiguration.DEFAULT_MESSAGE_EXPIRY_THREAD_PRIORITY;
 
    protected int idCacheSize = HornetQDefaultConfiguration.DEFAULT_ID_CACHE_SIZE;
 
+   private long idCacheWindow = HornetQDefaultConfiguration.DEFAULT_ID_CACHE_WINDOW;
+
+   private int idCacheRate = HornetQDefaultConfiguration.DEFAULT_ID_CACHE_RATE;
+
    private boolean persistIDCache = HornetQDefaultConfiguration.DEFAULT_PERSIST_ID_CACHE;
 
    private List<String> incomingInterceptorClassNames = new ArrayList<String>();
@@ -142,6 +148,8 @@ public class ConfigurationImpl implements Configuration
 
    protected int journalCompactPercentage = HornetQDefaultConfiguration.DEFAULT_JOURNAL_COMPACT_PERCENTAGE;
 
+   protected int journalLoadThreads = HornetQDefaultConfiguration.DEFAULT_JOURNAL_LOAD_THREADS;
+
    protected int journalFileSize = HornetQDefaultConfiguration.DEFAULT_JOURNAL_FILE_SIZE;
 
    protected int journalMinFiles = HornetQDefaultConfiguration.DEFAULT_JOURNAL_MIN_FILES;
@@ -477,6 +485,26 @@ public class ConfigurationImpl implements Configuration
       this.idCacheSize = idCacheSize;
    }
 
+   public long getIDCacheWindow()
+   {
+      return idCacheWindow;
+   }
+
+   public void setIDCacheWindow(final long idCacheWindow)
+   {
+      this.idCacheWindow = idCacheWindow;
+   }
+
+   public int getIDCacheRate()
+   {
+      return idCacheRate;
+   }
+
+   public void setIDCacheRate(final int idCacheRate)
+   {
+      this.idCacheRate = idCacheRate;
+   }
+
    public boolean isPersistIDCache()
    {
       return persistIDCache;
@@ -671,6 +699,16 @@ public class ConfigurationImpl implements Configuration
       this.messageExpiryScanPeriod = messageExpiryScanPeriod;
    }
 
+   public long getScheduledSpillDelay()
+   {
+      return scheduledSpillDelay;
+   }
+
+   public void setScheduledSpillDelay(final long scheduledSpillDelay)
+   {
+      this.scheduledSpillDelay = scheduledSpillDelay;
+   }
+
    public int getMessageExpiryThreadPriority()
    {
       return messageExpiryThreadPriority;
@@ -821,6 +859,16 @@ public class ConfigurationImpl implements Configuration
       journalCompactPercentage = percentage;
    }
 
+   public int getJournalLoadThreads()
+   {
+      return journalLoadThreads;
+   }
+
+   public void setJournalLoadThreads(final int threads)
+   {
+      journalLoadThreads = threads;
+   }
+
    public long getServerDumpInterval()
    {
       return serverDumpInterval;
@@ -1077,6 +1125,7 @@ public class ConfigurationImpl implements Configuration
       result = prime * result + journalBufferTimeout_NIO;
       result = prime * result + journalCompactMinFiles;
       result = prime * result + journalCompactPercentage;
+      result = prime * result + journalLoadThreads;
       result = prime * result + ((journalDirectory == null) ? 0 : journalDirectory.hashCode());
       result = prime * result + journalFileSize;
       result = prime * result + journalMaxIO_AIO;
@@ -1279,6 +1328,8 @@ public class ConfigurationImpl implements Configuration
          return false;
       if (journalCompactPercentage != other.journalCompactPercentage)
          return false;
+      if (journalLoadThreads != other.journalLoadThreads)
+         return false;
       if (journalDirectory == null)
       {
          if (other.journalDirectory != null)
@@ -129,6 +129,8 @@ public final class FileConfigurationParser
 
    private static final String LVQ_NODE_NAME = "last-value-queue";
 
+   private static final String CONCURRENT_QUEUE_NODE_NAME = "concurrent-queue";
+
    private static final String REDISTRIBUTION_DELAY_NODE_NAME = "redistribution-delay";
 
    private static final String SEND_TO_DLA_ON_NO_ROUTE = "send-to-dla-on-no-route";
@@ -263,6 +265,11 @@ public final class FileConfigurationParser
                                                                      config.getMessageExpiryScanPeriod(),
                                                                      Validators.MINUS_ONE_OR_GT_ZERO));
 
+      config.setScheduledSpillDelay(XMLConfigurationUtil.getLong(e,
+                                                                 "scheduled-spill-delay",
+                                                                 config.getScheduledSpillDelay(),
+                                                                 Validators.MINUS_ONE_OR_GE_ZERO));
+
       config.setMessageExpiryThreadPriority(XMLConfigurationUtil.getInteger(e,
                                                                             "message-expiry-thread-priority",
                                                                             config.getMessageExpiryThreadPriority(),
@@ -273,6 +280,16 @@ public final class FileConfigurationParser
                                                             config.getIDCacheSize(),
                                                             Validators.GT_ZERO));
 
+      config.setIDCacheWindow(XMLConfigurationUtil.getLong(e,
+                                                           "id-cache-window",
+                                                           config.getIDCacheWindow(),
+                                                           Validators.MINUS_ONE_OR_GT_ZERO));
+
+      config.setIDCacheRate(XMLConfigurationUtil.getInteger(e,
+                                                            "id-cache-rate",
+                                                            config.getIDCacheRate(),
+                                                            Validators.MINUS_ONE_OR_GT_ZERO));
+
       config.setPersistIDCache(XMLConfigurationUtil.getBoolean(e, "persist-id-cache", config.isPersistIDCache()));
 
       config.setManagementAddress(new SimpleString(XMLConfigurationUtil.getString(e,
@@ -529,6 +546,10 @@ public final class FileConfigurationParser
             config.setJournalType(JournalType.NIO);
          }
       }
+      else if (s.equals(JournalType.MAPPED.toString()))
+      {
+         config.setJournalType(JournalType.MAPPED);
+      }
 
       config.setJournalSyncTransactional(XMLConfigurationUtil.getBoolean(e,
                                                                          "journal-sync-transactional",
@@ -589,6 +610,11 @@ public final class FileConfigurationParser
                                                                          config.getJournalCompactPercentage(),
                                                                          Validators.PERCENTAGE));
 
+      config.setJournalLoadThreads(XMLConfigurationUtil.getInteger(e,
+                                                                   "journal-load-threads",
+                                                                   config.getJournalLoadThreads(),
+                                                                   Validators.GT_ZERO));
+
       config.setLogJournalWriteRate(XMLConfigurationUtil.getBoolean(e,
                                                                     "log-journal-write-rate",
                                                                     HornetQDefaultConfiguration.DEFAULT_JOURNAL_LOG_WRITE_RATE));
@@ -896,6 +922,10 @@ public final class FileConfigurationParser
          {
             addressSettings.setLastValueQueue(Boolean.valueOf(child.getTextContent().trim()));
          }
+         else if (FileConfigurationParser.CONCURRENT_QUEUE_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            addressSettings.setConcurrentQueue(Boolean.valueOf(child.getTextContent().trim()));
+         }
          else if (FileConfigurationParser.MAX_DELIVERY_ATTEMPTS.equalsIgnoreCase(child.getNodeName()))
          {
             addressSettings.setMaxDeliveryAttempts(Integer.valueOf(child.getTextContent().trim()));
@@ -1148,6 +1178,12 @@ public final class FileConfigurationParser
 
       int clusterNotificationAttempts = XMLConfigurationUtil.getInteger(e, "notification-attempts", HornetQDefaultConfiguration.DEFAULT_CLUSTER_NOTIFICATION_ATTEMPTS, Validators.GT_ZERO);
 
+      int bridgeConnections = XMLConfigurationUtil.getInteger(e, "bridge-connections", HornetQDefaultConfiguration.DEFAULT_CLUSTER_BRIDGE_CONNECTIONS, Validators.GT_ZERO);
+
+      int ackBatchSize = XMLConfigurationUtil.getInteger(e, "ack-batch-size", HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE, Validators.GT_ZERO);
+
+      long ackBatchDelay = XMLConfigurationUtil.getLong(e, "ack-batch-delay", HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY, Validators.GE_ZERO);
+
       String discoveryGroupName = null;
 
       List<String> staticConnectorNames = new ArrayList<String>();
@@ -1212,6 +1248,12 @@ public final class FileConfigurationParser
                                                      clusterNotificationAttempts);
       }
 
+      config.setBridgeConnections(bridgeConnections);
+
+      config.setAckBatchSize(ackBatchSize);
+
+      config.setAckBatchDelay(ackBatchDelay);
+
       mainConfig.getClusterConfigurations().add(config);
    }
 
@@ -1315,6 +1357,16 @@ public final class FileConfigurationParser
 
       boolean ha = XMLConfigurationUtil.getBoolean(brNode, "ha", false);
 
+      int ackBatchSize = XMLConfigurationUtil.getInteger(brNode,
+                                                         "ack-batch-size",
+                                                         HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE,
+                                                         Validators.GT_ZERO);
+
+      long ackBatchDelay = XMLConfigurationUtil.getLong(brNode,
+                                                        "ack-batch-delay",
+                                                        HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY,
+                                                        Validators.GE_ZERO);
+
       String filterString = null;
 
       List<String> staticConnectorNames = new ArrayList<String>();
@@ -1386,6 +1438,10 @@ public final class FileConfigurationParser
                                           password);
       }
 
+      config.setAckBatchSize(ackBatchSize);
+
+      config.setAckBatchDelay(ackBatchDelay);
+
       mainConfig.getBridgeConfigurations().add(config);
    }
 
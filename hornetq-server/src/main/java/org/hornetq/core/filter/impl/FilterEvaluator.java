@@ -0,0 +1,935 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.filter.impl;
+
+import java.util.Set;
+
+import org.hornetq.api.core.FilterConstants;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.server.ServerMessage;
+
+/**
+ * A FilterEvaluator
+ * <p>
+ * A filter expression compiled from the tree built by {@link FilterParser}. Every node of the
+ * {@link Operator} tree becomes an evaluator of its own, and every {@link Identifier} becomes an
+ * evaluator reading the header field or the property straight from the message.
+ * <p>
+ * Evaluators hold no state, so the same compiled filter can be evaluated by many threads at the
+ * same time. The results follow the {@link Operator} semantics: {@code null} is the SQL unknown
+ * value, integral values compare as longs and floating values as doubles.
+ */
+abstract class FilterEvaluator
+{
+   private static final int NULL = 0;
+
+   abstract Object evaluate(ServerMessage message) throws Exception;
+
+   /**
+    * @param expression the result of {@link FilterParser#parse}
+    */
+   static FilterEvaluator compile(final Object expression) throws Exception
+   {
+      if (expression instanceof Operator)
+      {
+         return compileOperator((Operator)expression);
+      }
+      else if (expression instanceof Identifier)
+      {
+         return compileIdentifier(((Identifier)expression).getName());
+      }
+      else
+      {
+         return new Constant(expression);
+      }
+   }
+
+   private static FilterEvaluator compileOperator(final Operator operator) throws Exception
+   {
+      final String description = operator.toString();
+
+      switch (operator.getOperation())
+      {
+         case Operator.EQUAL:
+            return new Equal(description, compile(operator.getOperand1()), compile(operator.getOperand2()), false);
+         case Operator.DIFFERENT:
+            return new Equal(description, compile(operator.getOperand1()), compile(operator.getOperand2()), true);
+         case Operator.NOT:
+            return new Not(description, compile(operator.getOperand1()));
+         case Operator.AND:
+            return new And(description, compile(operator.getOperand1()), compile(operator.getOperand2()));
+         case Operator.OR:
+            return new Or(description, compile(operator.getOperand1()), compile(operator.getOperand2()));
+         case Operator.GT:
+         case Operator.GE:
+         case Operator.LT:
+         case Operator.LE:
+            return new Comparison(description,
+                                  operator.getOperation(),
+                                  compile(operator.getOperand1()),
+                                  compile(operator.getOperand2()));
+         case Operator.BETWEEN:
+         case Operator.NOT_BETWEEN:
+            return new Between(description,
+                               operator.getOperation() == Operator.NOT_BETWEEN,
+                               compile(operator.getOperand1()),
+                               compile(operator.getOperand2()),
+                               compile(operator.getOperand3()));
+         case Operator.ADD:
+         case Operator.SUB:
+         case Operator.MUL:
+         case Operator.DIV:
+            return new Arithmetic(description,
+                                  operator.getOperation(),
+                                  compile(operator.getOperand1()),
+                                  compile(operator.getOperand2()));
+         case Operator.NEG:
+            return new Negate(description, compile(operator.getOperand1()));
+         case Operator.LIKE:
+         case Operator.NOT_LIKE:
+            return new Like(description,
+                            operator.getOperation() == Operator.NOT_LIKE,
+                            compile(operator.getOperand1()),
+                            compile(operator.getOperand2()),
+                            null);
+         case Operator.LIKE_ESCAPE:
+         case Operator.NOT_LIKE_ESCAPE:
+            return new Like(description,
+                            operator.getOperation() == Operator.NOT_LIKE_ESCAPE,
+                            compile(operator.getOperand1()),
+                            compile(operator.getOperand2()),
+                            compile(operator.getOperand3()));
+         case Operator.IS_NULL:
+         case Operator.IS_NOT_NULL:
+            return new IsNull(description, operator.getOperation() == Operator.IS_NOT_NULL, compile(operator.getOperand1()));
+         case Operator.IN:
+         case Operator.NOT_IN:
+            return new In(description,
+                          operator.getOperation() == Operator.NOT_IN,
+                          compile(operator.getOperand1()),
+                          (Set<?>)operator.getOperand2());
+         default:
+            throw new Exception("No operation mapped for " + description);
+      }
+   }
+
+   private static FilterEvaluator compileIdentifier(final SimpleString name)
+   {
+      if (FilterConstants.HORNETQ_USERID.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               // It's the stringified (hex) representation of a user id that can be used in a selector expression
+               return new SimpleString("ID:" + message.getUserID());
+            }
+         };
+      }
+      else if (FilterConstants.HORNETQ_PRIORITY.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               return Integer.valueOf(message.getPriority());
+            }
+         };
+      }
+      else if (FilterConstants.HORNETQ_TIMESTAMP.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               return message.getTimestamp();
+            }
+         };
+      }
+      else if (FilterConstants.HORNETQ_DURABLE.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               return message.isDurable() ? FilterConstants.DURABLE : FilterConstants.NON_DURABLE;
+            }
+         };
+      }
+      else if (FilterConstants.HORNETQ_EXPIRATION.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               return message.getExpiration();
+            }
+         };
+      }
+      else if (FilterConstants.HORNETQ_SIZE.equals(name))
+      {
+         return new FilterEvaluator()
+         {
+            @Override
+            Object evaluate(final ServerMessage message)
+            {
+               return message.getEncodeSize();
+            }
+         };
+      }
+      else
+      {
+         return new Property(name);
+      }
+   }
+
+   // Type checks ---------------------------------------------------
+
+   /**
+    * @return the {@link Operator} class of the value, {@link #NULL} for {@code null}
+    */
+   static int classOf(final Object value, final String description) throws Exception
+   {
+      if (value == null)
+      {
+         return NULL;
+      }
+
+      Class<?> clazz = value.getClass();
+
+      if (clazz == SimpleString.class)
+      {
+         return Operator.SIMPLE_STRING;
+      }
+      else if (clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class)
+      {
+         return Operator.LONG;
+      }
+      else if (clazz == Double.class || clazz == Float.class)
+      {
+         return Operator.DOUBLE;
+      }
+      else if (clazz == Boolean.class)
+      {
+         return Operator.BOOLEAN;
+      }
+      else
+      {
+         throw new Exception("Bad Object: '" + clazz.getName() + "' for operation: " + description);
+      }
+   }
+
+   static Exception badObject(final int clazz, final String description)
+   {
+      return new Exception("Bad Object: '" + className(clazz) + "' for operation: " + description);
+   }
+
+   static Exception badObject(final int expected, final int clazz, final String description)
+   {
+      return new Exception("Bad Object: expected '" + className(expected) +
+                           "' got '" +
+                           className(clazz) +
+                           "' for operation: " +
+                           description);
+   }
+
+   private static String className(final int clazz)
+   {
+      switch (clazz)
+      {
+         case Operator.SIMPLE_STRING:
+            return "SimpleString";
+         case Operator.LONG:
+            return "Long";
+         case Operator.DOUBLE:
+            return "Double";
+         case Operator.BOOLEAN:
+            return "Boolean";
+         default:
+            return "Unknown";
+      }
+   }
+
+   private static boolean isNumber(final int clazz)
+   {
+      return clazz == Operator.LONG || clazz == Operator.DOUBLE;
+   }
+
+   // Leaves --------------------------------------------------------
+
+   private static final class Constant extends FilterEvaluator
+   {
+      private final Object value;
+
+      Constant(final Object value)
+      {
+         this.value = value;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message)
+      {
+         return value;
+      }
+   }
+
+   private static final class Property extends FilterEvaluator
+   {
+      private final SimpleString name;
+
+      Property(final SimpleString name)
+      {
+         this.name = name;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message)
+      {
+         return message.getObjectProperty(name);
+      }
+   }
+
+   // Operators -----------------------------------------------------
+
+   private abstract static class Node extends FilterEvaluator
+   {
+      protected final String description;
+
+      Node(final String description)
+      {
+         this.description = description;
+      }
+
+      @Override
+      public String toString()
+      {
+         return description;
+      }
+   }
+
+   /**
+    * EQUAL and DIFFERENT
+    */
+   private static final class Equal extends Node
+   {
+      private final FilterEvaluator left;
+
+      private final FilterEvaluator right;
+
+      private final boolean different;
+
+      Equal(final String description,
+            final FilterEvaluator left,
+            final FilterEvaluator right,
+            final boolean different)
+      {
+         super(description);
+         this.left = left;
+         this.right = right;
+         this.different = different;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value1 = left.evaluate(message);
+         int class1 = classOf(value1, description);
+
+         if (value1 == null)
+         {
+            if (different)
+            {
+               return classOf(right.evaluate(message), description) == NULL ? Boolean.FALSE : Boolean.TRUE;
+            }
+            return Boolean.FALSE;
+         }
+
+         Object value2 = right.evaluate(message);
+         int class2 = classOf(value2, description);
+
+         switch (class1)
+         {
+            case Operator.LONG:
+            case Operator.DOUBLE:
+               if (value2 == null)
+               {
+                  return null;
+               }
+               if (!isNumber(class2))
+               {
+                  return Boolean.FALSE;
+               }
+               boolean equal;
+               if (class1 == Operator.LONG && class2 == Operator.LONG)
+               {
+                  equal = ((Number)value1).longValue() == ((Number)value2).longValue();
+               }
+               else if (class1 == Operator.LONG)
+               {
+                  equal = ((Number)value1).longValue() == ((Number)value2).doubleValue();
+               }
+               else if (class2 == Operator.LONG)
+               {
+                  equal = ((Number)value1).doubleValue() == ((Number)value2).longValue();
+               }
+               else
+               {
+                  equal = ((Number)value1).doubleValue() == ((Number)value2).doubleValue();
+               }
+               return Boolean.valueOf(equal != different);
+            case Operator.SIMPLE_STRING:
+            case Operator.BOOLEAN:
+               if (value2 == null)
+               {
+                  return different ? null : Boolean.FALSE;
+               }
+               if (class2 != class1)
+               {
+                  throw badObject(class1, class2, description);
+               }
+               return Boolean.valueOf(value1.equals(value2) != different);
+            default:
+               throw badObject(class1, description);
+         }
+      }
+   }
+
+   private static final class Not extends Node
+   {
+      private final FilterEvaluator operand;
+
+      Not(final String description, final FilterEvaluator operand)
+      {
+         super(description);
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value = operand.evaluate(message);
+         int clazz = classOf(value, description);
+         if (value == null)
+         {
+            return null;
+         }
+         if (clazz != Operator.BOOLEAN)
+         {
+            throw badObject(clazz, description);
+         }
+         return ((Boolean)value).booleanValue() ? Boolean.FALSE : Boolean.TRUE;
+      }
+   }
+
+   private static final class And extends Node
+   {
+      private final FilterEvaluator left;
+
+      private final FilterEvaluator right;
+
+      And(final String description, final FilterEvaluator left, final FilterEvaluator right)
+      {
+         super(description);
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value1 = left.evaluate(message);
+         int class1 = classOf(value1, description);
+
+         if (value1 != null)
+         {
+            if (class1 != Operator.BOOLEAN)
+            {
+               throw badObject(class1, description);
+            }
+            if (!((Boolean)value1).booleanValue())
+            {
+               return Boolean.FALSE;
+            }
+         }
+
+         Object value2 = right.evaluate(message);
+         int class2 = classOf(value2, description);
+         if (value2 == null)
+         {
+            return null;
+         }
+         if (class2 != Operator.BOOLEAN)
+         {
+            throw badObject(class2, description);
+         }
+         if (value1 == null)
+         {
+            // unknown AND true is unknown
+            return ((Boolean)value2).booleanValue() ? null : Boolean.FALSE;
+         }
+         return value2;
+      }
+   }
+
+   private static final class Or extends Node
+   {
+      private final FilterEvaluator left;
+
+      private final FilterEvaluator right;
+
+      Or(final String description, final FilterEvaluator left, final FilterEvaluator right)
+      {
+         super(description);
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value1 = left.evaluate(message);
+         int class1 = classOf(value1, description);
+         if (value1 != null)
+         {
+            if (class1 != Operator.BOOLEAN)
+            {
+               throw badObject(class1, description);
+            }
+            if (((Boolean)value1).booleanValue())
+            {
+               return Boolean.TRUE;
+            }
+         }
+
+         Object value2 = right.evaluate(message);
+         int class2 = classOf(value2, description);
+         if (value2 != null)
+         {
+            if (class2 != Operator.BOOLEAN)
+            {
+               throw badObject(class2, description);
+            }
+            if (((Boolean)value2).booleanValue())
+            {
+               return Boolean.TRUE;
+            }
+         }
+
+         return value1 != null && value2 != null ? Boolean.FALSE : null;
+      }
+   }
+
+   /**
+    * GT, GE, LT and LE. Anything but numbers compares as false.
+    */
+   private static final class Comparison extends Node
+   {
+      private final int operation;
+
+      private final FilterEvaluator left;
+
+      private final FilterEvaluator right;
+
+      Comparison(final String description,
+                 final int operation,
+                 final FilterEvaluator left,
+                 final FilterEvaluator right)
+      {
+         super(description);
+         this.operation = operation;
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         return compare(description, operation, left.evaluate(message), right, message);
+      }
+
+      static Object compare(final String description,
+                            final int operation,
+                            final Object value1,
+                            final FilterEvaluator right,
+                            final ServerMessage message) throws Exception
+      {
+         int class1 = classOf(value1, description);
+         if (value1 == null)
+         {
+            return null;
+         }
+         if (!isNumber(class1))
+         {
+            return Boolean.FALSE;
+         }
+
+         Object value2 = right.evaluate(message);
+         int class2 = classOf(value2, description);
+         if (value2 == null)
+         {
+            return null;
+         }
+         if (!isNumber(class2))
+         {
+            return Boolean.FALSE;
+         }
+
+         if (class1 == Operator.LONG && class2 == Operator.LONG)
+         {
+            return compare(operation, ((Number)value1).longValue(), ((Number)value2).longValue());
+         }
+         else if (class1 == Operator.LONG)
+         {
+            return compare(operation, ((Number)value1).longValue(), ((Number)value2).doubleValue());
+         }
+         else if (class2 == Operator.LONG)
+         {
+            return compare(operation, ((Number)value1).doubleValue(), ((Number)value2).longValue());
+         }
+         else
+         {
+            return compare(operation, ((Number)value1).doubleValue(), ((Number)value2).doubleValue());
+         }
+      }
+
+      private static Boolean compare(final int operation, final long long1, final long long2)
+      {
+         switch (operation)
+         {
+            case Operator.GT:
+               return Boolean.valueOf(long1 > long2);
+            case Operator.GE:
+               return Boolean.valueOf(long1 >= long2);
+            case Operator.LT:
+               return Boolean.valueOf(long1 < long2);
+            default:
+               return Boolean.valueOf(long1 <= long2);
+         }
+      }
+
+      private static Boolean compare(final int operation, final double double1, final double double2)
+      {
+         switch (operation)
+         {
+            case Operator.GT:
+               return Boolean.valueOf(double1 > double2);
+            case Operator.GE:
+               return Boolean.valueOf(double1 >= double2);
+            case Operator.LT:
+               return Boolean.valueOf(double1 < double2);
+            default:
+               return Boolean.valueOf(double1 <= double2);
+         }
+      }
+   }
+
+   private static final class Between extends Node
+   {
+      private final boolean not;
+
+      private final FilterEvaluator value;
+
+      private final FilterEvaluator lower;
+
+      private final FilterEvaluator upper;
+
+      Between(final String description,
+              final boolean not,
+              final FilterEvaluator value,
+              final FilterEvaluator lower,
+              final FilterEvaluator upper)
+      {
+         super(description);
+         this.not = not;
+         this.value = value;
+         this.lower = lower;
+         this.upper = upper;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value1 = value.evaluate(message);
+
+         Object result = Comparison.compare(description, not ? Operator.LT : Operator.GE, value1, lower, message);
+
+         if (result == null || ((Boolean)result).booleanValue() == not)
+         {
+            return result;
+         }
+
+         return Comparison.compare(description, not ? Operator.GT : Operator.LE, value1, upper, message);
+      }
+   }
+
+   /**
+    * ADD, SUB, MUL and DIV. Two integral values give a long, anything else a double.
+    */
+   private static final class Arithmetic extends Node
+   {
+      private final int operation;
+
+      private final FilterEvaluator left;
+
+      private final FilterEvaluator right;
+
+      Arithmetic(final String description,
+                 final int operation,
+                 final FilterEvaluator left,
+                 final FilterEvaluator right)
+      {
+         super(description);
+         this.operation = operation;
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value1 = left.evaluate(message);
+         int class1 = classOf(value1, description);
+         Object value2 = right.evaluate(message);
+         int class2 = classOf(value2, description);
+
+         if (value1 == null || value2 == null)
+         {
+            return null;
+         }
+         if (!isNumber(class1))
+         {
+            throw badObject(class1, description);
+         }
+         if (!isNumber(class2))
+         {
+            throw badObject(class2, description);
+         }
+
+         if (class1 == Operator.LONG && class2 == Operator.LONG)
+         {
+            long long1 = ((Number)value1).longValue();
+            long long2 = ((Number)value2).longValue();
+            switch (operation)
+            {
+               case Operator.ADD:
+                  return Long.valueOf(long1 + long2);
+               case Operator.SUB:
+                  return Long.valueOf(long1 - long2);
+               case Operator.MUL:
+                  return Long.valueOf(long1 * long2);
+               default:
+                  // Can throw Divide by zero exception...
+                  return Long.valueOf(long1 / long2);
+            }
+         }
+
+         double double1 = ((Number)value1).doubleValue();
+         double double2 = ((Number)value2).doubleValue();
+         switch (operation)
+         {
+            case Operator.ADD:
+               return Double.valueOf(double1 + double2);
+            case Operator.SUB:
+               return Double.valueOf(double1 - double2);
+            case Operator.MUL:
+               return Double.valueOf(double1 * double2);
+            default:
+               return Double.valueOf(double1 / double2);
+         }
+      }
+   }
+
+   private static final class Negate extends Node
+   {
+      private final FilterEvaluator operand;
+
+      Negate(final String description, final FilterEvaluator operand)
+      {
+         super(description);
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value = operand.evaluate(message);
+         int clazz = classOf(value, description);
+         if (value == null)
+         {
+            return null;
+         }
+         switch (clazz)
+         {
+            case Operator.DOUBLE:
+               return Double.valueOf(-((Number)value).doubleValue());
+            case Operator.LONG:
+               return Long.valueOf(-((Number)value).longValue());
+            default:
+               throw badObject(clazz, description);
+         }
+      }
+   }
+
+   /**
+    * LIKE, NOT LIKE, LIKE ESCAPE and NOT LIKE ESCAPE. The regular expression is built once, the
+    * parser only accepts literals for the pattern and the escape character.
+    */
+   private static final class Like extends Node
+   {
+      private final boolean not;
+
+      private final FilterEvaluator operand;
+
+      private final FilterEvaluator pattern;
+
+      private final FilterEvaluator escape;
+
+      private volatile RegExp regExp;
+
+      Like(final String description,
+           final boolean not,
+           final FilterEvaluator operand,
+           final FilterEvaluator pattern,
+           final FilterEvaluator escape)
+      {
+         super(description);
+         this.not = not;
+         this.operand = operand;
+         this.pattern = pattern;
+         this.escape = escape;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value = operand.evaluate(message);
+         int clazz = classOf(value, description);
+         if (value == null)
+         {
+            return null;
+         }
+         if (clazz != Operator.SIMPLE_STRING)
+         {
+            throw badObject(clazz, description);
+         }
+
+         RegExp re = regExp;
+
+         if (re == null)
+         {
+            Object patternValue = pattern.evaluate(message);
+            int patternClass = classOf(patternValue, description);
+            if (patternValue == null)
+            {
+               return Boolean.FALSE;
+            }
+            if (patternClass != Operator.SIMPLE_STRING)
+            {
+               throw badObject(patternClass, description);
+            }
+
+            Character escapeChar = null;
+
+            if (escape != null)
+            {
+               Object escapeValue = escape.evaluate(message);
+               int escapeClass = classOf(escapeValue, description);
+               if (escapeValue == null)
+               {
+                  return null;
+               }
+               if (escapeClass != Operator.SIMPLE_STRING)
+               {
+                  throw badObject(escapeClass, description);
+               }
+
+               SimpleString escapeString = (SimpleString)escapeValue;
+               if (escapeString.length() != 1)
+               {
+                  throw new Exception("LIKE ESCAPE: Bad escape character " + escapeString.toString());
+               }
+
+               escapeChar = Character.valueOf(escapeString.charAt(0));
+            }
+
+            re = new RegExp(patternValue.toString(), escapeChar);
+
+            if (pattern instanceof Constant && (escape == null || escape instanceof Constant))
+            {
+               regExp = re;
+            }
+         }
+
+         return re.isMatch(value) != not ? Boolean.TRUE : Boolean.FALSE;
+      }
+   }
+
+   private static final class IsNull extends Node
+   {
+      private final boolean not;
+
+      private final FilterEvaluator operand;
+
+      IsNull(final String description, final boolean not, final FilterEvaluator operand)
+      {
+         super(description);
+         this.not = not;
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         return (classOf(operand.evaluate(message), description) == NULL) != not ? Boolean.TRUE : Boolean.FALSE;
+      }
+   }
+
+   private static final class In extends Node
+   {
+      private final boolean not;
+
+      private final FilterEvaluator operand;
+
+      private final Set<?> values;
+
+      In(final String description, final boolean not, final FilterEvaluator operand, final Set<?> values)
+      {
+         super(description);
+         this.not = not;
+         this.operand = operand;
+         this.values = values;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object value = operand.evaluate(message);
+         int clazz = classOf(value, description);
+         if (value == null)
+         {
+            return not ? null : Boolean.FALSE;
+         }
+         if (clazz != Operator.SIMPLE_STRING)
+         {
+            throw badObject(clazz, description);
+         }
+         return values.contains(value) != not ? Boolean.TRUE : Boolean.FALSE;
+      }
+   }
+}
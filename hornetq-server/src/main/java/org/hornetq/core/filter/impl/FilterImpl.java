@@ -13,6 +13,7 @@
 
 package org.hornetq.core.filter.impl;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -62,11 +63,10 @@ public class FilterImpl implements Filter
 
    private final SimpleString sfilterString;
 
-   private final Map<SimpleString, Identifier> identifiers = new HashMap<SimpleString, Identifier>();
+   /** Holds no per-evaluation state, the filter can be matched concurrently */
+   private final FilterEvaluator evaluator;
 
-   private final Object result;
-
-   private final Class<? extends Object> resultType;
+   private final Map<SimpleString, Object> requiredPropertyValues;
 
    // Static ---------------------------------------------------------
 
@@ -103,9 +103,16 @@ public class FilterImpl implements Filter
 
       try
       {
-         result = new FilterParser().parse(sfilterString, identifiers);
+         Object result = new FilterParser().parse(sfilterString, new HashMap<SimpleString, Identifier>());
+
+         evaluator = FilterEvaluator.compile(result);
+
+         Map<SimpleString, Object> values = new HashMap<SimpleString, Object>();
 
-         resultType = result.getClass();
+         collectRequiredPropertyValues(result, values);
+
+         requiredPropertyValues = values.isEmpty() ? Collections.<SimpleString, Object> emptyMap()
+                                                   : Collections.unmodifiableMap(values);
       }
       catch (Throwable e)
       {
@@ -122,39 +129,32 @@ public class FilterImpl implements Filter
       return sfilterString;
    }
 
-   public synchronized boolean match(final ServerMessage message)
+   /**
+    * The properties compared for equality with a literal at the top level of the filter, e.g.
+    * {@code region} and {@code tenant} for {@code region = 'EU' AND tenant = 42 AND size > 10}.
+    * <p>
+    * The filter can only match messages whose property is equal to the literal, so these can be
+    * used to rule out a message without evaluating the filter.
+    * @return the literal of each such property, never {@code null}
+    */
+   public Map<SimpleString, Object> getRequiredPropertyValues()
+   {
+      return requiredPropertyValues;
+   }
+
+   public boolean match(final ServerMessage message)
    {
       try
       {
-         // Set the identifiers values
+         Object result = evaluator.evaluate(message);
 
-         for (Identifier id : identifiers.values())
+         if (result == null)
          {
-            Object val = null;
-
-            if (id.getName().startsWith(FilterConstants.HORNETQ_PREFIX))
-            {
-               // Look it up as header fields
-               val = getHeaderFieldValue(message, id.getName());
-            }
-
-            if (val == null)
-            {
-               val = message.getObjectProperty(id.getName());
-            }
-
-            id.setValue(val);
-
-         }
-
-         if (resultType.equals(Identifier.class))
-         {
-            return (Boolean)((Identifier)result).getValue();
+            return false;
          }
-         else if (resultType.equals(Operator.class))
+         else if (result instanceof Boolean)
          {
-            Operator op = (Operator)result;
-            return (Boolean)op.apply();
+            return ((Boolean)result).booleanValue();
          }
          else
          {
@@ -206,36 +206,49 @@ public class FilterImpl implements Filter
 
    // Private --------------------------------------------------------------------------
 
-   private Object getHeaderFieldValue(final ServerMessage msg, final SimpleString fieldName)
+   private static void collectRequiredPropertyValues(final Object expression, final Map<SimpleString, Object> values)
    {
-      if (FilterConstants.HORNETQ_USERID.equals(fieldName))
+      if (!(expression instanceof Operator))
       {
-         // It's the stringified (hex) representation of a user id that can be used in a selector expression
-         return new SimpleString("ID:" + msg.getUserID());
+         return;
       }
-      else if (FilterConstants.HORNETQ_PRIORITY.equals(fieldName))
-      {
-         return Integer.valueOf(msg.getPriority());
-      }
-      else if (FilterConstants.HORNETQ_TIMESTAMP.equals(fieldName))
-      {
-         return msg.getTimestamp();
-      }
-      else if (FilterConstants.HORNETQ_DURABLE.equals(fieldName))
+
+      Operator operator = (Operator)expression;
+
+      if (operator.getOperation() == Operator.AND)
       {
-         return msg.isDurable() ? FilterConstants.DURABLE : FilterConstants.NON_DURABLE;
+         collectRequiredPropertyValues(operator.getOperand1(), values);
+         collectRequiredPropertyValues(operator.getOperand2(), values);
       }
-      else if (FilterConstants.HORNETQ_EXPIRATION.equals(fieldName))
+      else if (operator.getOperation() == Operator.EQUAL)
       {
-         return msg.getExpiration();
+         if (operator.getOperand1() instanceof Identifier)
+         {
+            addRequiredPropertyValue((Identifier)operator.getOperand1(), operator.getOperand2(), values);
+         }
+         else if (operator.getOperand2() instanceof Identifier)
+         {
+            addRequiredPropertyValue((Identifier)operator.getOperand2(), operator.getOperand1(), values);
+         }
       }
-      else if (FilterConstants.HORNETQ_SIZE.equals(fieldName))
+   }
+
+   private static void addRequiredPropertyValue(final Identifier identifier,
+                                                final Object literal,
+                                                final Map<SimpleString, Object> values)
+   {
+      // header fields are not properties
+      if (identifier.getName().startsWith(FilterConstants.HORNETQ_PREFIX))
       {
-         return msg.getEncodeSize();
+         return;
       }
-      else
+
+      if (literal instanceof SimpleString || literal instanceof Number || literal instanceof Boolean)
       {
-         return null;
+         if (!values.containsKey(identifier.getName()))
+         {
+            values.put(identifier.getName(), literal);
+         }
       }
    }
 }
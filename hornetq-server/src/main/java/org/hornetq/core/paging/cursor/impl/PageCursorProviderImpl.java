@@ -53,6 +53,17 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
+   /**
+    * How many page indexes are kept, an index takes 4 bytes per message of its page
+    */
+   private static final int MAX_INDEX_CACHE_SIZE = 100;
+
+   /**
+    * How many messages of a completed page are read one by one through its index before the whole
+    * page is loaded in the cache, as a cursor walking the page would otherwise open it for each one
+    */
+   private static final int MAX_INDEXED_READS = 4;
+
    // Attributes ----------------------------------------------------
 
    /**
@@ -69,6 +80,12 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    private final SoftValueHashMap<Long, PageCache> softCache;
 
+   /**
+    * The loaded indexes of completed pages, so single messages are read without reloading the
+    * index file of their page
+    */
+   private final SoftValueHashMap<Long, PageIndex> indexCache = new SoftValueHashMap<Long, PageIndex>(MAX_INDEX_CACHE_SIZE);
+
    private final ConcurrentMap<Long, PageSubscription> activeCursors = new ConcurrentHashMap<Long, PageSubscription>();
 
    // Static --------------------------------------------------------
@@ -113,7 +130,25 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    public PagedMessage getMessage(final PagePosition pos) throws Exception
    {
-      PageCache cache = getPageCache(pos.getPageNr());
+      PageCache cache;
+
+      synchronized (softCache)
+      {
+         cache = softCache.get(pos.getPageNr());
+      }
+
+      if (cache == null)
+      {
+         // Read just this message instead of loading the whole page in the cache
+         PagedMessage msg = readIndexedMessage(pos);
+
+         if (msg != null)
+         {
+            return msg;
+         }
+      }
+
+      cache = getPageCache(pos.getPageNr());
 
       if (cache == null || pos.getMessageNr() >= cache.getNumberOfMessages())
       {
@@ -205,6 +240,81 @@ public class PageCursorProviderImpl implements PageCursorProvider
       }
    }
 
+   /**
+    * @return {@code null} if the message isn't covered by the index of a completed page, or if the
+    *         page has been read through its index often enough to be worth loading in the cache
+    */
+   private PagedMessage readIndexedMessage(final PagePosition pos) throws Exception
+   {
+      if (pos.getPageNr() >= pagingStore.getCurrentWritingPage() ||
+          !pagingStore.checkPageFileExists((int)pos.getPageNr()))
+      {
+         return null;
+      }
+
+      Long pageId = pos.getPageNr();
+      PageIndex index;
+
+      synchronized (indexCache)
+      {
+         index = indexCache.get(pageId);
+
+         if (index != null && ++index.reads > MAX_INDEXED_READS)
+         {
+            return null;
+         }
+      }
+
+      Page page = pagingStore.createPage(pageId.intValue());
+      PagedMessage msg;
+
+      if (index != null)
+      {
+         page.setIndex(index.offsets);
+      }
+
+      storageManager.beforePageRead();
+      try
+      {
+         page.open();
+         msg = page.readMessage(storageManager, pos.getMessageNr());
+
+         int[] offsets = page.getIndex();
+
+         synchronized (indexCache)
+         {
+            if (offsets == null)
+            {
+               // the page has no index, or it didn't match the page
+               indexCache.remove(pageId);
+            }
+            else if (index == null)
+            {
+               indexCache.put(pageId, new PageIndex(offsets));
+            }
+         }
+      }
+      finally
+      {
+         try
+         {
+            page.close();
+         }
+         catch (Throwable ignored)
+         {
+         }
+         storageManager.afterPageRead();
+      }
+
+      // Paged large messages are released along with the cached page, so they have to come from the cache
+      if (msg != null && msg.getMessage().isLargeMessage())
+      {
+         return null;
+      }
+
+      return msg;
+   }
+
    public void addPageCache(PageCache cache)
    {
       synchronized (softCache)
@@ -542,6 +652,11 @@ public class PageCursorProviderImpl implements PageCursorProvider
             {
                softCache.remove((long)depagedPage.getPageId());
             }
+
+            synchronized (indexCache)
+            {
+               indexCache.remove((long)depagedPage.getPageId());
+            }
          }
       }
       catch (Exception ex)
@@ -654,4 +769,21 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    // Inner classes -------------------------------------------------
 
+   private static final class PageIndex implements SoftValueHashMap.ValueCache
+   {
+      final int[] offsets;
+
+      /** guarded by the index cache */
+      int reads = 1;
+
+      PageIndex(final int[] offsets)
+      {
+         this.offsets = offsets;
+      }
+
+      public boolean isLive()
+      {
+         return false;
+      }
+   }
 }
@@ -15,6 +15,7 @@ package org.hornetq.core.paging.impl;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -48,6 +49,14 @@ public final class Page implements Comparable<Page>
 
    private static final byte END_BYTE = (byte)'}';
 
+   /**
+    * Suffix of the file holding the offset of each message of the page, written when the page is
+    * closed after being written.
+    */
+   public static final String INDEX_SUFFIX = ".index";
+
+   private static final int READ_BUFFER_SIZE = 64 * 1024;
+
    // Attributes ----------------------------------------------------
 
    private final int pageId;
@@ -71,6 +80,23 @@ public final class Page implements Comparable<Page>
 
    private final SimpleString storeName;
 
+   /**
+    * The file offset of each message, by message number
+    */
+   private int[] offsets = new int[0];
+
+   private int indexedMessages;
+
+   /**
+    * Whether {@link #offsets} holds every message of the file, so writes may keep on adding to it
+    */
+   private boolean indexComplete;
+
+   /**
+    * Whether messages were written since the index file was written
+    */
+   private boolean indexDirty;
+
    public Page(final SimpleString storeName,
                    final StorageManager storageManager,
                    final SequentialFileFactory factory,
@@ -109,74 +135,223 @@ public final class Page implements Comparable<Page>
       ArrayList<PagedMessage> messages = new ArrayList<PagedMessage>();
 
       size.set((int)file.size());
-      // Using direct buffer, as described on https://jira.jboss.org/browse/HORNETQ-467
-      ByteBuffer directBuffer = storage.allocateDirectBuffer((int)file.size());
 
-      try
+      // the scan rebuilds the offsets, so new writes can keep the index complete. The offsets may
+      // have been handed in by setIndex and be shared, they are replaced rather than written to
+      offsets = new int[offsets.length];
+      indexedMessages = 0;
+
+      long invalidPosition = readRecords(storage, 0, 0, 0, Integer.MAX_VALUE, messages, true);
+
+      indexComplete = invalidPosition < 0;
+
+      if (!indexComplete)
       {
+         markFileAsSuspect(file.getFileName(), (int)invalidPosition, messages.size());
+      }
 
-         file.position(0);
-         file.read(directBuffer);
+      // Writes will be appended after what was read
+      file.position(file.size());
 
-         directBuffer.rewind();
+      numberOfMessages.set(messages.size());
 
-         HornetQBuffer fileBuffer = HornetQBuffers.wrappedBuffer(directBuffer);
-         fileBuffer.writerIndex(fileBuffer.capacity());
+      return messages;
+   }
 
-         while (fileBuffer.readable())
+   /**
+    * Reads at most {@code maxMessages} messages starting at message number {@code firstMessage}. The
+    * page's index is used to go straight to the first message, otherwise the records before it are
+    * skipped without being decoded.
+    */
+   public synchronized List<PagedMessage> read(StorageManager storage, int firstMessage, int maxMessages) throws Exception
+   {
+      if (!file.isOpen())
+      {
+         throw HornetQMessageBundle.BUNDLE.invalidPageIO();
+      }
+
+      ArrayList<PagedMessage> messages = new ArrayList<PagedMessage>();
+
+      if (loadIndex() > firstMessage)
+      {
+         long invalidPosition = readRecords(storage,
+                                            offsets[firstMessage],
+                                            firstMessage,
+                                            firstMessage,
+                                            maxMessages,
+                                            messages,
+                                            false);
+
+         if (invalidPosition < 0)
+         {
+            return messages;
+         }
+
+         if (!messages.isEmpty())
          {
-            final int position = fileBuffer.readerIndex();
+            markFileAsSuspect(file.getFileName(), (int)invalidPosition, firstMessage + messages.size());
+            return messages;
+         }
+
+         // The index doesn't match the page, don't trust it any longer
+         HornetQServerLogger.LOGGER.debug("Ignoring the index of page " + pageId + " on address = " + storeName);
+         indexedMessages = 0;
+      }
+
+      long invalidPosition = readRecords(storage, 0, 0, firstMessage, maxMessages, messages, false);
+
+      if (invalidPosition >= 0)
+      {
+         markFileAsSuspect(file.getFileName(), (int)invalidPosition, firstMessage + messages.size());
+      }
+
+      return messages;
+   }
+
+   /**
+    * Reads a single message through the page's index.
+    * @return {@code null} if the page has no index covering the message
+    */
+   public synchronized PagedMessage readMessage(StorageManager storage, int messageNumber) throws Exception
+   {
+      if (loadIndex() <= messageNumber)
+      {
+         return null;
+      }
 
-            byte byteRead = fileBuffer.readByte();
+      List<PagedMessage> messages = read(storage, messageNumber, 1);
 
-            if (byteRead == Page.START_BYTE)
+      return messages.isEmpty() ? null : messages.get(0);
+   }
+
+   /**
+    * Reads the single message whose record starts at {@code position}, for callers keeping the
+    * offsets of their messages themselves.
+    * @return {@code null} if there is no valid record at that position
+    */
+   public synchronized PagedMessage readMessageAt(StorageManager storage, int position) throws Exception
+   {
+      if (!file.isOpen())
+      {
+         throw HornetQMessageBundle.BUNDLE.invalidPageIO();
+      }
+
+      ArrayList<PagedMessage> messages = new ArrayList<PagedMessage>(1);
+
+      readRecords(storage, position, 0, 0, 1, messages, false);
+
+      return messages.isEmpty() ? null : messages.get(0);
+   }
+
+   /**
+    * @return the file offset of each message known to the index, or {@code null} if the page has
+    *         no index
+    */
+   public synchronized int[] getIndex()
+   {
+      return indexedMessages > 0 ? Arrays.copyOf(offsets, indexedMessages) : null;
+   }
+
+   /**
+    * Uses the offsets of an index loaded earlier, instead of reading the index file again.
+    */
+   public synchronized void setIndex(final int[] index)
+   {
+      offsets = index;
+      indexedMessages = index.length;
+   }
+
+   /**
+    * Decodes the records of the file starting at {@code position}, which holds message number
+    * {@code number}.
+    * @param indexRecords whether the offsets of the records should be added to the index
+    * @return the position of the first invalid record, or -1 if the end of the file was reached
+    *         or {@code maxMessages} were read
+    */
+   private long readRecords(final StorageManager storage,
+                            long position,
+                            int number,
+                            final int firstMessage,
+                            final int maxMessages,
+                            final List<PagedMessage> messages,
+                            final boolean indexRecords) throws Exception
+   {
+      final long fileSize = file.size();
+
+      FileWindow window = new FileWindow(storage, fileSize);
+
+      try
+      {
+         while (position < fileSize && messages.size() < maxMessages)
+         {
+            if (position + DataConstants.SIZE_BYTE + DataConstants.SIZE_INT >= fileSize)
             {
-               if (fileBuffer.readerIndex() + DataConstants.SIZE_INT < fileBuffer.capacity())
-               {
-                  int messageSize = fileBuffer.readInt();
-                  int oldPos = fileBuffer.readerIndex();
-                  if (fileBuffer.readerIndex() + messageSize < fileBuffer.capacity() &&
-                           fileBuffer.getByte(oldPos + messageSize) == Page.END_BYTE)
-                  {
-                     PagedMessage msg = new PagedMessageImpl();
-                     msg.decode(fileBuffer);
-                     byte b = fileBuffer.readByte();
-                     if (b != Page.END_BYTE)
-                     {
-                        // Sanity Check: This would only happen if there is a bug on decode or any internal code, as
-                        // this
-                        // constraint was already checked
-                        throw new IllegalStateException("Internal error, it wasn't possible to locate END_BYTE " + b);
-                     }
-                     msg.initMessage(storage);
-                     if (isTrace)
-                     {
-                        HornetQServerLogger.LOGGER.trace("Reading message " + msg + " on pageId=" + this.pageId + " for address=" + storeName);
-                     }
-                     messages.add(msg);
-                  }
-                  else
-                  {
-                     markFileAsSuspect(file.getFileName(), position, messages.size());
-                     break;
-                  }
-               }
+               return position;
+            }
+
+            HornetQBuffer fileBuffer = window.read(position, SIZE_RECORD);
+            int index = window.indexOf(position);
+
+            if (fileBuffer.getByte(index) != Page.START_BYTE)
+            {
+               return position;
+            }
+
+            int messageSize = fileBuffer.getInt(index + DataConstants.SIZE_BYTE);
+            int recordSize = SIZE_RECORD + messageSize;
+
+            if (messageSize < 0 || position + recordSize > fileSize)
+            {
+               return position;
+            }
+
+            fileBuffer = window.read(position, recordSize);
+            index = window.indexOf(position);
+            int endIndex = index + recordSize - DataConstants.SIZE_BYTE;
+
+            if (fileBuffer.getByte(endIndex) != Page.END_BYTE)
+            {
+               return position;
             }
-            else
+
+            if (indexRecords)
             {
-               markFileAsSuspect(file.getFileName(), position, messages.size());
-               break;
+               addOffset((int)position);
+            }
+
+            if (number >= firstMessage)
+            {
+               fileBuffer.readerIndex(index + DataConstants.SIZE_BYTE + DataConstants.SIZE_INT);
+
+               PagedMessage msg = new PagedMessageImpl();
+               msg.decode(fileBuffer);
+
+               if (fileBuffer.readerIndex() != endIndex)
+               {
+                  // Sanity Check: This would only happen if there is a bug on decode or any internal code, as
+                  // this constraint was already checked
+                  throw new IllegalStateException("Internal error, it wasn't possible to locate END_BYTE " +
+                                                  fileBuffer.getByte(fileBuffer.readerIndex()));
+               }
+
+               msg.initMessage(storage);
+               if (isTrace)
+               {
+                  HornetQServerLogger.LOGGER.trace("Reading message " + msg + " on pageId=" + this.pageId + " for address=" + storeName);
+               }
+               messages.add(msg);
             }
+
+            number++;
+            position += recordSize;
          }
+
+         return -1;
       }
       finally
       {
-         storage.freeDirectBuffer(directBuffer);
+         window.free();
       }
-
-      numberOfMessages.set(messages.size());
-
-      return messages;
    }
 
    public synchronized void write(final PagedMessage message) throws Exception
@@ -202,8 +377,24 @@ public final class Page implements Comparable<Page>
 
       buffer.rewind();
 
+      int position = size.get();
+
+      if (position == 0)
+      {
+         // a new page, any index left over by a page with the same id doesn't apply
+         indexedMessages = 0;
+         indexComplete = true;
+         deleteIndex();
+      }
+
       file.writeDirect(buffer, false);
 
+      if (indexComplete)
+      {
+         addOffset(position);
+         indexDirty = true;
+      }
+
       if (pageCache != null)
       {
          pageCache.addLiveMessage(message);
@@ -242,6 +433,10 @@ public final class Page implements Comparable<Page>
          // leave it to the soft cache to decide when to release it now
          pageCache = null;
       }
+      if (indexDirty && indexComplete)
+      {
+         writeIndex();
+      }
       file.close();
    }
 
@@ -280,6 +475,8 @@ public final class Page implements Comparable<Page>
 
       try
       {
+         deleteIndex();
+
          if (suspiciousRecords)
          {
             HornetQServerLogger.LOGGER.pageInvalid(file.getFileName(), file.getFileName());
@@ -361,6 +558,121 @@ public final class Page implements Comparable<Page>
       return true;
    }
 
+   private void addOffset(final int position)
+   {
+      if (indexedMessages == offsets.length)
+      {
+         offsets = Arrays.copyOf(offsets, Math.max(16, offsets.length * 2));
+      }
+      offsets[indexedMessages++] = position;
+   }
+
+   private SequentialFile createIndexFile()
+   {
+      return fileFactory.createSequentialFile(file.getFileName() + INDEX_SUFFIX, 1);
+   }
+
+   /**
+    * Loads the index file, unless the offsets are already known.
+    * @return the number of messages with a known offset
+    */
+   private int loadIndex() throws Exception
+   {
+      if (indexedMessages > 0)
+      {
+         return indexedMessages;
+      }
+
+      SequentialFile indexFile = createIndexFile();
+
+      if (!indexFile.exists())
+      {
+         return 0;
+      }
+
+      indexFile.open();
+
+      try
+      {
+         int entries = (int)(indexFile.size() / DataConstants.SIZE_INT);
+
+         ByteBuffer buffer = ByteBuffer.allocate(entries * DataConstants.SIZE_INT);
+         indexFile.position(0);
+         indexFile.read(buffer);
+         buffer.rewind();
+
+         long fileSize = file.size();
+         int[] loaded = new int[entries];
+
+         for (int i = 0; i < entries; i++)
+         {
+            loaded[i] = buffer.getInt();
+
+            // an index from a different file, leave it to the sequential reads
+            if (loaded[i] < 0 || loaded[i] >= fileSize || i > 0 && loaded[i] <= loaded[i - 1])
+            {
+               HornetQServerLogger.LOGGER.debug("Ignoring the index of page " + pageId + " on address = " + storeName);
+               return 0;
+            }
+         }
+
+         offsets = loaded;
+         indexedMessages = entries;
+         return entries;
+      }
+      finally
+      {
+         indexFile.close();
+      }
+   }
+
+   private void writeIndex()
+   {
+      try
+      {
+         SequentialFile indexFile = createIndexFile();
+
+         if (indexFile.exists())
+         {
+            indexFile.delete();
+         }
+
+         ByteBuffer buffer = fileFactory.newBuffer(indexedMessages * DataConstants.SIZE_INT);
+         for (int i = 0; i < indexedMessages; i++)
+         {
+            buffer.putInt(offsets[i]);
+         }
+         buffer.rewind();
+
+         indexFile.open();
+         try
+         {
+            indexFile.writeDirect(buffer, false);
+         }
+         finally
+         {
+            indexFile.close();
+         }
+
+         indexDirty = false;
+      }
+      catch (Exception e)
+      {
+         // Reads will just scan the page
+         HornetQServerLogger.LOGGER.debug("Couldn't write the index of page " + pageId + " on address = " + storeName, e);
+      }
+   }
+
+   private void deleteIndex() throws Exception
+   {
+      SequentialFile indexFile = createIndexFile();
+
+      if (indexFile.exists())
+      {
+         indexFile.delete();
+      }
+   }
+
    /**
     * @param position
     * @param msgNumber
@@ -375,4 +687,77 @@ public final class Page implements Comparable<Page>
    {
       return file;
    }
+
+   /**
+    * A window over the page file, read through a buffer of {@link #READ_BUFFER_SIZE} bytes or of the
+    * size of the largest record, instead of a buffer as large as the whole file.
+    */
+   private final class FileWindow
+   {
+      private final StorageManager storage;
+
+      private final long fileSize;
+
+      private ByteBuffer directBuffer;
+
+      private HornetQBuffer buffer;
+
+      private long start;
+
+      FileWindow(final StorageManager storage, final long fileSize)
+      {
+         this.storage = storage;
+         this.fileSize = fileSize;
+      }
+
+      /**
+       * @return a buffer holding the {@code length} bytes at {@code position}, starting at
+       *         {@link #indexOf(long)}
+       */
+      HornetQBuffer read(final long position, final int length) throws Exception
+      {
+         if (buffer != null && position >= start && position + length <= start + buffer.capacity())
+         {
+            return buffer;
+         }
+
+         int toRead = (int)Math.min(Math.max(length, READ_BUFFER_SIZE), fileSize - position);
+
+         if (directBuffer == null || directBuffer.capacity() < toRead)
+         {
+            free();
+            // Using direct buffer, as described on https://jira.jboss.org/browse/HORNETQ-467
+            directBuffer = storage.allocateDirectBuffer(toRead);
+         }
+
+         directBuffer.clear();
+         directBuffer.limit(toRead);
+
+         file.position(position);
+         file.read(directBuffer);
+
+         directBuffer.rewind();
+
+         buffer = HornetQBuffers.wrappedBuffer(directBuffer);
+         buffer.writerIndex(buffer.capacity());
+         start = position;
+
+         return buffer;
+      }
+
+      int indexOf(final long position)
+      {
+         return (int)(position - start);
+      }
+
+      void free()
+      {
+         if (directBuffer != null)
+         {
+            storage.freeDirectBuffer(directBuffer);
+            directBuffer = null;
+            buffer = null;
+         }
+      }
+   }
 }
@@ -28,6 +28,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.journal.IOCriticalErrorListener;
 import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.MappedSequentialFileFactory;
 import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
 import org.hornetq.core.paging.PagingManager;
 import org.hornetq.core.paging.PagingStore;
@@ -70,12 +71,33 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory
 
    private final IOCriticalErrorListener critialErrorListener;
 
+   /** page files are written through memory mapped files instead of FileChannel writes */
+   private final boolean mappedFiles;
+
    public PagingStoreFactoryNIO(final StorageManager storageManager, final String directory,
                                 final long syncTimeout,
                                 final ScheduledExecutorService scheduledExecutor,
                                 final ExecutorFactory executorFactory,
                                 final boolean syncNonTransactional,
                                 final IOCriticalErrorListener critialErrorListener)
+   {
+      this(storageManager,
+           directory,
+           syncTimeout,
+           scheduledExecutor,
+           executorFactory,
+           syncNonTransactional,
+           critialErrorListener,
+           false);
+   }
+
+   public PagingStoreFactoryNIO(final StorageManager storageManager, final String directory,
+                                final long syncTimeout,
+                                final ScheduledExecutorService scheduledExecutor,
+                                final ExecutorFactory executorFactory,
+                                final boolean syncNonTransactional,
+                                final IOCriticalErrorListener critialErrorListener,
+                                final boolean mappedFiles)
    {
       this.storageManager = storageManager;
       this.directory = directory;
@@ -84,6 +106,7 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory
       this.scheduledExecutor = scheduledExecutor;
       this.syncTimeout = syncTimeout;
       this.critialErrorListener = critialErrorListener;
+      this.mappedFiles = mappedFiles;
    }
 
    // Public --------------------------------------------------------
@@ -161,6 +184,12 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory
 
             final String guid = file.getName();
 
+            if (ScheduledSpillStore.DIRECTORY.equals(guid))
+            {
+               // not an address, the scheduled spill store starts over on its own
+               continue;
+            }
+
             final File addressFile = new File(file, PagingStoreFactoryNIO.ADDRESS_FILE);
 
             if (!addressFile.exists())
@@ -209,6 +238,12 @@ public class PagingStoreFactoryNIO implements PagingStoreFactory
 
    private SequentialFileFactory newFileFactory(final String directoryName)
    {
+      if (mappedFiles)
+      {
+         return new MappedSequentialFileFactory(directory + File.separatorChar + directoryName,
+                                                false,
+                                                critialErrorListener);
+      }
       return new NIOSequentialFileFactory(directory + File.separatorChar + directoryName, false, critialErrorListener);
    }
 }
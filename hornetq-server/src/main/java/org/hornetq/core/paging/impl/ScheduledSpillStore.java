@@ -0,0 +1,517 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.paging.impl;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.journal.SequentialFile;
+import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.paging.PagingStore;
+import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
+import org.hornetq.core.server.HornetQComponent;
+import org.hornetq.core.server.HornetQServerLogger;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.Queue;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.MessageReferenceImpl;
+import org.hornetq.core.transaction.Transaction;
+
+/**
+ * Keeps the messages of scheduled references due far in the future in page files, so only a small
+ * {@link SpilledReference} per message stays in memory until the reference is due.
+ * <p>
+ * The files are a copy of what is in memory, not storage: durable messages stay in the journal,
+ * which reloads them on restart, so the files are removed when the store starts and stops. Each
+ * spilled reference keeps the offset of its record, so its message is read back on its own without
+ * going through the rest of the page.
+ */
+public class ScheduledSpillStore implements HornetQComponent
+{
+   private static final boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
+
+   /**
+    * The directory under the paging directory holding the files of the store
+    */
+   public static final String DIRECTORY = "scheduled-spill";
+
+   private static final SimpleString STORE_NAME = new SimpleString(DIRECTORY);
+
+   private static final int PAGE_SIZE = 10 * 1024 * 1024;
+
+   private final File directory;
+
+   private final long spillDelay;
+
+   // the pages are not replicated nor part of any paging store
+   private final StorageManager nullStorageManager = new NullStorageManager();
+
+   private SequentialFileFactory fileFactory;
+
+   private volatile boolean started;
+
+   private Page currentPage;
+
+   private int currentPageId;
+
+   /**
+    * The page last read from, kept open as the references due together were mostly spilled together
+    */
+   private Page readPage;
+
+   /**
+    * The number of spilled references of each page
+    */
+   private final Map<Integer, SpilledPage> pages = new HashMap<Integer, SpilledPage>();
+
+   /**
+    * @param spillDelay references due later than this many milliseconds from now are spilled
+    */
+   public ScheduledSpillStore(final File directory, final long spillDelay)
+   {
+      this.directory = directory;
+
+      this.spillDelay = spillDelay;
+   }
+
+   public synchronized void start() throws Exception
+   {
+      if (started)
+      {
+         return;
+      }
+
+      deleteFiles();
+
+      directory.mkdirs();
+
+      fileFactory = new NIOSequentialFileFactory(directory.getAbsolutePath());
+
+      openNewPage();
+
+      started = true;
+   }
+
+   public synchronized void stop() throws Exception
+   {
+      if (!started)
+      {
+         return;
+      }
+
+      started = false;
+
+      closeReadPage();
+
+      if (currentPage != null)
+      {
+         currentPage.close();
+
+         currentPage = null;
+      }
+
+      pages.clear();
+
+      deleteFiles();
+   }
+
+   public synchronized boolean isStarted()
+   {
+      return started;
+   }
+
+   /**
+    * Only references owning their message are spilled: a message shared by other queues, or part
+    * of a last-value queue, has to stay the same object.
+    */
+   public boolean isSpillable(final MessageReference ref)
+   {
+      if (!started ||
+          ref.getClass() != MessageReferenceImpl.class ||
+          ref.getScheduledDeliveryTime() - System.currentTimeMillis() <= spillDelay)
+      {
+         return false;
+      }
+
+      ServerMessage message = ref.getMessage();
+
+      return !message.isLargeMessage() && message.getRefCount() == 1;
+   }
+
+   /**
+    * Writes the message of the reference to the current page and releases it from memory.
+    */
+   public synchronized SpilledReference spill(final MessageReference ref) throws Exception
+   {
+      if (!started)
+      {
+         throw new IllegalStateException("The scheduled spill store is stopped");
+      }
+
+      ServerMessage message = ref.getMessage();
+
+      if (currentPage.getSize() >= PAGE_SIZE)
+      {
+         closeCurrentPage();
+
+         openNewPage();
+      }
+
+      int position = currentPage.getSize();
+
+      currentPage.write(new PagedMessageImpl(message, new long[] { ref.getQueue().getID() }));
+
+      pages.get(currentPageId).references++;
+
+      SpilledReference spilled = new SpilledReference(ref, currentPageId, position);
+
+      // the address doesn't hold the message in memory any longer
+      message.decrementRefCount();
+
+      if (isTrace)
+      {
+         HornetQServerLogger.LOGGER.trace("Spilled " + ref + " to page " + currentPageId);
+      }
+
+      return spilled;
+   }
+
+   /**
+    * Reads the message of a spilled reference back and makes a reference of it again, the spilled
+    * reference must not be used any longer.
+    */
+   public synchronized MessageReference restore(final SpilledReference spilled) throws Exception
+   {
+      ServerMessage message;
+
+      try
+      {
+         message = read(spilled);
+      }
+      finally
+      {
+         release(spilled.pageId);
+      }
+
+      if (spilled.pagingStore != null)
+      {
+         message.setPagingStore(spilled.pagingStore);
+      }
+
+      MessageReference ref = message.createReference(spilled.queue);
+
+      ref.setDeliveryCount(spilled.getDeliveryCount());
+      ref.setPersistedCount(spilled.getPersistedCount());
+      ref.setScheduledDeliveryTime(spilled.getScheduledDeliveryTime());
+
+      message.incrementRefCount();
+
+      if (spilled.durable)
+      {
+         message.incrementDurableRefCount();
+      }
+
+      return ref;
+   }
+
+   // For testing only
+   public synchronized int getNumberOfPages()
+   {
+      return pages.size();
+   }
+
+   private synchronized ServerMessage read(final SpilledReference spilled) throws Exception
+   {
+      if (!pages.containsKey(spilled.pageId))
+      {
+         throw new IllegalStateException("Page " + spilled.pageId + " of " + spilled + " was already removed");
+      }
+
+      if (readPage != null && readPage.getPageId() != spilled.pageId)
+      {
+         closeReadPage();
+      }
+
+      if (readPage == null)
+      {
+         // the current page too is read through a file of its own, reads would move its position
+         readPage = new Page(STORE_NAME, nullStorageManager, fileFactory, createFile(spilled.pageId), spilled.pageId);
+
+         readPage.open();
+      }
+
+      PagedMessage pagedMessage = readPage.readMessageAt(nullStorageManager, spilled.position);
+
+      if (pagedMessage == null)
+      {
+         throw new IllegalStateException("Could not read " + spilled + " from page " + spilled.pageId);
+      }
+
+      return pagedMessage.getMessage();
+   }
+
+   private void release(final int pageId) throws Exception
+   {
+      SpilledPage spilledPage = pages.get(pageId);
+
+      if (spilledPage == null || --spilledPage.references > 0)
+      {
+         return;
+      }
+
+      if (readPage != null && readPage.getPageId() == pageId)
+      {
+         closeReadPage();
+      }
+
+      if (pageId == currentPageId)
+      {
+         // start over instead of keeping a page with nothing left in it
+         currentPage.close();
+         currentPage.delete(null);
+         pages.remove(pageId);
+         openNewPage();
+      }
+      else
+      {
+         Page page = new Page(STORE_NAME, nullStorageManager, fileFactory, createFile(pageId), pageId);
+         page.delete(null);
+         pages.remove(pageId);
+      }
+   }
+
+   private void closeCurrentPage() throws Exception
+   {
+      currentPage.close();
+
+      if (pages.get(currentPageId).references == 0)
+      {
+         currentPage.delete(null);
+         pages.remove(currentPageId);
+      }
+   }
+
+   private void openNewPage() throws Exception
+   {
+      currentPageId++;
+
+      currentPage = new Page(STORE_NAME, nullStorageManager, fileFactory, createFile(currentPageId), currentPageId);
+
+      currentPage.open();
+
+      pages.put(currentPageId, new SpilledPage());
+   }
+
+   private void closeReadPage() throws Exception
+   {
+      if (readPage != null)
+      {
+         readPage.close();
+
+         readPage = null;
+      }
+   }
+
+   private SequentialFile createFile(final int pageId)
+   {
+      return fileFactory.createSequentialFile(new DecimalFormat("000000000").format(pageId) + ".page", 1);
+   }
+
+   private void deleteFiles()
+   {
+      File[] files = directory.listFiles();
+
+      if (files != null)
+      {
+         for (File file : files)
+         {
+            file.delete();
+         }
+      }
+   }
+
+   private static final class SpilledPage
+   {
+      int references;
+   }
+
+   /**
+    * A scheduled reference whose message was spilled to a page. It only stays in the scheduled
+    * deliveries of its queue: it is restored into a {@link MessageReferenceImpl} as soon as it
+    * leaves them, so it can't be delivered nor acknowledged.
+    */
+   public final class SpilledReference implements MessageReference
+   {
+      private final Queue queue;
+
+      private final long messageID;
+
+      private final int memoryEstimate;
+
+      private final boolean durable;
+
+      private final PagingStore pagingStore;
+
+      private final int pageId;
+
+      private final int position;
+
+      private volatile long scheduledDeliveryTime;
+
+      private volatile int deliveryCount;
+
+      private volatile int persistedCount;
+
+      private WeakReference<ServerMessage> message;
+
+      SpilledReference(final MessageReference ref, final int pageId, final int position)
+      {
+         ServerMessage spilledMessage = ref.getMessage();
+
+         queue = ref.getQueue();
+         messageID = spilledMessage.getMessageID();
+         memoryEstimate = ref.getMessageMemoryEstimate();
+         durable = spilledMessage.isDurable() && queue.isDurable();
+         pagingStore = spilledMessage.getPagingStore();
+         scheduledDeliveryTime = ref.getScheduledDeliveryTime();
+         deliveryCount = ref.getDeliveryCount();
+         persistedCount = ref.getPersistedCount();
+         this.pageId = pageId;
+         this.position = position;
+      }
+
+      public long getMessageID()
+      {
+         return messageID;
+      }
+
+      public boolean isPaged()
+      {
+         return false;
+      }
+
+      /**
+       * Reads the message from its page, it is only kept as long as the caller uses it.
+       */
+      public synchronized ServerMessage getMessage()
+      {
+         ServerMessage returnMessage = message != null ? message.get() : null;
+
+         if (returnMessage == null)
+         {
+            try
+            {
+               returnMessage = read(this);
+            }
+            catch (Exception e)
+            {
+               throw new IllegalStateException("Could not read the spilled message " + messageID, e);
+            }
+
+            message = new WeakReference<ServerMessage>(returnMessage);
+         }
+
+         return returnMessage;
+      }
+
+      public int getMessageMemoryEstimate()
+      {
+         return memoryEstimate;
+      }
+
+      public MessageReference copy(final Queue queue)
+      {
+         throw new IllegalStateException(this + " has to be restored first");
+      }
+
+      public long getScheduledDeliveryTime()
+      {
+         return scheduledDeliveryTime;
+      }
+
+      public void setScheduledDeliveryTime(final long scheduledDeliveryTime)
+      {
+         this.scheduledDeliveryTime = scheduledDeliveryTime;
+      }
+
+      public int getDeliveryCount()
+      {
+         return deliveryCount;
+      }
+
+      public void setDeliveryCount(final int deliveryCount)
+      {
+         this.deliveryCount = deliveryCount;
+      }
+
+      public void setPersistedCount(final int persistedCount)
+      {
+         this.persistedCount = persistedCount;
+      }
+
+      public int getPersistedCount()
+      {
+         return persistedCount;
+      }
+
+      public void incrementDeliveryCount()
+      {
+         deliveryCount++;
+      }
+
+      public void decrementDeliveryCount()
+      {
+         deliveryCount--;
+      }
+
+      public Queue getQueue()
+      {
+         return queue;
+      }
+
+      public void acknowledge() throws Exception
+      {
+         throw new IllegalStateException(this + " has to be restored first");
+      }
+
+      public void acknowledge(final Transaction tx) throws Exception
+      {
+         throw new IllegalStateException(this + " has to be restored first");
+      }
+
+      public void handled()
+      {
+         throw new IllegalStateException(this + " has to be restored first");
+      }
+
+      @Override
+      public String toString()
+      {
+         return "SpilledReference[messageID=" + messageID +
+                ", queue=" +
+                queue.getName() +
+                ", page=" +
+                pageId +
+                ", scheduledDeliveryTime=" +
+                scheduledDeliveryTime +
+                "]";
+      }
+   }
+}
@@ -12,11 +12,12 @@
  */
 package org.hornetq.core.postoffice.impl;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Set;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.postoffice.Address;
+import org.hornetq.utils.ConcurrentHashSet;
 
 /**
  * splits an address string into its hierarchical parts split by '.'
@@ -31,7 +32,7 @@ public class AddressImpl implements Address
 
    private final boolean containsWildCard;
 
-   private final List<Address> linkedAddresses = new ArrayList<Address>();
+   private final Set<Address> linkedAddresses = new ConcurrentHashSet<Address>();
 
    public AddressImpl(final SimpleString address)
    {
@@ -55,17 +56,14 @@ public class AddressImpl implements Address
       return containsWildCard;
    }
 
-   public List<Address> getLinkedAddresses()
+   public Collection<Address> getLinkedAddresses()
    {
       return linkedAddresses;
    }
 
    public void addLinkedAddress(final Address address)
    {
-      if(!linkedAddresses.contains(address))
-      {
-         linkedAddresses.add(address);
-      }
+      linkedAddresses.add(address);
    }
 
    public void removeLinkedAddress(final Address actualAddress)
@@ -88,7 +86,7 @@ public class AddressImpl implements Address
          if (pos >= addressParts.length)
          {
             // test for # as last address part
-            return pos + 1 == add.getAddressParts().length && add.getAddressParts()[pos].equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING);
+            return matchPos + 1 == add.getAddressParts().length && add.getAddressParts()[matchPos].equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING);
          }
          SimpleString curr = addressParts[pos];
          SimpleString next = addressParts.length > pos + 1 ? addressParts[pos + 1] : null;
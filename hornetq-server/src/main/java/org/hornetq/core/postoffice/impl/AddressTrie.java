@@ -0,0 +1,260 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hornetq.api.core.SimpleString;
+
+/**
+ * A AddressTrie
+ * <p>
+ * Values keyed by the words of an address, one trie level per word. Wildcard addresses are stored
+ * like any other, under their {@code *} and {@code #} words.
+ * <p>
+ * Lookups don't lock and cost a walk down the address' words. Updates are serialized on the trie.
+ * <p>
+ * {@link #collectMatching(SimpleString[], boolean, Set)} finds the values whose address may
+ * match a given address, treating {@code *} as exactly one word and {@code #} as any number of
+ * words. Callers confirm the candidates with {@link AddressImpl#matches}, which is stricter in a
+ * few corner cases.
+ */
+final class AddressTrie<T>
+{
+   private final Node<T> root = new Node<T>();
+
+   T get(final SimpleString[] words)
+   {
+      Node<T> node = root;
+
+      for (SimpleString word : words)
+      {
+         node = node.children.get(word);
+
+         if (node == null)
+         {
+            return null;
+         }
+      }
+
+      return node.value;
+   }
+
+   /**
+    * @return the value already stored for the address, or {@code null} if {@code value} was stored
+    */
+   synchronized T putIfAbsent(final SimpleString[] words, final T value)
+   {
+      Node<T> node = root;
+
+      for (SimpleString word : words)
+      {
+         Node<T> child = node.children.get(word);
+
+         if (child == null)
+         {
+            child = new Node<T>();
+            node.children.put(word, child);
+         }
+
+         node = child;
+      }
+
+      if (node.value != null)
+      {
+         return node.value;
+      }
+
+      node.value = value;
+
+      return null;
+   }
+
+   synchronized T remove(final SimpleString[] words)
+   {
+      return remove(root, words, 0);
+   }
+
+   synchronized void clear()
+   {
+      root.children.clear();
+      root.value = null;
+   }
+
+   /**
+    * Collects the value stored for the address itself and:
+    * <ul>
+    * <li>if the address doesn't contain wildcards, the values of the wildcard addresses matching it
+    * <li>if the address contains wildcards, the values of the addresses without wildcards it matches
+    * </ul>
+    */
+   void collectMatching(final SimpleString[] words, final boolean wildcard, final Set<T> matches)
+   {
+      if (wildcard)
+      {
+         T value = get(words);
+
+         if (value != null)
+         {
+            matches.add(value);
+         }
+
+         collectMatchedBy(root, words, 0, matches);
+      }
+      else
+      {
+         collectMatching(root, words, 0, matches);
+      }
+   }
+
+   private T remove(final Node<T> node, final SimpleString[] words, final int index)
+   {
+      if (index == words.length)
+      {
+         T value = node.value;
+         node.value = null;
+         return value;
+      }
+
+      Node<T> child = node.children.get(words[index]);
+
+      if (child == null)
+      {
+         return null;
+      }
+
+      T value = remove(child, words, index + 1);
+
+      // prune the branches that don't lead anywhere anymore
+      if (child.value == null && child.children.isEmpty())
+      {
+         node.children.remove(words[index]);
+      }
+
+      return value;
+   }
+
+   /**
+    * The stored wildcard addresses matching a plain address
+    */
+   private static <T> void collectMatching(final Node<T> node,
+                                           final SimpleString[] words,
+                                           final int index,
+                                           final Set<T> matches)
+   {
+      // # matches any number of words, including none
+      Node<T> anyWords = node.children.get(WildcardAddressManager.ANY_WORDS_SIMPLESTRING);
+
+      if (anyWords != null)
+      {
+         for (int i = index; i <= words.length; i++)
+         {
+            collectMatching(anyWords, words, i, matches);
+         }
+      }
+
+      if (index == words.length)
+      {
+         if (node.value != null)
+         {
+            matches.add(node.value);
+         }
+         return;
+      }
+
+      Node<T> child = node.children.get(words[index]);
+
+      if (child != null)
+      {
+         collectMatching(child, words, index + 1, matches);
+      }
+
+      Node<T> singleWord = node.children.get(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING);
+
+      if (singleWord != null)
+      {
+         collectMatching(singleWord, words, index + 1, matches);
+      }
+   }
+
+   /**
+    * The stored plain addresses matched by a wildcard address
+    */
+   private static <T> void collectMatchedBy(final Node<T> node,
+                                            final SimpleString[] words,
+                                            final int index,
+                                            final Set<T> matches)
+   {
+      if (index == words.length)
+      {
+         if (node.value != null)
+         {
+            matches.add(node.value);
+         }
+         return;
+      }
+
+      SimpleString word = words[index];
+
+      if (word.equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING))
+      {
+         // none of the remaining words
+         collectMatchedBy(node, words, index + 1, matches);
+
+         // or one more, and maybe others
+         for (Map.Entry<SimpleString, Node<T>> entry : node.children.entrySet())
+         {
+            if (!isWildcard(entry.getKey()))
+            {
+               collectMatchedBy(entry.getValue(), words, index, matches);
+            }
+         }
+      }
+      else if (word.equals(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING))
+      {
+         for (Map.Entry<SimpleString, Node<T>> entry : node.children.entrySet())
+         {
+            if (!isWildcard(entry.getKey()))
+            {
+               collectMatchedBy(entry.getValue(), words, index + 1, matches);
+            }
+         }
+      }
+      else
+      {
+         Node<T> child = node.children.get(word);
+
+         if (child != null)
+         {
+            collectMatchedBy(child, words, index + 1, matches);
+         }
+      }
+   }
+
+   private static boolean isWildcard(final SimpleString word)
+   {
+      return word.equals(WildcardAddressManager.ANY_WORDS_SIMPLESTRING) ||
+             word.equals(WildcardAddressManager.SINGLE_WORD_SIMPLESTRING);
+   }
+
+   private static final class Node<T>
+   {
+      final ConcurrentMap<SimpleString, Node<T>> children = new ConcurrentHashMap<SimpleString, Node<T>>(4);
+
+      volatile T value;
+   }
+}
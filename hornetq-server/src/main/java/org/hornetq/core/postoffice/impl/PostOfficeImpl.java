@@ -114,6 +114,10 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    private final int idCacheSize;
 
+   private final long idCacheWindow;
+
+   private final int idCacheRate;
+
    private final boolean persistIDCache;
 
    private final Map<SimpleString, QueueInfo> queueInfos = new HashMap<SimpleString, QueueInfo>();
@@ -133,6 +137,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                          final int reaperPriority,
                          final boolean enableWildCardRouting,
                          final int idCacheSize,
+                         final long idCacheWindow,
+                         final int idCacheRate,
                          final boolean persistIDCache,
                          final HierarchicalRepository<AddressSettings> addressSettingsRepository)
 
@@ -160,6 +166,10 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
       this.idCacheSize = idCacheSize;
 
+      this.idCacheWindow = idCacheWindow;
+
+      this.idCacheRate = idCacheRate;
+
       this.persistIDCache = persistIDCache;
 
       this.addressSettingsRepository = addressSettingsRepository;
@@ -781,7 +791,19 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
       if (cache == null)
       {
-         cache = new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache);
+         if (idCacheWindow > 0)
+         {
+            cache = new TimeWindowDuplicateIDCache(address,
+                                                   idCacheWindow,
+                                                   idCacheRate,
+                                                   storageManager,
+                                                   persistIDCache,
+                                                   server.getExecutorFactory().getExecutor());
+         }
+         else
+         {
+            cache = new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache);
+         }
 
          DuplicateIDCache oldCache = duplicateIDCaches.putIfAbsent(address, cache);
 
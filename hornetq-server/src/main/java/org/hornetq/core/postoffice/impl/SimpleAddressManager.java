@@ -12,7 +12,9 @@
  */
 package org.hornetq.core.postoffice.impl;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -24,6 +26,7 @@ import org.hornetq.core.postoffice.Bindings;
 import org.hornetq.core.postoffice.BindingsFactory;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.HornetQMessageBundle;
+import org.hornetq.utils.ConcurrentHashSet;
 
 /**
  * A simple address manager that maintains the addresses and bindings.
@@ -44,6 +47,11 @@ public class SimpleAddressManager implements AddressManager
     */
    private final ConcurrentMap<SimpleString, Binding> nameMap = new ConcurrentHashMap<SimpleString, Binding>();
 
+   /**
+    * The bindings by their own address, for {@link #getMatchingBindings(SimpleString)}
+    */
+   private final AddressTrie<BoundAddress> boundAddresses = new AddressTrie<BoundAddress>();
+
    private final BindingsFactory bindingsFactory;
 
    public SimpleAddressManager(final BindingsFactory bindingsFactory)
@@ -63,6 +71,8 @@ public class SimpleAddressManager implements AddressManager
          HornetQServerLogger.LOGGER.debug("Adding binding " + binding + " with address = " + binding.getUniqueName(), new Exception ("trace"));
       }
 
+      addBoundAddress(binding);
+
       return addMappingInternal(binding.getAddress(), binding);
    }
 
@@ -77,6 +87,8 @@ public class SimpleAddressManager implements AddressManager
 
       removeBindingInternal(binding.getAddress(), uniqueName);
 
+      removeBoundAddress(binding);
+
       return binding;
    }
 
@@ -101,13 +113,18 @@ public class SimpleAddressManager implements AddressManager
 
       Bindings bindings = bindingsFactory.createBindings(address);
 
-      for (Binding binding : nameMap.values())
-      {
-         Address addCheck = new AddressImpl(binding.getAddress());
+      Set<BoundAddress> candidates = new HashSet<BoundAddress>();
+
+      boundAddresses.collectMatching(add.getAddressParts(), add.containsWildCard(), candidates);
 
-         if (addCheck.matches(add))
+      for (BoundAddress candidate : candidates)
+      {
+         if (candidate.address.matches(add))
          {
-            bindings.addBinding(binding);
+            for (Binding binding : candidate.bindings)
+            {
+               bindings.addBinding(binding);
+            }
          }
       }
 
@@ -118,6 +135,7 @@ public class SimpleAddressManager implements AddressManager
    {
       nameMap.clear();
       mappings.clear();
+      boundAddresses.clear();
    }
 
    protected void removeBindingInternal(final SimpleString address, final SimpleString bindableName)
@@ -181,4 +199,55 @@ public class SimpleAddressManager implements AddressManager
 
       return prevBindings != null;
    }
+
+   private void addBoundAddress(final Binding binding)
+   {
+      Address add = new AddressImpl(binding.getAddress());
+
+      synchronized (boundAddresses)
+      {
+         BoundAddress bound = boundAddresses.get(add.getAddressParts());
+
+         if (bound == null)
+         {
+            bound = new BoundAddress(add);
+
+            boundAddresses.putIfAbsent(add.getAddressParts(), bound);
+         }
+
+         bound.bindings.add(binding);
+      }
+   }
+
+   private void removeBoundAddress(final Binding binding)
+   {
+      Address add = new AddressImpl(binding.getAddress());
+
+      synchronized (boundAddresses)
+      {
+         BoundAddress bound = boundAddresses.get(add.getAddressParts());
+
+         if (bound != null)
+         {
+            bound.bindings.remove(binding);
+
+            if (bound.bindings.isEmpty())
+            {
+               boundAddresses.remove(add.getAddressParts());
+            }
+         }
+      }
+   }
+
+   private static final class BoundAddress
+   {
+      final Address address;
+
+      final Set<Binding> bindings = new ConcurrentHashSet<Binding>();
+
+      BoundAddress(final Address address)
+      {
+         this.address = address;
+      }
+   }
 }
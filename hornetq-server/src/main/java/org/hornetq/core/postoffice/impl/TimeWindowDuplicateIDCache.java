@@ -0,0 +1,768 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.hornetq.api.core.Pair;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
+import org.hornetq.core.server.HornetQServerLogger;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.TransactionOperationAbstract;
+
+/**
+ * A duplicate ID cache keeping every id for a window of time, whatever the number of ids.
+ * <p>
+ * The window is split in {@link #BUCKETS} buckets, each one an open addressing table of 128 bit
+ * hashes of the ids held in a direct buffer, so an id costs 24 bytes off the heap. An id is kept
+ * for the window and at most about one bucket more, the whole bucket is dropped at once and the
+ * journal records of its ids are deleted in a few transactions on the executor.
+ * <p>
+ * A bucket is allocated for the expected rate of ids, or else for as many ids as the previous
+ * one got. A bucket that cannot grow any further is closed early and the next one started.
+ */
+public class TimeWindowDuplicateIDCache implements DuplicateIDCache
+{
+   /** How many buckets the window is split in */
+   public static final int BUCKETS = 8;
+
+   /** How many journal records are deleted per transaction when a bucket expires */
+   private static final int DELETE_BATCH_SIZE = 1000;
+
+   private final SimpleString address;
+
+   private final long window;
+
+   private final long bucketMillis;
+
+   private final int expectedRate;
+
+   private final StorageManager storageManager;
+
+   private final boolean persist;
+
+   private final Executor executor;
+
+   private final Clock clock;
+
+   private final int maxTableCapacity;
+
+   // the live buckets, oldest first, the last one gets the new ids
+   private final ArrayDeque<IDTable> tables = new ArrayDeque<IDTable>();
+
+   /**
+    * @param expectedRate how many ids per second the address is expected to get, -1 if unknown
+    * @param executor where the journal records of the expired ids are deleted
+    */
+   public TimeWindowDuplicateIDCache(final SimpleString address,
+                                     final long window,
+                                     final int expectedRate,
+                                     final StorageManager storageManager,
+                                     final boolean persist,
+                                     final Executor executor)
+   {
+      this(address, window, expectedRate, storageManager, persist, executor, Clock.SYSTEM, IDTable.MAX_CAPACITY);
+   }
+
+   TimeWindowDuplicateIDCache(final SimpleString address,
+                              final long window,
+                              final int expectedRate,
+                              final StorageManager storageManager,
+                              final boolean persist,
+                              final Executor executor,
+                              final Clock clock,
+                              final int maxTableCapacity)
+   {
+      this.address = address;
+
+      this.window = window;
+
+      bucketMillis = Math.max(1, window / BUCKETS);
+
+      this.expectedRate = expectedRate;
+
+      this.storageManager = storageManager;
+
+      this.persist = persist;
+
+      this.executor = executor;
+
+      this.clock = clock;
+
+      this.maxTableCapacity = maxTableCapacity;
+   }
+
+   public synchronized boolean contains(final byte[] duplID)
+   {
+      advance(clock.currentTimeMillis());
+
+      long[] hash = hash(duplID);
+
+      for (IDTable table : tables)
+      {
+         if (table.get(hash[0], hash[1]) != IDTable.NOT_FOUND)
+         {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   public synchronized void addToCache(final byte[] duplID, final Transaction tx) throws Exception
+   {
+      long recordID = -1;
+
+      if (tx == null)
+      {
+         if (persist)
+         {
+            recordID = storageManager.generateUniqueID();
+            storageManager.storeDuplicateID(address, duplID, recordID);
+         }
+
+         addToCacheInMemory(duplID, recordID);
+      }
+      else
+      {
+         if (persist)
+         {
+            recordID = storageManager.generateUniqueID();
+            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+
+            tx.setContainsPersistent();
+         }
+
+         // For a tx, it's important that the entry is not added to the cache until commit
+         // since if the client fails then resends them tx we don't want it to get rejected
+         tx.addOperation(new AddDuplicateIDOperation(duplID, recordID));
+      }
+   }
+
+   public synchronized void deleteFromCache(final byte[] duplID) throws Exception
+   {
+      long[] hash = hash(duplID);
+
+      for (IDTable table : tables)
+      {
+         long recordID = table.remove(hash[0], hash[1]);
+
+         if (recordID >= 0)
+         {
+            storageManager.deleteDuplicateID(recordID);
+         }
+      }
+   }
+
+   /**
+    * The ids are loaded without the time they were added at, they start a whole window again.
+    */
+   public synchronized void load(final List<Pair<byte[], Long>> theIds) throws Exception
+   {
+      for (Pair<byte[], Long> id : theIds)
+      {
+         addToCacheInMemory(id.getA(), id.getB());
+      }
+   }
+
+   public void load(final Transaction tx, final byte[] duplID)
+   {
+      tx.addOperation(new AddDuplicateIDOperation(duplID, tx.getID()));
+   }
+
+   /**
+    * @return the number of live buckets, used on testing only
+    */
+   synchronized int getBucketCount()
+   {
+      return tables.size();
+   }
+
+   /**
+    * @return the capacity of the bucket getting the new ids, used on testing only
+    */
+   synchronized int getCurrentCapacity()
+   {
+      advance(clock.currentTimeMillis());
+
+      return tables.getLast().capacity();
+   }
+
+   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID)
+   {
+      long now = clock.currentTimeMillis();
+
+      advance(now);
+
+      IDTable table = tables.getLast();
+
+      if (table.isFull())
+      {
+         HornetQServerLogger.LOGGER.duplicateIDCacheBucketFull(address, table.size());
+
+         // the ids of the closed bucket expire a window from now, the new one ends with the tick
+         IDTable next = new IDTable(table.end, capacityAfter(table), maxTableCapacity);
+
+         table.end = now;
+
+         tables.addLast(next);
+
+         table = next;
+      }
+
+      long[] hash = hash(duplID);
+
+      long oldRecordID = table.put(hash[0], hash[1], recordID >= 0 ? recordID : -1);
+
+      if (oldRecordID >= 0)
+      {
+         // the id was added twice in this bucket, its first record is no longer needed
+         try
+         {
+            storageManager.deleteDuplicateID(oldRecordID);
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
+         }
+      }
+   }
+
+   /**
+    * Starts a new bucket once the current one is over, dropping the buckets whose ids are all
+    * older than the window. Their journal records are deleted on the executor, never on the thread
+    * routing a message.
+    */
+   private void advance(final long now)
+   {
+      IDTable current = tables.peekLast();
+
+      if (current != null && now < current.end)
+      {
+         return;
+      }
+
+      List<IDTable> expired = null;
+
+      while (!tables.isEmpty() && tables.getFirst().end + window <= now)
+      {
+         if (expired == null)
+         {
+            expired = new ArrayList<IDTable>();
+         }
+
+         expired.add(tables.removeFirst());
+      }
+
+      tables.addLast(new IDTable((now / bucketMillis + 1) * bucketMillis, capacityAfter(current), maxTableCapacity));
+
+      if (expired != null && persist)
+      {
+         deleteRecords(expired);
+      }
+   }
+
+   /**
+    * @return the capacity for the ids expected in a bucket, or else for those the previous one got
+    */
+   private int capacityAfter(final IDTable previous)
+   {
+      long expected = expectedRate > 0 ? expectedRate * bucketMillis / 1000 : previous != null ? previous.size() : 0;
+
+      return IDTable.capacityFor(expected, maxTableCapacity);
+   }
+
+   private void deleteRecords(final List<IDTable> expired)
+   {
+      executor.execute(new Runnable()
+      {
+         public void run()
+         {
+            // the commits must not complete on the context of whoever advanced the cache
+            storageManager.setContext(storageManager.newSingleThreadContext());
+
+            try
+            {
+               for (IDTable table : expired)
+               {
+                  deleteRecords(table);
+               }
+            }
+            finally
+            {
+               storageManager.clearContext();
+            }
+         }
+      });
+   }
+
+   private void deleteRecords(final IDTable table)
+   {
+      try
+      {
+         long txID = -1;
+
+         int deletes = 0;
+
+         for (int slot = 0; slot < table.capacity(); slot++)
+         {
+            long recordID = table.recordIDAt(slot);
+
+            if (recordID < 0)
+            {
+               continue;
+            }
+
+            if (txID == -1)
+            {
+               txID = storageManager.generateUniqueID();
+            }
+
+            storageManager.deleteDuplicateIDTransactional(txID, recordID);
+
+            if (++deletes == DELETE_BATCH_SIZE)
+            {
+               storageManager.commit(txID);
+
+               txID = -1;
+
+               deletes = 0;
+            }
+         }
+
+         if (txID != -1)
+         {
+            storageManager.commit(txID);
+         }
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
+      }
+   }
+
+   /**
+    * MurmurHash3, x64 128 bit variant.
+    */
+   static long[] hash(final byte[] bytes)
+   {
+      final long c1 = 0x87c37b91114253d5L;
+      final long c2 = 0x4cf5ad432745937fL;
+
+      long h1 = 0;
+      long h2 = 0;
+
+      int blocks = bytes.length / 16;
+
+      for (int i = 0; i < blocks; i++)
+      {
+         long k1 = getLong(bytes, i * 16);
+         long k2 = getLong(bytes, i * 16 + 8);
+
+         h1 ^= mixK1(k1, c1, c2);
+         h1 = Long.rotateLeft(h1, 27);
+         h1 += h2;
+         h1 = h1 * 5 + 0x52dce729;
+
+         h2 ^= mixK2(k2, c1, c2);
+         h2 = Long.rotateLeft(h2, 31);
+         h2 += h1;
+         h2 = h2 * 5 + 0x38495ab5;
+      }
+
+      int tail = blocks * 16;
+
+      long k1 = 0;
+      long k2 = 0;
+
+      switch (bytes.length & 15)
+      {
+         case 15:
+            k2 ^= (long)(bytes[tail + 14] & 0xff) << 48;
+         case 14:
+            k2 ^= (long)(bytes[tail + 13] & 0xff) << 40;
+         case 13:
+            k2 ^= (long)(bytes[tail + 12] & 0xff) << 32;
+         case 12:
+            k2 ^= (long)(bytes[tail + 11] & 0xff) << 24;
+         case 11:
+            k2 ^= (long)(bytes[tail + 10] & 0xff) << 16;
+         case 10:
+            k2 ^= (long)(bytes[tail + 9] & 0xff) << 8;
+         case 9:
+            k2 ^= bytes[tail + 8] & 0xff;
+            h2 ^= mixK2(k2, c1, c2);
+         case 8:
+            k1 ^= (long)(bytes[tail + 7] & 0xff) << 56;
+         case 7:
+            k1 ^= (long)(bytes[tail + 6] & 0xff) << 48;
+         case 6:
+            k1 ^= (long)(bytes[tail + 5] & 0xff) << 40;
+         case 5:
+            k1 ^= (long)(bytes[tail + 4] & 0xff) << 32;
+         case 4:
+            k1 ^= (long)(bytes[tail + 3] & 0xff) << 24;
+         case 3:
+            k1 ^= (long)(bytes[tail + 2] & 0xff) << 16;
+         case 2:
+            k1 ^= (long)(bytes[tail + 1] & 0xff) << 8;
+         case 1:
+            k1 ^= bytes[tail] & 0xff;
+            h1 ^= mixK1(k1, c1, c2);
+         default:
+      }
+
+      h1 ^= bytes.length;
+      h2 ^= bytes.length;
+
+      h1 += h2;
+      h2 += h1;
+
+      h1 = fmix(h1);
+      h2 = fmix(h2);
+
+      h1 += h2;
+      h2 += h1;
+
+      return new long[] { h1, h2 };
+   }
+
+   private static long getLong(final byte[] bytes, final int offset)
+   {
+      long value = 0;
+
+      for (int i = 7; i >= 0; i--)
+      {
+         value = value << 8 | bytes[offset + i] & 0xff;
+      }
+
+      return value;
+   }
+
+   private static long mixK1(long k1, final long c1, final long c2)
+   {
+      k1 *= c1;
+      k1 = Long.rotateLeft(k1, 31);
+      return k1 * c2;
+   }
+
+   private static long mixK2(long k2, final long c1, final long c2)
+   {
+      k2 *= c2;
+      k2 = Long.rotateLeft(k2, 33);
+      return k2 * c1;
+   }
+
+   private static long fmix(long k)
+   {
+      k ^= k >>> 33;
+      k *= 0xff51afd7ed558ccdL;
+      k ^= k >>> 33;
+      k *= 0xc4ceb9fe1a85ec53L;
+      k ^= k >>> 33;
+      return k;
+   }
+
+   private final class AddDuplicateIDOperation extends TransactionOperationAbstract
+   {
+      final byte[] duplID;
+
+      final long recordID;
+
+      volatile boolean done;
+
+      AddDuplicateIDOperation(final byte[] duplID, final long recordID)
+      {
+         this.duplID = duplID;
+         this.recordID = recordID;
+      }
+
+      private void process()
+      {
+         if (!done)
+         {
+            addToCacheInMemory(duplID, recordID);
+
+            done = true;
+         }
+      }
+
+      @Override
+      public void afterCommit(final Transaction tx)
+      {
+         process();
+      }
+
+      @Override
+      public List<MessageReference> getRelatedMessageReferences()
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Where the cache takes the time from, tests move it on by hand.
+    */
+   interface Clock
+   {
+      Clock SYSTEM = new Clock()
+      {
+         public long currentTimeMillis()
+         {
+            return System.currentTimeMillis();
+         }
+      };
+
+      long currentTimeMillis();
+   }
+
+   /**
+    * The ids of one bucket, an open addressing table with linear probing over a direct buffer.
+    * Each slot holds the two halves of the hash, the first one never 0 for a used slot, and the
+    * journal record of the id or -1.
+    */
+   static final class IDTable
+   {
+      static final long NOT_FOUND = Long.MIN_VALUE;
+
+      private static final int SLOT_SIZE = 24;
+
+      private static final int INITIAL_CAPACITY = 1024;
+
+      // the most slots an int can address in the buffer
+      static final int MAX_CAPACITY = 1 << 26;
+
+      // a removed id, probing goes on past it
+      private static final long REMOVED = 1;
+
+      // when the bucket stops getting ids, its ids expire a window after it
+      long end;
+
+      private final int maxCapacity;
+
+      private ByteBuffer slots;
+
+      private int capacity;
+
+      private int size;
+
+      // used and removed slots
+      private int filled;
+
+      IDTable(final long end, final int capacity, final int maxCapacity)
+      {
+         this.end = end;
+
+         this.maxCapacity = maxCapacity;
+
+         allocate(capacity);
+      }
+
+      /**
+       * @return the smallest capacity holding the expected ids without growing, up to the maximum
+       */
+      static int capacityFor(final long expected, final int maxCapacity)
+      {
+         int capacity = INITIAL_CAPACITY;
+
+         while (capacity < maxCapacity && expected * 4 > capacity * 3L)
+         {
+            capacity *= 2;
+         }
+
+         return Math.min(capacity, maxCapacity);
+      }
+
+      /**
+       * @return whether one more id would fill the table past its load factor with no room to grow
+       */
+      boolean isFull()
+      {
+         return capacity >= maxCapacity && (size + 1) * 4L > capacity * 3L;
+      }
+
+      int capacity()
+      {
+         return capacity;
+      }
+
+      int size()
+      {
+         return size;
+      }
+
+      long get(final long h1, final long h2)
+      {
+         int slot = find(key(h1), h2);
+
+         return slot < 0 ? NOT_FOUND : slots.getLong(slot * SLOT_SIZE + 16);
+      }
+
+      /**
+       * @return the previous record of the id, or {@link #NOT_FOUND}
+       */
+      long put(final long h1, final long h2, final long recordID)
+      {
+         long key = key(h1);
+
+         int slot = find(key, h2);
+
+         if (slot >= 0)
+         {
+            long old = slots.getLong(slot * SLOT_SIZE + 16);
+
+            slots.putLong(slot * SLOT_SIZE + 16, recordID);
+
+            return old;
+         }
+
+         if ((filled + 1) * 4L > capacity * 3L)
+         {
+            // only grows if the table is not just full of removed slots
+            rehash(size * 2 >= capacity / 2 && capacity < maxCapacity ? capacity * 2 : capacity);
+         }
+
+         insert(key, h2, recordID);
+
+         return NOT_FOUND;
+      }
+
+      /**
+       * @return the record of the removed id, or {@link #NOT_FOUND}
+       */
+      long remove(final long h1, final long h2)
+      {
+         int slot = find(key(h1), h2);
+
+         if (slot < 0)
+         {
+            return NOT_FOUND;
+         }
+
+         long recordID = slots.getLong(slot * SLOT_SIZE + 16);
+
+         slots.putLong(slot * SLOT_SIZE, REMOVED);
+         slots.putLong(slot * SLOT_SIZE + 8, 0);
+         slots.putLong(slot * SLOT_SIZE + 16, -1);
+
+         size--;
+
+         return recordID;
+      }
+
+      /**
+       * @return the record of the id in the slot, -1 if none or the slot is not used
+       */
+      long recordIDAt(final int slot)
+      {
+         long key = slots.getLong(slot * SLOT_SIZE);
+
+         return key == 0 || key == REMOVED ? -1 : slots.getLong(slot * SLOT_SIZE + 16);
+      }
+
+      // 0 and REMOVED mark free slots, the ids hashing to them are moved aside
+      private static long key(final long h1)
+      {
+         return h1 == 0 || h1 == REMOVED ? h1 + 2 : h1;
+      }
+
+      private int find(final long key, final long h2)
+      {
+         int mask = capacity - 1;
+
+         for (int slot = (int)(key ^ key >>> 32) & mask;; slot = slot + 1 & mask)
+         {
+            long slotKey = slots.getLong(slot * SLOT_SIZE);
+
+            if (slotKey == 0)
+            {
+               return -1;
+            }
+
+            if (slotKey == key && slots.getLong(slot * SLOT_SIZE + 8) == h2)
+            {
+               return slot;
+            }
+         }
+      }
+
+      private void insert(final long key, final long h2, final long recordID)
+      {
+         int mask = capacity - 1;
+
+         int slot = (int)(key ^ key >>> 32) & mask;
+
+         while (true)
+         {
+            long slotKey = slots.getLong(slot * SLOT_SIZE);
+
+            if (slotKey == 0 || slotKey == REMOVED)
+            {
+               break;
+            }
+
+            slot = slot + 1 & mask;
+         }
+
+         if (slots.getLong(slot * SLOT_SIZE) == 0)
+         {
+            filled++;
+         }
+
+         slots.putLong(slot * SLOT_SIZE, key);
+         slots.putLong(slot * SLOT_SIZE + 8, h2);
+         slots.putLong(slot * SLOT_SIZE + 16, recordID);
+
+         size++;
+      }
+
+      private void rehash(final int newCapacity)
+      {
+         ByteBuffer oldSlots = slots;
+
+         int oldCapacity = capacity;
+
+         allocate(newCapacity);
+
+         for (int slot = 0; slot < oldCapacity; slot++)
+         {
+            long key = oldSlots.getLong(slot * SLOT_SIZE);
+
+            if (key != 0 && key != REMOVED)
+            {
+               insert(key, oldSlots.getLong(slot * SLOT_SIZE + 8), oldSlots.getLong(slot * SLOT_SIZE + 16));
+            }
+         }
+      }
+
+      private void allocate(final int newCapacity)
+      {
+         // direct buffers are zeroed, every slot starts free
+         slots = ByteBuffer.allocateDirect(newCapacity * SLOT_SIZE);
+
+         capacity = newCapacity;
+
+         size = 0;
+
+         filled = 0;
+      }
+   }
+}
@@ -13,9 +13,8 @@
 package org.hornetq.core.postoffice.impl;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.postoffice.Address;
@@ -44,9 +43,9 @@ public class WildcardAddressManager extends SimpleAddressManager
     * These are all the addresses, we use this so we can link back from the actual address to its linked wilcard addresses
     * or vice versa
     */
-   private final Map<SimpleString, Address> addresses = new HashMap<SimpleString, Address>();
+   private final AddressTrie<Address> addresses = new AddressTrie<Address>();
 
-   private final Map<SimpleString, Address> wildCardAddresses = new HashMap<SimpleString, Address>();
+   private volatile int wildCardAddressCount;
 
    public WildcardAddressManager(final BindingsFactory bindingsFactory)
    {
@@ -59,7 +58,7 @@ public class WildcardAddressManager extends SimpleAddressManager
       Bindings bindings = super.getBindingsForRoutingAddress(address);
 
       // this should only happen if we're routing to an address that has no mappings when we're running checkAllowable
-      if (bindings == null && !wildCardAddresses.isEmpty())
+      if (bindings == null && wildCardAddressCount > 0)
       {
          Address add = addAndUpdateAddressMap(address);
          if (!add.containsWildCard())
@@ -162,77 +161,54 @@ public class WildcardAddressManager extends SimpleAddressManager
    public void clear()
    {
       super.clear();
-      addresses.clear();
-      wildCardAddresses.clear();
+      synchronized (this)
+      {
+         addresses.clear();
+         wildCardAddressCount = 0;
+      }
    }
 
    private Address getAddress(final SimpleString address)
    {
       Address add = new AddressImpl(address);
-      Address actualAddress;
-      if (add.containsWildCard())
-      {
-         actualAddress = wildCardAddresses.get(address);
-      }
-      else
-      {
-         actualAddress = addresses.get(address);
-      }
+      Address actualAddress = addresses.get(add.getAddressParts());
       return actualAddress != null ? actualAddress : add;
    }
 
    private synchronized Address addAndUpdateAddressMap(final SimpleString address)
    {
       Address add = new AddressImpl(address);
-      Address actualAddress;
-      if (add.containsWildCard())
-      {
-         actualAddress = wildCardAddresses.get(address);
-      }
-      else
-      {
-         actualAddress = addresses.get(address);
-      }
+      Address actualAddress = addresses.get(add.getAddressParts());
       if (actualAddress == null)
       {
          actualAddress = add;
-         addAddress(address, actualAddress);
-      }
-      if (actualAddress.containsWildCard())
-      {
-         for (Address destAdd : addresses.values())
+         addAddress(actualAddress);
+
+         // the addresses added later on will link to this one themselves
+         Set<Address> candidates = new HashSet<Address>();
+         addresses.collectMatching(actualAddress.getAddressParts(), actualAddress.containsWildCard(), candidates);
+         for (Address destAdd : candidates)
          {
-            if (destAdd.matches(actualAddress))
+            if (destAdd.containsWildCard() == actualAddress.containsWildCard())
             {
-               destAdd.addLinkedAddress(actualAddress);
-               actualAddress.addLinkedAddress(destAdd);
+               continue;
             }
-         }
-      }
-      else
-      {
-         for (Address destAdd : wildCardAddresses.values())
-         {
-            if (actualAddress.matches(destAdd))
+            if (actualAddress.containsWildCard() ? destAdd.matches(actualAddress) : actualAddress.matches(destAdd))
             {
                destAdd.addLinkedAddress(actualAddress);
                actualAddress.addLinkedAddress(destAdd);
-
             }
          }
       }
       return actualAddress;
    }
 
-   private void addAddress(final SimpleString address, final Address actualAddress)
+   private void addAddress(final Address actualAddress)
    {
+      addresses.putIfAbsent(actualAddress.getAddressParts(), actualAddress);
       if (actualAddress.containsWildCard())
       {
-         wildCardAddresses.put(address, actualAddress);
-      }
-      else
-      {
-         addresses.put(address, actualAddress);
+         wildCardAddressCount++;
       }
    }
 
@@ -242,8 +218,7 @@ public class WildcardAddressManager extends SimpleAddressManager
       Bindings bindings = super.getBindingsForRoutingAddress(address.getAddress());
       if (bindings == null || bindings.getBindings().size() == 0)
       {
-         List<Address> addresses = address.getLinkedAddresses();
-         for (Address address1 : addresses)
+         for (Address address1 : address.getLinkedAddresses())
          {
             address1.removeLinkedAddress(address);
             Bindings linkedBindings = super.getBindingsForRoutingAddress(address1.getAddress());
@@ -258,13 +233,9 @@ public class WildcardAddressManager extends SimpleAddressManager
 
    private void removeAddress(final Address add)
    {
-      if (add.containsWildCard())
-      {
-         wildCardAddresses.remove(add.getAddress());
-      }
-      else
+      if (addresses.remove(add.getAddressParts()) != null && add.containsWildCard())
       {
-         addresses.remove(add.getAddress());
+         wildCardAddressCount--;
       }
    }
 }
@@ -34,6 +34,7 @@ import static org.hornetq.core.protocol.core.impl.PacketImpl.REPLICATION_PAGE_WR
 import static org.hornetq.core.protocol.core.impl.PacketImpl.REPLICATION_PREPARE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.REPLICATION_RESPONSE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND;
+import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_BATCH;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_LARGE;
 
 import org.hornetq.api.core.HornetQBuffer;
@@ -57,6 +58,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReplicationPrepareMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ServerSessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.hornetq.core.server.impl.ServerMessageImpl;
@@ -90,6 +92,11 @@ public class ServerPacketDecoder extends PacketDecoder
             packet = new SessionSendLargeMessage(new ServerMessageImpl());
             break;
          }
+         case SESS_SEND_BATCH:
+         {
+            packet = new ServerSessionSendBatchMessage();
+            break;
+         }
          case REPLICATION_APPEND:
          {
             packet = new ReplicationAddMessage();
@@ -25,9 +25,11 @@ import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_EXPIRED;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_FLOWTOKEN;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_FORCE_CONSUMER_DELIVERY;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE;
+import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE_BATCH;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_QUEUEQUERY;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_ROLLBACK;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND;
+import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_BATCH;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_CONTINUATION;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_SEND_LARGE;
 import static org.hornetq.core.protocol.core.impl.PacketImpl.SESS_START;
@@ -61,6 +63,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.CreateQueueMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.NullResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.RollbackMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.ServerSessionSendBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAddMetaDataMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionAddMetaDataMessageV2;
@@ -72,11 +75,13 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionCreateConsumerMessa
 import org.hornetq.core.protocol.core.impl.wireformat.SessionDeleteQueueMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionExpireMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionForceConsumerDelivery;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowledgeBatchMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowledgeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionRequestProducerCreditsMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendFailedMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionUniqueAddMetaDataMessage;
@@ -424,6 +429,17 @@ public class ServerSessionPacketHandler implements ChannelHandler
                   }
                   break;
                }
+               case SESS_INDIVIDUAL_ACKNOWLEDGE_BATCH:
+               {
+                  SessionIndividualAcknowledgeBatchMessage message = (SessionIndividualAcknowledgeBatchMessage)packet;
+                  requiresResponse = message.isRequiresResponse();
+                  session.individualAcknowledge(message.getConsumerID(), message.getMessageIDs());
+                  if (requiresResponse)
+                  {
+                     response = new NullResponseMessage();
+                  }
+                  break;
+               }
                case SESS_CONSUMER_CLOSE:
                {
                   requiresResponse = true;
@@ -442,6 +458,8 @@ public class ServerSessionPacketHandler implements ChannelHandler
                {
                   SessionSendMessage message = (SessionSendMessage)packet;
                   requiresResponse = message.isRequiresResponse();
+                  // the client completes a ClientProducer.sendAsync on its confirmation, which must not wait for the window
+                  flush = message.isCompletionRequested() && isSendFailureReported(type, requiresResponse);
                   session.send((ServerMessage)message.getMessage(), direct);
                   if (requiresResponse)
                   {
@@ -449,6 +467,12 @@ public class ServerSessionPacketHandler implements ChannelHandler
                   }
                   break;
                }
+               case SESS_SEND_BATCH:
+               {
+                  ServerSessionSendBatchMessage message = (ServerSessionSendBatchMessage)packet;
+                  session.send(message.getServerMessages(), direct);
+                  break;
+               }
                case SESS_SEND_LARGE:
                {
                   SessionSendLargeMessage message = (SessionSendLargeMessage)packet;
@@ -529,6 +553,11 @@ public class ServerSessionPacketHandler implements ChannelHandler
                HornetQServerLogger.LOGGER.debug("Sending exception to client", e);
                response = new HornetQExceptionMessage(e);
             }
+            else if (isSendFailureReported(type, requiresResponse))
+            {
+               HornetQServerLogger.LOGGER.debug("Sending send failure to client", e);
+               response = new SessionSendFailedMessage(e);
+            }
             else
             {
                HornetQServerLogger.LOGGER.caughtException(e);
@@ -543,6 +572,13 @@ public class ServerSessionPacketHandler implements ChannelHandler
                hqe.initCause(t);
                response = new HornetQExceptionMessage(hqe);
             }
+            else if (isSendFailureReported(type, requiresResponse))
+            {
+               HornetQServerLogger.LOGGER.warn("Sending unexpected exception to the client", t);
+               HornetQException hqe = new HornetQInternalErrorException();
+               hqe.initCause(t);
+               response = new SessionSendFailedMessage(hqe);
+            }
             else
             {
                HornetQServerLogger.LOGGER.caughtException(t);
@@ -568,7 +604,19 @@ public class ServerSessionPacketHandler implements ChannelHandler
          {
             HornetQServerLogger.LOGGER.errorProcessingIOCallback(errorCode, errorMessage);
 
-            HornetQExceptionMessage exceptionMessage = new HornetQExceptionMessage( HornetQExceptionType.createException(errorCode, errorMessage));
+            HornetQException exception = HornetQExceptionType.createException(errorCode, errorMessage);
+
+            Packet exceptionMessage;
+
+            if (confirmPacket.getType() == SESS_SEND &&
+                isSendFailureReported(SESS_SEND, ((SessionSendMessage)confirmPacket).isRequiresResponse()))
+            {
+               exceptionMessage = new SessionSendFailedMessage(exception);
+            }
+            else
+            {
+               exceptionMessage = new HornetQExceptionMessage(exception);
+            }
 
             doConfirmAndResponse(confirmPacket, exceptionMessage, flush, closeChannel);
          }
@@ -581,12 +629,23 @@ public class ServerSessionPacketHandler implements ChannelHandler
    }
 
    private void doConfirmAndResponse(final Packet confirmPacket,
-                                     final Packet response,
+                                     Packet response,
                                      final boolean flush,
                                      final boolean closeChannel)
    {
       if (confirmPacket != null)
       {
+         if (response != null && response.getType() == PacketImpl.SESS_SEND_FAILED)
+         {
+            // The client finds the failed send in its resend cache, so it has to hear about the failure
+            // before the confirmation that clears the send from there
+            ((SessionSendFailedMessage)response).setCommandID(channel.getLastConfirmedCommandID() + 1);
+
+            channel.send(response);
+
+            response = null;
+         }
+
          channel.confirm(confirmPacket);
 
          if (flush)
@@ -606,6 +665,18 @@ public class ServerSessionPacketHandler implements ChannelHandler
       }
    }
 
+   /**
+    * Whether the client is told about the failure of a send that didn't ask for a response. Clients
+    * that know about {@link SessionSendFailedMessage} find the failed send by its command ID, which
+    * needs a confirmation window.
+    */
+   private boolean isSendFailureReported(final byte type, final boolean requiresResponse)
+   {
+      return type == SESS_SEND && !requiresResponse &&
+             channel.getConfirmationWindowSize() >= 0 &&
+             channel.supports(PacketImpl.SESS_SEND_FAILED);
+   }
+
    public void closeListeners()
    {
       List<CloseListener> listeners = remotingConnection.removeCloseListeners();
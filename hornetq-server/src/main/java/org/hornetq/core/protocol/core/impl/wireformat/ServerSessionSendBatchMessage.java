@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core.impl.wireformat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hornetq.core.message.impl.MessageInternal;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+
+/**
+ * A ServerSessionSendBatchMessage
+ * <p>
+ * The server side of {@link SessionSendBatchMessage}, decoding the batch into server messages.
+ */
+public class ServerSessionSendBatchMessage extends SessionSendBatchMessage
+{
+   public List<ServerMessage> getServerMessages()
+   {
+      List<MessageInternal> messages = getMessages();
+
+      List<ServerMessage> serverMessages = new ArrayList<ServerMessage>(messages.size());
+
+      for (MessageInternal message : messages)
+      {
+         serverMessages.add((ServerMessage)message);
+      }
+
+      return serverMessages;
+   }
+
+   @Override
+   protected MessageInternal createMessage()
+   {
+      return new ServerMessageImpl(-1, 50);
+   }
+}
@@ -19,10 +19,26 @@ public class SimpleBytes
    public String getString() throws UnsupportedEncodingException
    {
       if (index == 0) return "";
-      byte[] realData = new byte[index];
-      System.arraycopy(contents, 0, realData, 0, realData.length);
 
-      return new String(realData, "UTF-8");
+      return new String(contents, 0, index, "UTF-8");
+   }
+
+   public int size()
+   {
+      return index;
+   }
+
+   /**
+    * @return whether the bytes are those of the ASCII string str
+    */
+   public boolean matches(String str)
+   {
+      if (str.length() != index) return false;
+      for (int i = 0; i < index; i++)
+      {
+         if (contents[i] != (byte)str.charAt(i)) return false;
+      }
+      return true;
    }
 
    public void reset()
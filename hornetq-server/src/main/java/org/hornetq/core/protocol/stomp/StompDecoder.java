@@ -13,13 +13,21 @@
 
 package org.hornetq.core.protocol.stomp;
 
+import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.protocol.stomp.v11.StompFrameV11;
 
 /**
  * A StompDecoder
+ * <p>
+ * Decodes frames incrementally: when a frame spans several reads, decoding carries on from where
+ * the previous read stopped. The command and header bytes are collected as they come, the command
+ * and the usual header names are resolved to their constant strings. The body of a decoded frame
+ * is a slice of the decoder's buffer, valid until the next frame is decoded.
  *
  * @author Tim Fox
  *
@@ -123,39 +131,99 @@ public class StompDecoder
 
    public static final byte TAB = (byte)'\t';
 
+   public static final byte ESCAPE = (byte)'\\';
+
+   public static final byte NUL = 0;
+
    public static final String CONTENT_TYPE_HEADER_NAME = "content-type";
 
    public static final String CONTENT_LENGTH_HEADER_NAME = "content-length";
 
-   public byte[] workingBuffer = new byte[1024];
+   private static final String[] COMMANDS = { COMMAND_ABORT,
+                                             COMMAND_ACK,
+                                             COMMAND_NACK,
+                                             COMMAND_BEGIN,
+                                             COMMAND_COMMIT,
+                                             COMMAND_CONNECT,
+                                             COMMAND_DISCONNECT,
+                                             COMMAND_SEND,
+                                             COMMAND_STOMP,
+                                             COMMAND_SUBSCRIBE,
+                                             COMMAND_UNSUBSCRIBE,
+                                             COMMAND_CONNECTED,
+                                             COMMAND_MESSAGE,
+                                             COMMAND_ERROR,
+                                             COMMAND_RECEIPT };
+
+   private static final int MAX_COMMAND_LENGTH = COMMAND_UNSUBSCRIBE_LENGTH;
+
+   // header names clients send, resolved without allocating
+   private static final String[] HEADER_NAMES = { Stomp.Headers.Send.DESTINATION,
+                                                 CONTENT_LENGTH_HEADER_NAME,
+                                                 CONTENT_TYPE_HEADER_NAME,
+                                                 Stomp.Headers.RECEIPT_REQUESTED,
+                                                 Stomp.Headers.TRANSACTION,
+                                                 Stomp.Headers.Send.CORRELATION_ID,
+                                                 Stomp.Headers.Send.REPLY_TO,
+                                                 Stomp.Headers.Send.EXPIRATION_TIME,
+                                                 Stomp.Headers.Send.PRIORITY,
+                                                 Stomp.Headers.Send.TYPE,
+                                                 (String)Stomp.Headers.Send.PERSISTENT,
+                                                 Stomp.Headers.Message.MESSAGE_ID,
+                                                 Stomp.Headers.Message.SUBSCRIPTION,
+                                                 Stomp.Headers.Subscribe.ACK_MODE,
+                                                 Stomp.Headers.Subscribe.ID,
+                                                 Stomp.Headers.Subscribe.SELECTOR,
+                                                 Stomp.Headers.Subscribe.DURABLE_SUBSCRIBER_NAME,
+                                                 Stomp.Headers.Subscribe.NO_LOCAL,
+                                                 Stomp.Headers.Connect.LOGIN,
+                                                 Stomp.Headers.Connect.PASSCODE,
+                                                 Stomp.Headers.Connect.CLIENT_ID,
+                                                 Stomp.Headers.Connect.REQUEST_ID,
+                                                 Stomp.Headers.Connect.ACCEPT_VERSION,
+                                                 Stomp.Headers.Connect.HOST,
+                                                 (String)Stomp.Headers.Connect.HEART_BEAT };
+
+   private static final int COMMAND = 0;
+
+   private static final int HEADERS = 1;
+
+   private static final int BODY = 2;
+
+   private byte[] workingBuffer = new byte[1024];
+
+   private HornetQBuffer workingHornetQBuffer = HornetQBuffers.wrappedBuffer(workingBuffer);
 
-   public int pos;
+   // the next byte to decode
+   private int pos;
 
-   public int data;
+   // the end of the bytes read so far
+   private int data;
 
-   public String command;
+   private int state;
 
-   public Map<String, String> headers;
+   // the command or header bytes decoded so far
+   private final SimpleBytes holder = new SimpleBytes(256);
 
-   public int headerBytesCopyStart;
+   private String command;
 
-   public boolean readingHeaders;
+   private Map<String, String> headers;
 
-   public boolean headerValueWhitespace;
+   private String headerName;
 
-   public boolean inHeaderName;
+   private boolean escaping;
 
-   public String headerName;
+   private boolean headerValueWhitespace;
 
-   public boolean whiteSpaceOnly;
+   private boolean whiteSpaceOnly;
 
-   public int contentLength;
+   private int contentLength;
 
-   public String contentType;
+   private int bodyStart;
 
-   public int bodyStart;
+   private boolean pinged;
 
-   public StompConnection connection;
+   private final StompConnection connection;
 
    public StompDecoder(StompConnection stompConnection)
    {
@@ -165,7 +233,7 @@ public class StompDecoder
 
    public StompDecoder()
    {
-      init();
+      this(null);
    }
 
    public boolean hasBytes()
@@ -173,6 +241,17 @@ public class StompDecoder
       return data > pos;
    }
 
+   /**
+    * @return whether new lines were decoded between frames since the last call, STOMP 1.1 clients
+    *         send them as heart-beats
+    */
+   public boolean pinged()
+   {
+      boolean result = pinged;
+      pinged = false;
+      return result;
+   }
+
    /*
     * Stomp format is a command on the first line
     * followed by a set of headers NAME:VALUE
@@ -184,7 +263,7 @@ public class StompDecoder
     * standard StompFrame and let the versioned handler to do more
     * spec specific job (like trimming, escaping etc).
     */
-   public synchronized StompFrame decode(final HornetQBuffer buffer) throws Exception
+   public StompFrame decode(final HornetQBuffer buffer) throws Exception
    {
       if (connection != null && connection.isValid())
       {
@@ -197,481 +276,412 @@ public class StompDecoder
 
    public StompFrame defaultDecode(final HornetQBuffer buffer) throws HornetQStompException
    {
+      return decode(buffer, false);
+   }
 
-      int readable = buffer.readableBytes();
+   /**
+    * Reads the buffer and decodes the next frame.
+    *
+    * @param v11 whether the headers follow STOMP 1.1: escaped, and their values not trimmed
+    * @return the frame, or null if it needs more bytes
+    */
+   public StompFrame decode(final HornetQBuffer buffer, final boolean v11) throws HornetQStompException
+   {
+      read(buffer);
 
-      if (data + readable >= workingBuffer.length)
+      if (state == COMMAND && !decodeCommand())
       {
-         resizeWorking(data + readable);
+         return null;
       }
 
-      buffer.readBytes(workingBuffer, data, readable);
+      if (state == HEADERS && !decodeHeaders(v11))
+      {
+         return null;
+      }
 
-      data += readable;
+      return decodeBody(v11);
+   }
 
-      if (command == null)
-      {
-         if (data < 4)
-         {
-            // Need at least four bytes to identify the command
-            // - up to 3 bytes for the command name + potentially another byte for a leading \n
+   public void throwInvalid() throws HornetQStompException
+   {
+      throw new HornetQStompException("Invalid STOMP frame: " + dumpInvalid());
+   }
 
-            return null;
-         }
+   public void init()
+   {
+      state = COMMAND;
 
-         int offset;
+      command = null;
 
-         if (workingBuffer[0] == NEW_LINE)
-         {
-            // Yuck, some badly behaved STOMP clients add a \n *after* the terminating NUL char at the end of the
-            // STOMP
-            // frame this can manifest as an extra \n at the beginning when the next STOMP frame is read - we need to
-            // deal
-            // with this
-            offset = 1;
-         }
-         else
-         {
-            offset = 0;
-         }
+      headers = new HashMap<String, String>();
 
-         byte b = workingBuffer[offset];
+      holder.reset();
 
-         switch (b)
-         {
-            case A:
-            {
-               if (workingBuffer[offset + 1] == B)
-               {
-                  if (!tryIncrement(offset + COMMAND_ABORT_LENGTH + 1))
-                  {
-                     return null;
-                  }
+      headerName = null;
 
-                  // ABORT
-                  command = COMMAND_ABORT;
-               }
-               else
-               {
-                  if (!tryIncrement(offset + COMMAND_ACK_LENGTH + 1))
-                  {
-                     return null;
-                  }
+      escaping = false;
 
-                  // ACK
-                  command = COMMAND_ACK;
-               }
-               break;
-            }
-            case B:
-            {
-               if (!tryIncrement(offset + COMMAND_BEGIN_LENGTH + 1))
-               {
-                  return null;
-               }
+      headerValueWhitespace = false;
 
-               // BEGIN
-               command = COMMAND_BEGIN;
+      whiteSpaceOnly = true;
 
-               break;
-            }
-            case C:
-            {
-               if (workingBuffer[offset + 2] == M)
-               {
-                  if (!tryIncrement(offset + COMMAND_COMMIT_LENGTH + 1))
-                  {
-                     return null;
-                  }
+      contentLength = -1;
 
-                  // COMMIT
-                  command = COMMAND_COMMIT;
-               }
-               /**** added by meddy, 27 april 2011, handle header parser for reply to websocket protocol ****/
-               else if (workingBuffer[offset+7]==E)
-               {
-                  if (!tryIncrement(offset + COMMAND_CONNECTED_LENGTH + 1))
-                  {
-                     return null;
-                  }
+      bodyStart = -1;
+   }
 
-                  // CONNECTED
-                  command = COMMAND_CONNECTED;
-               }
-               /**** end ****/
-               else
-               {
-                  if (!tryIncrement(offset + COMMAND_CONNECT_LENGTH + 1))
-                  {
-                     return null;
-                  }
+   // Private -------------------------------------------------------
 
-                  // CONNECT
-                  command = COMMAND_CONNECT;
-               }
-               break;
-            }
-            case D:
-            {
-               if (!tryIncrement(offset + COMMAND_DISCONNECT_LENGTH + 1))
-               {
-                  return null;
-               }
+   private void read(final HornetQBuffer buffer)
+   {
+      int readable = buffer.readableBytes();
 
-               // DISCONNECT
-               command = COMMAND_DISCONNECT;
+      if (readable == 0)
+      {
+         return;
+      }
 
-               break;
-            }
-            case R:
-            {
-               if (!tryIncrement(offset + COMMAND_RECEIPT_LENGTH + 1))
-               {
-                  return null;
-               }
+      if (data + readable > workingBuffer.length)
+      {
+         // only the body of the current frame is needed, what comes before it is decoded already
+         int keep = state == BODY ? bodyStart : pos;
 
-               // RECEIPT
-               command = COMMAND_RECEIPT;
+         System.arraycopy(workingBuffer, keep, workingBuffer, 0, data - keep);
 
-               break;
-            }
-            /**** added by meddy, 27 april 2011, handle header parser for reply to websocket protocol ****/
-            case E:
-            {
-               if (!tryIncrement(offset + COMMAND_ERROR_LENGTH + 1))
-               {
-                  return null;
-               }
+         data -= keep;
 
-               // ERROR
-               command = COMMAND_ERROR;
+         pos -= keep;
 
-               break;
-            }
-            case M:
-            {
-               if (!tryIncrement(offset + COMMAND_MESSAGE_LENGTH + 1))
-               {
-                  return null;
-               }
+         if (state == BODY)
+         {
+            bodyStart -= keep;
+         }
 
-               // MESSAGE
-               command = COMMAND_MESSAGE;
+         if (data + readable > workingBuffer.length)
+         {
+            byte[] oldBuffer = workingBuffer;
 
-               break;
-            }
-            /**** end ****/
-            case S:
-            {
-               if (workingBuffer[offset + 1] == E)
-               {
-                  if (!tryIncrement(offset + COMMAND_SEND_LENGTH + 1))
-                  {
-                     return null;
-                  }
+            workingBuffer = new byte[Math.max(2 * oldBuffer.length, data + readable)];
 
-                  // SEND
-                  command = COMMAND_SEND;
-               }
-               else if (workingBuffer[offset + 1] == T)
-               {
-                  if (!tryIncrement(offset + COMMAND_STOMP_LENGTH + 1))
-                  {
-                     return null;
-                  }
+            System.arraycopy(oldBuffer, 0, workingBuffer, 0, data);
+         }
 
-                  // SEND
-                  command = COMMAND_STOMP;
-               }
-               else
-               {
-                  if (!tryIncrement(offset + COMMAND_SUBSCRIBE_LENGTH + 1))
-                  {
-                     return null;
-                  }
+         workingHornetQBuffer = HornetQBuffers.wrappedBuffer(workingBuffer);
+      }
 
-                  // SUBSCRIBE
-                  command = COMMAND_SUBSCRIBE;
-               }
-               break;
-            }
-            case U:
-            {
-               if (!tryIncrement(offset + COMMAND_UNSUBSCRIBE_LENGTH + 1))
-               {
-                  return null;
-               }
+      buffer.readBytes(workingBuffer, data, readable);
 
-               // UNSUBSCRIBE
-               command = COMMAND_UNSUBSCRIBE;
+      data += readable;
+   }
 
-               break;
+   private boolean decodeCommand() throws HornetQStompException
+   {
+      while (pos < data)
+      {
+         byte b = workingBuffer[pos++];
+
+         if (b == NEW_LINE)
+         {
+            if (holder.size() == 0)
+            {
+               // A heart-beat. Yuck, some badly behaved STOMP clients also add a \n *after* the
+               // terminating NUL char at the end of the STOMP frame
+               pinged = true;
+
+               continue;
             }
-            default:
+
+            command = resolve(COMMANDS);
+
+            if (command == null)
             {
                throwInvalid();
             }
-         }
 
-         // Sanity check
+            holder.reset();
 
-         if (workingBuffer[pos - 1] != NEW_LINE)
+            state = HEADERS;
+
+            return true;
+         }
+
+         if (holder.size() == MAX_COMMAND_LENGTH)
          {
             throwInvalid();
          }
+
+         holder.append(b);
       }
 
-      if (readingHeaders)
+      return false;
+   }
+
+   private boolean decodeHeaders(final boolean v11) throws HornetQStompException
+   {
+      while (pos < data)
       {
-         if (headerBytesCopyStart == -1)
+         byte b = workingBuffer[pos++];
+
+         if (escaping)
          {
-            headerBytesCopyStart = pos;
-         }
+            // \n is a new line, \\ and \: the character itself
+            holder.append(b == LN ? NEW_LINE : b);
 
-         // Now the headers
+            escaping = false;
 
-         outer: while (true)
-         {
-            byte b = workingBuffer[pos++];
+            continue;
+         }
 
-            switch (b)
+         switch (b)
+         {
+            case NEW_LINE:
             {
-               case HEADER_SEPARATOR:
+               if (whiteSpaceOnly)
                {
-                  if (inHeaderName)
-                  {
-                     byte[] data = new byte[pos - headerBytesCopyStart - 1];
+                  // Headers are terminated by a blank line
+                  holder.reset();
 
-                     System.arraycopy(workingBuffer, headerBytesCopyStart, data, 0, data.length);
+                  state = BODY;
 
-                     headerName = new String(data);
+                  bodyStart = pos;
 
-                     inHeaderName = false;
+                  return true;
+               }
 
-                     headerBytesCopyStart = pos;
+               addHeader();
 
-                     headerValueWhitespace = true;
-                  }
-
-                  whiteSpaceOnly = false;
+               break;
+            }
+            case HEADER_SEPARATOR:
+            {
+               whiteSpaceOnly = false;
 
-                  break;
-               }
-               case NEW_LINE:
+               if (headerName == null)
                {
-                  if (whiteSpaceOnly)
-                  {
-                     // Headers are terminated by a blank line
-                     readingHeaders = false;
+                  headerName = resolve(HEADER_NAMES);
 
-                     break outer;
+                  if (headerName == null)
+                  {
+                     headerName = getHolderString();
                   }
 
-                  byte[] data = new byte[pos - headerBytesCopyStart - 1];
-
-                  System.arraycopy(workingBuffer, headerBytesCopyStart, data, 0, data.length);
-
-                  String headerValue = new String(data);
+                  holder.reset();
 
-                  headers.put(headerName, headerValue);
+                  headerValueWhitespace = !v11;
+               }
+               else
+               {
+                  holder.append(b);
+               }
 
-                  if (headerName.equals(CONTENT_LENGTH_HEADER_NAME))
+               break;
+            }
+            case SPACE:
+            case TAB:
+            {
+               if (!v11)
+               {
+                  // 1.0 values are trimmed of their leading whitespace, like ActiveMQ + StompConnect
+                  // do. A line of whitespace ends the headers, as a blank line does
+                  if (!headerValueWhitespace)
                   {
-                     contentLength = Integer.parseInt(headerValue.toString());
+                     holder.append(b);
                   }
 
-                  whiteSpaceOnly = true;
+                  break;
+               }
+
+               whiteSpaceOnly = false;
 
-                  headerBytesCopyStart = pos;
+               holder.append(b);
 
-                  inHeaderName = true;
+               break;
+            }
+            case ESCAPE:
+            {
+               whiteSpaceOnly = false;
 
-                  headerValueWhitespace = false;
+               headerValueWhitespace = false;
 
-                  break;
-               }
-               case SPACE:
+               if (v11)
                {
+                  escaping = true;
                }
-               case TAB:
+               else
                {
-                  if (TRIM_LEADING_HEADER_VALUE_WHITESPACE && headerValueWhitespace)
-                  {
-                     // trim off leading whitespace from header values.
-                     // The STOMP spec examples seem to imply that whitespace should be trimmed although it is not
-                     // explicit in the spec
-                     // ActiveMQ + StompConnect also seem to trim whitespace from header values.
-                     // Trimming is problematic though if the user has set a header with a value which deliberately
-                     // has
-                     // leading whitespace since
-                     // this will be removed
-                     headerBytesCopyStart++;
-                  }
-
-                  break;
+                  holder.append(b);
                }
-               default:
-               {
-                  whiteSpaceOnly = false;
 
-                  headerValueWhitespace = false;
-               }
+               break;
             }
-            if (pos == data)
+            default:
             {
-               // Run out of data
+               whiteSpaceOnly = false;
 
-               return null;
+               headerValueWhitespace = false;
+
+               holder.append(b);
             }
          }
       }
 
-      // Now the body
+      return false;
+   }
 
-      byte[] content = null;
+   private void addHeader() throws HornetQStompException
+   {
+      if (headerName == null)
+      {
+         throwInvalid();
+      }
 
-      if (contentLength != -1)
+      String headerValue = getHolderString();
+
+      headers.put(headerName, headerValue);
+
+      if (headerName.equals(CONTENT_LENGTH_HEADER_NAME))
       {
-         if (pos + contentLength + 1 > data)
+         try
          {
-            // Need more bytes
+            contentLength = Integer.parseInt(headerValue.trim());
          }
-         else
+         catch (NumberFormatException e)
          {
-            content = new byte[contentLength];
-
-            System.arraycopy(workingBuffer, pos, content, 0, contentLength);
-
-            pos += contentLength + 1;
+            throw new HornetQStompException("Invalid content-length: " + headerValue);
          }
       }
-      else
+
+      holder.reset();
+
+      headerName = null;
+
+      whiteSpaceOnly = true;
+
+      headerValueWhitespace = false;
+   }
+
+   private StompFrame decodeBody(final boolean v11)
+   {
+      int bodyLength = -1;
+
+      if (contentLength != -1)
       {
-         // Need to scan for terminating NUL
+         int bodyEnd = bodyStart + contentLength;
 
-         if (bodyStart == -1)
+         if (bodyEnd >= data)
          {
-            bodyStart = pos;
+            // Need more bytes, including the terminating NUL
+            return null;
          }
 
+         pos = Math.max(pos, bodyEnd);
+
+         // the body is followed by the terminating NUL, skip anything else up to it
          while (pos < data)
          {
-            if (workingBuffer[pos++] == 0)
+            if (workingBuffer[pos++] == NUL)
             {
-               content = new byte[pos - bodyStart - 1];
-
-               System.arraycopy(workingBuffer, bodyStart, content, 0, content.length);
+               bodyLength = contentLength;
 
                break;
             }
          }
       }
-
-      if (content != null)
+      else
       {
-         if (data > pos)
+         // Need to scan for terminating NUL, from where the last scan stopped
+         while (pos < data)
          {
-            if (workingBuffer[pos] == NEW_LINE) pos++;
+            if (workingBuffer[pos++] == NUL)
+            {
+               bodyLength = pos - bodyStart - 1;
 
-            if (data > pos)
-              // More data still in the buffer from the next packet
-              System.arraycopy(workingBuffer, pos, workingBuffer, 0, data - pos);
+               break;
+            }
          }
-
-         data = data - pos;
-
-         // reset
-
-         StompFrame ret = new StompFrame(command, headers, content);
-
-         init();
-
-         return ret;
       }
-      else
+
+      if (bodyLength == -1)
       {
          return null;
       }
-   }
-
-   public void throwInvalid() throws HornetQStompException
-   {
-      throw new HornetQStompException("Invalid STOMP frame: " + this.dumpByteArray(workingBuffer));
-   }
-
-   public void init()
-   {
-      pos = 0;
-
-      command = null;
-
-      headers = new HashMap<String, String>();
-
-      this.headerBytesCopyStart = -1;
-
-      readingHeaders = true;
 
-      inHeaderName = true;
-
-      headerValueWhitespace = false;
-
-      headerName = null;
+      if (pos < data && workingBuffer[pos] == NEW_LINE)
+      {
+         pos++;
+      }
 
-      whiteSpaceOnly = true;
+      HornetQBuffer body = workingHornetQBuffer.slice(bodyStart, bodyLength);
 
-      contentLength = -1;
+      StompFrame ret = v11 ? new StompFrameV11(command, headers, body) : new StompFrame(command, headers, body);
 
-      contentType = null;
+      init();
 
-      bodyStart = -1;
+      return ret;
    }
 
-   public void resizeWorking(final int newSize)
+   /**
+    * @return the one of names the holder contains, null if none
+    */
+   private String resolve(final String[] names)
    {
-      byte[] oldBuffer = workingBuffer;
-
-      workingBuffer = new byte[newSize];
+      for (String name : names)
+      {
+         if (holder.matches(name))
+         {
+            return name;
+         }
+      }
 
-      System.arraycopy(oldBuffer, 0, workingBuffer, 0, oldBuffer.length);
+      return null;
    }
 
-   public boolean tryIncrement(final int length)
+   private String getHolderString() throws HornetQStompException
    {
-      if (pos + length >= data)
+      try
       {
-         return false;
+         return holder.getString();
       }
-      else
+      catch (UnsupportedEncodingException e)
       {
-         pos += length;
-
-         return true;
+         throw new HornetQStompException("Encoding exception", e);
       }
    }
 
-   private String dumpByteArray(final byte[] bytes)
+   private String dumpInvalid()
    {
       StringBuilder str = new StringBuilder();
 
-      for (int i = 0; i < data; i++)
+      if (command != null)
       {
-         char b = (char)bytes[i];
+         str.append(command).append(",");
+      }
+
+      try
+      {
+         str.append(holder.getString());
+      }
+      catch (UnsupportedEncodingException e)
+      {
+         // ignore
+      }
+
+      for (int i = pos; i < data; i++)
+      {
+         char b = (char)workingBuffer[i];
+
+         str.append(",");
 
          if (b < 33 || b > 136)
          {
             //Unreadable characters
 
-            str.append(bytes[i]);
+            str.append(workingBuffer[i]);
          }
          else
          {
             str.append(b);
          }
-
-         if (i != bytes.length - 1)
-         {
-            str.append(",");
-         }
       }
 
       return str.toString();
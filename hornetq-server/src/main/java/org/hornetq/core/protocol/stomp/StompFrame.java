@@ -44,6 +44,9 @@ public class StompFrame
 
    protected byte[] bytesBody;
 
+   // a decoded body, a view on the decoder's buffer until the next frame is decoded
+   protected HornetQBuffer bodyBuffer;
+
    protected HornetQBuffer buffer = null;
 
    protected int size;
@@ -72,6 +75,17 @@ public class StompFrame
       this.bytesBody = content;
    }
 
+   /**
+    * A decoded frame, its body stays valid while the frame is handled. The body is copied out of
+    * the decoder's buffer only if it is asked for as bytes or as a string.
+    */
+   public StompFrame(String command, Map<String, String> headers, HornetQBuffer body)
+   {
+      this.command = command;
+      this.headers = headers;
+      this.bodyBuffer = body;
+   }
+
    public String getCommand()
    {
       return command;
@@ -226,6 +240,7 @@ public class StompFrame
    {
       this.body = body;
       this.bytesBody = body.getBytes("UTF-8");
+      this.bodyBuffer = null;
    }
 
    public boolean hasHeader(String key)
@@ -237,7 +252,7 @@ public class StompFrame
    {
       if (body == null)
       {
-         if (bytesBody != null)
+         if (getBodyAsBytes() != null)
          {
             body = new String(bytesBody, "UTF-8");
          }
@@ -248,9 +263,26 @@ public class StompFrame
    //Since 1.1, there is a content-type header that needs to take care of
    public byte[] getBodyAsBytes() throws UnsupportedEncodingException
    {
+      if (bytesBody == null && bodyBuffer != null)
+      {
+         bytesBody = new byte[bodyBuffer.readableBytes()];
+         bodyBuffer.getBytes(bodyBuffer.readerIndex(), bytesBody);
+      }
       return bytesBody;
    }
 
+   /**
+    * @return the body without copying it, or null if the frame has none
+    */
+   public HornetQBuffer getBodyBuffer()
+   {
+      if (bodyBuffer == null && bytesBody != null)
+      {
+         bodyBuffer = HornetQBuffers.wrappedBuffer(bytesBody);
+      }
+      return bodyBuffer;
+   }
+
    public boolean needsDisconnect()
    {
       return disconnect;
@@ -259,6 +291,7 @@ public class StompFrame
    public void setByteBody(byte[] content)
    {
       this.bytesBody = content;
+      this.bodyBuffer = null;
    }
 
    public void setNeedsDisconnect(boolean b)
@@ -178,7 +178,8 @@ public abstract class VersionedStompFrameHandler
          if (frame.hasHeader(Stomp.Headers.CONTENT_LENGTH))
          {
             message.setType(Message.BYTES_TYPE);
-            message.getBodyBuffer().writeBytes(frame.getBodyAsBytes());
+            HornetQBuffer body = frame.getBodyBuffer();
+            message.getBodyBuffer().writeBytes(body, body.readerIndex(), body.readableBytes());
          }
          else
          {
@@ -37,6 +37,11 @@ public class StompFrameV11 extends StompFrame
       super(command, headers, content);
    }
 
+   public StompFrameV11(String command, Map<String, String> headers, HornetQBuffer body)
+   {
+      super(command, headers, body);
+   }
+
    public StompFrameV11(String command)
    {
       super(command);
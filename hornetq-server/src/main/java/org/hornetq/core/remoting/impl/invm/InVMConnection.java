@@ -138,7 +138,11 @@ public class InVMConnection implements Connection
 
    public void write(final HornetQBuffer buffer, final boolean flush, final boolean batch)
    {
-      final HornetQBuffer copied = buffer.copy(0, buffer.capacity());
+      // dynamic, as the receiver might keep and grow the buffer, e.g. as the body of a message, while
+      // buffers such as the deliveries' composite ones have a fixed size
+      final HornetQBuffer copied = HornetQBuffers.dynamicBuffer(buffer.capacity());
+
+      copied.writeBytes(buffer, 0, buffer.capacity());
 
       copied.setIndex(buffer.readerIndex(), buffer.writerIndex());
 
@@ -37,6 +37,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.api.core.management.NotificationType;
 import org.hornetq.core.protocol.stomp.WebSocketServerHandler;
+import org.hornetq.core.buffers.impl.PooledBufferAllocator;
 import org.hornetq.core.remoting.impl.ssl.SSLSupport;
 import org.hornetq.core.security.HornetQPrincipal;
 import org.hornetq.core.server.HornetQComponent;
@@ -117,6 +118,8 @@ public class NettyAcceptor implements Acceptor
 
    private final boolean useNio;
 
+   private final boolean useEpoll;
+
    private final boolean useInvm;
 
    private final ProtocolType protocol;
@@ -143,6 +146,8 @@ public class NettyAcceptor implements Acceptor
 
    private final int nioRemotingThreads;
 
+   private final int nioRemotingBossThreads;
+
    private final HttpKeepAliveRunnable httpKeepAliveRunnable;
 
    private HttpAcceptorHandler httpHandler = null;
@@ -169,6 +174,8 @@ public class NettyAcceptor implements Acceptor
 
    private final boolean directDeliver;
 
+   private final boolean pooledBuffers;
+
 
    public NettyAcceptor(final Map<String, Object> configuration,
                         final BufferHandler handler,
@@ -233,10 +240,24 @@ public class NettyAcceptor implements Acceptor
                                                       TransportConstants.DEFAULT_USE_NIO_SERVER,
                                                       configuration);
 
+      useEpoll = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                        TransportConstants.DEFAULT_USE_EPOLL,
+                                                        configuration);
+
+      if (useEpoll && !EpollSupport.isAvailable())
+      {
+         HornetQServerLogger.LOGGER.epollNotAvailable(TransportConstants.USE_EPOLL_PROP_NAME,
+                                                      EpollSupport.getSelectorProvider());
+      }
+
       nioRemotingThreads = ConfigurationHelper.getIntProperty(TransportConstants.NIO_REMOTING_THREADS_PROPNAME,
                                                               -1,
                                                               configuration);
 
+      nioRemotingBossThreads = ConfigurationHelper.getIntProperty(TransportConstants.NIO_REMOTING_BOSS_THREADS_PROPNAME,
+                                                                  TransportConstants.DEFAULT_NIO_REMOTING_BOSS_THREADS,
+                                                                  configuration);
+
       useInvm = ConfigurationHelper.getBooleanProperty(TransportConstants.USE_INVM_PROP_NAME,
                                                        TransportConstants.DEFAULT_USE_INVM,
                                                        configuration);
@@ -304,6 +325,11 @@ public class NettyAcceptor implements Acceptor
       directDeliver = ConfigurationHelper.getBooleanProperty(TransportConstants.DIRECT_DELIVER,
                                                              TransportConstants.DEFAULT_DIRECT_DELIVER,
                                                              configuration);
+
+      // HTTP holds on to written buffers until a request comes to carry them
+      pooledBuffers = !httpEnabled && ConfigurationHelper.getBooleanProperty(TransportConstants.POOLED_BUFFERS,
+                                                                             TransportConstants.DEFAULT_POOLED_BUFFERS,
+                                                                             configuration);
    }
 
    public synchronized void start() throws Exception
@@ -321,7 +347,8 @@ public class NettyAcceptor implements Acceptor
       {
          channelFactory = new DefaultLocalServerChannelFactory();
       }
-      else if (useNio)
+      // epoll is only reachable through the NIO selector, if it isn't epoll based this is plain NIO
+      else if (useNio || useEpoll)
       {
          int threadsToUse;
 
@@ -336,7 +363,10 @@ public class NettyAcceptor implements Acceptor
             threadsToUse = this.nioRemotingThreads;
          }
 
-         channelFactory = new NioServerSocketChannelFactory(bossExecutor, workerExecutor, threadsToUse);
+         channelFactory = new NioServerSocketChannelFactory(bossExecutor,
+                                                            nioRemotingBossThreads,
+                                                            workerExecutor,
+                                                            threadsToUse);
       }
       else
       {
@@ -404,7 +434,8 @@ public class NettyAcceptor implements Acceptor
             {
                // Core protocol uses its own optimised decoder
 
-               handlers.put("hornetq-decoder", new HornetQFrameDecoder2());
+               handlers.put("hornetq-decoder", new HornetQFrameDecoder2(pooledBuffers ? PooledBufferAllocator.HEAP
+                                                                                      : null));
             }
             else if (protocol == ProtocolType.STOMP_WS)
             {
@@ -684,7 +715,12 @@ public class NettyAcceptor implements Acceptor
       {
          Listener connectionListener = new Listener();
 
-         NettyConnection nc = new NettyConnection(configuration, e.getChannel(), connectionListener, !httpEnabled && batchDelay > 0, directDeliver);
+         NettyConnection nc = new NettyConnection(configuration,
+                                                  e.getChannel(),
+                                                  connectionListener,
+                                                  !httpEnabled && batchDelay > 0,
+                                                  directDeliver,
+                                                  pooledBuffers);
 
          connectionListener.connectionCreated(NettyAcceptor.this, nc, ProtocolType.CORE);
 
@@ -255,6 +255,10 @@ public interface HornetQServerLogger extends BasicLogger
             format = Message.Format.MESSAGE_FORMAT)
    void deprecatedConfigurationOption(String deprecatedOption);
 
+   @LogMessage(level = Logger.Level.INFO)
+   @Message(id = 221039, value = "Using Memory Mapped Journal", format = Message.Format.MESSAGE_FORMAT)
+   void journalUseMAPPED();
+
    @LogMessage(level = Logger.Level.WARN)
    @Message(id = 222000, value = "HornetQServer is being finalized and has not been stopped. Please remember to stop the server before letting it go out of scope",
          format = Message.Format.MESSAGE_FORMAT)
@@ -983,6 +987,21 @@ public interface HornetQServerLogger extends BasicLogger
    @Message(id = 222166, value = "Error stopping naming server", format = Message.Format.MESSAGE_FORMAT)
    void unableToStopNamingServer(@Cause Exception e);
 
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222167, value = "{0} is set but the selector provider {1} is not epoll based, falling back to NIO",
+            format = Message.Format.MESSAGE_FORMAT)
+   void epollNotAvailable(String propName, String selectorProvider);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222168, value = "Duplicate ID cache of address {0} holds {1} IDs in a part of its window, starting the next part early. Raise id-cache-rate or lower id-cache-window if this happens often.",
+            format = Message.Format.MESSAGE_FORMAT)
+   void duplicateIDCacheBucketFull(SimpleString address, int ids);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(id = 222169, value = "Could not spill the scheduled message {0} to disk, keeping it in memory",
+            format = Message.Format.MESSAGE_FORMAT)
+   void errorSpillingScheduledMessage(@Cause Throwable t, MessageReference ref);
+
    @LogMessage(level = Logger.Level.ERROR)
    @Message(id = 224000, value = "Failure in initialisation", format = Message.Format.MESSAGE_FORMAT)
    void initializationError(@Cause Throwable e);
@@ -1228,4 +1247,13 @@ public interface HornetQServerLogger extends BasicLogger
       value = "Bridge {0} timed out waiting for the completion of {1} messages, we will just shutdown the bridge after 10 seconds wait",
       format = Message.Format.MESSAGE_FORMAT)
    void timedOutWaitingCompletions(String bridgeName, long numberOfMessages);
+
+   @LogMessage(level = Logger.Level.ERROR)
+   @Message(id = 224060, value = "Error running a scheduled task", format = Message.Format.MESSAGE_FORMAT)
+   void errorRunningScheduledTask(@Cause Throwable t);
+
+   @LogMessage(level = Logger.Level.ERROR)
+   @Message(id = 224061, value = "Could not read the spilled scheduled message {0} back, it will be delivered once the server restarts if it is durable",
+            format = Message.Format.MESSAGE_FORMAT)
+   void errorRestoringScheduledMessage(@Cause Throwable t, MessageReference ref);
 }
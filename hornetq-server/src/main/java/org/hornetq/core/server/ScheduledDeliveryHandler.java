@@ -23,6 +23,18 @@ public interface ScheduledDeliveryHandler
 {
    boolean checkAndSchedule(MessageReference ref, final boolean tail);
 
+   /**
+    * @param spill whether the message of the reference may be spilled to disk, it must not be
+    *           while other queues may still take a reference to it
+    */
+   boolean checkAndSchedule(MessageReference ref, final boolean tail, final boolean spill);
+
+   /**
+    * Spills the messages of the scheduled references that were scheduled without spilling and
+    * may be spilled now.
+    */
+   void spillScheduled();
+
    int getScheduledCount();
 
    List<MessageReference> getScheduledReferences();
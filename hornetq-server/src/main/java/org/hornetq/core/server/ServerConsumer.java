@@ -46,6 +46,15 @@ public interface ServerConsumer extends Consumer
 
    void individualAcknowledge(boolean autoCommitAcks, Transaction tx, long messageID) throws Exception;
 
+   /**
+    * Acknowledges each of the messages like {@link #individualAcknowledge(boolean, Transaction, long)},
+    * in a single pass over the delivered references and, when acks are auto-committed, in a single
+    * transaction.
+    *
+    * @param messageIDs the message IDs, in ascending order
+    */
+   void individualAcknowledge(boolean autoCommitAcks, Transaction tx, long[] messageIDs) throws Exception;
+
    void forceDelivery(long sequence);
 
    void setTransferring(boolean transferring);
@@ -52,6 +52,11 @@ public interface ServerSession
 
    void individualAcknowledge(long consumerID, long messageID) throws Exception;
 
+   /**
+    * @param messageIDs the message IDs, in ascending order
+    */
+   void individualAcknowledge(long consumerID, long[] messageIDs) throws Exception;
+
    void expire(long consumerID, long messageID) throws Exception;
 
    void rollback(boolean considerLastMessageAsDelivered) throws Exception;
@@ -108,6 +113,12 @@ public interface ServerSession
 
    void send(ServerMessage message, boolean direct) throws Exception;
 
+   /**
+    * Sends each message like {@link #send(ServerMessage, boolean)}. A message that fails doesn't
+    * keep the ones after it from being sent; the first failure is thrown once all were tried.
+    */
+   void send(List<ServerMessage> messages, boolean direct) throws Exception;
+
    void sendLarge(MessageInternal msg) throws Exception;
 
    void forceConsumerDelivery(long consumerID, long sequence) throws Exception;
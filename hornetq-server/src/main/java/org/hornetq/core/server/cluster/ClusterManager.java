@@ -568,7 +568,11 @@ public final class ClusterManager implements HornetQComponent
                                      config.getUser(),
                                      config.getPassword(),
                                      !backup,
-                                     server.getStorageManager());
+                                     server.getStorageManager(),
+                                     1,
+                                     executorFactory,
+                                     config.getAckBatchSize(),
+                                     config.getAckBatchDelay());
 
       bridges.put(config.getName(), bridge);
 
@@ -720,7 +724,10 @@ public final class ClusterManager implements HornetQComponent
                                                        server.getConfiguration().getClusterPassword(),
                                                        config.isAllowDirectConnectionsOnly(),
                                                        config.getClusterNotificationInterval(),
-                                                       config.getClusterNotificationAttempts());
+                                                       config.getClusterNotificationAttempts(),
+                                                       config.getBridgeConnections(),
+                                                       config.getAckBatchSize(),
+                                                       config.getAckBatchDelay());
       }
       else
       {
@@ -762,7 +769,10 @@ public final class ClusterManager implements HornetQComponent
                                                        server.getConfiguration().getClusterPassword(),
                                                        config.isAllowDirectConnectionsOnly(),
                                                        config.getClusterNotificationInterval(),
-                                                       config.getClusterNotificationAttempts());
+                                                       config.getClusterNotificationAttempts(),
+                                                       config.getBridgeConnections(),
+                                                       config.getAckBatchSize(),
+                                                       config.getAckBatchDelay());
       }
 
       if (defaultClusterConnection == null)
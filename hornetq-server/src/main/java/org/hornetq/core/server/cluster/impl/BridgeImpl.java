@@ -14,13 +14,16 @@
 package org.hornetq.core.server.cluster.impl;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQExceptionType;
@@ -48,7 +51,10 @@ import org.hornetq.core.server.cluster.Bridge;
 import org.hornetq.core.server.cluster.Transformer;
 import org.hornetq.core.server.management.Notification;
 import org.hornetq.core.server.management.NotificationService;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.impl.TransactionImpl;
 import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.utils.ExecutorFactory;
 import org.hornetq.utils.FutureLatch;
 import org.hornetq.utils.ReusableLatch;
 import org.hornetq.utils.TypedProperties;
@@ -72,6 +78,9 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
    private static final boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
+   /** How many messages a connection may have waiting to be sent before the bridge reports itself busy */
+   private static final int MAX_PENDING_SENDS = 1000;
+
    // Attributes ----------------------------------------------------
 
    private static final SimpleString JMS_QUEUE_ADDRESS_PREFIX = new SimpleString("jms.queue.");
@@ -139,6 +148,37 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
    private NotificationService notificationService;
 
+   private final int connections;
+
+   private final ExecutorFactory executorFactory;
+
+   /**
+    * The connections messages are striped over when there are more than one, the first one is the
+    * bridge's own session.
+    */
+   private volatile Stripe[] stripes;
+
+   private volatile boolean stripesFull;
+
+   private final StorageManager storageManager;
+
+   /** How many confirmed messages are acknowledged on the queue in one transaction */
+   private final int ackBatchSize;
+
+   /** How long, in microseconds, a confirmed message may wait for its batch to fill up */
+   private final long ackBatchDelay;
+
+   /** References confirmed by the target and not yet acknowledged on the queue */
+   private final List<MessageReference> confirmedRefs = new ArrayList<MessageReference>();
+
+   private final Runnable acknowledgeConfirmedRunnable = new Runnable()
+   {
+      public void run()
+      {
+         acknowledgeConfirmed();
+      }
+   };
+
    public BridgeImpl(final ServerLocatorInternal serverLocator,
                      final int reconnectAttempts,
                      final long retryInterval,
@@ -156,7 +196,11 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
                      final String user,
                      final String password,
                      final boolean activated,
-                     final StorageManager storageManager) throws Exception
+                     final StorageManager storageManager,
+                     final int connections,
+                     final ExecutorFactory executorFactory,
+                     final int ackBatchSize,
+                     final long ackBatchDelay) throws Exception
    {
 
       this.reconnectAttempts = reconnectAttempts;
@@ -194,6 +238,16 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       this.password = password;
 
       this.activated = activated;
+
+      this.storageManager = storageManager;
+
+      this.connections = connections;
+
+      this.executorFactory = executorFactory;
+
+      this.ackBatchSize = ackBatchSize;
+
+      this.ackBatchDelay = ackBatchDelay;
    }
 
    public void setNotificationService(final NotificationService notificationService)
@@ -246,6 +300,19 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
          list.addFirst(ref);
       }
 
+      Stripe[] currentStripes = stripes;
+
+      if (currentStripes != null)
+      {
+         for (int i = 1; i < currentStripes.length; i++)
+         {
+            while ((ref = currentStripes[i].stripeRefs.poll()) != null)
+            {
+               list.addFirst(ref);
+            }
+         }
+      }
+
       if (isTrace && list.isEmpty())
       {
          HornetQServerLogger.LOGGER.trace("didn't have any references to cancel on bridge " + this);
@@ -276,6 +343,16 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       synchronized(this)
       {
          refList.addAll(refs);
+
+         Stripe[] currentStripes = stripes;
+
+         if (currentStripes != null)
+         {
+            for (int i = 1; i < currentStripes.length; i++)
+            {
+               refList.addAll(currentStripes[i].stripeRefs);
+            }
+         }
       }
    }
 
@@ -300,6 +377,8 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       {
          public void run()
          {
+            closeStripes(true);
+
             if (session != null)
             {
                try
@@ -440,26 +519,67 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   // For testing only
+   public RemotingConnection getStripeConnection(final int index)
+   {
+      Stripe[] currentStripes = stripes;
+
+      if (currentStripes == null || currentStripes[index] == null)
+      {
+         return null;
+      }
+      else
+      {
+         return currentStripes[index].stripeSession.getConnection();
+      }
+   }
+
    // SendAcknowledgementHandler implementation ---------------------
 
    public void sendAcknowledged(final Message message)
+   {
+      acknowledge(refs);
+   }
+
+   private void acknowledge(final java.util.Queue<MessageReference> sentRefs)
    {
       if (active)
       {
          try
          {
-            final MessageReference ref = refs.poll();
+            final MessageReference ref = sentRefs.poll();
 
             if (ref != null)
             {
                if (isTrace)
                {
-                  HornetQServerLogger.LOGGER.trace(this + " Acking " + ref + " on queue " + ref.getQueue());
+                  HornetQServerLogger.LOGGER.trace(this + " Confirmed " + ref + " on queue " + ref.getQueue());
+               }
+
+               int batchSize;
+
+               synchronized (confirmedRefs)
+               {
+                  confirmedRefs.add(ref);
+
+                  batchSize = confirmedRefs.size();
+               }
+
+               if (batchSize >= ackBatchSize)
+               {
+                  acknowledgeConfirmed();
+               }
+               else if (batchSize == 1)
+               {
+                  scheduledExecutor.schedule(acknowledgeConfirmedRunnable, ackBatchDelay, TimeUnit.MICROSECONDS);
                }
-               ref.getQueue().acknowledge(ref);
-               pendingAcks.countDown();
             }
          }
+         catch (RejectedExecutionException e)
+         {
+            // the server is stopping, there is no one left to wait for the batch
+            acknowledgeConfirmed();
+         }
          catch (Exception e)
          {
             HornetQServerLogger.LOGGER.bridgeFailedToAck(e);
@@ -467,6 +587,62 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   /**
+    * Acknowledges the confirmed references in a single transaction, so the journal syncs once for
+    * the whole batch instead of once per message.
+    */
+   private void acknowledgeConfirmed()
+   {
+      List<MessageReference> batch;
+
+      synchronized (confirmedRefs)
+      {
+         if (confirmedRefs.isEmpty())
+         {
+            return;
+         }
+
+         batch = new ArrayList<MessageReference>(confirmedRefs);
+
+         confirmedRefs.clear();
+      }
+
+      if (isTrace)
+      {
+         HornetQServerLogger.LOGGER.trace(this + " Acking " + batch.size() + " references on queue " + queue);
+      }
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      try
+      {
+         for (MessageReference ref : batch)
+         {
+            ref.getQueue().acknowledge(tx, ref);
+         }
+
+         tx.commit();
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.bridgeFailedToAck(e);
+
+         try
+         {
+            // the references go back to the queue, duplicate detection on the target catches them
+            tx.rollback();
+         }
+         catch (Exception e2)
+         {
+            HornetQServerLogger.LOGGER.debug(e2.getMessage(), e2);
+         }
+      }
+      finally
+      {
+         pendingAcks.countDown(batch.size());
+      }
+   }
+
    // Consumer implementation ---------------------------------------
 
    /* Hook for processing message before forwarding */
@@ -537,6 +713,11 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
             return HandleStatus.BUSY;
          }
 
+         if (connections > 1)
+         {
+            return handleStriped(ref);
+         }
+
          if (isTrace)
          {
             HornetQServerLogger.LOGGER.trace("Bridge " + this + " is handling reference=" + ref);
@@ -567,7 +748,7 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
             if (message.isLargeMessage())
             {
                deliveringLargeMessage = true;
-               deliverLargeMessage(dest, ref, (LargeServerMessage)message);
+               deliverLargeMessage(executor, producer, dest, ref, (LargeServerMessage)message);
                return HandleStatus.HANDLED;
             }
             else
@@ -584,6 +765,196 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   /**
+    * Hands the reference to the connection of its group, or of its address. The message is copied
+    * and sent on the executor of that connection, so the connections send in parallel.
+    */
+   private HandleStatus handleStriped(final MessageReference ref) throws Exception
+   {
+      Stripe[] currentStripes = stripes;
+
+      if (currentStripes == null || currentStripes[0].closed)
+      {
+         return HandleStatus.BUSY;
+      }
+
+      Stripe stripe = currentStripes[stripeIndex(ref.getMessage(), currentStripes.length)];
+
+      if (ref.getMessage().isLargeMessage())
+      {
+         // large messages go through the connection of their group too, after what it is already sending
+         if (isTrace)
+         {
+            HornetQServerLogger.LOGGER.trace("Bridge " + this + " is handling large reference=" + ref + " on " + stripe);
+         }
+
+         ref.handled();
+
+         stripe.stripeRefs.add(ref);
+
+         final ServerMessage message = beforeForward(ref.getMessage());
+
+         pendingAcks.countUp();
+
+         deliveringLargeMessage = true;
+         deliverLargeMessage(stripe.stripeExecutor, stripe.stripeProducer, getDestination(message), ref, (LargeServerMessage)message);
+
+         return HandleStatus.HANDLED;
+      }
+
+      if (stripe.pendingSends.get() >= MAX_PENDING_SENDS)
+      {
+         stripesFull = true;
+
+         // checked again, the stripe may have drained before seeing the flag
+         if (stripe.pendingSends.get() >= MAX_PENDING_SENDS)
+         {
+            return HandleStatus.BUSY;
+         }
+      }
+
+      if (isTrace)
+      {
+         HornetQServerLogger.LOGGER.trace("Bridge " + this + " is handling reference=" + ref + " on " + stripe);
+      }
+
+      ref.handled();
+
+      stripe.stripeRefs.add(ref);
+
+      pendingAcks.countUp();
+
+      stripe.pendingSends.incrementAndGet();
+
+      stripe.stripeExecutor.execute(new StripedSend(stripe, ref));
+
+      return HandleStatus.HANDLED;
+   }
+
+   private static int stripeIndex(final ServerMessage message, final int stripeCount)
+   {
+      SimpleString key = message.getSimpleStringProperty(Message.HDR_GROUP_ID);
+
+      if (key == null)
+      {
+         key = message.getAddress();
+      }
+
+      return (key.hashCode() & Integer.MAX_VALUE) % stripeCount;
+   }
+
+   private SimpleString getDestination(final ServerMessage message)
+   {
+      if (forwardingAddress != null)
+      {
+         return forwardingAddress;
+      }
+      else
+      {
+         // Preserve the original address
+         return message.getAddress();
+      }
+   }
+
+   /* Called when the bridge's session is ready, opens the other connections to the same server */
+   private void createStripes() throws Exception
+   {
+      Stripe[] newStripes = new Stripe[connections];
+
+      newStripes[0] = new Stripe(refs, null, session, producer, executorFactory.getExecutor());
+
+      try
+      {
+         for (int i = 1; i < connections; i++)
+         {
+            ClientSessionFactoryInternal stripeFactory =
+               (ClientSessionFactoryInternal)serverLocator.createSessionFactory(csf.getConnectorConfiguration(), 0, false);
+
+            ClientSessionInternal stripeSession;
+
+            try
+            {
+               // Session is pre-acknowledge
+               stripeSession = (ClientSessionInternal)stripeFactory.createSession(user, password, false, true, true, true, 1);
+            }
+            catch (HornetQException e)
+            {
+               stripeFactory.cleanup();
+               throw e;
+            }
+
+            Stripe stripe = new Stripe(new ConcurrentLinkedQueue<MessageReference>(),
+                                       stripeFactory,
+                                       stripeSession,
+                                       stripeSession.createProducer(),
+                                       executorFactory.getExecutor());
+
+            newStripes[i] = stripe;
+
+            stripeSession.addFailureListener(BridgeImpl.this);
+
+            stripeSession.setSendAcknowledgementHandler(stripe);
+         }
+      }
+      catch (Exception e)
+      {
+         stripes = newStripes;
+         closeStripes(true);
+         throw e;
+      }
+
+      stripes = newStripes;
+   }
+
+   /**
+    * Closes the connections messages are striped over, besides the bridge's own. Their references
+    * stay until the bridge cancels them.
+    */
+   private void closeStripes(final boolean failed)
+   {
+      Stripe[] currentStripes = stripes;
+
+      if (currentStripes == null)
+      {
+         return;
+      }
+
+      for (Stripe stripe : currentStripes)
+      {
+         if (stripe == null || stripe.closed)
+         {
+            continue;
+         }
+
+         stripe.closed = true;
+
+         if (stripe.stripeSessionFactory == null)
+         {
+            continue;
+         }
+
+         stripe.stripeSession.removeFailureListener(BridgeImpl.this);
+
+         try
+         {
+            if (failed)
+            {
+               stripe.stripeSession.cleanUp(false);
+            }
+            else
+            {
+               stripe.stripeSession.close();
+            }
+         }
+         catch (Exception dontcare)
+         {
+            HornetQServerLogger.LOGGER.debug(dontcare.getMessage(), dontcare);
+         }
+
+         cleanUpSessionFactory(stripe.stripeSessionFactory);
+      }
+   }
+
    // FailureListener implementation --------------------------------
 
    public void connectionFailed(final HornetQException me, boolean failedOver)
@@ -611,6 +982,8 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       {
       }
 
+      closeStripes(true);
+
       fail(me.getType() == HornetQExceptionType.DISCONNECTED);
 
       tryScheduleRetryReconnect(me.getType());
@@ -627,17 +1000,19 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       // fail(false);
    }
 
-    private void deliverLargeMessage(final SimpleString dest,
+   private void deliverLargeMessage(final Executor sendExecutor,
+                                    final ClientProducer sendProducer,
+                                    final SimpleString dest,
                                     final MessageReference ref,
                                     final LargeServerMessage message)
    {
-      executor.execute(new Runnable()
+      sendExecutor.execute(new Runnable()
       {
          public void run()
          {
             try
             {
-               producer.send(dest, message);
+               sendProducer.send(dest, message);
 
                // as soon as we are done sending the large message
                // we unset the delivery flag and we will call the deliveryAsync on the queue
@@ -844,6 +1219,11 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
          session.setSendAcknowledgementHandler(BridgeImpl.this);
 
+         if (connections > 1)
+         {
+            createStripes();
+         }
+
          afterConnect();
 
          active = true;
@@ -936,6 +1316,8 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
          {
          }
 
+      closeStripes(true);
+
 
       if (stopping)
          return;
@@ -984,6 +1366,8 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
 
             internalCancelReferences();
 
+            closeStripes(false);
+
             if (session != null)
             {
                HornetQServerLogger.LOGGER.debug("Cleaning up session " + session);
@@ -1088,6 +1472,129 @@ public class BridgeImpl implements Bridge, SessionFailureListener, SendAcknowled
       }
    }
 
+   /**
+    * One of the connections messages are striped over, with its own session, producer and
+    * confirmation window. Its references are acknowledged in the order they were sent.
+    */
+   private final class Stripe implements SendAcknowledgementHandler
+   {
+      private final java.util.Queue<MessageReference> stripeRefs;
+
+      /** null for the bridge's own session */
+      private final ClientSessionFactoryInternal stripeSessionFactory;
+
+      private final ClientSessionInternal stripeSession;
+
+      private final ClientProducer stripeProducer;
+
+      private final Executor stripeExecutor;
+
+      private final AtomicInteger pendingSends = new AtomicInteger();
+
+      private volatile boolean closed;
+
+      Stripe(final java.util.Queue<MessageReference> stripeRefs,
+             final ClientSessionFactoryInternal stripeSessionFactory,
+             final ClientSessionInternal stripeSession,
+             final ClientProducer stripeProducer,
+             final Executor stripeExecutor)
+      {
+         this.stripeRefs = stripeRefs;
+         this.stripeSessionFactory = stripeSessionFactory;
+         this.stripeSession = stripeSession;
+         this.stripeProducer = stripeProducer;
+         this.stripeExecutor = stripeExecutor;
+      }
+
+      public void sendAcknowledged(final Message message)
+      {
+         acknowledge(stripeRefs);
+      }
+
+      void sent()
+      {
+         if (pendingSends.decrementAndGet() < MAX_PENDING_SENDS && stripesFull)
+         {
+            stripesFull = false;
+
+            queue.deliverAsync();
+         }
+      }
+
+      @Override
+      public String toString()
+      {
+         return "Stripe [session=" + stripeSession + "]";
+      }
+   }
+
+   private final class StripedSend implements Runnable
+   {
+      private final Stripe stripe;
+
+      private final MessageReference ref;
+
+      StripedSend(final Stripe stripe, final MessageReference ref)
+      {
+         this.stripe = stripe;
+         this.ref = ref;
+      }
+
+      public void run()
+      {
+         try
+         {
+            if (stripe.closed)
+            {
+               // the bridge failed, the reference was cancelled with the others
+               pendingAcks.countDown();
+               return;
+            }
+
+            ServerMessage message = beforeForward(ref.getMessage());
+
+            if (isTrace)
+            {
+               HornetQServerLogger.LOGGER.trace("going to send message " + message + " on " + stripe);
+            }
+
+            stripe.stripeProducer.send(getDestination(message), message);
+         }
+         catch (Exception e)
+         {
+            pendingAcks.countDown();
+
+            if (stripe.closed)
+            {
+               return;
+            }
+
+            // it will never be acknowledged, it goes back to the queue ahead of the others
+            stripe.stripeRefs.remove(ref);
+
+            HornetQServerLogger.LOGGER.bridgeUnableToSendMessage(e, ref);
+
+            try
+            {
+               ref.getQueue().cancel(ref, System.currentTimeMillis());
+            }
+            catch (Exception e2)
+            {
+               HornetQServerLogger.LOGGER.errorCancellingRefOnBridge(e2, ref);
+            }
+
+            if (e instanceof HornetQException)
+            {
+               connectionFailed((HornetQException)e, false);
+            }
+         }
+         finally
+         {
+            stripe.sent();
+         }
+      }
+   }
+
    private static final class ConnectRunnable implements Runnable
    {
       private final BridgeImpl bridge;
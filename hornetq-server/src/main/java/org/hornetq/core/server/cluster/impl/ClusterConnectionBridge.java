@@ -41,6 +41,7 @@ import org.hornetq.core.server.cluster.ClusterConnection;
 import org.hornetq.core.server.cluster.ClusterManager;
 import org.hornetq.core.server.cluster.MessageFlowRecord;
 import org.hornetq.core.server.cluster.Transformer;
+import org.hornetq.utils.ExecutorFactory;
 import org.hornetq.utils.UUID;
 import org.hornetq.utils.UUIDGenerator;
 
@@ -98,7 +99,11 @@ public class ClusterConnectionBridge extends BridgeImpl
                                   final SimpleString managementAddress,
                                   final SimpleString managementNotificationAddress,
                                   final MessageFlowRecord flowRecord,
-                                  final TransportConfiguration connector) throws Exception
+                                  final TransportConfiguration connector,
+                                  final int connections,
+                                  final ExecutorFactory executorFactory,
+                                  final int ackBatchSize,
+                                  final long ackBatchDelay) throws Exception
    {
       super(targetLocator,
             reconnectAttempts,
@@ -117,7 +122,11 @@ public class ClusterConnectionBridge extends BridgeImpl
             user,
             password,
             activated,
-            storageManager);
+            storageManager,
+            connections,
+            executorFactory,
+            ackBatchSize,
+            ackBatchDelay);
 
       this.discoveryLocator = discoveryLocator;
 
@@ -168,6 +168,9 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
    private LiveNotifier liveNotifier = null;
    private final long clusterNotificationInterval;
    private final int clusterNotificationAttempts;
+   private final int bridgeConnections;
+   private final int ackBatchSize;
+   private final long ackBatchDelay;
 
    /**
     * @param staticTranspConfigs notice if {@code null} this is a cluster which won't connect to
@@ -203,7 +206,10 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                                 final String clusterPassword,
                                 final boolean allowDirectConnectionsOnly,
                                 final long clusterNotificationInterval,
-                                final int clusterNotificationAttempts) throws Exception
+                                final int clusterNotificationAttempts,
+                                final int bridgeConnections,
+                                final int ackBatchSize,
+                                final long ackBatchDelay) throws Exception
    {
       this.nodeManager = nodeManager;
 
@@ -237,6 +243,12 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
       this.clusterNotificationAttempts = clusterNotificationAttempts;
 
+      this.bridgeConnections = bridgeConnections;
+
+      this.ackBatchSize = ackBatchSize;
+
+      this.ackBatchDelay = ackBatchDelay;
+
       this.executor = executorFactory.getExecutor();
 
       this.threadPool = threadPool;
@@ -332,7 +344,10 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                                 final String clusterPassword,
                                 final boolean allowDirectConnectionsOnly,
                                 final long clusterNotificationInterval,
-                                final int clusterNotificationAttempts) throws Exception
+                                final int clusterNotificationAttempts,
+                                final int bridgeConnections,
+                                final int ackBatchSize,
+                                final long ackBatchDelay) throws Exception
    {
       this.nodeManager = nodeManager;
 
@@ -372,6 +387,12 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
 
       this.clusterNotificationAttempts = clusterNotificationAttempts;
 
+      this.bridgeConnections = bridgeConnections;
+
+      this.ackBatchSize = ackBatchSize;
+
+      this.ackBatchDelay = ackBatchDelay;
+
       this.executor = executorFactory.getExecutor();
 
       this.threadPool = threadPool;
@@ -1041,7 +1062,11 @@ public final class ClusterConnectionImpl implements ClusterConnection, AfterConn
                                                                    managementService.getManagementAddress(),
                                                                    managementService.getManagementNotificationAddress(),
                                                                    record,
-                                                                   record.getConnector());
+                                                                   record.getConnector(),
+                                                                   bridgeConnections,
+                                                                   executorFactory,
+                                                                   ackBatchSize,
+                                                                   ackBatchDelay);
 
       targetLocator.setIdentity("(Cluster-connection-bridge::" + bridge.toString() + "::" + this.toString() + ")");
 
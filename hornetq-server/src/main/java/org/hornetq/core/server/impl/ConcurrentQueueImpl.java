@@ -0,0 +1,360 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.paging.cursor.PageSubscription;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
+import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
+import org.hornetq.core.postoffice.PostOffice;
+import org.hornetq.core.server.HornetQServerLogger;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.settings.HierarchicalRepository;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.impl.TransactionImpl;
+import org.hornetq.utils.LinkedListIterator;
+
+/**
+ * A queue for many concurrent producers and consumers, configured with the
+ * {@code concurrent-queue} address setting.
+ * <p>
+ * Producers never take the queue lock: they only add to the intermediate references, which the
+ * queue executor drains into the queue in batches before delivering. Management operations detach
+ * the matching references from the queue while holding the lock, and do the storage and routing
+ * work on that snapshot once the lock is released, so delivery goes on meanwhile.
+ */
+public class ConcurrentQueueImpl extends QueueImpl
+{
+   private static final int MAX_POLL_BATCH = 1000;
+
+   private static final int TX_BATCH_SIZE = 500;
+
+   private final PostOffice postOffice;
+
+   public ConcurrentQueueImpl(final long persistenceID,
+                              final SimpleString address,
+                              final SimpleString name,
+                              final Filter filter,
+                              final PageSubscription pageSubscription,
+                              final boolean durable,
+                              final boolean temporary,
+                              final ScheduledExecutorService scheduledExecutor,
+                              final TimingWheel timingWheel,
+                              final ScheduledSpillStore spillStore,
+                              final PostOffice postOffice,
+                              final StorageManager storageManager,
+                              final HierarchicalRepository<AddressSettings> addressSettingsRepository,
+                              final Executor executor)
+   {
+      super(persistenceID,
+            address,
+            name,
+            filter,
+            pageSubscription,
+            durable,
+            temporary,
+            scheduledExecutor,
+            timingWheel,
+            spillStore,
+            postOffice,
+            storageManager,
+            addressSettingsRepository,
+            executor);
+
+      this.postOffice = postOffice;
+   }
+
+   /**
+    * Never delivers on the producer's thread, as that would take the queue lock.
+    */
+   @Override
+   public void addTail(final MessageReference ref, final boolean direct)
+   {
+      super.addTail(ref, false);
+   }
+
+   @Override
+   protected void doPoll()
+   {
+      MessageReference ref = intermediateMessageReferences.poll();
+
+      if (ref == null)
+      {
+         // every added reference schedules a poll, an earlier one already drained it
+         return;
+      }
+
+      synchronized (this)
+      {
+         int polled = 0;
+
+         do
+         {
+            internalAddTail(ref);
+
+            messagesAdded.incrementAndGet();
+
+            polled++;
+         }
+         while (polled < MAX_POLL_BATCH && (ref = intermediateMessageReferences.poll()) != null);
+
+         // if the queue had references already, a delivery is pending on them
+         if (consumerWithFilterCount.get() > 0 || getNumberOfReferences() == polled)
+         {
+            deliver();
+         }
+      }
+   }
+
+   @Override
+   public int deleteMatchingReferences(final Filter filter) throws Exception
+   {
+      int count = processDetached(detach(filter), new QueueIterateAction()
+      {
+         @Override
+         public void actMessage(Transaction tx, MessageReference ref) throws Exception
+         {
+            acknowledge(tx, ref);
+         }
+      });
+
+      // the scheduled and paged references, and whatever arrived meanwhile
+      return count + super.deleteMatchingReferences(filter);
+   }
+
+   @Override
+   public int expireReferences(final Filter filter) throws Exception
+   {
+      return processDetached(detach(filter), new QueueIterateAction()
+      {
+         @Override
+         public void actMessage(Transaction tx, MessageReference ref) throws Exception
+         {
+            expire(tx, ref);
+         }
+      });
+   }
+
+   @Override
+   public void expireReferences()
+   {
+      getExecutor().execute(new Runnable()
+      {
+         public void run()
+         {
+            List<MessageReference> expired = new ArrayList<MessageReference>();
+
+            boolean hasElements = false;
+
+            synchronized (ConcurrentQueueImpl.this)
+            {
+               LinkedListIterator<MessageReference> iter = iterator();
+
+               try
+               {
+                  while (iter.hasNext())
+                  {
+                     hasElements = true;
+
+                     MessageReference ref = iter.next();
+
+                     if (ref.getMessage().isExpired())
+                     {
+                        iter.remove();
+                        refRemoved(ref);
+                        deliveringCount.incrementAndGet();
+                        expired.add(ref);
+                     }
+                  }
+               }
+               finally
+               {
+                  iter.close();
+               }
+            }
+
+            for (MessageReference ref : expired)
+            {
+               try
+               {
+                  expire(ref);
+               }
+               catch (Exception e)
+               {
+                  HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, ref);
+
+                  deliveringCount.decrementAndGet();
+
+                  addHead(ref);
+               }
+            }
+
+            // If empty we need to schedule depaging to make sure we would depage expired messages as well
+            if (!hasElements || !expired.isEmpty())
+            {
+               synchronized (ConcurrentQueueImpl.this)
+               {
+                  scheduleExpiryDepage();
+               }
+            }
+         }
+      });
+   }
+
+   @Override
+   public int sendMessagesToDeadLetterAddress(final Filter filter) throws Exception
+   {
+      return processDetached(detach(filter), new QueueIterateAction()
+      {
+         @Override
+         public void actMessage(Transaction tx, MessageReference ref) throws Exception
+         {
+            sendToDeadLetterAddress(ref);
+         }
+      });
+   }
+
+   @Override
+   public int moveReferences(final Filter filter,
+                             final SimpleString toAddress,
+                             final boolean rejectDuplicates) throws Exception
+   {
+      final DuplicateIDCache targetDuplicateCache = postOffice.getDuplicateIDCache(toAddress);
+
+      int count = processDetached(detach(filter), new QueueIterateAction()
+      {
+         @Override
+         public void actMessage(Transaction tx, MessageReference ref) throws Exception
+         {
+            move(toAddress, tx, ref, targetDuplicateCache, rejectDuplicates);
+         }
+      });
+
+      // the scheduled and paged references, and whatever arrived meanwhile
+      return count + super.moveReferences(filter, toAddress, rejectDuplicates);
+   }
+
+   /**
+    * Removes the references matching the filter from the queue, counting them as delivering until
+    * they are acted on. Scheduled and paged references are left to the caller.
+    */
+   private synchronized List<MessageReference> detach(final Filter filter)
+   {
+      List<MessageReference> refs = new ArrayList<MessageReference>();
+
+      LinkedListIterator<MessageReference> iter = iterator();
+
+      try
+      {
+         while (iter.hasNext())
+         {
+            MessageReference ref = iter.next();
+
+            if (ref.isPaged() && getPageSubscription() == null)
+            {
+               // the queue is being removed, paged references go away with the page cleanup
+               continue;
+            }
+
+            if (filter == null || filter.match(ref.getMessage()))
+            {
+               iter.remove();
+               refRemoved(ref);
+               deliveringCount.incrementAndGet();
+               refs.add(ref);
+            }
+         }
+      }
+      finally
+      {
+         iter.close();
+      }
+
+      return refs;
+   }
+
+   /**
+    * Acts on detached references outside the queue lock, committing every {@link #TX_BATCH_SIZE}
+    * references. On failure the ones not acted on yet go back to the head of the queue, and the
+    * uncommitted ones are rolled back.
+    */
+   private int processDetached(final List<MessageReference> refs, final QueueIterateAction action) throws Exception
+   {
+      Transaction tx = new TransactionImpl(storageManager);
+
+      int txCount = 0;
+
+      int done = 0;
+
+      try
+      {
+         for (MessageReference ref : refs)
+         {
+            action.actMessage(tx, ref);
+
+            done++;
+
+            if (++txCount == TX_BATCH_SIZE)
+            {
+               tx.commit();
+               tx = new TransactionImpl(storageManager);
+               txCount = 0;
+            }
+         }
+
+         if (txCount > 0)
+         {
+            tx.commit();
+         }
+
+         return done;
+      }
+      catch (Exception e)
+      {
+         LinkedList<MessageReference> remaining = new LinkedList<MessageReference>();
+
+         for (MessageReference ref : refs.subList(done, refs.size()))
+         {
+            deliveringCount.decrementAndGet();
+
+            remaining.addFirst(ref);
+         }
+
+         if (!remaining.isEmpty())
+         {
+            addHead(remaining);
+         }
+
+         // the rollback puts its references back ahead of the remaining ones, keeping the order
+         try
+         {
+            tx.rollback();
+         }
+         catch (Exception e2)
+         {
+            HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
+         }
+
+         throw e;
+      }
+   }
+}
@@ -84,6 +84,7 @@ import org.hornetq.core.paging.PagingManager;
 import org.hornetq.core.paging.cursor.PageSubscription;
 import org.hornetq.core.paging.impl.PagingManagerImpl;
 import org.hornetq.core.paging.impl.PagingStoreFactoryNIO;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
 import org.hornetq.core.persistence.GroupingInfo;
 import org.hornetq.core.persistence.QueueBindingInfo;
 import org.hornetq.core.persistence.StorageManager;
@@ -217,6 +218,8 @@ public class HornetQServerImpl implements HornetQServer
 
    private volatile PagingManager pagingManager;
 
+   private volatile ScheduledSpillStore scheduledSpillStore;
+
    private volatile PostOffice postOffice;
 
    private volatile ExecutorService threadPool;
@@ -647,6 +650,8 @@ public class HornetQServerImpl implements HornetQServer
 
          stopComponent(postOffice);
 
+         stopComponent(scheduledSpillStore);
+
          if (scheduledPool != null)
          {
             // we just interrupt all running tasks, these are supposed to be pings and the like.
@@ -686,6 +691,7 @@ public class HornetQServerImpl implements HornetQServer
          scheduledPool = null;
 
          pagingManager = null;
+         scheduledSpillStore = null;
          securityStore = null;
          resourceManager = null;
          replicationManager = null;
@@ -1286,7 +1292,8 @@ public class HornetQServerImpl implements HornetQServer
          scheduledPool,
          executorFactory,
          configuration.isJournalSyncNonTransactional(),
-         shutdownOnCriticalIO),
+         shutdownOnCriticalIO,
+         configuration.getJournalType() == JournalType.MAPPED),
       addressSettingsRepository);
    }
 
@@ -1395,7 +1402,18 @@ public class HornetQServerImpl implements HornetQServer
          configuration.getClusterPassword(),
          managementService);
 
-      queueFactory = new QueueFactoryImpl(executorFactory, scheduledPool, addressSettingsRepository, storageManager);
+      if (configuration.getScheduledSpillDelay() >= 0)
+      {
+         scheduledSpillStore = new ScheduledSpillStore(new File(configuration.getPagingDirectory(),
+                                                                ScheduledSpillStore.DIRECTORY),
+                                                       configuration.getScheduledSpillDelay());
+      }
+
+      queueFactory = new QueueFactoryImpl(executorFactory,
+                                          scheduledPool,
+                                          addressSettingsRepository,
+                                          storageManager,
+                                          scheduledSpillStore);
 
       pagingManager = createPagingManager();
 
@@ -1411,6 +1429,8 @@ public class HornetQServerImpl implements HornetQServer
          configuration.getMessageExpiryThreadPriority(),
          configuration.isWildcardRoutingEnabled(),
          configuration.getIDCacheSize(),
+         configuration.getIDCacheWindow(),
+         configuration.getIDCacheRate(),
          configuration.isPersistIDCache(),
          addressSettingsRepository);
 
@@ -1497,6 +1517,12 @@ public class HornetQServerImpl implements HornetQServer
 
       pagingManager.reloadStores();
 
+      // only once the server is live, a backup shares the paging directory of its live server
+      if (scheduledSpillStore != null)
+      {
+         scheduledSpillStore.start();
+      }
+
       JournalLoadInformation[] journalInfo = loadJournals();
 
       final ServerInfo dumper = new ServerInfo(this, pagingManager);
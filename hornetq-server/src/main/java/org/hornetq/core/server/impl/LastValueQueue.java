@@ -22,6 +22,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.message.impl.MessageImpl;
 import org.hornetq.core.paging.cursor.PageSubscription;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
 import org.hornetq.core.persistence.StorageManager;
 import org.hornetq.core.postoffice.PostOffice;
 import org.hornetq.core.server.HornetQServerLogger;
@@ -54,6 +55,8 @@ public class LastValueQueue extends QueueImpl
                          final boolean durable,
                          final boolean temporary,
                          final ScheduledExecutorService scheduledExecutor,
+                         final TimingWheel timingWheel,
+                         final ScheduledSpillStore spillStore,
                          final PostOffice postOffice,
                          final StorageManager storageManager,
                          final HierarchicalRepository<AddressSettings> addressSettingsRepository,
@@ -67,6 +70,8 @@ public class LastValueQueue extends QueueImpl
             durable,
             temporary,
             scheduledExecutor,
+            timingWheel,
+            spillStore,
             postOffice,
             storageManager,
             addressSettingsRepository,
@@ -18,6 +18,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.paging.cursor.PageSubscription;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
 import org.hornetq.core.persistence.StorageManager;
 import org.hornetq.core.postoffice.PostOffice;
 import org.hornetq.core.server.Queue;
@@ -40,6 +41,12 @@ public class QueueFactoryImpl implements QueueFactory
 
    private final ScheduledExecutorService scheduledExecutor;
 
+   /** Shared by all the queues, so the scheduled executor only sees the ticks holding scheduled messages */
+   private final TimingWheel timingWheel;
+
+   /** Shared by all the queues too, null unless scheduled messages are spilled */
+   private final ScheduledSpillStore spillStore;
+
    /** This is required for delete-all-reference to work correctly with paging, and controlling global-size */
    private PostOffice postOffice;
 
@@ -50,12 +57,17 @@ public class QueueFactoryImpl implements QueueFactory
    public QueueFactoryImpl(final ExecutorFactory executorFactory,
                            final ScheduledExecutorService scheduledExecutor,
                            final HierarchicalRepository<AddressSettings> addressSettingsRepository,
-                           final StorageManager storageManager)
+                           final StorageManager storageManager,
+                           final ScheduledSpillStore spillStore)
    {
       this.addressSettingsRepository = addressSettingsRepository;
 
       this.scheduledExecutor = scheduledExecutor;
 
+      timingWheel = new TimingWheel(scheduledExecutor);
+
+      this.spillStore = spillStore;
+
       this.storageManager = storageManager;
 
       this.executorFactory = executorFactory;
@@ -87,11 +99,30 @@ public class QueueFactoryImpl implements QueueFactory
                                     durable,
                                     temporary,
                                     scheduledExecutor,
+                                    timingWheel,
+                                    spillStore,
                                     postOffice,
                                     storageManager,
                                     addressSettingsRepository,
                                     executorFactory.getExecutor());
       }
+      else if (addressSettings.isConcurrentQueue())
+      {
+         queue = new ConcurrentQueueImpl(persistenceID,
+                                         address,
+                                         name,
+                                         filter,
+                                         pageSubscription,
+                                         durable,
+                                         temporary,
+                                         scheduledExecutor,
+                                         timingWheel,
+                                         spillStore,
+                                         postOffice,
+                                         storageManager,
+                                         addressSettingsRepository,
+                                         executorFactory.getExecutor());
+      }
       else
       {
          queue = new QueueImpl(persistenceID,
@@ -102,6 +133,8 @@ public class QueueFactoryImpl implements QueueFactory
                                durable,
                                temporary,
                                scheduledExecutor,
+                               timingWheel,
+                               spillStore,
                                postOffice,
                                storageManager,
                                addressSettingsRepository,
@@ -39,6 +39,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
 import org.hornetq.core.paging.cursor.PageSubscription;
 import org.hornetq.core.paging.cursor.PagedReference;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
 import org.hornetq.core.persistence.StorageManager;
 import org.hornetq.core.postoffice.Bindings;
 import org.hornetq.core.postoffice.DuplicateIDCache;
@@ -112,7 +113,7 @@ public class QueueImpl implements Queue
    // Messages will first enter intermediateMessageReferences
    // Before they are added to messageReferences
    // This is to avoid locking the queue on the producer
-   private final ConcurrentLinkedQueue<MessageReference> intermediateMessageReferences = new ConcurrentLinkedQueue<MessageReference>();
+   protected final ConcurrentLinkedQueue<MessageReference> intermediateMessageReferences = new ConcurrentLinkedQueue<MessageReference>();
 
    // This is where messages are stored
    private final PriorityLinkedList<MessageReference> messageReferences = new PriorityLinkedListImpl<MessageReference>(QueueImpl.NUM_PRIORITIES);
@@ -127,7 +128,7 @@ public class QueueImpl implements Queue
 
    private final ScheduledDeliveryHandler scheduledDeliveryHandler;
 
-   private long messagesAdded;
+   protected final AtomicLong messagesAdded = new AtomicLong(0);
 
    protected final AtomicInteger deliveringCount = new AtomicInteger(0);
 
@@ -137,7 +138,7 @@ public class QueueImpl implements Queue
 
    private volatile boolean depagePending = false;
 
-   private final StorageManager storageManager;
+   protected final StorageManager storageManager;
 
    private final HierarchicalRepository<AddressSettings> addressSettingsRepository;
 
@@ -165,7 +166,7 @@ public class QueueImpl implements Queue
 
    private final Executor executor;
 
-   private final AtomicInteger consumerWithFilterCount = new AtomicInteger();
+   protected final AtomicInteger consumerWithFilterCount = new AtomicInteger();
 
    private final Runnable concurrentPoller = new ConcurrentPoller();
 
@@ -261,6 +262,43 @@ public class QueueImpl implements Queue
                     final StorageManager storageManager,
                     final HierarchicalRepository<AddressSettings> addressSettingsRepository,
                     final Executor executor)
+   {
+      this(id,
+           address,
+           name,
+           filter,
+           pageSubscription,
+           durable,
+           temporary,
+           scheduledExecutor,
+           scheduledExecutor == null ? null : new TimingWheel(scheduledExecutor),
+           null,
+           postOffice,
+           storageManager,
+           addressSettingsRepository,
+           executor);
+   }
+
+   /**
+    * @param timingWheel schedules the deliveries of scheduled messages, it is shared by the queues
+    *           of the server
+    * @param spillStore keeps the messages of references scheduled far in the future on disk, or
+    *           {@code null} to keep them in memory
+    */
+   public QueueImpl(final long id,
+                    final SimpleString address,
+                    final SimpleString name,
+                    final Filter filter,
+                    final PageSubscription pageSubscription,
+                    final boolean durable,
+                    final boolean temporary,
+                    final ScheduledExecutorService scheduledExecutor,
+                    final TimingWheel timingWheel,
+                    final ScheduledSpillStore spillStore,
+                    final PostOffice postOffice,
+                    final StorageManager storageManager,
+                    final HierarchicalRepository<AddressSettings> addressSettingsRepository,
+                    final Executor executor)
    {
       this.id = id;
 
@@ -284,7 +322,7 @@ public class QueueImpl implements Queue
 
       this.scheduledExecutor = scheduledExecutor;
 
-      scheduledDeliveryHandler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+      scheduledDeliveryHandler = new ScheduledDeliveryHandlerImpl(timingWheel, spillStore);
 
       if (addressSettingsRepository != null)
       {
@@ -399,14 +437,15 @@ public class QueueImpl implements Queue
    public synchronized void reload(final MessageReference ref)
    {
       queueMemorySize.addAndGet(ref.getMessageMemoryEstimate());
-      if (!scheduledDeliveryHandler.checkAndSchedule(ref, true))
+      // the message may not be routed to every queue yet, it is spilled once the queue resumes
+      if (!scheduledDeliveryHandler.checkAndSchedule(ref, true, false))
       {
          internalAddTail(ref);
       }
 
       directDeliver = false;
 
-      messagesAdded++;
+      messagesAdded.incrementAndGet();
    }
 
    public void addTail(final MessageReference ref)
@@ -418,10 +457,7 @@ public class QueueImpl implements Queue
    {
       if (scheduledDeliveryHandler.checkAndSchedule(ref, true))
       {
-         synchronized (this)
-         {
-            messagesAdded++;
-         }
+         messagesAdded.incrementAndGet();
 
          return;
       }
@@ -699,6 +735,11 @@ public class QueueImpl implements Queue
             continue;
          }
 
+         if (holder.selectorKey != null && !holder.selectorKey.canMatch(message))
+         {
+            continue;
+         }
+
          Filter filter1 = consumer.getFilter();
 
          if (filter1 == null)
@@ -1032,11 +1073,11 @@ public class QueueImpl implements Queue
       {
          if (pageSubscription != null)
          {
-            return messagesAdded + pageSubscription.getCounter().getValue() - pagedReferences.get();
+            return messagesAdded.get() + pageSubscription.getCounter().getValue() - pagedReferences.get();
          }
          else
          {
-            return messagesAdded;
+            return messagesAdded.get();
          }
       }
     }
@@ -1440,30 +1481,38 @@ public class QueueImpl implements Queue
          @Override
          public void actMessage(Transaction tx, MessageReference ref) throws Exception
          {
-            boolean ignored = false;
-
             deliveringCount.incrementAndGet();
 
-            if (rejectDuplicates)
-            {
-               byte[] duplicateBytes = ref.getMessage().getDuplicateIDBytes();
-               if (duplicateBytes != null)
-               {
-                  if (targetDuplicateCache.contains(duplicateBytes))
-                  {
-                     HornetQServerLogger.LOGGER.messageWithDuplicateID(ref.getMessage().getDuplicateProperty(), toAddress, address, address);
-                     acknowledge(tx, ref);
-                     ignored = true;
-                  }
-               }
-            }
+            move(toAddress, tx, ref, targetDuplicateCache, rejectDuplicates);
+         }
+      });
+   }
 
-            if (!ignored)
+   /**
+    * Moves the reference to the address, or just acks it when rejecting duplicates and the target
+    * already has its duplicate ID. The reference must already be counted as delivering.
+    */
+   protected void move(final SimpleString toAddress,
+                       final Transaction tx,
+                       final MessageReference ref,
+                       final DuplicateIDCache targetDuplicateCache,
+                       final boolean rejectDuplicates) throws Exception
+   {
+      if (rejectDuplicates)
+      {
+         byte[] duplicateBytes = ref.getMessage().getDuplicateIDBytes();
+         if (duplicateBytes != null)
+         {
+            if (targetDuplicateCache.contains(duplicateBytes))
             {
-               move(toAddress, tx, ref, false, rejectDuplicates);
+               HornetQServerLogger.LOGGER.messageWithDuplicateID(ref.getMessage().getDuplicateProperty(), toAddress, address, address);
+               acknowledge(tx, ref);
+               return;
             }
          }
-      });
+      }
+
+      move(toAddress, tx, ref, false, rejectDuplicates);
    }
 
    public synchronized boolean changeReferencePriority(final long messageID, final byte newPriority) throws Exception
@@ -1542,6 +1591,9 @@ public class QueueImpl implements Queue
    {
       paused = false;
 
+      // the references reloaded while the queue was paused
+      scheduledDeliveryHandler.spillScheduled();
+
       deliverAsync();
    }
 
@@ -1606,7 +1658,7 @@ public class QueueImpl implements Queue
     * as I'm not 100% sure this won't cause any extra runtime.
     * @param ref
     */
-   private void internalAddTail(final MessageReference ref)
+   protected void internalAddTail(final MessageReference ref)
    {
       refAdded(ref);
       messageReferences.addTail(ref, ref.getMessage().getPriority());
@@ -1625,7 +1677,7 @@ public class QueueImpl implements Queue
       messageReferences.addHead(ref, ref.getMessage().getPriority());
    }
 
-   private synchronized void doPoll()
+   protected synchronized void doPoll()
    {
       MessageReference ref = intermediateMessageReferences.poll();
 
@@ -1633,7 +1685,7 @@ public class QueueImpl implements Queue
       {
          internalAddTail(ref);
 
-         messagesAdded++;
+         messagesAdded.incrementAndGet();
 
          if (consumerWithFilterCount.get() > 0 || messageReferences.size() == 1)
          {
@@ -1646,7 +1698,7 @@ public class QueueImpl implements Queue
     * This method will deliver as many messages as possible until all consumers are busy or there
     * are no more matching or available messages.
     */
-   private void deliver()
+   protected void deliver()
    {
       synchronized (this)
       {
@@ -1672,11 +1724,14 @@ public class QueueImpl implements Queue
 
          int handled = 0;
 
+         // references passed over by selective consumers, they count against the loop budget too
+         int skipped = 0;
+
          long timeout = System.currentTimeMillis() + DELIVERY_TIMEOUT;
 
          while (handled < numRefs)
          {
-            if (handled == MAX_DELIVERIES_IN_LOOP)
+            if (handled + skipped >= MAX_DELIVERIES_IN_LOOP)
             {
                // Schedule another one - we do this to prevent a single thread getting caught up in this loop for too
                // long
@@ -1707,15 +1762,31 @@ public class QueueImpl implements Queue
                holder.iter = messageReferences.iterator();
             }
 
-            MessageReference ref;
+            MessageReference ref = null;
 
-            if (holder.iter.hasNext())
+            while (holder.iter.hasNext())
             {
+               if (handled + skipped >= MAX_DELIVERIES_IN_LOOP || System.currentTimeMillis() > timeout)
+               {
+                  // The consumer's iterator keeps its position, another delivery carries on from there
+                  deliverAsync();
+
+                  return;
+               }
+
                ref = holder.iter.next();
-            }
-            else
-            {
+
+               // Skip over the references the consumer's selector can't match, this is cheaper than
+               // handing them to the consumer and going round robin for each of them.
+               // Expired references are still taken so they get expired
+               if (holder.canMatch(ref) || ref.getMessage().isExpired())
+               {
+                  break;
+               }
+
                ref = null;
+
+               skipped++;
             }
 
             if (ref == null)
@@ -1820,7 +1891,7 @@ public class QueueImpl implements Queue
    /**
     * @param ref
     */
-   private void refRemoved(MessageReference ref)
+   protected void refRemoved(MessageReference ref)
    {
       queueMemorySize.addAndGet(-ref.getMessageMemoryEstimate());
       if (ref.isPaged())
@@ -1840,6 +1911,18 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * Schedules a depage expiring the paged messages, if any are left. The caller requires
+    * synchronized on the queue.
+    */
+   protected void scheduleExpiryDepage()
+   {
+      if (pageIterator != null && pageIterator.hasNext())
+      {
+         scheduleDepage(true);
+      }
+   }
+
    private void scheduleDepage(final boolean scheduleExpiry)
    {
       if (!depagePending)
@@ -2039,7 +2122,7 @@ public class QueueImpl implements Queue
       return copy;
    }
 
-   private void expire(final Transaction tx, final MessageReference ref) throws Exception
+   protected void expire(final Transaction tx, final MessageReference ref) throws Exception
    {
       SimpleString expiryAddress = addressSettingsRepository.getMatch(address.toString()).getExpiryAddress();
 
@@ -2065,7 +2148,7 @@ public class QueueImpl implements Queue
    }
 
 
-   private void sendToDeadLetterAddress(final MessageReference ref) throws Exception
+   protected void sendToDeadLetterAddress(final MessageReference ref) throws Exception
    {
       sendToDeadLetterAddress(ref, addressSettingsRepository.getMatch(address.toString()).getDeadLetterAddress());
    }
@@ -2158,7 +2241,16 @@ public class QueueImpl implements Queue
             pos = 0;
          }
 
-         HandleStatus status = handle(ref, consumer);
+         HandleStatus status;
+
+         if (groupConsumer == null && !holder.canMatch(ref))
+         {
+            status = HandleStatus.NO_MATCH;
+         }
+         else
+         {
+            status = handle(ref, consumer);
+         }
 
          if (status == HandleStatus.HANDLED)
          {
@@ -2167,7 +2259,7 @@ public class QueueImpl implements Queue
                groups.put(groupID, consumer);
             }
 
-            messagesAdded++;
+            messagesAdded.incrementAndGet();
 
             return true;
          }
@@ -2338,12 +2430,20 @@ public class QueueImpl implements Queue
       ConsumerHolder(final Consumer consumer)
       {
          this.consumer = consumer;
+         selectorKey = SelectorKey.forFilter(consumer.getFilter());
       }
 
       final Consumer consumer;
 
+      /** null unless the consumer's filter requires some property values */
+      final SelectorKey selectorKey;
+
       LinkedListIterator<MessageReference> iter;
 
+      boolean canMatch(final MessageReference ref)
+      {
+         return selectorKey == null || selectorKey.canMatch(ref.getMessage());
+      }
    }
 
    private final class RefsOperation extends TransactionOperationAbstract
@@ -17,11 +17,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.hornetq.core.filter.Filter;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
+import org.hornetq.core.paging.impl.ScheduledSpillStore.SpilledReference;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.MessageReference;
 import org.hornetq.core.server.Queue;
@@ -39,56 +42,114 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 {
    private static final boolean trace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
-   private final ScheduledExecutorService scheduledExecutor;
+   private final TimingWheel timingWheel;
+
+   // null unless the messages of references due far in the future are spilled to disk
+   private final ScheduledSpillStore spillStore;
 
    private final Object lockDelivery = new Object();
 
-   private final LinkedList<MessageReference> scheduledReferences = new LinkedList<MessageReference>();
+   // the references by the tick of the timing wheel they are due on, only one task per tick is
+   // scheduled on the wheel
+   private final TreeMap<Long, LinkedList<MessageReference>> scheduledReferences = new TreeMap<Long, LinkedList<MessageReference>>();
+
+   private int scheduledCount;
+
+   public ScheduledDeliveryHandlerImpl(final TimingWheel timingWheel)
+   {
+      this(timingWheel, null);
+   }
 
-   public ScheduledDeliveryHandlerImpl(final ScheduledExecutorService scheduledExecutor)
+   public ScheduledDeliveryHandlerImpl(final TimingWheel timingWheel, final ScheduledSpillStore spillStore)
    {
-      this.scheduledExecutor = scheduledExecutor;
+      this.timingWheel = timingWheel;
+
+      this.spillStore = spillStore;
    }
 
    public boolean checkAndSchedule(final MessageReference ref, final boolean tail)
+   {
+      return checkAndSchedule(ref, tail, true);
+   }
+
+   public boolean checkAndSchedule(final MessageReference ref, final boolean tail, final boolean spill)
    {
       long deliveryTime = ref.getScheduledDeliveryTime();
 
-      if (deliveryTime > 0 && scheduledExecutor != null)
+      if (deliveryTime > 0 && timingWheel != null)
       {
          if (ScheduledDeliveryHandlerImpl.trace)
          {
             HornetQServerLogger.LOGGER.trace("Scheduling delivery for " + ref + " to occur at " + deliveryTime);
          }
 
-         ScheduledDeliveryRunnable runnable = new ScheduledDeliveryRunnable(ref.getScheduledDeliveryTime());
+         MessageReference scheduled = spill ? spill(ref) : ref;
+
+         long tick = timingWheel.roundUp(deliveryTime);
+
+         boolean newTick = false;
 
          synchronized (scheduledReferences)
          {
+            LinkedList<MessageReference> references = scheduledReferences.get(tick);
+
+            if (references == null)
+            {
+               references = new LinkedList<MessageReference>();
+               scheduledReferences.put(tick, references);
+               newTick = true;
+            }
+
             if (tail)
             {
                // We do the opposite what the parameter says as the Runnable will always add it to the head
-               scheduledReferences.addFirst(ref);
+               references.addFirst(scheduled);
             }
             else
             {
                // We do the opposite what the parameter says as the Runnable will always add it to the head
-               scheduledReferences.add(ref);
+               references.add(scheduled);
             }
+
+            scheduledCount++;
          }
 
-         scheduleDelivery(runnable, deliveryTime);
+         if (newTick)
+         {
+            timingWheel.schedule(new ScheduledDeliveryRunnable(tick), tick);
+         }
 
          return true;
       }
       return false;
    }
 
+   public void spillScheduled()
+   {
+      if (spillStore == null)
+      {
+         return;
+      }
+
+      synchronized (scheduledReferences)
+      {
+         for (LinkedList<MessageReference> references : scheduledReferences.values())
+         {
+            ListIterator<MessageReference> iter = references.listIterator();
+
+            while (iter.hasNext())
+            {
+               iter.set(spill(iter.next()));
+            }
+         }
+      }
+   }
+
    public int getScheduledCount()
    {
       synchronized (scheduledReferences)
       {
-         return scheduledReferences.size();
+         return scheduledCount;
       }
    }
 
@@ -98,7 +159,10 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
       synchronized (scheduledReferences)
       {
-         refs.addAll(scheduledReferences);
+         for (LinkedList<MessageReference> references : scheduledReferences.values())
+         {
+            refs.addAll(references);
+         }
       }
       return refs;
    }
@@ -109,18 +173,35 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
       synchronized (scheduledReferences)
       {
-         Iterator<MessageReference> iter = scheduledReferences.iterator();
+         Iterator<LinkedList<MessageReference>> ticks = scheduledReferences.values().iterator();
 
-         while (iter.hasNext())
+         while (ticks.hasNext())
          {
-            MessageReference ref = iter.next();
-            if (filter == null || filter.match(ref.getMessage()))
+            LinkedList<MessageReference> references = ticks.next();
+
+            Iterator<MessageReference> iter = references.iterator();
+
+            while (iter.hasNext())
             {
-               iter.remove();
-               refs.add(ref);
+               MessageReference ref = iter.next();
+               if (filter == null || filter.match(ref.getMessage()))
+               {
+                  iter.remove();
+                  refs.add(ref);
+               }
+            }
+
+            if (references.isEmpty())
+            {
+               ticks.remove();
             }
          }
+
+         scheduledCount -= refs.size();
       }
+
+      restore(refs);
+
       return refs;
    }
 
@@ -128,14 +209,29 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
    {
       synchronized (scheduledReferences)
       {
-         Iterator<MessageReference> iter = scheduledReferences.iterator();
-         while (iter.hasNext())
+         Iterator<LinkedList<MessageReference>> ticks = scheduledReferences.values().iterator();
+
+         while (ticks.hasNext())
          {
-            MessageReference ref = iter.next();
-            if (ref.getMessage().getMessageID() == id)
+            LinkedList<MessageReference> references = ticks.next();
+
+            Iterator<MessageReference> iter = references.iterator();
+            while (iter.hasNext())
             {
-               iter.remove();
-               return ref;
+               MessageReference ref = iter.next();
+               if (getMessageID(ref) == id)
+               {
+                  iter.remove();
+
+                  if (references.isEmpty())
+                  {
+                     ticks.remove();
+                  }
+
+                  scheduledCount--;
+
+                  return restore(ref);
+               }
             }
          }
       }
@@ -143,18 +239,77 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
       return null;
    }
 
-   private void scheduleDelivery(final ScheduledDeliveryRunnable runnable, final long deliveryTime)
+   /**
+    * @return the spilled reference replacing {@code ref}, or {@code ref} if its message stays in
+    *         memory
+    */
+   private MessageReference spill(final MessageReference ref)
+   {
+      if (spillStore == null || !spillStore.isSpillable(ref))
+      {
+         return ref;
+      }
+
+      try
+      {
+         return spillStore.spill(ref);
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.errorSpillingScheduledMessage(e, ref);
+
+         return ref;
+      }
+   }
+
+   /**
+    * @return the reference with its message back in memory, or {@code null} if it could not be
+    *         read
+    */
+   private MessageReference restore(final MessageReference ref)
    {
-      long now = System.currentTimeMillis();
+      if (!(ref instanceof SpilledReference))
+      {
+         return ref;
+      }
+
+      try
+      {
+         return spillStore.restore((SpilledReference)ref);
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.errorRestoringScheduledMessage(e, ref);
 
-      long delay = deliveryTime - now;
+         return null;
+      }
+   }
 
-      if (delay < 0)
+   /**
+    * Restores the spilled references of the list in place, dropping those that could not be read.
+    */
+   private void restore(final List<MessageReference> refs)
+   {
+      for (ListIterator<MessageReference> iter = refs.listIterator(); iter.hasNext();)
       {
-         delay = 0;
+         MessageReference ref = restore(iter.next());
+
+         if (ref == null)
+         {
+            iter.remove();
+         }
+         else
+         {
+            iter.set(ref);
+         }
       }
+   }
 
-      scheduledExecutor.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+   private static long getMessageID(final MessageReference ref)
+   {
+      // a spilled reference knows its message ID without reading its message
+      return ref instanceof SpilledReference ? ((SpilledReference)ref).getMessageID()
+                                             : ref.getMessage().getMessageID();
    }
 
    private class ScheduledDeliveryRunnable implements Runnable
@@ -174,32 +329,45 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
          {
             synchronized (scheduledReferences)
             {
+               NavigableMap<Long, LinkedList<MessageReference>> due = scheduledReferences.headMap(scheduledTime, true);
 
-               Iterator<MessageReference> iter = scheduledReferences.iterator();
-               while (iter.hasNext())
+               // latest first, as each reference is added to the head the earliest end up delivered first
+               for (LinkedList<MessageReference> references : due.descendingMap().values())
                {
-                  MessageReference reference = iter.next();
-                  if (reference.getScheduledDeliveryTime() <= this.scheduledTime)
+                  for (MessageReference reference : references)
                   {
-                     iter.remove();
-
                      reference.setScheduledDeliveryTime(0);
 
-                     LinkedList<MessageReference> references = refs.get(reference.getQueue());
+                     LinkedList<MessageReference> queueReferences = refs.get(reference.getQueue());
 
-                     if (references == null)
+                     if (queueReferences == null)
                      {
-                        references = new LinkedList<MessageReference>();
-                        refs.put(reference.getQueue(), references);
+                        queueReferences = new LinkedList<MessageReference>();
+                        refs.put(reference.getQueue(), queueReferences);
                      }
 
-                     references.add(reference);
+                     queueReferences.add(reference);
+
+                     scheduledCount--;
                   }
                }
+
+               due.clear();
+            }
+
+            // the messages are read back outside the lock, scheduling goes on meanwhile
+            for (LinkedList<MessageReference> queueReferences : refs.values())
+            {
+               restore(queueReferences);
             }
 
             for (Map.Entry<Queue, LinkedList<MessageReference>> entry : refs.entrySet())
             {
+               if (entry.getValue().isEmpty())
+               {
+                  continue;
+               }
+
                entry.getKey().addHead(entry.getValue());
             }
 
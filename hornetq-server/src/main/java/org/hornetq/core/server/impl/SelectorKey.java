@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.Map;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.ServerMessage;
+
+/**
+ * A SelectorKey
+ * <p>
+ * The property values a consumer's filter requires, as given by
+ * {@link FilterImpl#getRequiredPropertyValues()}. {@link QueueImpl} uses it to skip the references a
+ * consumer can't match with a few property lookups, instead of handing each of them to the
+ * consumer to evaluate the whole filter.
+ * <p>
+ * {@link #canMatch(ServerMessage)} may return true for a message the filter doesn't match, but
+ * never false for a message it does.
+ */
+final class SelectorKey
+{
+   private final SimpleString[] names;
+
+   private final Object[] values;
+
+   private SelectorKey(final SimpleString[] names, final Object[] values)
+   {
+      this.names = names;
+      this.values = values;
+   }
+
+   /**
+    * @return {@code null} if the filter doesn't require any property value
+    */
+   static SelectorKey forFilter(final Filter filter)
+   {
+      if (!(filter instanceof FilterImpl))
+      {
+         return null;
+      }
+
+      Map<SimpleString, Object> required = ((FilterImpl)filter).getRequiredPropertyValues();
+
+      if (required.isEmpty())
+      {
+         return null;
+      }
+
+      SimpleString[] names = new SimpleString[required.size()];
+      Object[] values = new Object[required.size()];
+
+      int i = 0;
+      for (Map.Entry<SimpleString, Object> entry : required.entrySet())
+      {
+         names[i] = entry.getKey();
+         values[i] = normalize(entry.getValue());
+         i++;
+      }
+
+      return new SelectorKey(names, values);
+   }
+
+   boolean canMatch(final ServerMessage message)
+   {
+      for (int i = 0; i < names.length; i++)
+      {
+         if (!values[i].equals(normalize(message.getObjectProperty(names[i]))))
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Numbers are compared as doubles, the same way the filter compares a long with a double. Two
+    * longs too large for a double may then look equal, which is fine as it only lets the filter
+    * decide.
+    */
+   private static Object normalize(final Object value)
+   {
+      if (value instanceof Number)
+      {
+         double d = ((Number)value).doubleValue();
+
+         // -0.0 == 0.0 but they aren't equal as Doubles
+         return d == 0 ? Double.valueOf(0) : Double.valueOf(d);
+      }
+
+      return value;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder str = new StringBuilder("SelectorKey[");
+      for (int i = 0; i < names.length; i++)
+      {
+         if (i > 0)
+         {
+            str.append(", ");
+         }
+         str.append(names[i]).append('=').append(values[i]);
+      }
+      return str.append(']').toString();
+   }
+}
@@ -13,6 +13,8 @@
 
 package org.hornetq.core.server.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -706,6 +708,52 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
       }
    }
 
+   public void individualAcknowledge(final boolean autoCommitAcks, Transaction tx, final long[] messageIDs) throws Exception
+   {
+      if (browseOnly)
+      {
+         return;
+      }
+
+      List<MessageReference> refs = removeReferencesByID(messageIDs);
+
+      boolean startedTransaction = false;
+
+      if (autoCommitAcks)
+      {
+         // one journal transaction for all the deletes instead of one record each
+         startedTransaction = true;
+         tx = new TransactionImpl(storageManager);
+      }
+
+      try
+      {
+         for (MessageReference ref : refs)
+         {
+            ref.getQueue().acknowledge(tx, ref);
+         }
+
+         if (startedTransaction)
+         {
+            tx.commit();
+         }
+      }
+      catch (Exception e)
+      {
+         if (startedTransaction)
+         {
+            tx.rollback();
+         }
+         throw e;
+      }
+
+      if (refs.size() < messageIDs.length)
+      {
+         throw new IllegalStateException("Cannot find refs to ack " + (messageIDs.length - refs.size()) + " of " +
+                                         messageIDs.length + " messages");
+      }
+   }
+
    public MessageReference removeReferenceByID(final long messageID) throws Exception
    {
       if (browseOnly)
@@ -772,6 +820,33 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
    // Private --------------------------------------------------------------------------------------
 
+   /**
+    * Removes the references to the given messages in one pass over the delivered references.
+    *
+    * @param messageIDs the message IDs, in ascending order
+    * @return the references found, in delivery order
+    */
+   private List<MessageReference> removeReferencesByID(final long[] messageIDs)
+   {
+      List<MessageReference> refs = new ArrayList<MessageReference>(messageIDs.length);
+
+      Iterator<MessageReference> iter = deliveringRefs.iterator();
+
+      while (iter.hasNext() && refs.size() < messageIDs.length)
+      {
+         MessageReference ref = iter.next();
+
+         if (Arrays.binarySearch(messageIDs, ref.getMessage().getMessageID()) >= 0)
+         {
+            iter.remove();
+
+            refs.add(ref);
+         }
+      }
+
+      return refs;
+   }
+
    private void promptDelivery()
    {
       // largeMessageDeliverer is always set inside a lock
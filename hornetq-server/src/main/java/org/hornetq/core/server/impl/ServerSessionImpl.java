@@ -650,6 +650,31 @@ public class ServerSessionImpl implements ServerSession, FailureListener
 
    }
 
+   public void individualAcknowledge(final long consumerID, final long[] messageIDs) throws Exception
+   {
+      ServerConsumer consumer = consumers.get(consumerID);
+
+      if (this.xa && tx == null)
+      {
+         throw new HornetQXAException(XAException.XAER_PROTO, "Invalid transaction state");
+      }
+
+      if (tx != null && tx.getState() == State.ROLLEDBACK)
+      {
+          // JBPAPP-8845 - if we let stuff to be acked on a rolled back TX, we will just
+          // have these messages to be stuck on the limbo until the server is restarted
+          // The tx has already timed out, so we need to ack and rollback immediately
+         Transaction newTX = newTransaction();
+         consumer.individualAcknowledge(autoCommitAcks, tx, messageIDs);
+         newTX.rollback();
+      }
+      else
+      {
+         consumer.individualAcknowledge(autoCommitAcks, tx, messageIDs);
+      }
+
+   }
+
    public void expire(final long consumerID, final long messageID) throws Exception
    {
       MessageReference ref = consumers.get(consumerID).removeReferenceByID(messageID);
@@ -1293,6 +1318,31 @@ public class ServerSessionImpl implements ServerSession, FailureListener
       }
    }
 
+   public void send(final List<ServerMessage> messages, final boolean direct) throws Exception
+   {
+      Exception failure = null;
+
+      for (ServerMessage message : messages)
+      {
+         try
+         {
+            send(message, direct);
+         }
+         catch (Exception e)
+         {
+            if (failure == null)
+            {
+               failure = e;
+            }
+         }
+      }
+
+      if (failure != null)
+      {
+         throw failure;
+      }
+   }
+
    public void sendContinuations(final int packetSize,
                                  final long messageBodySize,
                                  final byte[] body,
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.core.server.HornetQServerLogger;
+
+/**
+ * A hierarchical timing wheel, shared by the queues of a server to run tasks at a given time.
+ * <p>
+ * Each wheel has {@code wheelSize} buckets of one tick, and hands the tasks too far away for it to
+ * an overflow wheel whose tick is the whole span of this one. The scheduled executor only sees one
+ * timeout per non-empty bucket, when the bucket expires its tasks are either run or moved down to a
+ * finer wheel.
+ * <p>
+ * A task never runs before its time, and at most one tick after it.
+ */
+public class TimingWheel
+{
+   public static final long DEFAULT_TICK_MILLIS = 10;
+
+   public static final int DEFAULT_WHEEL_SIZE = 64;
+
+   private final ScheduledExecutorService scheduledExecutor;
+
+   private final long tickMillis;
+
+   private final Wheel wheel;
+
+   private int size;
+
+   public TimingWheel(final ScheduledExecutorService scheduledExecutor)
+   {
+      this(scheduledExecutor, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+   }
+
+   public TimingWheel(final ScheduledExecutorService scheduledExecutor, final long tickMillis, final int wheelSize)
+   {
+      this.scheduledExecutor = scheduledExecutor;
+
+      this.tickMillis = tickMillis;
+
+      wheel = new Wheel(tickMillis, wheelSize, System.currentTimeMillis());
+   }
+
+   /**
+    * @return the time rounded up to the next tick, tasks scheduled within a tick run together
+    */
+   public long roundUp(final long time)
+   {
+      long remainder = time % tickMillis;
+
+      return remainder == 0 ? time : time - remainder + tickMillis;
+   }
+
+   /**
+    * Runs the task on the scheduled executor once the time has come, right away if it is already
+    * past.
+    */
+   public void schedule(final Runnable task, final long time)
+   {
+      List<Bucket> expiring = new ArrayList<Bucket>();
+
+      boolean added;
+
+      synchronized (this)
+      {
+         wheel.advanceClock(System.currentTimeMillis());
+
+         added = wheel.add(new Entry(time, task), expiring);
+
+         if (added)
+         {
+            size++;
+         }
+      }
+
+      if (!added)
+      {
+         execute(task);
+      }
+
+      for (Bucket bucket : expiring)
+      {
+         bucket.schedule();
+      }
+   }
+
+   /**
+    * @return the number of tasks waiting for their time
+    */
+   public synchronized int size()
+   {
+      return size;
+   }
+
+   private void expire(final Bucket bucket)
+   {
+      List<Bucket> expiring = new ArrayList<Bucket>();
+
+      List<Runnable> tasks = new ArrayList<Runnable>();
+
+      synchronized (this)
+      {
+         wheel.advanceClock(System.currentTimeMillis());
+
+         for (Entry entry : bucket.flush())
+         {
+            if (!wheel.add(entry, expiring))
+            {
+               size--;
+               tasks.add(entry.task);
+            }
+         }
+      }
+
+      for (Bucket expiringBucket : expiring)
+      {
+         expiringBucket.schedule();
+      }
+
+      for (Runnable task : tasks)
+      {
+         try
+         {
+            task.run();
+         }
+         catch (Throwable t)
+         {
+            HornetQServerLogger.LOGGER.errorRunningScheduledTask(t);
+         }
+      }
+   }
+
+   private void execute(final Runnable task)
+   {
+      try
+      {
+         scheduledExecutor.execute(task);
+      }
+      catch (RejectedExecutionException e)
+      {
+         // the server is stopping
+         HornetQServerLogger.LOGGER.debug("Scheduled task not run, the executor was shutdown", e);
+      }
+   }
+
+   private static final class Entry
+   {
+      private final long time;
+
+      private final Runnable task;
+
+      Entry(final long time, final Runnable task)
+      {
+         this.time = time;
+         this.task = task;
+      }
+   }
+
+   /**
+    * The tasks of one tick of a wheel. A bucket is only reused once its previous expiration is
+    * flushed.
+    */
+   private final class Bucket implements Runnable
+   {
+      // guarded by the TimingWheel
+      private List<Entry> entries = new ArrayList<Entry>();
+
+      private long expiration = -1;
+
+      private long scheduledExpiration = -1;
+
+      /**
+       * @return whether the bucket got a new expiration and must be scheduled
+       */
+      boolean add(final Entry entry, final long newExpiration, final List<Entry> stale)
+      {
+         boolean expirationChanged = expiration != newExpiration;
+
+         if (expirationChanged && expiration != -1)
+         {
+            // the flush of the previous expiration is late, its entries move on with the new ones
+            stale.addAll(entries);
+            entries.clear();
+         }
+
+         expiration = newExpiration;
+
+         entries.add(entry);
+
+         return expirationChanged;
+      }
+
+      List<Entry> flush()
+      {
+         List<Entry> flushed = entries;
+
+         entries = new ArrayList<Entry>();
+
+         expiration = -1;
+
+         return flushed;
+      }
+
+      void schedule()
+      {
+         long time;
+
+         synchronized (TimingWheel.this)
+         {
+            if (expiration == -1 || expiration == scheduledExpiration)
+            {
+               return;
+            }
+
+            time = scheduledExpiration = expiration;
+         }
+
+         try
+         {
+            scheduledExecutor.schedule(this, Math.max(0, time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+         }
+         catch (RejectedExecutionException e)
+         {
+            // the server is stopping
+            HornetQServerLogger.LOGGER.debug("Scheduled task not scheduled, the executor was shutdown", e);
+         }
+      }
+
+      public void run()
+      {
+         synchronized (TimingWheel.this)
+         {
+            scheduledExpiration = -1;
+         }
+
+         expire(this);
+      }
+   }
+
+   /**
+    * One level of the hierarchy, guarded by the TimingWheel.
+    */
+   private final class Wheel
+   {
+      private final long tick;
+
+      private final long interval;
+
+      private final Bucket[] buckets;
+
+      private long currentTime;
+
+      private Wheel overflowWheel;
+
+      Wheel(final long tick, final int wheelSize, final long startTime)
+      {
+         this.tick = tick;
+
+         interval = tick * wheelSize;
+
+         buckets = new Bucket[wheelSize];
+
+         for (int i = 0; i < wheelSize; i++)
+         {
+            buckets[i] = new Bucket();
+         }
+
+         currentTime = startTime - startTime % tick;
+      }
+
+      /**
+       * @return false if the entry is already due
+       */
+      boolean add(final Entry entry, final List<Bucket> expiring)
+      {
+         if (entry.time < currentTime + tick)
+         {
+            return false;
+         }
+
+         if (entry.time >= currentTime + interval)
+         {
+            if (overflowWheel == null)
+            {
+               overflowWheel = new Wheel(interval, buckets.length, currentTime);
+            }
+
+            return overflowWheel.add(entry, expiring);
+         }
+
+         long virtualId = entry.time / tick;
+
+         Bucket bucket = buckets[(int)(virtualId % buckets.length)];
+
+         List<Entry> stale = new ArrayList<Entry>();
+
+         if (bucket.add(entry, virtualId * tick, stale))
+         {
+            expiring.add(bucket);
+         }
+
+         for (Entry staleEntry : stale)
+         {
+            if (!TimingWheel.this.wheel.add(staleEntry, expiring))
+            {
+               size--;
+               execute(staleEntry.task);
+            }
+         }
+
+         return true;
+      }
+
+      void advanceClock(final long time)
+      {
+         if (time >= currentTime + tick)
+         {
+            currentTime = time - time % tick;
+
+            if (overflowWheel != null)
+            {
+               overflowWheel.advanceClock(currentTime);
+            }
+         }
+      }
+   }
+}
@@ -53,6 +53,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    public static final boolean DEFAULT_LAST_VALUE_QUEUE = false;
 
+   public static final boolean DEFAULT_CONCURRENT_QUEUE = false;
+
    public static final long DEFAULT_REDISTRIBUTION_DELAY = -1;
 
    public static final long DEFAULT_EXPIRY_DELAY = -1;
@@ -87,6 +89,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    private Boolean lastValueQueue = null;
 
+   private Boolean concurrentQueue = null;
+
    private Long redistributionDelay = null;
 
    private Boolean sendToDLAOnNoRoute = null;
@@ -101,6 +105,16 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       this.lastValueQueue = lastValueQueue;
    }
 
+   public boolean isConcurrentQueue()
+   {
+      return concurrentQueue != null ? concurrentQueue : AddressSettings.DEFAULT_CONCURRENT_QUEUE;
+   }
+
+   public void setConcurrentQueue(final boolean concurrentQueue)
+   {
+      this.concurrentQueue = concurrentQueue;
+   }
+
    public AddressFullMessagePolicy getAddressFullMessagePolicy()
    {
       return addressFullMessagePolicy != null ? addressFullMessagePolicy
@@ -309,6 +323,10 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       {
          addressFullMessagePolicy = merged.addressFullMessagePolicy;
       }
+      if (concurrentQueue == null)
+      {
+         concurrentQueue = merged.concurrentQueue;
+      }
    }
 
    @Override
@@ -354,6 +372,12 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       redistributionDelay = BufferHelper.readNullableLong(buffer);
 
       sendToDLAOnNoRoute = BufferHelper.readNullableBoolean(buffer);
+
+      // settings stored before concurrent-queue existed end here
+      if (buffer.readable())
+      {
+         concurrentQueue = BufferHelper.readNullableBoolean(buffer);
+      }
    }
 
    @Override
@@ -375,7 +399,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
              BufferHelper.sizeOfNullableLong(expiryDelay) +
              BufferHelper.sizeOfNullableBoolean(lastValueQueue) +
              BufferHelper.sizeOfNullableLong(redistributionDelay) +
-             BufferHelper.sizeOfNullableBoolean(sendToDLAOnNoRoute);
+             BufferHelper.sizeOfNullableBoolean(sendToDLAOnNoRoute) +
+             BufferHelper.sizeOfNullableBoolean(concurrentQueue);
    }
 
    @Override
@@ -413,6 +438,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       BufferHelper.writeNullableLong(buffer, redistributionDelay);
 
       BufferHelper.writeNullableBoolean(buffer, sendToDLAOnNoRoute);
+
+      BufferHelper.writeNullableBoolean(buffer, concurrentQueue);
    }
 
    /* (non-Javadoc)
@@ -429,6 +456,7 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       result = prime * result + ((expiryAddress == null) ? 0 : expiryAddress.hashCode());
       result = prime * result + ((expiryDelay == null) ? 0 : expiryDelay.hashCode());
       result = prime * result + ((lastValueQueue == null) ? 0 : lastValueQueue.hashCode());
+      result = prime * result + ((concurrentQueue == null) ? 0 : concurrentQueue.hashCode());
       result = prime * result + ((maxDeliveryAttempts == null) ? 0 : maxDeliveryAttempts.hashCode());
       result = prime * result + ((maxSizeBytes == null) ? 0 : maxSizeBytes.hashCode());
       result = prime * result +
@@ -498,6 +526,13 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       }
       else if (!lastValueQueue.equals(other.lastValueQueue))
          return false;
+      if (concurrentQueue == null)
+      {
+         if (other.concurrentQueue != null)
+            return false;
+      }
+      else if (!concurrentQueue.equals(other.concurrentQueue))
+         return false;
       if (maxDeliveryAttempts == null)
       {
          if (other.maxDeliveryAttempts != null)
@@ -588,6 +623,8 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
              expiryDelay +
              ", lastValueQueue=" +
              lastValueQueue +
+             ", concurrentQueue=" +
+             concurrentQueue +
              ", maxDeliveryAttempts=" +
              maxDeliveryAttempts +
              ", maxSizeBytes=" +
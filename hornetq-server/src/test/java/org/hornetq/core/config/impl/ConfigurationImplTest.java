@@ -95,6 +95,8 @@ public class ConfigurationImplTest extends UnitTestCase
                           conf.getMessageCounterMaxDayHistory());
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_MESSAGE_COUNTER_SAMPLE_PERIOD, conf.getMessageCounterSamplePeriod());
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_SIZE, conf.getIDCacheSize());
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_WINDOW, conf.getIDCacheWindow());
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_RATE, conf.getIDCacheRate());
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_PERSIST_ID_CACHE, conf.isPersistIDCache());
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_SERVER_DUMP_INTERVAL, conf.getServerDumpInterval());
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_MEMORY_WARNING_THRESHOLD, conf.getMemoryWarningThreshold());
@@ -238,6 +240,10 @@ public class ConfigurationImplTest extends UnitTestCase
          conf.setJournalCompactPercentage(i);
          Assert.assertEquals(i, conf.getJournalCompactPercentage());
 
+         i = RandomUtil.randomInt();
+         conf.setJournalLoadThreads(i);
+         Assert.assertEquals(i, conf.getJournalLoadThreads());
+
          i = RandomUtil.randomInt();
          conf.setJournalBufferSize_AIO(i);
          Assert.assertEquals(i, conf.getJournalBufferSize_AIO());
@@ -83,6 +83,10 @@ public class DefaultsFileConfigurationTest extends ConfigurationImplTest
 
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_SIZE, conf.getIDCacheSize());
 
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_WINDOW, conf.getIDCacheWindow());
+
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_ID_CACHE_RATE, conf.getIDCacheRate());
+
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_PERSIST_ID_CACHE, conf.isPersistIDCache());
 
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_BINDINGS_DIRECTORY, conf.getBindingsDirectory());
@@ -102,6 +106,8 @@ public class DefaultsFileConfigurationTest extends ConfigurationImplTest
 
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_JOURNAL_COMPACT_PERCENTAGE, conf.getJournalCompactPercentage());
 
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_JOURNAL_LOAD_THREADS, conf.getJournalLoadThreads());
+
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_JOURNAL_MIN_FILES, conf.getJournalMinFiles());
 
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_JOURNAL_MAX_IO_AIO, conf.getJournalMaxIO_AIO());
@@ -137,6 +143,8 @@ public class DefaultsFileConfigurationTest extends ConfigurationImplTest
 
       Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_MESSAGE_EXPIRY_THREAD_PRIORITY,
                           conf.getMessageExpiryThreadPriority());
+
+      Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_SCHEDULED_SPILL_DELAY, conf.getScheduledSpillDelay());
       Assert.assertEquals("replication cluster name", null, conf.getReplicationClustername());
    }
 
@@ -17,6 +17,7 @@ import java.util.Collections;
 
 import junit.framework.Assert;
 
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.BroadcastGroupConfiguration;
 import org.hornetq.api.core.DiscoveryGroupConfiguration;
 import org.hornetq.api.core.SimpleString;
@@ -63,7 +64,10 @@ public class FileConfigurationTest extends ConfigurationImplTest
       Assert.assertEquals(56789, conf.getTransactionTimeoutScanPeriod());
       Assert.assertEquals(10111213, conf.getMessageExpiryScanPeriod());
       Assert.assertEquals(8, conf.getMessageExpiryThreadPriority());
+      Assert.assertEquals(3600000, conf.getScheduledSpillDelay());
       Assert.assertEquals(127, conf.getIDCacheSize());
+      Assert.assertEquals(1800000, conf.getIDCacheWindow());
+      Assert.assertEquals(100000, conf.getIDCacheRate());
       Assert.assertEquals(true, conf.isPersistIDCache());
       Assert.assertEquals(true, conf.isBackup());
       Assert.assertEquals(true, conf.isSharedStore());
@@ -86,6 +90,7 @@ public class FileConfigurationTest extends ConfigurationImplTest
       Assert.assertEquals(100, conf.getJournalMinFiles());
       Assert.assertEquals(123, conf.getJournalCompactMinFiles());
       Assert.assertEquals(33, conf.getJournalCompactPercentage());
+      Assert.assertEquals(4, conf.getJournalLoadThreads());
 
       Assert.assertEquals("largemessagesdir", conf.getLargeMessagesDirectory());
       Assert.assertEquals(95, conf.getMemoryWarningThreshold());
@@ -214,6 +219,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
             assertEquals("max retry interval", 10002, bc.getMaxRetryInterval());
             Assert.assertEquals(2, bc.getReconnectAttempts());
             Assert.assertEquals(true, bc.isUseDuplicateDetection());
+            Assert.assertEquals(50, bc.getAckBatchSize());
+            Assert.assertEquals(2000, bc.getAckBatchDelay());
             Assert.assertEquals("connector1", bc.getStaticConnectors().get(0));
             Assert.assertEquals(null, bc.getDiscoveryGroupName());
          }
@@ -226,6 +233,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
             Assert.assertEquals(null, bc.getTransformerClassName());
             Assert.assertEquals(null, bc.getStaticConnectors());
             Assert.assertEquals("dg1", bc.getDiscoveryGroupName());
+            Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE, bc.getAckBatchSize());
+            Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY, bc.getAckBatchDelay());
          }
       }
 
@@ -247,6 +256,9 @@ public class FileConfigurationTest extends ConfigurationImplTest
             Assert.assertEquals(1, ccc.getMaxHops());
             Assert.assertEquals(123, ccc.getCallTimeout());
             Assert.assertEquals(123, ccc.getCallFailoverTimeout());
+            Assert.assertEquals(4, ccc.getBridgeConnections());
+            Assert.assertEquals(200, ccc.getAckBatchSize());
+            Assert.assertEquals(500, ccc.getAckBatchDelay());
             assertEquals("multiplier", 0.25, ccc.getRetryIntervalMultiplier(), 0.00001);
             assertEquals("max retry interval", 10000, ccc.getMaxRetryInterval());
             assertEquals(72, ccc.getReconnectAttempts());
@@ -261,6 +273,9 @@ public class FileConfigurationTest extends ConfigurationImplTest
             Assert.assertEquals(4, ccc.getRetryInterval());
             Assert.assertEquals(456, ccc.getCallTimeout());
             Assert.assertEquals(456, ccc.getCallFailoverTimeout());
+            Assert.assertEquals(1, ccc.getBridgeConnections());
+            Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_SIZE, ccc.getAckBatchSize());
+            Assert.assertEquals(HornetQDefaultConfiguration.DEFAULT_BRIDGE_ACK_BATCH_DELAY, ccc.getAckBatchDelay());
             Assert.assertEquals(false, ccc.isDuplicateDetection());
             Assert.assertEquals(true, ccc.isForwardWhenNoConsumers());
             Assert.assertEquals(2, ccc.getMaxHops());
@@ -13,6 +13,9 @@
 
 package org.hornetq.core.filter.impl;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.Assert;
 
 import org.hornetq.api.core.HornetQException;
@@ -686,6 +689,94 @@ public class FilterTest extends SilentTestCase
       parse.getNextToken();
    }
 
+   public void testMixedNumericComparison() throws Exception
+   {
+      filter = FilterImpl.createFilter(new SimpleString("rate >= 2"));
+
+      message.putDoubleProperty(new SimpleString("rate"), 2.5);
+      Assert.assertTrue(filter.match(message));
+
+      message.putDoubleProperty(new SimpleString("rate"), 1.5);
+      Assert.assertFalse(filter.match(message));
+
+      message.putFloatProperty(new SimpleString("rate"), 2.0f);
+      Assert.assertTrue(filter.match(message));
+
+      message.putDoubleProperty(new SimpleString("rate"), Double.NaN);
+      Assert.assertFalse(filter.match(message));
+   }
+
+   public void testRequiredPropertyValues() throws Exception
+   {
+      FilterImpl filterImpl = (FilterImpl)FilterImpl.createFilter("region = 'EU' AND (42 = tenant AND weight > 10) AND HQPriority = 4");
+
+      Assert.assertEquals(2, filterImpl.getRequiredPropertyValues().size());
+      Assert.assertEquals(new SimpleString("EU"), filterImpl.getRequiredPropertyValues().get(new SimpleString("region")));
+      Assert.assertEquals(42L, filterImpl.getRequiredPropertyValues().get(new SimpleString("tenant")));
+
+      filterImpl = (FilterImpl)FilterImpl.createFilter("region = 'EU' OR tenant = 42");
+      Assert.assertTrue(filterImpl.getRequiredPropertyValues().isEmpty());
+
+      filterImpl = (FilterImpl)FilterImpl.createFilter("NOT (region = 'EU')");
+      Assert.assertTrue(filterImpl.getRequiredPropertyValues().isEmpty());
+   }
+
+   public void testConcurrentMatch() throws Exception
+   {
+      filter = FilterImpl.createFilter(new SimpleString("color LIKE 'r%' AND weight BETWEEN 10 AND 20"));
+
+      final int threads = 8;
+      final ServerMessage[] messages = new ServerMessage[threads];
+      final boolean[] expected = new boolean[threads];
+      for (int i = 0; i < threads; i++)
+      {
+         messages[i] = new ServerMessageImpl(i, 1000);
+         messages[i].putStringProperty(new SimpleString("color"), new SimpleString(i % 2 == 0 ? "red" : "blue"));
+         messages[i].putIntProperty(new SimpleString("weight"), 5 * i);
+         expected[i] = i % 2 == 0 && 5 * i >= 10 && 5 * i <= 20;
+      }
+
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicInteger errors = new AtomicInteger(0);
+      Thread[] workers = new Thread[threads];
+      for (int t = 0; t < threads; t++)
+      {
+         final int index = t;
+         workers[t] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  start.await();
+                  for (int i = 0; i < 10000; i++)
+                  {
+                     if (filter.match(messages[index]) != expected[index])
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+               }
+               catch (Throwable e)
+               {
+                  errors.incrementAndGet();
+               }
+            }
+         };
+         workers[t].start();
+      }
+
+      start.countDown();
+
+      for (Thread worker : workers)
+      {
+         worker.join();
+      }
+
+      Assert.assertEquals(0, errors.get());
+   }
+
    // Private -----------------------------------------------------------------------------------
 
    private void doPutStringProperty(final String key, final String value)
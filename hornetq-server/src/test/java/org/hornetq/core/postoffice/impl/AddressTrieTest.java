@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.postoffice.Address;
+
+public class AddressTrieTest extends TestCase
+{
+   public void testPutGetRemove()
+   {
+      AddressTrie<Address> trie = new AddressTrie<Address>();
+
+      Address ab = address("a.b");
+      Address abc = address("a.b.c");
+
+      assertNull(trie.putIfAbsent(ab.getAddressParts(), ab));
+      assertNull(trie.putIfAbsent(abc.getAddressParts(), abc));
+      assertSame(ab, trie.putIfAbsent(ab.getAddressParts(), address("a.b")));
+
+      assertSame(ab, trie.get(address("a.b").getAddressParts()));
+      assertNull(trie.get(address("a").getAddressParts()));
+
+      assertSame(ab, trie.remove(ab.getAddressParts()));
+      assertNull(trie.get(ab.getAddressParts()));
+      assertSame(abc, trie.get(abc.getAddressParts()));
+      assertNull(trie.remove(ab.getAddressParts()));
+   }
+
+   public void testCollectMatching()
+   {
+      AddressTrie<Address> trie = new AddressTrie<Address>();
+
+      for (String add : new String[] { "a.b.c", "a.b", "a.x.c", "a.*.c", "a.#", "#", "b.*", "a.b.c.#" })
+      {
+         trie.putIfAbsent(address(add).getAddressParts(), address(add));
+      }
+
+      assertEquals(addresses("a.b.c", "a.*.c", "a.#", "#", "a.b.c.#"), collect(trie, "a.b.c"));
+      assertEquals(addresses("a.b.c", "a.x.c", "a.*.c"), collect(trie, "a.*.c"));
+      assertEquals(addresses("a.b.c", "a.b", "a.x.c", "a.#"), collect(trie, "a.#"));
+   }
+
+   /**
+    * The trie and a brute force {@link AddressImpl#matches} over all the addresses must agree
+    */
+   public void testSameAsMatches()
+   {
+      Random random = new Random(1);
+      String[] words = { "a", "b", "c", "*", "#" };
+
+      List<Address> all = new ArrayList<Address>();
+      AddressTrie<Address> trie = new AddressTrie<Address>();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         StringBuilder str = new StringBuilder();
+         int length = 1 + random.nextInt(5);
+         for (int j = 0; j < length; j++)
+         {
+            if (j > 0)
+            {
+               str.append('.');
+            }
+            str.append(words[random.nextInt(words.length)]);
+         }
+         Address add = address(str.toString());
+         if (trie.putIfAbsent(add.getAddressParts(), add) == null)
+         {
+            all.add(add);
+         }
+      }
+
+      for (Address query : all)
+      {
+         Set<Address> expected = new HashSet<Address>();
+         for (Address add : all)
+         {
+            boolean matches = query.containsWildCard() ? add.matches(query) : query.matches(add);
+            if (add.equals(query) || (add.containsWildCard() != query.containsWildCard() && matches))
+            {
+               expected.add(add);
+            }
+         }
+
+         Set<Address> candidates = new HashSet<Address>();
+         trie.collectMatching(query.getAddressParts(), query.containsWildCard(), candidates);
+
+         Set<Address> actual = new HashSet<Address>();
+         for (Address add : candidates)
+         {
+            boolean matches = query.containsWildCard() ? add.matches(query) : query.matches(add);
+            if (add.equals(query) || (add.containsWildCard() != query.containsWildCard() && matches))
+            {
+               actual.add(add);
+            }
+         }
+
+         assertEquals(query.getAddress().toString(), expected, actual);
+      }
+   }
+
+   private static Set<Address> collect(final AddressTrie<Address> trie, final String add)
+   {
+      Address query = address(add);
+      Set<Address> matches = new HashSet<Address>();
+      trie.collectMatching(query.getAddressParts(), query.containsWildCard(), matches);
+      return matches;
+   }
+
+   private static Set<Address> addresses(final String... adds)
+   {
+      Set<Address> set = new HashSet<Address>();
+      for (String add : adds)
+      {
+         set.add(address(add));
+      }
+      return set;
+   }
+
+   private static Address address(final String add)
+   {
+      return new AddressImpl(new SimpleString(add));
+   }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.hornetq.api.core.Pair;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.impl.TransactionImpl;
+
+public class TimeWindowDuplicateIDCacheTest extends TestCase
+{
+   private final CountingStorageManager storageManager = new CountingStorageManager();
+
+   private final ManualClock clock = new ManualClock();
+
+   private final QueuedExecutor executor = new QueuedExecutor();
+
+   public void testAddContainsDelete() throws Exception
+   {
+      TimeWindowDuplicateIDCache cache = createCache(60000, -1, true, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      byte[] id = "id-1".getBytes();
+
+      assertFalse(cache.contains(id));
+
+      cache.addToCache(id, null);
+
+      assertTrue(cache.contains(id));
+      assertTrue(cache.contains("id-1".getBytes()));
+      assertFalse(cache.contains("id-2".getBytes()));
+
+      cache.deleteFromCache(id);
+
+      assertFalse(cache.contains(id));
+      assertEquals(1, storageManager.deletes.size());
+   }
+
+   public void testTransactionalAddOnlyOnCommit() throws Exception
+   {
+      TimeWindowDuplicateIDCache cache = createCache(60000, -1, true, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      cache.addToCache("id".getBytes(), tx);
+
+      assertFalse(cache.contains("id".getBytes()));
+
+      tx.commit();
+
+      assertTrue(cache.contains("id".getBytes()));
+   }
+
+   public void testManyIdsGrowTheTable() throws Exception
+   {
+      TimeWindowDuplicateIDCache cache = createCache(60000, -1, false, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      Random random = new Random();
+
+      Set<String> added = new HashSet<String>();
+
+      for (int i = 0; i < 100000; i++)
+      {
+         String id = Long.toString(random.nextLong());
+
+         added.add(id);
+
+         cache.addToCache(id.getBytes(), null);
+      }
+
+      for (String id : added)
+      {
+         assertTrue(cache.contains(id.getBytes()));
+      }
+
+      for (int i = 0; i < 1000; i++)
+      {
+         String id = "not-" + random.nextLong();
+
+         assertFalse(cache.contains(id.getBytes()));
+      }
+   }
+
+   public void testIdsExpireWithTheirBucket() throws Exception
+   {
+      long window = 400;
+
+      TimeWindowDuplicateIDCache cache = createCache(window, -1, true, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      List<Pair<byte[], Long>> ids = new ArrayList<Pair<byte[], Long>>();
+
+      for (int i = 0; i < 2500; i++)
+      {
+         ids.add(new Pair<byte[], Long>(("loaded-" + i).getBytes(), storageManager.generateUniqueID()));
+      }
+
+      cache.load(ids);
+
+      cache.addToCache("added".getBytes(), null);
+
+      clock.now += window;
+
+      assertTrue(cache.contains("loaded-0".getBytes()));
+      assertTrue(cache.contains("added".getBytes()));
+
+      // at most one bucket more than the window
+      clock.now += window / TimeWindowDuplicateIDCache.BUCKETS;
+
+      assertFalse(cache.contains("loaded-0".getBytes()));
+      assertFalse(cache.contains("added".getBytes()));
+
+      // the records are deleted on the executor, a thousand at a time
+      assertEquals(0, storageManager.deletes.size());
+
+      executor.runAll();
+
+      assertEquals(2501, storageManager.deletes.size());
+      assertEquals(3, storageManager.commits);
+   }
+
+   public void testFullBucketRollsEarly() throws Exception
+   {
+      long window = 800;
+
+      TimeWindowDuplicateIDCache cache = createCache(window, -1, true, 1024);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         cache.addToCache(("id-" + i).getBytes(), null);
+      }
+
+      // a bucket of 1024 slots takes 768 ids, the rest went to the next one
+      assertEquals(2, cache.getBucketCount());
+
+      for (int i = 0; i < 1000; i++)
+      {
+         assertTrue(cache.contains(("id-" + i).getBytes()));
+      }
+
+      clock.now += window + window / TimeWindowDuplicateIDCache.BUCKETS;
+
+      for (int i = 0; i < 1000; i++)
+      {
+         assertFalse(cache.contains(("id-" + i).getBytes()));
+      }
+
+      executor.runAll();
+
+      assertEquals(1000, storageManager.deletes.size());
+   }
+
+   public void testBucketsSizedFromTheRate() throws Exception
+   {
+      // 100000 ids a second over buckets of a second need 262144 slots
+      TimeWindowDuplicateIDCache cache = createCache(8000, 100000, false, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      assertEquals(262144, cache.getCurrentCapacity());
+
+      // with no rate, a bucket is sized from the ids the previous one got
+      cache = createCache(8000, -1, false, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      for (int i = 0; i < 10000; i++)
+      {
+         cache.addToCache(("id-" + i).getBytes(), null);
+      }
+
+      clock.now += 1000;
+
+      assertEquals(16384, cache.getCurrentCapacity());
+   }
+
+   public void testHashSpreadsSimilarIds()
+   {
+      Set<Long> halves = new HashSet<Long>();
+
+      for (int i = 0; i < 1000; i++)
+      {
+         long[] hash = TimeWindowDuplicateIDCache.hash(("id-" + i).getBytes());
+
+         assertTrue(halves.add(hash[0]));
+         assertTrue(halves.add(hash[1]));
+      }
+   }
+
+   public void testTableReusesRemovedSlots()
+   {
+      TimeWindowDuplicateIDCache.IDTable table = new TimeWindowDuplicateIDCache.IDTable(0, 1024, TimeWindowDuplicateIDCache.IDTable.MAX_CAPACITY);
+
+      int capacity = table.capacity();
+
+      for (int i = 0; i < capacity * 10; i++)
+      {
+         assertEquals(TimeWindowDuplicateIDCache.IDTable.NOT_FOUND, table.put(i + 1, i, i));
+         assertEquals(i, table.remove(i + 1, i));
+      }
+
+      assertEquals(0, table.size());
+      assertEquals(capacity, table.capacity());
+      assertEquals(TimeWindowDuplicateIDCache.IDTable.NOT_FOUND, table.get(1, 0));
+   }
+
+   private TimeWindowDuplicateIDCache createCache(final long window,
+                                                  final int expectedRate,
+                                                  final boolean persist,
+                                                  final int maxTableCapacity)
+   {
+      return new TimeWindowDuplicateIDCache(new SimpleString("a"),
+                                            window,
+                                            expectedRate,
+                                            storageManager,
+                                            persist,
+                                            executor,
+                                            clock,
+                                            maxTableCapacity);
+   }
+
+   private static final class ManualClock implements TimeWindowDuplicateIDCache.Clock
+   {
+      private long now = 1000000;
+
+      public long currentTimeMillis()
+      {
+         return now;
+      }
+   }
+
+   private static final class QueuedExecutor implements Executor
+   {
+      private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+      public void execute(final Runnable task)
+      {
+         tasks.add(task);
+      }
+
+      void runAll()
+      {
+         while (!tasks.isEmpty())
+         {
+            tasks.remove(0).run();
+         }
+      }
+   }
+
+   private static final class CountingStorageManager extends NullStorageManager
+   {
+      private final List<Long> deletes = new ArrayList<Long>();
+
+      private int commits;
+
+      @Override
+      public void deleteDuplicateID(final long recordID) throws Exception
+      {
+         deletes.add(recordID);
+      }
+
+      @Override
+      public void deleteDuplicateIDTransactional(final long txID, final long recordID) throws Exception
+      {
+         deletes.add(recordID);
+      }
+
+      @Override
+      public void commit(final long txID) throws Exception
+      {
+         commits++;
+      }
+   }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.stomp;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.protocol.stomp.v11.StompFrameV11;
+
+public class StompDecoderTest extends TestCase
+{
+   private final StompDecoder decoder = new StompDecoder();
+
+   public void testFrameInOneRead() throws Exception
+   {
+      StompFrame frame = decoder.defaultDecode(buffer("SEND\ndestination:jms.queue.a\nreceipt:1\n\nhello\0"));
+
+      assertNotNull(frame);
+      assertEquals(Stomp.Commands.SEND, frame.getCommand());
+      assertSame(Stomp.Commands.SEND, frame.getCommand());
+      assertEquals("jms.queue.a", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+      assertEquals("1", frame.getHeader(Stomp.Headers.RECEIPT_REQUESTED));
+      assertEquals("hello", frame.getBody());
+      assertFalse(decoder.hasBytes());
+   }
+
+   public void testFrameSplitAcrossReads() throws Exception
+   {
+      byte[] bytes = "SEND\ndestination:jms.queue.a\nmy-header:value\n\nhello\0".getBytes("UTF-8");
+
+      for (int i = 0; i < bytes.length - 1; i++)
+      {
+         assertNull(decoder.defaultDecode(HornetQBuffers.wrappedBuffer(new byte[] { bytes[i] })));
+      }
+
+      StompFrame frame = decoder.defaultDecode(HornetQBuffers.wrappedBuffer(new byte[] { bytes[bytes.length - 1] }));
+
+      assertNotNull(frame);
+      assertEquals(Stomp.Commands.SEND, frame.getCommand());
+      assertEquals("jms.queue.a", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+      assertEquals("value", frame.getHeader("my-header"));
+      assertEquals("hello", frame.getBody());
+   }
+
+   public void testSeveralFramesInOneRead() throws Exception
+   {
+      StompFrame frame = decoder.defaultDecode(buffer("SEND\ndestination:a\n\none\0\nSEND\ndestination:b\n\ntwo\0\nSEN"));
+
+      assertEquals("a", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+      assertEquals("one", frame.getBody());
+      assertTrue(decoder.hasBytes());
+
+      frame = decoder.defaultDecode(buffer(""));
+
+      assertEquals("b", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+      assertEquals("two", frame.getBody());
+
+      assertNull(decoder.defaultDecode(buffer("")));
+
+      frame = decoder.defaultDecode(buffer("D\ndestination:c\n\nthree\0"));
+
+      assertEquals("c", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+      assertEquals("three", frame.getBody());
+   }
+
+   public void testContentLength() throws Exception
+   {
+      byte[] body = new byte[] { 1, 0, 2, 0, 3 };
+
+      HornetQBuffer buffer = buffer("SEND\ncontent-length:5\n\n");
+      buffer.writeBytes(body);
+      buffer.writeByte(StompDecoder.NUL);
+
+      StompFrame frame = decoder.defaultDecode(buffer);
+
+      assertNotNull(frame);
+
+      HornetQBuffer bodyBuffer = frame.getBodyBuffer();
+
+      assertEquals(body.length, bodyBuffer.readableBytes());
+
+      for (byte b : body)
+      {
+         assertEquals(b, bodyBuffer.readByte());
+      }
+   }
+
+   public void testLargeBodyInChunks() throws Exception
+   {
+      StringBuilder body = new StringBuilder();
+
+      for (int i = 0; i < 10000; i++)
+      {
+         body.append((char)('a' + i % 26));
+      }
+
+      byte[] bytes = ("SEND\ndestination:a\n\n" + body + "\0").getBytes("UTF-8");
+
+      StompFrame frame = null;
+
+      for (int i = 0; i < bytes.length; i += 100)
+      {
+         assertNull(frame);
+
+         frame = decoder.defaultDecode(HornetQBuffers.wrappedBuffer(Arrays.copyOfRange(bytes, i, Math.min(i + 100, bytes.length))));
+      }
+
+      assertNotNull(frame);
+      assertEquals(body.toString(), frame.getBody());
+   }
+
+   public void testV10TrimsHeaderValues() throws Exception
+   {
+      StompFrame frame = decoder.defaultDecode(buffer("SEND\ndestination: \ta:b\n \n\n\0"));
+
+      assertEquals("a:b", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+   }
+
+   public void testV11EscapedHeaders() throws Exception
+   {
+      StompFrame frame = decoder.decode(buffer("SEND\ndestination: a\\nb\\:c\\\\\n\n\0"), true);
+
+      assertTrue(frame instanceof StompFrameV11);
+      assertEquals(" a\nb:c\\", frame.getHeader(Stomp.Headers.Send.DESTINATION));
+   }
+
+   public void testPings() throws Exception
+   {
+      assertNull(decoder.decode(buffer("\n\n"), true));
+      assertTrue(decoder.pinged());
+      assertFalse(decoder.pinged());
+
+      StompFrame frame = decoder.decode(buffer("\nACK\nmessage-id:1\n\n\0"), true);
+
+      assertEquals(Stomp.Commands.ACK, frame.getCommand());
+      assertTrue(decoder.pinged());
+   }
+
+   public void testInvalidCommand() throws Exception
+   {
+      try
+      {
+         decoder.defaultDecode(buffer("FOO\n\n\0"));
+
+         fail("Should throw exception");
+      }
+      catch (HornetQStompException e)
+      {
+         // ok
+      }
+   }
+
+   private static HornetQBuffer buffer(final String str) throws Exception
+   {
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(str.length() + 16);
+
+      buffer.writeBytes(str.getBytes("UTF-8"));
+
+      return buffer;
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class TimingWheelTest extends TestCase
+{
+   private ScheduledExecutorService scheduledExecutor;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      scheduledExecutor = new ScheduledThreadPoolExecutor(2);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      scheduledExecutor.shutdownNow();
+
+      super.tearDown();
+   }
+
+   public void testRoundUp()
+   {
+      TimingWheel wheel = new TimingWheel(scheduledExecutor, 10, 8);
+
+      assertEquals(100, wheel.roundUp(100));
+      assertEquals(110, wheel.roundUp(101));
+      assertEquals(110, wheel.roundUp(109));
+   }
+
+   public void testPastTaskRunsRightAway() throws Exception
+   {
+      TimingWheel wheel = new TimingWheel(scheduledExecutor);
+
+      CountDownLatch latch = new CountDownLatch(1);
+
+      wheel.schedule(new Task(latch, 0), System.currentTimeMillis() - 1000);
+
+      assertTrue(latch.await(1, TimeUnit.SECONDS));
+      assertEquals(0, wheel.size());
+   }
+
+   public void testTasksNeverRunEarly() throws Exception
+   {
+      // a small wheel, so most tasks go through overflow wheels and get moved down
+      TimingWheel wheel = new TimingWheel(scheduledExecutor, 5, 4);
+
+      int numberOfTasks = 200;
+
+      CountDownLatch latch = new CountDownLatch(numberOfTasks);
+
+      Random random = new Random();
+
+      long now = System.currentTimeMillis();
+
+      Task[] tasks = new Task[numberOfTasks];
+
+      for (int i = 0; i < numberOfTasks; i++)
+      {
+         tasks[i] = new Task(latch, wheel.roundUp(now + random.nextInt(1500)));
+
+         wheel.schedule(tasks[i], tasks[i].time);
+      }
+
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+      for (Task task : tasks)
+      {
+         assertEquals(1, task.runs.get());
+         assertTrue("ran " + (task.time - task.ranAt) + " ms early", task.ranAt >= task.time);
+      }
+
+      assertEquals(0, wheel.size());
+   }
+
+   public void testSize() throws Exception
+   {
+      TimingWheel wheel = new TimingWheel(scheduledExecutor);
+
+      CountDownLatch latch = new CountDownLatch(2);
+
+      long time = System.currentTimeMillis() + 200;
+
+      wheel.schedule(new Task(latch, time), time);
+      wheel.schedule(new Task(latch, time), time + 60000);
+
+      assertEquals(2, wheel.size());
+
+      assertFalse(latch.await(1, TimeUnit.SECONDS));
+
+      assertEquals(1, latch.getCount());
+      assertEquals(1, wheel.size());
+   }
+
+   private static final class Task implements Runnable
+   {
+      private final CountDownLatch latch;
+
+      private final long time;
+
+      private final AtomicInteger runs = new AtomicInteger();
+
+      private volatile long ranAt;
+
+      Task(final CountDownLatch latch, final long time)
+      {
+         this.latch = latch;
+         this.time = time;
+      }
+
+      public void run()
+      {
+         ranAt = System.currentTimeMillis();
+         runs.incrementAndGet();
+         latch.countDown();
+      }
+   }
+}
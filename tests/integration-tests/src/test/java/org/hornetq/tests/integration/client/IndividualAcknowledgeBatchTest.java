@@ -0,0 +1,263 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionIndividualAcknowledgeBatchMessage;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * A IndividualAcknowledgeBatchTest
+ */
+public class IndividualAcknowledgeBatchTest extends ServiceTestBase
+{
+   private final SimpleString address = new SimpleString("address");
+
+   private final SimpleString queueName = new SimpleString("queue");
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   private final AtomicInteger singleAcks = new AtomicInteger();
+
+   private final AtomicInteger batchAcks = new AtomicInteger();
+
+   private final AtomicInteger ackedMessages = new AtomicInteger();
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      server = createServer(true);
+      server.start();
+
+      server.getRemotingService().addIncomingInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            if (packet.getType() == PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE)
+            {
+               singleAcks.incrementAndGet();
+            }
+            else if (packet.getType() == PacketImpl.SESS_INDIVIDUAL_ACKNOWLEDGE_BATCH)
+            {
+               batchAcks.incrementAndGet();
+               ackedMessages.addAndGet(((SessionIndividualAcknowledgeBatchMessage)packet).getMessageIDs().length);
+            }
+            return true;
+         }
+      });
+
+      locator = createInVMNonHALocator();
+   }
+
+   public void testAcksOutOfOrderAreBatched() throws Exception
+   {
+      final int numMessages = 100;
+
+      ClientSession session = createSession(1024 * 1024);
+
+      sendMessages(session, numMessages);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+
+      List<ClientMessage> messages = receiveMessages(consumer, numMessages);
+
+      for (int i = 0; i < numMessages; i += 2)
+      {
+         messages.get(i).individualAcknowledge();
+      }
+
+      for (int i = 1; i < numMessages; i += 2)
+      {
+         messages.get(i).individualAcknowledge();
+      }
+
+      assertEquals(0, batchAcks.get());
+
+      consumer.close();
+
+      assertEquals(0, singleAcks.get());
+      assertEquals(1, batchAcks.get());
+      assertEquals(numMessages, ackedMessages.get());
+      assertEquals(0, getMessageCount(server, address.toString()));
+
+      session.close();
+
+      server.stop();
+      server.start();
+
+      assertEquals(0, getMessageCount(server, address.toString()));
+   }
+
+   public void testBatchSentOnceAckBatchSizeIsReached() throws Exception
+   {
+      final int numMessages = 100;
+
+      ClientSession session = createSession(1);
+
+      sendMessages(session, numMessages);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+
+      for (ClientMessage message : receiveMessages(consumer, numMessages))
+      {
+         message.individualAcknowledge();
+      }
+
+      consumer.close();
+
+      assertEquals(numMessages, batchAcks.get());
+      assertEquals(0, singleAcks.get());
+   }
+
+   public void testUnackedMessagesStayDelivering() throws Exception
+   {
+      final int numMessages = 10;
+
+      ClientSession session = createSession(1024 * 1024);
+
+      sendMessages(session, numMessages);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+
+      List<ClientMessage> messages = receiveMessages(consumer, numMessages);
+
+      for (int i = 0; i < numMessages; i += 2)
+      {
+         messages.get(i).individualAcknowledge();
+      }
+
+      consumer.close();
+
+      assertEquals(numMessages / 2, getMessageCount(server, address.toString()));
+
+      consumer = session.createConsumer(queueName);
+
+      for (int i = 1; i < numMessages; i += 2)
+      {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+      }
+      assertNull(consumer.receiveImmediate());
+   }
+
+   public void testCumulativeAckAfterIndividualAcks() throws Exception
+   {
+      final int numMessages = 10;
+
+      ClientSession session = createSession(1024 * 1024);
+
+      sendMessages(session, numMessages);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+
+      List<ClientMessage> messages = receiveMessages(consumer, numMessages);
+
+      messages.get(7).individualAcknowledge();
+      messages.get(2).individualAcknowledge();
+      messages.get(numMessages - 1).acknowledge();
+
+      consumer.close();
+
+      assertEquals(1, batchAcks.get());
+      assertEquals(0, getMessageCount(server, address.toString()));
+   }
+
+   public void testRangesRoundTrip() throws Exception
+   {
+      long[] ids = new long[] { 12, 3, 4, 5, 20, 11, 10, 21, 40 };
+
+      SessionIndividualAcknowledgeBatchMessage message = new SessionIndividualAcknowledgeBatchMessage(7, ids, true);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(64);
+      message.encodeRest(buffer);
+
+      // 4 ranges: 3-5, 10-12, 20-21, 40
+      assertEquals(8 + 4 + 4 * (8 + 4) + 1, buffer.writerIndex());
+
+      SessionIndividualAcknowledgeBatchMessage decoded = new SessionIndividualAcknowledgeBatchMessage();
+      decoded.decodeRest(buffer);
+
+      assertEquals(7, decoded.getConsumerID());
+      assertTrue(decoded.isRequiresResponse());
+      assertTrue(Arrays.equals(new long[] { 3, 4, 5, 10, 11, 12, 20, 21, 40 }, decoded.getMessageIDs()));
+   }
+
+   private ClientSession createSession(final int ackBatchSize) throws Exception
+   {
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = addClientSession(sf.createSession(true, true, ackBatchSize));
+
+      session.createQueue(address, queueName, true);
+
+      return session;
+   }
+
+   private void sendMessages(final ClientSession session, final int numMessages) throws Exception
+   {
+      ClientProducer producer = session.createProducer(address);
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("i", i);
+         producer.send(message);
+      }
+
+      producer.close();
+   }
+
+   private List<ClientMessage> receiveMessages(final ClientConsumer consumer, final int numMessages) throws Exception
+   {
+      List<ClientMessage> messages = new ArrayList<ClientMessage>();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+         messages.add(message);
+      }
+
+      return messages;
+   }
+}
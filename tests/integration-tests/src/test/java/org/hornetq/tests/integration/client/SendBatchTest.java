@@ -0,0 +1,250 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * A SendBatchTest
+ */
+public class SendBatchTest extends ServiceTestBase
+{
+   private final SimpleString addressA = new SimpleString("addressA");
+
+   private final SimpleString addressB = new SimpleString("addressB");
+
+   private final SimpleString queueA = new SimpleString("queueA");
+
+   private final SimpleString queueB = new SimpleString("queueB");
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   private final AtomicInteger sends = new AtomicInteger();
+
+   private final AtomicInteger batches = new AtomicInteger();
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      server = createServer(false);
+      server.start();
+
+      server.getRemotingService().addIncomingInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            if (packet.getType() == PacketImpl.SESS_SEND)
+            {
+               sends.incrementAndGet();
+            }
+            else if (packet.getType() == PacketImpl.SESS_SEND_BATCH)
+            {
+               batches.incrementAndGet();
+            }
+            return true;
+         }
+      });
+
+      locator = createInVMNonHALocator();
+   }
+
+   public void testBatchedSendsKeepTheirOrder() throws Exception
+   {
+      locator.setProducerBatchSize(10 * 1024);
+
+      ClientSession session = createSession(true);
+
+      ClientProducer producer = session.createProducer();
+
+      final int numMessages = 1000;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+         producer.send(i % 2 == 0 ? addressA : addressB, message);
+      }
+
+      session.start();
+
+      ClientConsumer consumerA = session.createConsumer(queueA);
+      ClientConsumer consumerB = session.createConsumer(queueB);
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = (i % 2 == 0 ? consumerA : consumerB).receive(5000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+      }
+
+      assertEquals(0, sends.get());
+      assertTrue(batches.get() > 0);
+      assertTrue(batches.get() < numMessages / 10);
+   }
+
+   public void testTimeoutSendsPartialBatch() throws Exception
+   {
+      locator.setProducerBatchSize(1024 * 1024);
+      locator.setProducerBatchTimeout(50 * 1000);
+
+      ClientSession session = createSession(true);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      producer.send(session.createMessage(false));
+
+      ClientSession consumerSession = addClientSession(createSessionFactory(locator).createSession());
+      consumerSession.start();
+
+      ClientConsumer consumer = consumerSession.createConsumer(queueA);
+
+      assertNotNull(consumer.receive(5000));
+      assertEquals(1, batches.get());
+   }
+
+   public void testCommitSendsPendingBatch() throws Exception
+   {
+      locator.setProducerBatchSize(1024 * 1024);
+      locator.setProducerBatchTimeout(60 * 1000 * 1000);
+
+      ClientSession session = createSession(false);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      final int numMessages = 10;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         producer.send(session.createMessage(false));
+      }
+
+      assertEquals(0, batches.get());
+
+      session.commit();
+
+      assertEquals(1, batches.get());
+      assertEquals(numMessages, getMessageCount(server, addressA.toString()));
+   }
+
+   public void testBlockingSendGoesAfterPendingBatch() throws Exception
+   {
+      locator.setProducerBatchSize(1024 * 1024);
+      locator.setProducerBatchTimeout(60 * 1000 * 1000);
+
+      ClientSession session = createSession(true);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      ClientMessage message = session.createMessage(false);
+      message.putIntProperty("i", 0);
+      producer.send(message);
+
+      // durable sends block by default
+      message = session.createMessage(true);
+      message.putIntProperty("i", 1);
+      producer.send(message);
+
+      assertEquals(1, batches.get());
+      assertEquals(1, sends.get());
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(queueA);
+
+      for (int i = 0; i < 2; i++)
+      {
+         message = consumer.receive(5000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+      }
+   }
+
+   public void testReusedMessage() throws Exception
+   {
+      locator.setProducerBatchSize(10 * 1024);
+
+      ClientSession session = createSession(true);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      ClientMessage message = session.createMessage(false);
+
+      final int numMessages = 100;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         message.putIntProperty("i", i);
+         producer.send(message);
+      }
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(queueA);
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage received = consumer.receive(5000);
+         assertNotNull(received);
+         assertEquals(i, received.getIntProperty("i").intValue());
+      }
+   }
+
+   public void testNoBatchingByDefault() throws Exception
+   {
+      ClientSession session = createSession(true);
+
+      ClientProducer producer = session.createProducer(addressA);
+
+      for (int i = 0; i < 10; i++)
+      {
+         producer.send(session.createMessage(false));
+      }
+
+      session.close();
+
+      assertEquals(0, batches.get());
+      assertEquals(10, sends.get());
+   }
+
+   private ClientSession createSession(final boolean autoCommitSends) throws Exception
+   {
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = addClientSession(sf.createSession(false, autoCommitSends, true));
+
+      session.createQueue(addressA, queueA, false);
+      session.createQueue(addressB, queueB, false);
+
+      return session;
+   }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.client;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQInterceptorRejectedPacketException;
+import org.hornetq.api.core.HornetQSecurityException;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.SendCompletion;
+import org.hornetq.api.core.client.SendCompletionListener;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.client.impl.DelegatingSession;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.security.Role;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * A SendCompletionTest
+ */
+public class SendCompletionTest extends ServiceTestBase
+{
+   private final SimpleString address = new SimpleString("address");
+
+   private final SimpleString queueName = new SimpleString("queue");
+
+   private final SimpleString forbiddenAddress = new SimpleString("forbidden");
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      Configuration configuration = createDefaultConfig(false);
+      configuration.setSecurityEnabled(true);
+      server = createServer(false, configuration);
+      server.start();
+
+      server.getSecurityManager().addUser("auser", "pass");
+      server.getSecurityManager().addRole("auser", "arole");
+
+      Set<Role> roles = new HashSet<Role>();
+      roles.add(new Role("arole", true, true, true, true, true, true, false));
+      server.getSecurityRepository().addMatch(address.toString(), roles);
+
+      Set<Role> noSend = new HashSet<Role>();
+      noSend.add(new Role("arole", false, true, true, true, true, true, false));
+      server.getSecurityRepository().addMatch(forbiddenAddress.toString(), noSend);
+
+      locator = createInVMNonHALocator();
+   }
+
+   public void testSendAsyncCompletes() throws Exception
+   {
+      locator.setConfirmationWindowSize(1024);
+
+      ClientSession session = createSession();
+
+      ClientProducer producer = session.createProducer(address);
+
+      final int numMessages = 500;
+
+      final CountDownLatch latch = new CountDownLatch(numMessages);
+
+      List<SendCompletion> completions = new ArrayList<SendCompletion>();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putIntProperty("i", i);
+
+         SendCompletion completion = producer.sendAsync(message);
+         completion.setListener(new SendCompletionListener()
+         {
+            public void sendCompleted(final SendCompletion completion)
+            {
+               latch.countDown();
+            }
+         });
+         completions.add(completion);
+      }
+
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+      for (SendCompletion completion : completions)
+      {
+         assertTrue(completion.isDone());
+         assertNull(completion.getException());
+         assertTrue(completion.waitCompletion(0));
+      }
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+      }
+
+      session.close();
+   }
+
+   public void testSendAsyncFailureReportedToItsCompletion() throws Exception
+   {
+      locator.setConfirmationWindowSize(1024);
+
+      ClientSession session = createSession();
+
+      ClientProducer producer = session.createProducer();
+
+      SendCompletion before = producer.sendAsync(address, session.createMessage(false));
+      SendCompletion forbidden = producer.sendAsync(forbiddenAddress, session.createMessage(false));
+      SendCompletion after = producer.sendAsync(address, session.createMessage(false));
+
+      assertTrue(before.waitCompletion(5000));
+      assertTrue(after.waitCompletion(5000));
+
+      try
+      {
+         forbidden.waitCompletion(5000);
+         fail("Expected the forbidden send to fail");
+      }
+      catch (HornetQSecurityException expected)
+      {
+         // ok
+      }
+
+      assertTrue(forbidden.isDone());
+      assertTrue(forbidden.getException() instanceof HornetQSecurityException);
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      assertNotNull(consumer.receive(5000));
+      assertNotNull(consumer.receive(5000));
+      assertNull(consumer.receiveImmediate());
+
+      session.close();
+   }
+
+   public void testSendAsyncWithoutConfirmationWindowBlocks() throws Exception
+   {
+      locator.setConfirmationWindowSize(-1);
+
+      ClientSession session = createSession();
+
+      ClientProducer producer = session.createProducer();
+
+      SendCompletion completion = producer.sendAsync(address, session.createMessage(false));
+
+      assertTrue(completion.isDone());
+      assertTrue(completion.waitCompletion(0));
+
+      try
+      {
+         producer.sendAsync(forbiddenAddress, session.createMessage(false));
+         fail("Expected the forbidden send to fail");
+      }
+      catch (HornetQSecurityException expected)
+      {
+         // ok
+      }
+
+      session.close();
+   }
+
+   public void testMaxPendingSends() throws Exception
+   {
+      locator.setConfirmationWindowSize(1024);
+      locator.setProducerMaxPendingSends(1);
+
+      ClientSession session = createSession();
+
+      ClientProducer producer = session.createProducer(address);
+
+      final int numMessages = 100;
+
+      SendCompletion last = null;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         SendCompletion completion = producer.sendAsync(session.createMessage(false));
+
+         // with a single permit, each send waits for the one before it
+         if (last != null)
+         {
+            assertTrue(last.isDone());
+         }
+
+         last = completion;
+      }
+
+      assertTrue(last.waitCompletion(5000));
+
+      assertEquals(numMessages, getMessageCount(server, address.toString()));
+
+      session.close();
+   }
+
+   public void testSendAsyncRejectedByInterceptor() throws Exception
+   {
+      locator.setConfirmationWindowSize(1024);
+
+      locator.addOutgoingInterceptor(new Interceptor()
+      {
+         public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+         {
+            return packet.getType() != PacketImpl.SESS_SEND;
+         }
+      });
+
+      ClientSession session = createSession();
+
+      ClientProducer producer = session.createProducer(address);
+
+      try
+      {
+         producer.sendAsync(session.createMessage(false));
+         fail("Expected the interceptor to reject the send");
+      }
+      catch (HornetQInterceptorRejectedPacketException expected)
+      {
+         // ok
+      }
+
+      // the session doesn't wait for a confirmation of the rejected send
+      assertTrue(getPendingSends(session).isEmpty());
+
+      session.close();
+   }
+
+   private static Set<?> getPendingSends(final ClientSession session) throws Exception
+   {
+      Field delegate = DelegatingSession.class.getDeclaredField("session");
+
+      delegate.setAccessible(true);
+
+      Field pendingSends = Class.forName("org.hornetq.core.client.impl.ClientSessionImpl").getDeclaredField("pendingSends");
+
+      pendingSends.setAccessible(true);
+
+      return (Set<?>)pendingSends.get(delegate.get(session));
+   }
+
+   private ClientSession createSession() throws Exception
+   {
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = addClientSession(sf.createSession("auser", "pass", false, true, true, false, -1));
+
+      session.createQueue(address, queueName, false);
+
+      return session;
+   }
+}
@@ -38,7 +38,15 @@ import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.HornetQClient;
 import org.hornetq.api.core.client.ServerLocator;
 import org.hornetq.core.config.BridgeConfiguration;
+import org.hornetq.core.config.Configuration;
 import org.hornetq.core.config.CoreQueueConfiguration;
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.JournalFile;
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.journal.impl.JournalReaderCallbackAbstract;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.core.persistence.impl.journal.JournalRecordIds;
 import org.hornetq.core.postoffice.DuplicateIDCache;
 import org.hornetq.core.postoffice.impl.PostOfficeImpl;
 import org.hornetq.core.protocol.core.Packet;
@@ -46,6 +54,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMes
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
 import org.hornetq.core.remoting.impl.invm.TransportConstants;
 import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.JournalType;
 import org.hornetq.core.server.MessageReference;
 import org.hornetq.core.server.Queue;
 import org.hornetq.core.server.cluster.impl.BridgeImpl;
@@ -243,6 +252,181 @@ public class BridgeTest extends ServiceTestBase
    }
 
 
+   public void testAcknowledgementsAreBatched() throws Exception
+   {
+      Map<String, Object> server0Params = new HashMap<String, Object>();
+      server0 = createClusteredServerWithParams(isNetty(), 0, true, server0Params);
+
+      Map<String, Object> server1Params = new HashMap<String, Object>();
+      addTargetParameters(server1Params);
+      server1 = createClusteredServerWithParams(isNetty(), 1, false, server1Params);
+
+      // one journal file holds every record, none is reclaimed before it is read
+      server0.getConfiguration().setJournalType(JournalType.NIO);
+      server0.getConfiguration().setJournalFileSize(10 * 1024 * 1024);
+
+      final String testAddress = "testAddress";
+      final String queueName0 = "queue0";
+      final String forwardAddress = "forwardAddress";
+      final String queueName1 = "queue1";
+
+      TransportConfiguration server0tc = new TransportConfiguration(getConnector(), server0Params);
+
+      TransportConfiguration server1tc = new TransportConfiguration(getConnector(), server1Params);
+
+      HashMap<String, TransportConfiguration> connectors = new HashMap<String, TransportConfiguration>();
+      connectors.put(server1tc.getName(), server1tc);
+      server0.getConfiguration().setConnectorConfigurations(connectors);
+
+      final int messageSize = 1024;
+
+      final int numMessages = 200;
+
+      final int ackBatchSize = 20;
+
+      ArrayList<String> connectorConfig = new ArrayList<String>();
+      connectorConfig.add(server1tc.getName());
+      BridgeConfiguration bridgeConfiguration = new BridgeConfiguration("bridge1",
+         queueName0,
+         forwardAddress,
+         null,
+         null,
+         HornetQClient.DEFAULT_MIN_LARGE_MESSAGE_SIZE,
+         HornetQClient.DEFAULT_CLIENT_FAILURE_CHECK_PERIOD,
+         HornetQClient.DEFAULT_CONNECTION_TTL,
+         1000,
+         HornetQClient.DEFAULT_MAX_RETRY_INTERVAL,
+         1d,
+         -1,
+         false,
+         messageSize,
+         connectorConfig,
+         false,
+         HornetQDefaultConfiguration.DEFAULT_CLUSTER_USER,
+         HornetQDefaultConfiguration.DEFAULT_CLUSTER_PASSWORD);
+
+      // only full batches are acknowledged while the test runs
+      bridgeConfiguration.setAckBatchSize(ackBatchSize);
+      bridgeConfiguration.setAckBatchDelay(TimeUnit.MINUTES.toMicros(1));
+
+      List<BridgeConfiguration> bridgeConfigs = new ArrayList<BridgeConfiguration>();
+      bridgeConfigs.add(bridgeConfiguration);
+      server0.getConfiguration().setBridgeConfigurations(bridgeConfigs);
+
+      CoreQueueConfiguration queueConfig0 = new CoreQueueConfiguration(testAddress, queueName0, null, true);
+      List<CoreQueueConfiguration> queueConfigs0 = new ArrayList<CoreQueueConfiguration>();
+      queueConfigs0.add(queueConfig0);
+      server0.getConfiguration().setQueueConfigurations(queueConfigs0);
+
+      CoreQueueConfiguration queueConfig1 = new CoreQueueConfiguration(forwardAddress, queueName1, null, true);
+      List<CoreQueueConfiguration> queueConfigs1 = new ArrayList<CoreQueueConfiguration>();
+      queueConfigs1.add(queueConfig1);
+      server1.getConfiguration().setQueueConfigurations(queueConfigs1);
+
+      server1.start();
+      server0.start();
+      locator = addServerLocator(HornetQClient.createServerLocatorWithoutHA(server0tc, server1tc));
+      ClientSessionFactory sf0 = addSessionFactory(locator.createSessionFactory(server0tc));
+
+      ClientSessionFactory sf1 = addSessionFactory(locator.createSessionFactory(server1tc));
+
+      ClientSession session0 = sf0.createSession(false, true, true);
+
+      ClientSession session1 = sf1.createSession(false, true, true);
+
+      ClientProducer producer0 = session0.createProducer(new SimpleString(testAddress));
+
+      ClientConsumer consumer1 = session1.createConsumer(queueName1);
+
+      session1.start();
+
+      final byte[] bytes = new byte[messageSize];
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = session0.createMessage(true);
+
+         message.getBodyBuffer().writeBytes(bytes);
+
+         producer0.send(message);
+      }
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         ClientMessage message = consumer1.receive(5000);
+
+         Assert.assertNotNull(message);
+
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer1.receiveImmediate());
+
+      Queue queue0 = server0.locateQueue(new SimpleString(queueName0));
+
+      long timeout = System.currentTimeMillis() + 5000;
+
+      while (queue0.getMessageCount() > 0 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertEquals(0, queue0.getMessageCount());
+      Assert.assertEquals(0, queue0.getDeliveringCount());
+
+      session0.close();
+
+      session1.close();
+
+      sf0.close();
+
+      sf1.close();
+
+      closeFields();
+
+      // the producer did not use transactions, every commit is a batch of acknowledgements
+      final AtomicInteger commits = new AtomicInteger();
+
+      final AtomicInteger acks = new AtomicInteger();
+
+      Configuration config = server0.getConfiguration();
+
+      SequentialFileFactory messagesFF = new NIOSequentialFileFactory(config.getJournalDirectory(), null);
+
+      JournalImpl messagesJournal = new JournalImpl(config.getJournalFileSize(),
+         config.getJournalMinFiles(),
+         0,
+         0,
+         messagesFF,
+         "hornetq-data",
+         "hq",
+         1);
+
+      for (JournalFile file : messagesJournal.orderFiles())
+      {
+         JournalImpl.readJournalFile(messagesFF, file, new JournalReaderCallbackAbstract()
+         {
+            @Override
+            public void onReadUpdateRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+            {
+               if (recordInfo.getUserRecordType() == JournalRecordIds.ACKNOWLEDGE_REF)
+               {
+                  acks.incrementAndGet();
+               }
+            }
+
+            @Override
+            public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
+            {
+               commits.incrementAndGet();
+            }
+         });
+      }
+
+      Assert.assertEquals(numMessages, acks.get());
+      Assert.assertEquals(numMessages / ackBatchSize, commits.get());
+   }
+
    public void testLostMessageSimpleMessage() throws Exception
    {
       internalTestMessageLoss(false);
@@ -1740,3 +1924,4 @@ public class BridgeTest extends ServiceTestBase
 
    }
 }
+
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.cluster.distribution;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQNotConnectedException;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.Message;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
+import org.hornetq.core.server.Queue;
+import org.hornetq.core.server.cluster.ClusterConnection;
+import org.hornetq.core.server.cluster.MessageFlowRecord;
+import org.hornetq.core.server.cluster.impl.BridgeImpl;
+import org.hornetq.core.server.cluster.impl.ClusterConnectionImpl;
+import org.hornetq.spi.core.protocol.RemotingConnection;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * A cluster whose bridge forwards over several connections.
+ */
+public class StripedBridgeTest extends ClusterTestBase
+{
+   private static final int CONNECTIONS = 3;
+
+   // as many references a connection may have waiting to be sent before the bridge is busy
+   private static final int MAX_PENDING_SENDS = 1000;
+
+   private static final String ADDRESS = "queues.testaddress";
+
+   private static final SimpleString SEQUENCE_PROP = new SimpleString("sequence");
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      setupServer(0, isFileStorage(), isNetty());
+      setupServer(1, isFileStorage(), isNetty());
+
+      setupClusterConnection("cluster0", "queues", false, 1, isNetty(), 0, 1);
+      setupClusterConnection("cluster1", "queues", false, 1, isNetty(), 1, 0);
+
+      servers[0].getConfiguration().getClusterConfigurations().get(0).setBridgeConnections(CONNECTIONS);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      closeAllConsumers();
+
+      closeAllSessionFactories();
+
+      closeAllServerLocatorsFactories();
+
+      stopServers(0, 1);
+
+      super.tearDown();
+   }
+
+   protected boolean isNetty()
+   {
+      return false;
+   }
+
+   public void testGroupsKeepTheirOrderAcrossConnections() throws Exception
+   {
+      // the sends block until the target answers, a held send holds its connection
+      servers[0].getConfiguration().getClusterConfigurations().get(0).setDuplicateDetection(false);
+
+      BridgeImpl bridge = startCluster();
+
+      BlockingInterceptor interceptor = new BlockingInterceptor();
+
+      servers[1].getRemotingService().addIncomingInterceptor(interceptor);
+
+      try
+      {
+         // one message in a hundred is large, it must not overtake its group on another connection
+         send(0, 900, 9, 100);
+
+         assertTrue(interceptor.blocked.await(10, TimeUnit.SECONDS));
+
+         waitForSteadyDelivering(bridge.getQueue());
+      }
+      finally
+      {
+         interceptor.release();
+      }
+
+      receiveInOrder(900);
+
+      waitForCount(bridge.getQueue(), 0);
+   }
+
+   public void testBusyWhenAConnectionHasTooManyPendingSends() throws Exception
+   {
+      // the sends block until the target answers, a held send holds its connection
+      servers[0].getConfiguration().getClusterConfigurations().get(0).setDuplicateDetection(false);
+
+      BridgeImpl bridge = startCluster();
+
+      BlockingInterceptor interceptor = new BlockingInterceptor();
+
+      servers[1].getRemotingService().addIncomingInterceptor(interceptor);
+
+      try
+      {
+         // a single group, a single connection
+         send(0, 3000, 1, 0);
+
+         assertTrue(interceptor.blocked.await(10, TimeUnit.SECONDS));
+
+         Queue queue = bridge.getQueue();
+
+         int delivering = waitForSteadyDelivering(queue);
+
+         assertEquals(MAX_PENDING_SENDS, delivering);
+         assertEquals(3000, queue.getMessageCount());
+      }
+      finally
+      {
+         interceptor.release();
+      }
+
+      receiveInOrder(3000);
+
+      waitForCount(bridge.getQueue(), 0);
+   }
+
+   public void testFailureOfAConnectionCancelsEveryConnection() throws Exception
+   {
+      BridgeImpl bridge = startCluster();
+
+      BlockingInterceptor interceptor = new BlockingInterceptor();
+
+      servers[1].getRemotingService().addIncomingInterceptor(interceptor);
+
+      Queue queue = bridge.getQueue();
+
+      try
+      {
+         send(0, 900, 9, 0);
+
+         assertTrue(interceptor.blocked.await(10, TimeUnit.SECONDS));
+
+         // each connection is below its limit, the bridge took every reference
+         waitForDelivering(queue, 900);
+
+         RemotingConnection stripeConnection = bridge.getStripeConnection(CONNECTIONS - 1);
+
+         stripeConnection.fail(new HornetQNotConnectedException("failed by the test"));
+      }
+      finally
+      {
+         interceptor.release();
+      }
+
+      // the references of the other connections went back to the queue too, nothing is left
+      // waiting for an acknowledgement that cannot come
+      Set<Integer> received = new HashSet<Integer>();
+
+      ClientConsumer consumer = getConsumer(0);
+
+      while (received.size() < 900)
+      {
+         ClientMessage message = consumer.receive(5000);
+
+         assertNotNull("received only " + received.size(), message);
+
+         message.acknowledge();
+
+         assertTrue(received.add(message.getIntProperty(SEQUENCE_PROP)));
+      }
+
+      assertNull(consumer.receiveImmediate());
+
+      waitForCount(queue, 0);
+
+      assertEquals(0, queue.getDeliveringCount());
+   }
+
+   public void testStopWaitsForThePendingAcknowledgements() throws Exception
+   {
+      BridgeImpl bridge = startCluster();
+
+      send(0, 2000, 9, 0);
+
+      Queue queue = bridge.getQueue();
+
+      stopClusterConnections(0);
+
+      bridge.flushExecutor();
+
+      // whatever the bridge took was acknowledged before it stopped, the rest stayed on the queue
+      waitForDelivering(queue, 0);
+
+      long left = queue.getMessageCount();
+
+      ClientConsumer consumer = getConsumer(0);
+
+      Set<Integer> received = new HashSet<Integer>();
+
+      ClientMessage message;
+
+      while ((message = consumer.receive(500)) != null)
+      {
+         message.acknowledge();
+
+         assertTrue(received.add(message.getIntProperty(SEQUENCE_PROP)));
+      }
+
+      assertEquals(2000, received.size() + left);
+   }
+
+   private BridgeImpl startCluster() throws Exception
+   {
+      startServers(0, 1);
+
+      setupSessionFactory(0, isNetty());
+      setupSessionFactory(1, isNetty());
+
+      createQueue(1, ADDRESS, "queue0", null, false);
+
+      addConsumer(0, 1, "queue0", null);
+
+      waitForBindings(0, ADDRESS, 1, 1, false);
+
+      Set<ClusterConnection> clusterConnections = servers[0].getClusterManager().getClusterConnections();
+
+      ClusterConnectionImpl clusterConnection = (ClusterConnectionImpl)clusterConnections.iterator().next();
+
+      long timeout = System.currentTimeMillis() + WAIT_TIMEOUT;
+
+      while (System.currentTimeMillis() < timeout)
+      {
+         Map<String, MessageFlowRecord> records = clusterConnection.getRecords();
+
+         if (records.size() == 1)
+         {
+            BridgeImpl bridge = (BridgeImpl)records.values().iterator().next().getBridge();
+
+            if (bridge.getStripeConnection(CONNECTIONS - 1) != null)
+            {
+               return bridge;
+            }
+         }
+
+         Thread.sleep(10);
+      }
+
+      fail("The bridge did not open its connections");
+
+      return null;
+   }
+
+   private void send(final int node, final int count, final int groups, final int largeEvery) throws Exception
+   {
+      ClientSession session = sfs[node].createSession(false, true, true);
+
+      try
+      {
+         ClientProducer producer = session.createProducer(ADDRESS);
+
+         for (int i = 0; i < count; i++)
+         {
+            ClientMessage message = session.createMessage(false);
+
+            message.putStringProperty(Message.HDR_GROUP_ID, new SimpleString("group" + i % groups));
+
+            message.putIntProperty(SEQUENCE_PROP, i);
+
+            if (largeEvery > 0 && i % largeEvery == largeEvery / 2)
+            {
+               message.setBodyInputStream(UnitTestCase.createFakeLargeStream(200 * 1024));
+            }
+
+            producer.send(message);
+         }
+      }
+      finally
+      {
+         session.close();
+      }
+   }
+
+   private void receiveInOrder(final int count) throws Exception
+   {
+      ClientConsumer consumer = getConsumer(0);
+
+      Map<SimpleString, Integer> last = new HashMap<SimpleString, Integer>();
+
+      for (int i = 0; i < count; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+
+         assertNotNull("received only " + i, message);
+
+         message.acknowledge();
+
+         SimpleString group = message.getSimpleStringProperty(Message.HDR_GROUP_ID);
+
+         int sequence = message.getIntProperty(SEQUENCE_PROP);
+
+         Integer previous = last.put(group, sequence);
+
+         if (previous != null)
+         {
+            assertTrue(group + " received " + sequence + " after " + previous, sequence > previous);
+         }
+      }
+
+      assertNull(consumer.receiveImmediate());
+   }
+
+   private static void waitForCount(final Queue queue, final long count) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + WAIT_TIMEOUT;
+
+      while (queue.getMessageCount() != count && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      assertEquals(count, queue.getMessageCount());
+   }
+
+   private static void waitForDelivering(final Queue queue, final int count) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + WAIT_TIMEOUT;
+
+      while (queue.getDeliveringCount() != count && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      assertEquals(count, queue.getDeliveringCount());
+   }
+
+   /**
+    * @return the number of references the bridge took once it stopped taking more
+    */
+   private static int waitForSteadyDelivering(final Queue queue) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + WAIT_TIMEOUT;
+
+      int delivering = queue.getDeliveringCount();
+
+      while (System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(500);
+
+         int now = queue.getDeliveringCount();
+
+         if (now == delivering)
+         {
+            return now;
+         }
+
+         delivering = now;
+      }
+
+      fail("The bridge kept taking references");
+
+      return -1;
+   }
+
+   /**
+    * Holds the messages sent to the test address until released, so the bridge's connections
+    * run out of credits and their sends pile up.
+    */
+   private static final class BlockingInterceptor implements Interceptor
+   {
+      private final CountDownLatch blocked = new CountDownLatch(1);
+
+      private final CountDownLatch released = new CountDownLatch(1);
+
+      public boolean intercept(final Packet packet, final RemotingConnection connection) throws HornetQException
+      {
+         if (packet instanceof SessionSendMessage &&
+             new SimpleString(ADDRESS).equals(((SessionSendMessage)packet).getMessage().getAddress()))
+         {
+            blocked.countDown();
+
+            try
+            {
+               released.await(30, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+
+         return true;
+      }
+
+      void release()
+      {
+         released.countDown();
+      }
+   }
+}
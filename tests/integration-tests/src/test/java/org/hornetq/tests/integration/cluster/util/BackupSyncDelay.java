@@ -344,6 +344,12 @@ public class BackupSyncDelay implements Interceptor
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public Packet getUnconfirmedCommand(int commandID)
+      {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public int getConfirmationWindowSize()
       {
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.journal;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.journal.SequentialFile;
+import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.MappedSequentialFileFactory;
+import org.hornetq.tests.unit.core.journal.impl.SequentialFileFactoryTestBase;
+
+/**
+ * A MappedSequentialFileFactoryTest
+ */
+public class MappedSequentialFileFactoryTest extends SequentialFileFactoryTestBase
+{
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      File file = new File(getTestDir());
+
+      deleteDirectory(file);
+
+      file.mkdir();
+   }
+
+   @Override
+   protected SequentialFileFactory createFactory()
+   {
+      return new MappedSequentialFileFactory(getTestDir(), false, null);
+   }
+
+   public void testGrowingFileIsTruncatedOnClose() throws Exception
+   {
+      SequentialFile file = factory.createSequentialFile("growing.page", 1);
+
+      file.open();
+
+      byte[] bytes = new byte[3000];
+      for (int i = 0; i < bytes.length; i++)
+      {
+         bytes[i] = (byte)i;
+      }
+
+      for (int i = 0; i < 1000; i++)
+      {
+         file.writeDirect(ByteBuffer.wrap(bytes), false);
+      }
+
+      Assert.assertEquals(3000L * 1000, file.size());
+
+      file.close();
+
+      Assert.assertEquals(3000L * 1000, file.getJavaFile().length());
+
+      file.open();
+
+      Assert.assertEquals(3000L * 1000, file.size());
+
+      ByteBuffer read = factory.newBuffer(bytes.length);
+      file.position(3000L * 999);
+      file.read(read);
+
+      for (int i = 0; i < bytes.length; i++)
+      {
+         Assert.assertEquals(bytes[i], read.get(i));
+      }
+
+      file.close();
+   }
+}
@@ -1238,6 +1238,50 @@ public class NIOJournalCompactTest extends JournalImplTestBase
 
    }
 
+   public void testCompactStatistics() throws Exception
+   {
+      setup(2, 60 * 1024, false);
+
+      createJournal();
+      startJournal();
+      load();
+
+      JournalImpl journalImpl = (JournalImpl)journal;
+
+      Assert.assertEquals(0, journalImpl.getCompactCount());
+
+      for (int i = 0; i < 100; i++)
+      {
+         add(i);
+         if (i % 10 == 0)
+         {
+            journal.forceMoveNextFile();
+         }
+      }
+
+      for (int i = 0; i < 100; i += 2)
+      {
+         delete(i);
+      }
+
+      journal.forceMoveNextFile();
+
+      int dataFiles = journal.getDataFilesCount();
+
+      journal.testCompact();
+
+      Assert.assertEquals(1, journalImpl.getCompactCount());
+      // compacting also takes the current file
+      Assert.assertEquals((long)(dataFiles + 1) * journal.getFileSize(), journalImpl.getLastCompactedBytes());
+      Assert.assertTrue(journalImpl.getLastCompactPauseTime() <= journalImpl.getLastCompactTime());
+      Assert.assertEquals(journalImpl.getLastCompactPauseTime(), journalImpl.getTotalCompactPauseTime());
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+   }
+
    public void testLiveSize() throws Exception
    {
       setup(2, 60 * 1024, true);
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.journal;
+
+import org.hornetq.core.journal.impl.JournalImpl;
+
+/**
+ * A NIOParallelLoadJournalImplTest
+ * <p>
+ * Runs the journal tests parsing the journal files on several threads when loading.
+ */
+public class NIOParallelLoadJournalImplTest extends NIOJournalImplTest
+{
+   @Override
+   public void createJournal() throws Exception
+   {
+      super.createJournal();
+
+      ((JournalImpl)journal).setLoadThreads(3);
+   }
+}
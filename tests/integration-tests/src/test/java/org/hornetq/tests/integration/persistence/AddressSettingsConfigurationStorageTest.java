@@ -71,6 +71,8 @@ public class AddressSettingsConfigurationStorageTest extends StorageManagerTestB
 
       setting.setDeadLetterAddress(new SimpleString("some-test"));
 
+      setting.setConcurrentQueue(true);
+
       addAddress(journal, "a2", setting);
 
       journal.stop();
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.integration.scheduling;
+
+import java.io.File;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.Message;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.core.paging.impl.ScheduledSpillStore;
+import org.hornetq.core.paging.impl.ScheduledSpillStore.SpilledReference;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.Queue;
+
+/**
+ * The scheduled message tests, with every message scheduled in the future spilled to disk.
+ */
+public class ScheduledMessageSpillTest extends ScheduledMessageTest
+{
+   private static final int MESSAGES = 50;
+
+   @Override
+   protected long getScheduledSpillDelay()
+   {
+      return 0;
+   }
+
+   public void testScheduledMessagesAreSpilled() throws Exception
+   {
+      testScheduledMessagesAreSpilled(false);
+   }
+
+   public void testRecoveredScheduledMessagesAreSpilled() throws Exception
+   {
+      testScheduledMessagesAreSpilled(true);
+   }
+
+   private void testScheduledMessagesAreSpilled(final boolean recover) throws Exception
+   {
+      ClientSessionFactory sessionFactory = createSessionFactory(locator);
+      ClientSession session = sessionFactory.createSession(false, true, true);
+      session.createQueue(atestq, atestq, null, true);
+      ClientProducer producer = session.createProducer(atestq);
+
+      long time = System.currentTimeMillis() + 3000;
+
+      // all due together, references due on later ticks would go ahead of those not consumed yet
+      for (int i = 0; i < MESSAGES; i++)
+      {
+         ClientMessage message = createDurableMessage(session, "m" + i);
+         message.putLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME, time);
+         producer.send(message);
+      }
+
+      if (recover)
+      {
+         producer.close();
+         session.close();
+         server.stop();
+         server = createServer(true, configuration);
+         server.start();
+
+         sessionFactory = createSessionFactory(locator);
+
+         session = sessionFactory.createSession(false, true, true);
+      }
+
+      Queue queue = server.locateQueue(atestq);
+
+      Assert.assertEquals(MESSAGES, queue.getScheduledCount());
+      Assert.assertEquals(MESSAGES, queue.getMessageCount());
+
+      for (MessageReference ref : queue.getScheduledMessages())
+      {
+         Assert.assertTrue(ref.toString(), ref instanceof SpilledReference);
+
+         // browsing reads the message back without restoring it
+         Assert.assertTrue(ref.getMessage().getBodyBuffer().readString().startsWith("m"));
+      }
+
+      File spillDirectory = new File(configuration.getPagingDirectory(), ScheduledSpillStore.DIRECTORY);
+
+      Assert.assertTrue(spillDirectory.list().length > 0);
+
+      ClientConsumer consumer = session.createConsumer(atestq);
+
+      session.start();
+
+      for (int i = 0; i < MESSAGES; i++)
+      {
+         ClientMessage message = consumer.receive(10000);
+         Assert.assertNotNull(message);
+         Assert.assertTrue(System.currentTimeMillis() >= time);
+         Assert.assertEquals("m" + i, message.getBodyBuffer().readString());
+         message.acknowledge();
+      }
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      session.close();
+      sessionFactory.close();
+
+      waitForMessages(queue, 0);
+
+      Assert.assertEquals(0, queue.getScheduledCount());
+   }
+
+   private static void waitForMessages(final Queue queue, final long count) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + 5000;
+
+      while (queue.getMessageCount() != count && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+
+      Assert.assertEquals(count, queue.getMessageCount());
+   }
+}
@@ -20,6 +20,7 @@ import javax.transaction.xa.Xid;
 
 import junit.framework.Assert;
 
+import org.hornetq.api.config.HornetQDefaultConfiguration;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.api.core.client.ClientConsumer;
@@ -46,15 +47,15 @@ public class ScheduledMessageTest extends ServiceTestBase
 {
    private static final IntegrationTestLogger log = IntegrationTestLogger.LOGGER;
 
-   private final SimpleString atestq = new SimpleString("ascheduledtestq");
+   protected final SimpleString atestq = new SimpleString("ascheduledtestq");
 
    private final SimpleString atestq2 = new SimpleString("ascheduledtestq2");
 
-   private Configuration configuration;
+   protected Configuration configuration;
 
-   private HornetQServer server;
+   protected HornetQServer server;
 
-   private ServerLocator locator;
+   protected ServerLocator locator;
 
    @Override
    protected void setUp() throws Exception
@@ -72,11 +73,17 @@ public class ScheduledMessageTest extends ServiceTestBase
       configuration = createDefaultConfig();
       configuration.setSecurityEnabled(false);
       configuration.setJournalMinFiles(2);
+      configuration.setScheduledSpillDelay(getScheduledSpillDelay());
       server = createServer(true, configuration);
       server.start();
       locator = createInVMNonHALocator();
    }
 
+   protected long getScheduledSpillDelay()
+   {
+      return HornetQDefaultConfiguration.DEFAULT_SCHEDULED_SPILL_DELAY;
+   }
+
    public void testRecoveredMessageDeliveredCorrectly() throws Exception
    {
       testMessageDeliveredCorrectly(true);
@@ -984,7 +991,7 @@ public class ScheduledMessageTest extends ServiceTestBase
       sessionFactory.close();
    }
 
-   private ClientMessage createDurableMessage(final ClientSession session, final String body)
+   protected ClientMessage createDurableMessage(final ClientSession session, final String body)
    {
       ClientMessage message = session.createMessage(HornetQTextMessage.TYPE,
                                                     true,
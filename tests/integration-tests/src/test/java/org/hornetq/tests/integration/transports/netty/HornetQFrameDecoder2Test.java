@@ -19,6 +19,9 @@ import java.util.Random;
 
 import junit.framework.Assert;
 
+import org.hornetq.core.buffers.impl.PooledBufferAllocator;
+import org.hornetq.core.buffers.impl.PooledChannelBuffer;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.remoting.impl.netty.HornetQFrameDecoder2;
 import org.hornetq.tests.util.UnitTestCase;
 import org.jboss.netty.buffer.ChannelBuffer;
@@ -116,4 +119,42 @@ public class HornetQFrameDecoder2Test extends UnitTestCase
       Assert.assertEquals(7, frame.getByte(6));
       Assert.assertEquals(8, frame.getByte(7));
    }
+
+   public void testPooledFrames() throws Exception
+   {
+      PooledBufferAllocator allocator = PooledBufferAllocator.HEAP;
+
+      long outstanding = allocator.getOutstandingBuffers();
+
+      final DecoderEmbedder<ChannelBuffer> decoder = new DecoderEmbedder<ChannelBuffer>(new HornetQFrameDecoder2(allocator));
+
+      ChannelBuffer src = ChannelBuffers.dynamicBuffer();
+      for (byte type : new byte[] { PacketImpl.PING, PacketImpl.SESS_SEND, PacketImpl.SESS_RECEIVE_MSG, PacketImpl.SESS_ACKNOWLEDGE })
+      {
+         src.writeInt(9);
+         src.writeByte(type);
+         src.writeLong(type);
+      }
+
+      decoder.offer(src);
+
+      ChannelBuffer ping = decoder.poll();
+      Assert.assertTrue(ping instanceof PooledChannelBuffer);
+
+      // messages keep the frame as their buffer
+      Assert.assertFalse(decoder.poll() instanceof PooledChannelBuffer);
+      Assert.assertFalse(decoder.poll() instanceof PooledChannelBuffer);
+
+      ChannelBuffer ack = decoder.poll();
+      Assert.assertTrue(ack instanceof PooledChannelBuffer);
+      Assert.assertEquals(PacketImpl.SESS_ACKNOWLEDGE, ack.readByte());
+      Assert.assertEquals(PacketImpl.SESS_ACKNOWLEDGE, ack.readLong());
+
+      Assert.assertEquals(outstanding + 2, allocator.getOutstandingBuffers());
+
+      PooledChannelBuffer.release(ping);
+      PooledChannelBuffer.release(ack);
+
+      Assert.assertEquals(outstanding, allocator.getOutstandingBuffers());
+   }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.filter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A FilterMatchBenchmark
+ * <p>
+ * Matches a message the filter selects and one it doesn't.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FilterMatchBenchmark
+{
+   @Param({ "color = 'red'",
+           "color = 'red' AND weight > 2500",
+           "color LIKE 'r%' OR weight BETWEEN 100 AND 200 OR HQPriority > 8" })
+   public String filterString;
+
+   private Filter filter;
+
+   private ServerMessage red;
+
+   private ServerMessage blue;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      filter = FilterImpl.createFilter(filterString);
+
+      red = new ServerMessageImpl(1, 100);
+      red.putStringProperty(new SimpleString("color"), new SimpleString("red"));
+      red.putIntProperty(new SimpleString("weight"), 3000);
+      red.setPriority((byte)4);
+
+      blue = new ServerMessageImpl(2, 100);
+      blue.putStringProperty(new SimpleString("color"), new SimpleString("blue"));
+      blue.putIntProperty(new SimpleString("weight"), 1000);
+      blue.setPriority((byte)4);
+   }
+
+   @Benchmark
+   public boolean match()
+   {
+      return filter.match(red);
+   }
+
+   @Benchmark
+   public boolean noMatch()
+   {
+      return filter.match(blue);
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.journal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.core.journal.Journal;
+import org.hornetq.core.journal.PreparedTransactionInfo;
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.tests.unit.core.journal.impl.fakes.FakeSequentialFileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JournalAppendBenchmark
+ * <p>
+ * Appends a record to the journal and deletes it, so the journal reclaims its files and stays the
+ * same size however long the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JournalAppendBenchmark
+{
+   @Param({ "NIO", "FAKE" })
+   public String factory;
+
+   @Param({ "1024" })
+   public int recordSize;
+
+   private File directory;
+
+   private Journal journal;
+
+   private byte[] record;
+
+   private long id;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      SequentialFileFactory fileFactory;
+
+      if ("NIO".equals(factory))
+      {
+         directory = File.createTempFile("journal-benchmark", "");
+         directory.delete();
+         directory.mkdirs();
+         fileFactory = new NIOSequentialFileFactory(directory.getAbsolutePath(), true);
+      }
+      else
+      {
+         fileFactory = new FakeSequentialFileFactory();
+      }
+
+      journal = new JournalImpl(10 * 1024 * 1024, 2, 10, 30, fileFactory, "hornetq-data", "hq", 500);
+      journal.start();
+      journal.load(new ArrayList<RecordInfo>(), new ArrayList<PreparedTransactionInfo>(), null);
+
+      record = new byte[recordSize];
+   }
+
+   @TearDown
+   public void tearDown() throws Exception
+   {
+      journal.stop();
+
+      if (directory != null)
+      {
+         for (File file : directory.listFiles())
+         {
+            file.delete();
+         }
+         directory.delete();
+      }
+   }
+
+   @Benchmark
+   public void appendAddDelete() throws Exception
+   {
+      journal.appendAddRecord(++id, (byte)1, record, false);
+      journal.appendDeleteRecord(id, false);
+   }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.remoting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.core.remoting.impl.netty.HornetQFrameDecoder2;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A FrameDecoderBenchmark
+ * <p>
+ * Decodes a batch of frames arriving in TCP segment sized buffers, so some frames span two or
+ * more buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FrameDecoderBenchmark
+{
+   private static final int FRAMES = 100;
+
+   private static final int SEGMENT_SIZE = 1460;
+
+   @Param({ "100", "1000" })
+   public int frameSize;
+
+   private DecoderEmbedder<ChannelBuffer> decoder;
+
+   private final List<ChannelBuffer> segments = new ArrayList<ChannelBuffer>();
+
+   @Setup
+   public void setUp()
+   {
+      decoder = new DecoderEmbedder<ChannelBuffer>(new HornetQFrameDecoder2());
+
+      ChannelBuffer stream = ChannelBuffers.buffer(FRAMES * (frameSize + 4));
+      while (stream.writable())
+      {
+         stream.writeInt(frameSize);
+         stream.writeZero(frameSize);
+      }
+
+      for (int i = 0; i < stream.capacity(); i += SEGMENT_SIZE)
+      {
+         segments.add(stream.copy(i, Math.min(SEGMENT_SIZE, stream.capacity() - i)));
+      }
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(FRAMES)
+   public void decode(final Blackhole blackhole)
+   {
+      for (ChannelBuffer segment : segments)
+      {
+         decoder.offer(segment.duplicate());
+
+         ChannelBuffer frame;
+         while ((frame = decoder.poll()) != null)
+         {
+            blackhole.consume(frame);
+         }
+      }
+   }
+}
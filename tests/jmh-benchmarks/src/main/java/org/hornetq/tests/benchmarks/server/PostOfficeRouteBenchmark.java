@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.server;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.config.impl.ConfigurationImpl;
+import org.hornetq.core.postoffice.PostOffice;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.HornetQServers;
+import org.hornetq.core.server.Queue;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A PostOfficeRouteBenchmark
+ * <p>
+ * Routes non durable messages through the post office of a server without persistence, to an
+ * address bound to a number of queues with a consumer each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PostOfficeRouteBenchmark
+{
+   private static final SimpleString ADDRESS = new SimpleString("benchmark.address");
+
+   @Param({ "1", "10" })
+   public int queues;
+
+   private File directory;
+
+   private HornetQServer server;
+
+   private PostOffice postOffice;
+
+   private final byte[] body = new byte[100];
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      directory = File.createTempFile("route-benchmark", "");
+      directory.delete();
+
+      Configuration config = new ConfigurationImpl();
+      config.setPersistenceEnabled(false);
+      config.setSecurityEnabled(false);
+      config.setJMXManagementEnabled(false);
+      config.setJournalDirectory(new File(directory, "journal").getAbsolutePath());
+      config.setBindingsDirectory(new File(directory, "bindings").getAbsolutePath());
+      config.setLargeMessagesDirectory(new File(directory, "large-messages").getAbsolutePath());
+      config.setPagingDirectory(new File(directory, "paging").getAbsolutePath());
+
+      server = HornetQServers.newHornetQServer(config, false);
+      server.start();
+
+      for (int i = 0; i < queues; i++)
+      {
+         Queue queue = server.createQueue(ADDRESS, new SimpleString("benchmark.queue." + i), null, false, false);
+         queue.addConsumer(new AckingConsumer());
+      }
+
+      postOffice = server.getPostOffice();
+   }
+
+   @TearDown
+   public void tearDown() throws Exception
+   {
+      server.stop();
+      delete(directory);
+   }
+
+   @Benchmark
+   public void route() throws Exception
+   {
+      ServerMessage message = new ServerMessageImpl(server.getStorageManager().generateUniqueID(), 200);
+      message.setAddress(ADDRESS);
+      message.getBodyBuffer().writeBytes(body);
+
+      postOffice.route(message, false);
+   }
+
+   private static void delete(final File file)
+   {
+      File[] children = file.listFiles();
+
+      if (children != null)
+      {
+         for (File child : children)
+         {
+            delete(child);
+         }
+      }
+
+      file.delete();
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.QueueImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A QueueBenchmark
+ * <p>
+ * Adds a batch of references to a {@link QueueImpl} and delivers them to its consumers, which
+ * acknowledge them straight away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class QueueBenchmark
+{
+   private static final int BATCH = 1000;
+
+   private static final SimpleString ADDRESS = new SimpleString("benchmark.address");
+
+   @Param({ "1", "4" })
+   public int consumers;
+
+   private ScheduledExecutorService scheduledExecutor;
+
+   private ExecutorService executor;
+
+   private QueueImpl queue;
+
+   private final ServerMessage[] messages = new ServerMessage[BATCH];
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+      executor = Executors.newSingleThreadExecutor();
+
+      queue = new QueueImpl(1,
+                            ADDRESS,
+                            new SimpleString("benchmark.queue"),
+                            null,
+                            false,
+                            false,
+                            scheduledExecutor,
+                            null,
+                            null,
+                            null,
+                            executor);
+
+      for (int i = 0; i < consumers; i++)
+      {
+         queue.addConsumer(new AckingConsumer());
+      }
+
+      for (int i = 0; i < BATCH; i++)
+      {
+         messages[i] = new ServerMessageImpl(i, 200);
+         messages[i].setAddress(ADDRESS);
+      }
+   }
+
+   @TearDown
+   public void tearDown() throws Exception
+   {
+      executor.shutdown();
+      scheduledExecutor.shutdown();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(BATCH)
+   public void addAndDeliver() throws Exception
+   {
+      for (ServerMessage message : messages)
+      {
+         message.incrementRefCount();
+         queue.addTail(message.createReference(queue));
+      }
+
+      queue.deliverNow();
+   }
+}
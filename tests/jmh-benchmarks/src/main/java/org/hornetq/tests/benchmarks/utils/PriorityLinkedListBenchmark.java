@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.utils.LinkedListIterator;
+import org.hornetq.utils.PriorityLinkedListImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A PriorityLinkedListBenchmark
+ * <p>
+ * Fills the list with a batch of elements spread over some priorities and drains it, by polling
+ * or through an iterator as {@code QueueImpl} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PriorityLinkedListBenchmark
+{
+   private static final int BATCH = 1000;
+
+   /**
+    * The number of priorities used out of the 10 of the list
+    */
+   @Param({ "1", "10" })
+   public int priorities;
+
+   private PriorityLinkedListImpl<Integer> list;
+
+   private final Integer[] elements = new Integer[BATCH];
+
+   @Setup
+   public void setUp()
+   {
+      list = new PriorityLinkedListImpl<Integer>(10);
+
+      for (int i = 0; i < BATCH; i++)
+      {
+         elements[i] = i;
+      }
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(BATCH)
+   public void addTailAndPoll(final Blackhole blackhole)
+   {
+      fill();
+
+      for (int i = 0; i < BATCH; i++)
+      {
+         blackhole.consume(list.poll());
+      }
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(BATCH)
+   public void addTailAndIterate(final Blackhole blackhole)
+   {
+      fill();
+
+      LinkedListIterator<Integer> iter = list.iterator();
+      try
+      {
+         while (iter.hasNext())
+         {
+            blackhole.consume(iter.next());
+            iter.remove();
+         }
+      }
+      finally
+      {
+         iter.close();
+      }
+   }
+
+   private void fill()
+   {
+      for (int i = 0; i < BATCH; i++)
+      {
+         list.addTail(elements[i], i % priorities);
+      }
+   }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.SimpleString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A SimpleStringBenchmark
+ * <p>
+ * Hashes and compares strings as they come off a buffer, before their hash is cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SimpleStringBenchmark
+{
+   @Param({ "8", "64" })
+   public int length;
+
+   private byte[] data;
+
+   private SimpleString other;
+
+   @Setup
+   public void setUp()
+   {
+      StringBuilder str = new StringBuilder();
+      for (int i = 0; i < length; i++)
+      {
+         str.append((char)('a' + i % 26));
+      }
+
+      data = new SimpleString(str.toString()).getData();
+      other = new SimpleString(str.toString());
+   }
+
+   @Benchmark
+   public int hash()
+   {
+      return new SimpleString(data).hashCode();
+   }
+
+   @Benchmark
+   public boolean equals()
+   {
+      return new SimpleString(data).equals(other);
+   }
+}
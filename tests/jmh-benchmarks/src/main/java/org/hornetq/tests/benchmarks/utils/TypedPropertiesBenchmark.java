@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.benchmarks.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.utils.TypedProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A TypedPropertiesBenchmark
+ * <p>
+ * Encodes and decodes properties of mixed types, the way message properties go through the
+ * journal and the wire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TypedPropertiesBenchmark
+{
+   @Param({ "4", "16" })
+   public int properties;
+
+   private TypedProperties typedProperties;
+
+   private SimpleString firstKey;
+
+   private HornetQBuffer encodeBuffer;
+
+   private HornetQBuffer encoded;
+
+   @Setup
+   public void setUp()
+   {
+      typedProperties = new TypedProperties();
+
+      for (int i = 0; i < properties; i++)
+      {
+         SimpleString key = new SimpleString("property" + i);
+
+         switch (i % 4)
+         {
+            case 0:
+               typedProperties.putSimpleStringProperty(key, new SimpleString("value" + i));
+               break;
+            case 1:
+               typedProperties.putIntProperty(key, i);
+               break;
+            case 2:
+               typedProperties.putLongProperty(key, System.currentTimeMillis());
+               break;
+            default:
+               typedProperties.putBooleanProperty(key, true);
+         }
+      }
+
+      firstKey = new SimpleString("property0");
+
+      encodeBuffer = HornetQBuffers.fixedBuffer(typedProperties.getEncodeSize());
+
+      encoded = HornetQBuffers.fixedBuffer(typedProperties.getEncodeSize());
+      typedProperties.encode(encoded);
+   }
+
+   @Benchmark
+   public HornetQBuffer encode()
+   {
+      encodeBuffer.clear();
+      typedProperties.encode(encodeBuffer);
+      return encodeBuffer;
+   }
+
+   @Benchmark
+   public TypedProperties decode()
+   {
+      encoded.readerIndex(0);
+      TypedProperties decoded = new TypedProperties();
+      decoded.decode(encoded);
+      return decoded;
+   }
+
+   @Benchmark
+   public Object decodeAndGet()
+   {
+      encoded.readerIndex(0);
+      TypedProperties decoded = new TypedProperties();
+      decoded.decode(encoded);
+      return decoded.getProperty(firstKey);
+   }
+}
@@ -41,6 +41,7 @@ public class AddressSettingsDeployerTest extends UnitTestCase
                                + "      <address-full-policy>DROP</address-full-policy>\n"
                                + "      <message-counter-history-day-limit>1000</message-counter-history-day-limit>\n"
                                + "      <last-value-queue>true</last-value-queue>\n"
+                               + "      <concurrent-queue>true</concurrent-queue>\n"
                                + "      <redistribution-delay>38383</redistribution-delay>\n"
                                + "      <redelivery-delay-multiplier>2</redelivery-delay-multiplier>\n"
                                + "      <max-redelivery-delay>12000</max-redelivery-delay>\n"
@@ -75,6 +76,7 @@ public class AddressSettingsDeployerTest extends UnitTestCase
       Assert.assertEquals(AddressFullMessagePolicy.DROP, as.getAddressFullMessagePolicy());
       Assert.assertEquals(1000, as.getMessageCounterHistoryDayLimit());
       Assert.assertTrue(as.isLastValueQueue());
+      Assert.assertTrue(as.isConcurrentQueue());
       Assert.assertEquals(38383, as.getRedistributionDelay());
       Assert.assertEquals(2.0, as.getRedeliveryMultiplier());
       Assert.assertEquals(12000, as.getMaxRedeliveryDelay());
@@ -108,6 +110,7 @@ public class AddressSettingsDeployerTest extends UnitTestCase
       Assert.assertEquals(AddressFullMessagePolicy.DROP, as.getAddressFullMessagePolicy());
       Assert.assertEquals(1000, as.getMessageCounterHistoryDayLimit());
       Assert.assertTrue(as.isLastValueQueue());
+      Assert.assertTrue(as.isConcurrentQueue());
       Assert.assertEquals(38383, as.getRedistributionDelay());
       Assert.assertTrue(as.isSendToDLAOnNoRoute());
    }
@@ -17,11 +17,16 @@ import java.util.Set;
 
 import junit.framework.Assert;
 
+import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.client.impl.ClientMessageImpl;
+import org.hornetq.core.message.impl.MessageImpl;
+import org.hornetq.core.protocol.core.impl.PacketImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionReceiveMessage;
 import org.hornetq.tests.util.RandomUtil;
 import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.DataConstants;
 
 /**
  *
@@ -221,6 +226,46 @@ public class MessageImplTest extends UnitTestCase
       }
    }
 
+   public void testDeliveriesShareTheEncodedMessage()
+   {
+      ClientMessageImpl message = new ClientMessageImpl((byte)0, false, 0, 0, (byte)4, 100);
+      message.getBodyBuffer().writeString("body");
+      message.putIntProperty("count", 1);
+
+      HornetQBuffer first = new SessionReceiveMessage(1, message, 1).encode(null);
+      HornetQBuffer second = new SessionReceiveMessage(2, message, 7).encode(null);
+
+      // the bytes of the message are not copied for each delivery
+      byte marker = (byte)(message.getWholeBuffer().getByte(MessageImpl.BODY_OFFSET) + 1);
+      message.getWholeBuffer().setByte(MessageImpl.BODY_OFFSET, marker);
+      Assert.assertEquals(marker, first.getByte(MessageImpl.BODY_OFFSET));
+      Assert.assertEquals(marker, second.getByte(MessageImpl.BODY_OFFSET));
+      message.getWholeBuffer().setByte(MessageImpl.BODY_OFFSET, (byte)(marker - 1));
+
+      SessionReceiveMessage decoded = decodeReceiveMessage(second);
+      Assert.assertEquals(2, decoded.getConsumerID());
+      Assert.assertEquals(7, decoded.getDeliveryCount());
+      Assert.assertEquals("body", decoded.getMessage().getBodyBuffer().readString());
+      Assert.assertEquals(1, decoded.getMessage().getIntProperty("count").intValue());
+   }
+
+   public void testChangingADeliveredMessageDoesNotChangeTheDelivery()
+   {
+      ClientMessageImpl message = new ClientMessageImpl((byte)0, false, 0, 0, (byte)4, 100);
+      message.getBodyBuffer().writeString("body");
+      message.putIntProperty("count", 1);
+
+      HornetQBuffer delivered = new SessionReceiveMessage(1, message, 1).encode(null);
+
+      message.putIntProperty("count", 2);
+      message.putStringProperty("other", "value");
+
+      HornetQBuffer redelivered = new SessionReceiveMessage(1, message, 2).encode(null);
+
+      Assert.assertEquals(1, decodeReceiveMessage(delivered).getMessage().getIntProperty("count").intValue());
+      Assert.assertEquals(2, decodeReceiveMessage(redelivered).getMessage().getIntProperty("count").intValue());
+   }
+
    // Protected -------------------------------------------------------------------------------
 
    protected void assertMessagesEquivalent(final Message msg1, final Message msg2)
@@ -259,4 +304,15 @@ public class MessageImplTest extends UnitTestCase
 
    // Private ----------------------------------------------------------------------------------
 
+   private SessionReceiveMessage decodeReceiveMessage(final HornetQBuffer buffer)
+   {
+      Assert.assertEquals(buffer.readableBytes() - DataConstants.SIZE_INT, buffer.readInt());
+      Assert.assertEquals(PacketImpl.SESS_RECEIVE_MSG, buffer.readByte());
+
+      SessionReceiveMessage packet = new SessionReceiveMessage(new ClientMessageImpl());
+      packet.decode(buffer);
+
+      return packet;
+   }
+
 }
@@ -13,9 +13,14 @@
 
 package org.hornetq.tests.unit.core.paging.impl;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
@@ -25,6 +30,9 @@ import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
 import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.paging.PagingStore;
+import org.hornetq.core.paging.cursor.impl.PageCursorProviderImpl;
+import org.hornetq.core.paging.cursor.impl.PagePositionImpl;
 import org.hornetq.core.paging.impl.Page;
 import org.hornetq.core.paging.impl.PagedMessageImpl;
 import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
@@ -73,6 +81,103 @@ public class PageTest extends UnitTestCase
       testDamagedPage(new FakeSequentialFileFactory(1, false), 100);
    }
 
+   public void testIndexedReadWithNIO() throws Exception
+   {
+      recreateDirectory(getTestDir());
+      testIndexedRead(new NIOSequentialFileFactory(getTestDir()), 1000);
+   }
+
+   public void testIndexedReadFake() throws Exception
+   {
+      testIndexedRead(new FakeSequentialFileFactory(1, false), 100);
+   }
+
+   public void testSequentialReadsOpenPageOnce() throws Exception
+   {
+      final SequentialFileFactory factory = new FakeSequentialFileFactory(1, false);
+
+      final int numberOfElements = 100;
+
+      SequentialFile file = factory.createSequentialFile("00010.page", 1);
+
+      Page impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      impl.open();
+
+      addPageElements(new SimpleString("Test"), impl, numberOfElements);
+
+      impl.sync();
+      impl.close();
+
+      final AtomicInteger opens = new AtomicInteger(0);
+
+      final NullStorageManager storageManager = new NullStorageManager()
+      {
+         @Override
+         public void beforePageRead() throws Exception
+         {
+            opens.incrementAndGet();
+         }
+      };
+
+      // a completed page 10, the store writes on the next one
+      PagingStore store = (PagingStore)Proxy.newProxyInstance(PagingStore.class.getClassLoader(),
+                                                               new Class[] { PagingStore.class },
+                                                               new InvocationHandler()
+      {
+         public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+         {
+            if (method.getName().equals("getCurrentWritingPage"))
+            {
+               return 11;
+            }
+            if (method.getName().equals("checkPageFileExists"))
+            {
+               return args[0].equals(10);
+            }
+            if (method.getName().equals("createPage"))
+            {
+               return new Page(new SimpleString("something"),
+                               storageManager,
+                               factory,
+                               factory.createSequentialFile("00010.page", 1),
+                               10);
+            }
+            if (method.getName().equals("getAddress"))
+            {
+               return new SimpleString("something");
+            }
+            throw new UnsupportedOperationException(method.getName());
+         }
+      });
+
+      PageCursorProviderImpl provider = new PageCursorProviderImpl(store, storageManager, new Executor()
+      {
+         public void execute(final Runnable command)
+         {
+            command.run();
+         }
+      }, 10);
+
+      // a single message is read through the index, without loading the page
+      PagedMessage msg = provider.getMessage(new PagePositionImpl(10, numberOfElements / 2));
+      Assert.assertEquals(numberOfElements / 2, msg.getMessage().getMessageID());
+      Assert.assertEquals(1, opens.get());
+      Assert.assertEquals(0, provider.getCacheSize());
+
+      opens.set(0);
+
+      // a cursor walking the page loads it in the cache after a few reads
+      for (int i = 0; i < numberOfElements; i++)
+      {
+         msg = provider.getMessage(new PagePositionImpl(10, i));
+         Assert.assertEquals(i, msg.getMessage().getMessageID());
+      }
+
+      Assert.assertTrue("page opened " + opens.get() + " times", opens.get() <= 5);
+      Assert.assertEquals(1, provider.getCacheSize());
+   }
+
    /** Validate if everything we add is recovered */
    protected void testAdd(final SequentialFileFactory factory, final int numberOfElements) throws Exception
    {
@@ -195,6 +300,101 @@ public class PageTest extends UnitTestCase
 
    }
 
+   protected void testIndexedRead(final SequentialFileFactory factory, final int numberOfElements) throws Exception
+   {
+      SequentialFile file = factory.createSequentialFile("00010.page", 1);
+
+      Page impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      impl.open();
+
+      SimpleString simpleDestination = new SimpleString("Test");
+
+      addPageElements(simpleDestination, impl, numberOfElements);
+
+      impl.sync();
+      impl.close();
+
+      Assert.assertEquals(1, factory.listFiles("page").size());
+      Assert.assertEquals(1, factory.listFiles("index").size());
+
+      file = factory.createSequentialFile("00010.page", 1);
+      file.open();
+      impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      for (int i = numberOfElements - 1; i >= 0; i -= 7)
+      {
+         PagedMessage msg = impl.readMessage(new NullStorageManager(), i);
+         Assert.assertNotNull(msg);
+         Assert.assertEquals(i, msg.getMessage().getMessageID());
+      }
+
+      Assert.assertNull(impl.readMessage(new NullStorageManager(), numberOfElements));
+
+      List<PagedMessage> msgs = impl.read(new NullStorageManager(), numberOfElements / 2, 10);
+
+      Assert.assertEquals(10, msgs.size());
+
+      for (int i = 0; i < msgs.size(); i++)
+      {
+         Assert.assertEquals(numberOfElements / 2 + i, msgs.get(i).getMessage().getMessageID());
+      }
+
+      int[] index = impl.getIndex();
+
+      Assert.assertEquals(numberOfElements, index.length);
+
+      file.close();
+
+      factory.createSequentialFile("00010.page" + Page.INDEX_SUFFIX, 1).delete();
+
+      // The offsets of an index loaded earlier don't need the index file
+      file = factory.createSequentialFile("00010.page", 1);
+      file.open();
+      impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      impl.setIndex(index);
+
+      PagedMessage lastMsg = impl.readMessage(new NullStorageManager(), numberOfElements - 1);
+      Assert.assertNotNull(lastMsg);
+      Assert.assertEquals(numberOfElements - 1, lastMsg.getMessage().getMessageID());
+
+      file.close();
+
+      // Without an index the records before the range are skipped
+
+      file = factory.createSequentialFile("00010.page", 1);
+      file.open();
+      impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      Assert.assertNull(impl.readMessage(new NullStorageManager(), 0));
+
+      msgs = impl.read(new NullStorageManager(), numberOfElements - 5, 10);
+
+      Assert.assertEquals(5, msgs.size());
+      Assert.assertEquals(numberOfElements - 5, msgs.get(0).getMessage().getMessageID());
+
+      // Reading the whole page and appending to it keeps the index complete
+      Assert.assertEquals(numberOfElements, impl.read(new NullStorageManager()).size());
+
+      addPageElements(simpleDestination, impl, 1);
+
+      impl.close();
+
+      file = factory.createSequentialFile("00010.page", 1);
+      file.open();
+      impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      PagedMessage msg = impl.readMessage(new NullStorageManager(), numberOfElements);
+      Assert.assertNotNull(msg);
+      Assert.assertEquals(0, msg.getMessage().getMessageID());
+
+      impl.delete(null);
+
+      Assert.assertEquals(0, factory.listFiles("page").size());
+      Assert.assertEquals(0, factory.listFiles("index").size());
+   }
+
    /**
     * @param simpleDestination
     * @param page
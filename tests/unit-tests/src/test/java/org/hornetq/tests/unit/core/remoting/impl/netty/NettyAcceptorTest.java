@@ -72,6 +72,20 @@ public class NettyAcceptorTest extends UnitTestCase
    }
 
    public void testStartStop() throws Exception
+   {
+      startStop(new HashMap<String, Object>());
+   }
+
+   public void testStartStopEpoll() throws Exception
+   {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put(TransportConstants.USE_EPOLL_PROP_NAME, true);
+      params.put(TransportConstants.NIO_REMOTING_BOSS_THREADS_PROPNAME, 2);
+
+      startStop(params);
+   }
+
+   private void startStop(final Map<String, Object> params) throws Exception
    {
       BufferHandler handler = new BufferHandler()
       {
@@ -81,7 +95,6 @@ public class NettyAcceptorTest extends UnitTestCase
          }
       };
 
-      Map<String, Object> params = new HashMap<String, Object>();
       ConnectionLifeCycleListener listener = new ConnectionLifeCycleListener()
       {
 
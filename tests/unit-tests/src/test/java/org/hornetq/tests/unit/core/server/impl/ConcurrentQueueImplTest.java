@@ -0,0 +1,253 @@
+/*
+ * Copyright 2013 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.hornetq.tests.unit.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
+import org.hornetq.core.postoffice.PostOffice;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ConcurrentQueueImpl;
+import org.hornetq.core.settings.HierarchicalRepository;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.core.settings.impl.HierarchicalObjectRepository;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.tests.unit.core.server.impl.fakes.FakeConsumer;
+import org.hornetq.tests.unit.core.server.impl.fakes.FakePostOffice;
+import org.hornetq.tests.util.UnitTestCase;
+
+public class ConcurrentQueueImplTest extends UnitTestCase
+{
+   private static final SimpleString address1 = new SimpleString("address1");
+
+   private static final SimpleString queue1 = new SimpleString("queue1");
+
+   private ScheduledExecutorService scheduledExecutor;
+
+   private ExecutorService executor;
+
+   private HierarchicalRepository<AddressSettings> addressSettings;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+      executor = Executors.newSingleThreadExecutor();
+      addressSettings = new HierarchicalObjectRepository<AddressSettings>();
+      addressSettings.setDefault(new AddressSettings());
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      scheduledExecutor.shutdownNow();
+      executor.shutdownNow();
+      super.tearDown();
+   }
+
+   public void testConcurrentProducers() throws Exception
+   {
+      final ConcurrentQueueImpl queue = createQueue(new FakePostOffice());
+
+      FakeConsumer consumer = new FakeConsumer();
+
+      queue.addConsumer(consumer);
+
+      final int producers = 4;
+
+      final int messagesPerProducer = 2000;
+
+      final CountDownLatch start = new CountDownLatch(1);
+
+      List<Thread> threads = new ArrayList<Thread>();
+
+      for (int i = 0; i < producers; i++)
+      {
+         final int producer = i;
+
+         Thread thread = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  start.await();
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+
+               for (int j = 0; j < messagesPerProducer; j++)
+               {
+                  queue.addTail(generateReference(queue, producer * messagesPerProducer + j), true);
+               }
+            }
+         };
+
+         thread.start();
+
+         threads.add(thread);
+      }
+
+      start.countDown();
+
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+
+      queue.flushExecutor();
+
+      List<MessageReference> received = consumer.getReferences();
+
+      Assert.assertEquals(producers * messagesPerProducer, received.size());
+      Assert.assertEquals(producers * messagesPerProducer, queue.getMessagesAdded());
+
+      // each producer's messages arrive in the order they were sent
+      long[] last = new long[producers];
+
+      for (int i = 0; i < producers; i++)
+      {
+         last[i] = -1;
+      }
+
+      for (MessageReference ref : received)
+      {
+         long id = ref.getMessage().getMessageID();
+
+         int producer = (int)(id / messagesPerProducer);
+
+         Assert.assertTrue(id > last[producer]);
+
+         last[producer] = id;
+      }
+   }
+
+   public void testDeleteMatchingReferences() throws Exception
+   {
+      ConcurrentQueueImpl queue = createQueue(new FakePostOffice());
+
+      List<MessageReference> blue = new ArrayList<MessageReference>();
+
+      for (int i = 0; i < 10; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         ref.getMessage().putStringProperty("color", i % 2 == 0 ? "red" : "blue");
+
+         if (i % 2 != 0)
+         {
+            blue.add(ref);
+         }
+
+         queue.addTail(ref);
+      }
+
+      queue.flushExecutor();
+
+      Assert.assertEquals(5, queue.deleteMatchingReferences(FilterImpl.createFilter("color = 'red'")));
+      Assert.assertEquals(5, queue.getMessageCount());
+      Assert.assertEquals(0, queue.getDeliveringCount());
+
+      FakeConsumer consumer = new FakeConsumer();
+
+      queue.addConsumer(consumer);
+
+      queue.deliverNow();
+
+      assertRefListsIdenticalRefs(blue, consumer.getReferences());
+   }
+
+   public void testFailedMoveRestoresReferences() throws Exception
+   {
+      ConcurrentQueueImpl queue = createQueue(new FakePostOffice()
+      {
+         private int routed;
+
+         @Override
+         public void route(ServerMessage message, Transaction tx, boolean direct, boolean rejectDuplicates) throws Exception
+         {
+            if (++routed == 3)
+            {
+               throw new IllegalStateException("routing failed");
+            }
+         }
+      });
+
+      List<MessageReference> refs = new ArrayList<MessageReference>();
+
+      for (int i = 0; i < 10; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         refs.add(ref);
+
+         queue.addTail(ref);
+      }
+
+      queue.flushExecutor();
+
+      try
+      {
+         queue.moveReferences(null, new SimpleString("other"));
+
+         Assert.fail("the move should have failed");
+      }
+      catch (IllegalStateException e)
+      {
+         // expected
+      }
+
+      Assert.assertEquals(10, queue.getMessageCount());
+      Assert.assertEquals(0, queue.getDeliveringCount());
+
+      FakeConsumer consumer = new FakeConsumer();
+
+      queue.addConsumer(consumer);
+
+      queue.deliverNow();
+
+      assertRefListsIdenticalRefs(refs, consumer.getReferences());
+   }
+
+   private ConcurrentQueueImpl createQueue(final PostOffice postOffice)
+   {
+      return new ConcurrentQueueImpl(1,
+                                     ConcurrentQueueImplTest.address1,
+                                     ConcurrentQueueImplTest.queue1,
+                                     null,
+                                     null,
+                                     false,
+                                     true,
+                                     scheduledExecutor,
+                                     null,
+                                     null,
+                                     postOffice,
+                                     new NullStorageManager(),
+                                     addressSettings,
+                                     executor);
+   }
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
@@ -931,6 +932,125 @@ public class QueueImplTest extends UnitTestCase
       assertRefListsIdenticalRefs(refs, consumer.getReferences());
    }
 
+   public void testSelectorIndexedConsumers() throws Exception
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      QueueImplTest.address1,
+                                      QueueImplTest.queue1,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      new FakePostOffice(),
+                                      null,
+                                      null,
+                                      executor);
+
+      final AtomicInteger handleCalls = new AtomicInteger(0);
+
+      FakeConsumer euConsumer = new FakeConsumer(FilterImpl.createFilter("region = 'EU' AND tenant = 42"))
+      {
+         @Override
+         public synchronized HandleStatus handle(final MessageReference reference)
+         {
+            handleCalls.incrementAndGet();
+            return super.handle(reference);
+         }
+      };
+
+      FakeConsumer usConsumer = new FakeConsumer(FilterImpl.createFilter("region = 'US'"));
+
+      List<MessageReference> euRefs = new ArrayList<MessageReference>();
+
+      List<MessageReference> usRefs = new ArrayList<MessageReference>();
+
+      for (int i = 0; i < 20; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         ref.getMessage().putStringProperty(new SimpleString("region"), new SimpleString(i % 2 == 0 ? "EU" : "US"));
+
+         // an int property is still equal to the long literal
+         ref.getMessage().putIntProperty(new SimpleString("tenant"), i % 4 == 0 ? 42 : 7);
+
+         if (i % 4 == 0)
+         {
+            euRefs.add(ref);
+         }
+         else if (i % 2 == 1)
+         {
+            usRefs.add(ref);
+         }
+
+         queue.addTail(ref);
+      }
+
+      queue.addConsumer(euConsumer);
+
+      queue.addConsumer(usConsumer);
+
+      queue.deliverNow();
+
+      assertRefListsIdenticalRefs(euRefs, euConsumer.getReferences());
+
+      assertRefListsIdenticalRefs(usRefs, usConsumer.getReferences());
+
+      // The EU consumer is only offered the references it matches
+      Assert.assertEquals(euRefs.size(), handleCalls.get());
+
+      Assert.assertEquals(20 - euRefs.size() - usRefs.size(), queue.getMessageCount() - queue.getDeliveringCount());
+   }
+
+   public void testSkippedReferencesCountAgainstTheDeliveryLoop() throws Exception
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      QueueImplTest.address1,
+                                      QueueImplTest.queue1,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      new FakePostOffice(),
+                                      null,
+                                      null,
+                                      executor);
+
+      FakeConsumer euConsumer = new FakeConsumer(FilterImpl.createFilter("region = 'EU'"));
+
+      queue.addConsumer(euConsumer);
+
+      queue.pause();
+
+      int skipped = 3 * QueueImpl.MAX_DELIVERIES_IN_LOOP;
+
+      for (int i = 0; i < skipped; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         ref.getMessage().putStringProperty(new SimpleString("region"), new SimpleString("US"));
+
+         queue.addTail(ref);
+      }
+
+      MessageReference euRef = generateReference(queue, skipped);
+
+      euRef.getMessage().putStringProperty(new SimpleString("region"), new SimpleString("EU"));
+
+      queue.addTail(euRef);
+
+      queue.flushExecutor();
+
+      // resuming runs a single delivery, it gives up before reaching the reference
+      queue.resume();
+
+      queue.flushExecutor();
+
+      Assert.assertTrue(euConsumer.getReferences().isEmpty());
+
+      // the deliveries it handed over to carry on from there
+      Assert.assertSame(euRef, euConsumer.waitForNextReference(5000));
+   }
+
    public void testBusyConsumerWithFilterFirstCallBusy() throws Exception
    {
       QueueImpl queue = new QueueImpl(1,
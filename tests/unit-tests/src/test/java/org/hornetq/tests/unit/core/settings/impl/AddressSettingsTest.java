@@ -55,6 +55,7 @@ public class AddressSettingsTest extends UnitTestCase
       addressSettingsToMerge.setMessageCounterHistoryDayLimit(1002);
       addressSettingsToMerge.setRedeliveryDelay(1003);
       addressSettingsToMerge.setPageSizeBytes(1004);
+      addressSettingsToMerge.setConcurrentQueue(true);
       addressSettings.merge(addressSettingsToMerge);
       Assert.assertEquals(addressSettings.getDeadLetterAddress(), DLQ);
       Assert.assertEquals(addressSettings.getExpiryAddress(), exp);
@@ -64,6 +65,7 @@ public class AddressSettingsTest extends UnitTestCase
       Assert.assertEquals(addressSettings.getRedeliveryDelay(), 1003);
       Assert.assertEquals(addressSettings.getPageSizeBytes(), 1004);
       Assert.assertEquals(AddressFullMessagePolicy.DROP, addressSettings.getAddressFullMessagePolicy());
+      Assert.assertTrue(addressSettings.isConcurrentQueue());
    }
 
    public void testMultipleMerge()